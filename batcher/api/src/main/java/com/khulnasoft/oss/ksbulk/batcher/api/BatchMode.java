@@ -40,5 +40,16 @@ public enum BatchMode {
    * Statement#getKeyspace() routing keyspace} set. If this condition is not met, the batcher will
    * silently fall back to {@code PARTITION_KEY} mode.
    */
-  REPLICA_SET
+  REPLICA_SET,
+
+  /**
+   * Groups together consecutive statements that share the same partition key. This mode is meant
+   * for statements that are sorted or clustered by partition key: statements are never buffered,
+   * and a batch is emitted as soon as a statement with a different partition key is found, or when
+   * the batch is full. Statements sharing the same partition key but that are not consecutive end
+   * up in different batches.
+   *
+   * <p>Partition keys are compared in the same way as in {@link #PARTITION_KEY} mode.
+   */
+  PARTITION_RUN
 }
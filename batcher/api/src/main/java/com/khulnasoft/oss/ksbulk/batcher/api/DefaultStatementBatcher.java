@@ -28,7 +28,6 @@ import com.khulnasoft.oss.driver.api.core.metadata.TokenMap;
 import com.khulnasoft.oss.driver.api.core.metadata.token.Token;
 import com.khulnasoft.oss.driver.api.core.type.codec.registry.CodecRegistry;
 import com.khulnasoft.oss.driver.shaded.guava.common.base.Preconditions;
-import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableList;
 import com.khulnasoft.oss.ksbulk.sampler.DataSizes;
 import com.khulnasoft.oss.ksbulk.sampler.SizeableBatchStatement;
 import edu.umd.cs.findbugs.annotations.NonNull;
@@ -37,16 +36,22 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 public class DefaultStatementBatcher implements StatementBatcher {
 
+  /** The maximum number of drained grouping tables kept for reuse. */
+  private static final int MAX_IDLE_GROUPING_TABLES = Runtime.getRuntime().availableProcessors();
+
+  /** Grouping tables that grew beyond this number of slots are not kept for reuse. */
+  private static final int MAX_IDLE_GROUPING_TABLE_SLOTS = 4096;
+
   protected final CqlSession session;
   protected final BatchMode batchMode;
   protected final BatchType batchType;
@@ -55,6 +60,9 @@ public class DefaultStatementBatcher implements StatementBatcher {
   protected final int maxBatchStatements;
   protected final long maxSizeInBytes;
 
+  private final Queue<GroupingTable> idleGroupingTables =
+      new ArrayBlockingQueue<>(MAX_IDLE_GROUPING_TABLES);
+
   /**
    * Creates a new {@link DefaultStatementBatcher} that produces {@linkplain
    * DefaultBatchType#UNLOGGED unlogged} batches, operates in {@linkplain BatchMode#PARTITION_KEY
@@ -237,62 +245,108 @@ public class DefaultStatementBatcher implements StatementBatcher {
   @NonNull
   public List<Statement<?>> batchByGroupingKey(
       @NonNull Iterable<BatchableStatement<?>> statements) {
-    return StreamSupport.stream(statements.spliterator(), false)
-        .collect(Collectors.groupingBy(this::groupingKey))
-        .values()
-        .stream()
-        .flatMap(stmts -> maybeBatch(stmts).stream())
-        .collect(Collectors.toList());
+    if (batchMode == BatchMode.PARTITION_RUN) {
+      return batchByPartitionRun(statements);
+    }
+    GroupingTable table = acquireGroupingTable();
+    List<Statement<?>> batches = new ArrayList<>();
+    for (BatchableStatement<?> statement : statements) {
+      Statement<?> batch = table.add(statement);
+      if (batch != null) {
+        batches.add(batch);
+      }
+    }
+    table.drain(batches::add);
+    releaseGroupingTable(table);
+    return batches;
   }
 
-  @Override
   @NonNull
-  public List<Statement<?>> batchAll(@NonNull Collection<BatchableStatement<?>> statements) {
-    return maybeBatch(statements);
+  private List<Statement<?>> batchByPartitionRun(
+      @NonNull Iterable<BatchableStatement<?>> statements) {
+    PartitionRun run = newPartitionRun();
+    List<Statement<?>> batches = new ArrayList<>();
+    for (BatchableStatement<?> statement : statements) {
+      Statement<?> batch = run.add(statement);
+      if (batch != null) {
+        batches.add(batch);
+      }
+    }
+    Statement<?> last = run.flush();
+    if (last != null) {
+      batches.add(last);
+    }
+    return batches;
   }
 
+  @Override
   @NonNull
-  private List<Statement<?>> maybeBatch(@NonNull Collection<BatchableStatement<?>> stmts) {
-    Objects.requireNonNull(stmts);
-    Preconditions.checkArgument(!stmts.isEmpty());
+  public List<Statement<?>> batchAll(@NonNull Collection<BatchableStatement<?>> statements) {
+    Objects.requireNonNull(statements);
+    Preconditions.checkArgument(!statements.isEmpty());
     // Don't wrap single statements in batch.
-    if (stmts.size() == 1) {
-      if (stmts instanceof List) {
-        List<BatchableStatement<?>> list = (List<BatchableStatement<?>>) stmts;
-        return Collections.singletonList(list.get(0));
-      } else {
-        return Collections.singletonList(stmts.iterator().next());
-      }
-    } else {
-      ImmutableList.Builder<Statement<?>> batches = ImmutableList.builder();
-      List<BatchableStatement<?>> current = new ArrayList<>();
-      AdaptiveSizingBatchPredicate shouldFlush = new AdaptiveSizingBatchPredicate();
-      for (Iterator<? extends BatchableStatement<?>> it = stmts.iterator(); it.hasNext(); ) {
-        BatchableStatement<?> stmt = it.next();
-        current.add(stmt);
-        if (shouldFlush.test(stmt)) {
-          flush(current, batches);
-          if (it.hasNext()) {
-            current.clear();
-          }
-        }
-      }
-      if (current.size() > 0) {
-        flush(current, batches);
+    if (statements.size() == 1) {
+      return Collections.singletonList(statements.iterator().next());
+    }
+    StatementGroup group = newStatementGroup();
+    List<Statement<?>> batches = new ArrayList<>();
+    for (BatchableStatement<?> statement : statements) {
+      Statement<?> batch = group.add(statement);
+      if (batch != null) {
+        batches.add(batch);
       }
-      return batches.build();
     }
+    Statement<?> last = group.flush();
+    if (last != null) {
+      batches.add(last);
+    }
+    return batches;
+  }
+
+  /** @return a new, empty {@link GroupingTable}. */
+  @NonNull
+  protected GroupingTable newGroupingTable() {
+    return new GroupingTable();
   }
 
-  private void flush(
-      List<BatchableStatement<?>> current, ImmutableList.Builder<Statement<?>> batches) {
-    if (current.size() == 1) {
-      batches.add(current.get(0));
-    } else {
-      batches.add(createBatchStatement(current));
+  /**
+   * Returns an empty {@link GroupingTable}: one that was {@linkplain
+   * #releaseGroupingTable(GroupingTable) released} by an earlier caller if any, or a {@linkplain
+   * #newGroupingTable() new} one otherwise. The table belongs to the caller until it releases it.
+   *
+   * @return an empty {@link GroupingTable}.
+   */
+  @NonNull
+  protected GroupingTable acquireGroupingTable() {
+    GroupingTable table = idleGroupingTables.poll();
+    return table == null ? newGroupingTable() : table;
+  }
+
+  /**
+   * Gives back a table obtained from {@link #acquireGroupingTable()}, so that later callers can
+   * reuse it. The table must have been {@linkplain GroupingTable#drain(Consumer) drained}, and must
+   * not be used by the caller anymore; tables that are not released are simply garbage-collected.
+   *
+   * @param table the drained table.
+   */
+  protected void releaseGroupingTable(@NonNull GroupingTable table) {
+    if (table.size == 0 && table.keys.length <= MAX_IDLE_GROUPING_TABLE_SLOTS) {
+      idleGroupingTables.offer(table);
     }
   }
 
+  /** @return a new, empty {@link PartitionRun}. */
+  @NonNull
+  protected PartitionRun newPartitionRun() {
+    return new PartitionRun();
+  }
+
+  /** @return a new, empty {@link StatementGroup}. */
+  @NonNull
+  protected StatementGroup newStatementGroup() {
+    return new StatementGroup();
+  }
+
   @NonNull
   protected BatchStatement createBatchStatement(@NonNull Iterable<BatchableStatement<?>> children) {
     return new SizeableBatchStatement(
@@ -323,6 +377,7 @@ public class DefaultStatementBatcher implements StatementBatcher {
         // fall-through
 
       case PARTITION_KEY:
+      case PARTITION_RUN:
         if (routingToken != null) {
           return routingToken;
         } else if (routingKey != null && routingKey.hasRemaining()) {
@@ -345,40 +400,245 @@ public class DefaultStatementBatcher implements StatementBatcher {
     return session.getKeyspace().orElse(null);
   }
 
-  protected class AdaptiveSizingBatchPredicate implements Predicate<BatchableStatement<?>> {
+  /**
+   * Accumulates statements into a batch, until the maximum number of statements or the maximum data
+   * size is reached. The group can be reused after being flushed.
+   *
+   * <p>This class is not thread-safe.
+   */
+  protected class StatementGroup {
 
-    private int statementsCounter = 0;
-    private long bytesInCurrentBatch = 0;
+    private final List<BatchableStatement<?>> statements = new ArrayList<>();
+    private long bytes;
 
-    @Override
-    public boolean test(@NonNull BatchableStatement<?> statement) {
-      boolean statementsOverflowBuffer = ++statementsCounter >= getMaxBatchStatements();
-      boolean bytesOverflowBuffer =
-          (bytesInCurrentBatch += calculateSize(statement)) >= getMaxSizeInBytes();
-      boolean shouldFlush = statementsOverflowBuffer || bytesOverflowBuffer;
-      if (shouldFlush) {
-        statementsCounter = 0;
-        bytesInCurrentBatch = 0;
+    /**
+     * Adds the given statement to this group.
+     *
+     * @param statement the statement to add.
+     * @return the resulting batch if this group became full, or {@code null} otherwise.
+     */
+    @Nullable
+    public Statement<?> add(@NonNull BatchableStatement<?> statement) {
+      append(statement);
+      return isFull() ? flush() : null;
+    }
+
+    /**
+     * Empties this group.
+     *
+     * @return the batch made of the accumulated statements, the statement itself if only one
+     *     statement was accumulated, or {@code null} if the group was empty.
+     */
+    @Nullable
+    public Statement<?> flush() {
+      Statement<?> batch;
+      if (statements.isEmpty()) {
+        return null;
+      } else if (statements.size() == 1) {
+        batch = statements.get(0);
+      } else {
+        batch = createBatchStatement(statements);
+      }
+      clear();
+      return batch;
+    }
+
+    void append(@NonNull BatchableStatement<?> statement) {
+      statements.add(statement);
+      // computing data sizes is expensive, only do it if we need to
+      if (maxSizeInBytes > 0) {
+        bytes += DataSizes.getDataSize(statement, protocolVersion, codecRegistry);
       }
-      return shouldFlush;
     }
 
-    long calculateSize(@NonNull Statement<?> statement) {
-      return DataSizes.getDataSize(statement, protocolVersion, codecRegistry);
+    boolean isFull() {
+      return (maxBatchStatements > 0 && statements.size() >= maxBatchStatements)
+          || (maxSizeInBytes > 0 && bytes >= maxSizeInBytes);
     }
 
-    int getMaxBatchStatements() {
-      if (maxBatchStatements <= 0) {
-        return Integer.MAX_VALUE;
+    void clear() {
+      statements.clear();
+      bytes = 0;
+    }
+  }
+
+  /**
+   * Accumulates consecutive statements sharing the same {@linkplain #groupingKey(Statement)
+   * grouping key} into a batch. The batch is emitted when a statement with a different grouping key
+   * is added, or when the batch is full.
+   *
+   * <p>At most one batch is emitted per added statement: when a statement both ends the current run
+   * and fills the next one on its own, the latter is emitted with the next statement or when the
+   * run is flushed.
+   *
+   * <p>This class is not thread-safe.
+   */
+  protected class PartitionRun {
+
+    private final StatementGroup group = newStatementGroup();
+    private Object key;
+
+    /**
+     * Adds the given statement to this run, or starts a new run if the statement does not belong to
+     * the current one.
+     *
+     * @param statement the statement to add.
+     * @return the resulting batch if the current run ended or became full, the statement itself if
+     *     it cannot be grouped, or {@code null} otherwise.
+     */
+    @Nullable
+    public Statement<?> add(@NonNull BatchableStatement<?> statement) {
+      Object key = groupingKey(statement);
+      if (key == statement) {
+        return statement;
+      }
+      Statement<?> batch = null;
+      if (!key.equals(this.key) || group.isFull()) {
+        batch = group.flush();
+        this.key = key;
+      }
+      group.append(statement);
+      if (batch == null && group.isFull()) {
+        batch = group.flush();
       }
-      return maxBatchStatements;
+      return batch;
     }
 
-    long getMaxSizeInBytes() {
-      if (maxSizeInBytes <= 0) {
-        return Long.MAX_VALUE;
+    /**
+     * Ends the current run.
+     *
+     * @return the batch made of the statements in the current run, the statement itself if the run
+     *     contained only one statement, or {@code null} if the run was empty.
+     */
+    @Nullable
+    public Statement<?> flush() {
+      key = null;
+      return group.flush();
+    }
+  }
+
+  /**
+   * Groups statements by {@linkplain #groupingKey(Statement) grouping key}, in an open-addressing
+   * hash table with linear probing. Groups are emitted as soon as they are full, or when the table
+   * is drained. Draining the table leaves it empty but keeps its {@link StatementGroup groups}
+   * allocated, so that it can be reused for the next statements at no cost; the batcher keeps
+   * drained tables for its next calls, see {@link #acquireGroupingTable()}.
+   *
+   * <p>This class is not thread-safe.
+   */
+  protected class GroupingTable {
+
+    private Object[] keys = new Object[64];
+    private StatementGroup[] groups = new StatementGroup[keys.length];
+    // the slots in use, in insertion order; the table is kept at most half full
+    private int[] slots = new int[keys.length / 2];
+    private int size;
+
+    /**
+     * Adds the given statement to the group of statements sharing the same grouping key.
+     *
+     * @param statement the statement to add.
+     * @return the resulting batch if the group became full, the statement itself if it cannot be
+     *     grouped, or {@code null} otherwise.
+     */
+    @Nullable
+    public Statement<?> add(@NonNull BatchableStatement<?> statement) {
+      Object key = groupingKey(statement);
+      if (key == statement) {
+        return statement;
+      }
+      return groupFor(key).add(statement);
+    }
+
+    /**
+     * Flushes all the non-empty groups to the given consumer, in the order they were created, then
+     * empties this table.
+     *
+     * @param consumer the consumer of resulting batches.
+     */
+    public void drain(@NonNull Consumer<? super Statement<?>> consumer) {
+      for (int i = 0; i < size; i++) {
+        int slot = slots[i];
+        Statement<?> batch = groups[slot].flush();
+        if (batch != null) {
+          consumer.accept(batch);
+        }
+        keys[slot] = null;
+      }
+      size = 0;
+    }
+
+    @NonNull
+    private StatementGroup groupFor(@NonNull Object key) {
+      int mask = keys.length - 1;
+      int slot = hash(key) & mask;
+      Object existing;
+      while ((existing = keys[slot]) != null) {
+        if (existing.equals(key)) {
+          return groups[slot];
+        }
+        slot = (slot + 1) & mask;
+      }
+      if (size == slots.length) {
+        grow();
+        return groupFor(key);
+      }
+      keys[slot] = key;
+      slots[size++] = slot;
+      StatementGroup group = groups[slot];
+      if (group == null) {
+        group = groups[slot] = newStatementGroup();
+      }
+      return group;
+    }
+
+    private void grow() {
+      Object[] oldKeys = keys;
+      StatementGroup[] oldGroups = groups;
+      int[] oldSlots = slots;
+      keys = new Object[oldKeys.length * 2];
+      groups = new StatementGroup[keys.length];
+      slots = new int[keys.length / 2];
+      int mask = keys.length - 1;
+      for (int i = 0; i < size; i++) {
+        Object key = oldKeys[oldSlots[i]];
+        int slot = hash(key) & mask;
+        while (keys[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        groups[slot] = oldGroups[oldSlots[i]];
+        slots[i] = slot;
+      }
+    }
+
+    private int hash(@NonNull Object key) {
+      // routing tokens often have poorly distributed low bits
+      int h = key.hashCode() * 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+  }
+
+  /**
+   * A predicate that returns true when a batch made of the statements tested so far should be
+   * flushed, because it reached the maximum number of statements or the maximum data size.
+   *
+   * @deprecated Use {@link StatementGroup} instead, which applies the same limits and accumulates
+   *     the statements as well.
+   */
+  @Deprecated
+  protected class AdaptiveSizingBatchPredicate implements Predicate<BatchableStatement<?>> {
+
+    private final StatementGroup group = newStatementGroup();
+
+    @Override
+    public boolean test(@NonNull BatchableStatement<?> statement) {
+      group.append(statement);
+      if (group.isFull()) {
+        group.clear();
+        return true;
       }
-      return maxSizeInBytes;
+      return false;
     }
   }
 }
@@ -26,6 +26,7 @@ import com.khulnasoft.oss.driver.api.core.ProtocolVersion;
 import com.khulnasoft.oss.driver.api.core.context.DriverContext;
 import com.khulnasoft.oss.driver.api.core.cql.BatchStatement;
 import com.khulnasoft.oss.driver.api.core.cql.BatchableStatement;
+import com.khulnasoft.oss.driver.api.core.cql.DefaultBatchType;
 import com.khulnasoft.oss.driver.api.core.cql.SimpleStatement;
 import com.khulnasoft.oss.driver.api.core.cql.Statement;
 import com.khulnasoft.oss.driver.api.core.data.ByteUtils;
@@ -35,12 +36,15 @@ import com.khulnasoft.oss.driver.api.core.metadata.TokenMap;
 import com.khulnasoft.oss.driver.api.core.metadata.token.Token;
 import com.khulnasoft.oss.driver.api.core.type.codec.registry.CodecRegistry;
 import com.khulnasoft.oss.driver.shaded.guava.common.collect.Sets;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import org.assertj.core.api.iterable.ThrowingExtractor;
 import org.assertj.core.groups.Tuple;
 import org.junit.jupiter.api.BeforeEach;
@@ -323,6 +327,91 @@ public class StatementBatcherTest {
         .contains(tuple(stmt1, stmt2, stmt3, stmt4, stmt5, stmt6));
   }
 
+  @Test
+  void should_batch_many_distinct_routing_keys() {
+    StatementBatcher batcher = new DefaultStatementBatcher(4);
+    List<BatchableStatement<?>> statements = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      ByteBuffer key = ByteBuffer.allocate(4).putInt(0, i % 200);
+      statements.add(SimpleStatement.newInstance("stmt" + i).setRoutingKey(key));
+    }
+    for (int run = 0; run < 2; run++) {
+      List<Statement<?>> batches = batcher.batchByGroupingKey(statements);
+      // 5 statements per routing key: one full batch of 4 and one single statement
+      assertThat(batches).hasSize(400);
+      assertThat(batches).filteredOn(BatchStatement.class::isInstance).hasSize(200);
+      for (Statement<?> batch : batches) {
+        if (batch instanceof BatchStatement) {
+          assertThat((BatchStatement) batch)
+              .hasSize(4)
+              .extracting(Statement::getRoutingKey)
+              .containsOnly(((BatchStatement) batch).iterator().next().getRoutingKey());
+        }
+      }
+    }
+  }
+
+  @Test
+  void should_reuse_grouping_table_across_calls() {
+    AtomicInteger tables = new AtomicInteger();
+    DefaultStatementBatcher batcher =
+        new DefaultStatementBatcher(4) {
+          @NonNull
+          @Override
+          protected GroupingTable newGroupingTable() {
+            tables.incrementAndGet();
+            return super.newGroupingTable();
+          }
+        };
+    assignRoutingKeys();
+    assertThat(batcher.batchByGroupingKey(stmt1, stmt2, stmt3))
+        .extracting(EXTRACTOR)
+        .containsOnly(tuple(stmt1, stmt2), tuple(stmt3));
+    assertThat(batcher.batchByGroupingKey(stmt4, stmt5, stmt6))
+        .extracting(EXTRACTOR)
+        .containsOnly(tuple(stmt4), tuple(stmt5), tuple(stmt6));
+    assertThat(tables).hasValue(1);
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  void should_flush_when_adaptive_sizing_predicate_limit_reached() {
+    DefaultStatementBatcher batcher = new DefaultStatementBatcher(2);
+    Predicate<BatchableStatement<?>> shouldFlush = batcher.new AdaptiveSizingBatchPredicate();
+    assertThat(shouldFlush.test(stmt1)).isFalse();
+    assertThat(shouldFlush.test(stmt2)).isTrue();
+    assertThat(shouldFlush.test(stmt3)).isFalse();
+    assertThat(shouldFlush.test(stmt4)).isTrue();
+  }
+
+  @Test
+  void should_batch_by_partition_run() {
+    assignRoutingKeys();
+    StatementBatcher batcher = new DefaultStatementBatcher(session, BatchMode.PARTITION_RUN);
+    List<Statement<?>> statements =
+        batcher.batchByGroupingKey(stmt1, stmt2, stmt3, stmt4, stmt5, stmt6);
+    assertThat(statements)
+        .extracting(EXTRACTOR)
+        .containsExactly(tuple(stmt1, stmt2), tuple(stmt3, stmt4), tuple(stmt5), tuple(stmt6));
+  }
+
+  @Test
+  void should_honor_max_statements_in_partition_run() {
+    stmt1 = stmt1.setRoutingToken(token1);
+    stmt2 = stmt2.setRoutingToken(token1);
+    stmt3 = stmt3.setRoutingToken(token1);
+    stmt4 = stmt4.setRoutingToken(token1);
+    stmt5 = stmt5.setRoutingToken(token1);
+    stmt6 = stmt6.setRoutingToken(token2);
+    StatementBatcher batcher =
+        new DefaultStatementBatcher(session, BatchMode.PARTITION_RUN, DefaultBatchType.UNLOGGED, 2);
+    List<Statement<?>> statements =
+        batcher.batchByGroupingKey(stmt1, stmt2, stmt3, stmt4, stmt5, stmt6);
+    assertThat(statements)
+        .extracting(EXTRACTOR)
+        .containsExactly(tuple(stmt1, stmt2), tuple(stmt3, stmt4), tuple(stmt5), tuple(stmt6));
+  }
+
   protected void assignRoutingKeys() {
     stmt1 = stmt1.setRoutingKey(key1).setRoutingToken(null);
     stmt2 = stmt2.setRoutingKey(key1).setRoutingToken(null);
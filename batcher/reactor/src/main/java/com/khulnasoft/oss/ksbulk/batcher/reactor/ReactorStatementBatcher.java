@@ -28,8 +28,10 @@ import com.khulnasoft.oss.ksbulk.batcher.api.ReactiveStatementBatcher;
 import com.khulnasoft.oss.ksbulk.batcher.api.ReactiveStatementBatcherFactory;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.util.ArrayList;
+import java.util.List;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public class ReactorStatementBatcher extends DefaultStatementBatcher
     implements ReactiveStatementBatcher {
@@ -172,29 +174,66 @@ public class ReactorStatementBatcher extends DefaultStatementBatcher
   @NonNull
   public Flux<Statement<?>> batchByGroupingKey(
       @NonNull Publisher<BatchableStatement<?>> statements) {
-    return Flux.from(statements).groupBy(this::groupingKey).flatMap(this::batchAll);
+    if (batchMode == BatchMode.PARTITION_RUN) {
+      return batchByPartitionRun(statements);
+    }
+    return Flux.defer(
+        () -> {
+          GroupingTable table = acquireGroupingTable();
+          return Flux.from(statements)
+              .<Statement<?>>handle(
+                  (statement, sink) -> {
+                    Statement<?> batch = table.add(statement);
+                    if (batch != null) {
+                      sink.next(batch);
+                    }
+                  })
+              .concatWith(
+                  Flux.defer(
+                      () -> {
+                        List<Statement<?>> batches = new ArrayList<>();
+                        table.drain(batches::add);
+                        // only a completed flow is done with its table: on error or
+                        // cancellation, the table may still be in use, and is left to the GC
+                        releaseGroupingTable(table);
+                        return Flux.fromIterable(batches);
+                      }));
+        });
+  }
+
+  @NonNull
+  private Flux<Statement<?>> batchByPartitionRun(
+      @NonNull Publisher<BatchableStatement<?>> statements) {
+    return Flux.defer(
+        () -> {
+          PartitionRun run = newPartitionRun();
+          return Flux.from(statements)
+              .<Statement<?>>handle(
+                  (statement, sink) -> {
+                    Statement<?> batch = run.add(statement);
+                    if (batch != null) {
+                      sink.next(batch);
+                    }
+                  })
+              .concatWith(Mono.fromSupplier(run::flush));
+        });
   }
 
   @Override
   @NonNull
   public Flux<Statement<?>> batchAll(@NonNull Publisher<BatchableStatement<?>> statements) {
-    return Flux.from(statements)
-        .windowUntil(new ReactorAdaptiveSizingBatchPredicate(), false)
-        .flatMap(
-            stmts ->
-                stmts
-                    .reduce(
-                        new ArrayList<BatchableStatement<?>>(),
-                        (children, child) -> {
-                          children.add(child);
-                          return children;
-                        })
-                    .map(
-                        children ->
-                            children.size() == 1
-                                ? children.get(0)
-                                : createBatchStatement(children)));
+    return Flux.defer(
+        () -> {
+          StatementGroup group = newStatementGroup();
+          return Flux.from(statements)
+              .<Statement<?>>handle(
+                  (statement, sink) -> {
+                    Statement<?> batch = group.add(statement);
+                    if (batch != null) {
+                      sink.next(batch);
+                    }
+                  })
+              .concatWith(Mono.fromSupplier(group::flush));
+        });
   }
-
-  private class ReactorAdaptiveSizingBatchPredicate extends AdaptiveSizingBatchPredicate {}
 }
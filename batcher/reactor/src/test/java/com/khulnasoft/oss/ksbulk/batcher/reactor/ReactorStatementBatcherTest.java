@@ -21,13 +21,17 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.khulnasoft.oss.driver.api.core.cql.BatchStatement;
+import com.khulnasoft.oss.driver.api.core.cql.BatchableStatement;
+import com.khulnasoft.oss.driver.api.core.cql.DefaultBatchType;
 import com.khulnasoft.oss.driver.api.core.cql.Statement;
 import com.khulnasoft.oss.driver.api.core.metadata.Metadata;
 import com.khulnasoft.oss.driver.api.core.metadata.TokenMap;
 import com.khulnasoft.oss.ksbulk.batcher.api.BatchMode;
 import com.khulnasoft.oss.ksbulk.batcher.api.StatementBatcherTest;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import java.util.HashSet;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Flux;
 
@@ -244,4 +248,58 @@ class ReactorStatementBatcherTest extends StatementBatcherTest {
         .extracting(EXTRACTOR)
         .contains(tuple(stmt1, stmt2, stmt3, stmt4, stmt5, stmt6));
   }
+
+  @Test
+  void should_batch_by_partition_run_reactive() {
+    assignRoutingTokens();
+    ReactorStatementBatcher batcher =
+        new ReactorStatementBatcher(
+            session, BatchMode.PARTITION_RUN, DefaultBatchType.UNLOGGED, 3, -1);
+    Flux<Statement<?>> statements =
+        batcher.batchByGroupingKey(Flux.just(stmt1, stmt2, stmt3, stmt4, stmt5, stmt6));
+    assertThat(statements.collectList().block())
+        .extracting(EXTRACTOR)
+        .containsExactly(tuple(stmt1, stmt2), tuple(stmt3, stmt4), tuple(stmt5, stmt6));
+  }
+
+  @Test
+  void should_reuse_grouping_table_across_windows_reactive() {
+    AtomicInteger tables = new AtomicInteger();
+    ReactorStatementBatcher batcher = newCountingBatcher(tables);
+    assignRoutingKeys();
+    Flux<Statement<?>> statements =
+        Flux.<BatchableStatement<?>>just(stmt1, stmt2, stmt3, stmt4, stmt5, stmt6)
+            .window(3)
+            .flatMap(batcher::batchByGroupingKey);
+    assertThat(statements.collectList().block())
+        .extracting(EXTRACTOR)
+        .containsOnly(tuple(stmt1, stmt2), tuple(stmt3), tuple(stmt4), tuple(stmt5), tuple(stmt6));
+    assertThat(tables).hasValue(1);
+  }
+
+  @Test
+  void should_not_reuse_grouping_table_of_cancelled_flow_reactive() {
+    AtomicInteger tables = new AtomicInteger();
+    ReactorStatementBatcher batcher = newCountingBatcher(tables);
+    assignRoutingKeys();
+    batcher
+        .batchByGroupingKey(Flux.<BatchableStatement<?>>just(stmt1).concatWith(Flux.never()))
+        .subscribe()
+        .dispose();
+    assertThat(batcher.batchByGroupingKey(Flux.just(stmt2, stmt6)).collectList().block())
+        .extracting(EXTRACTOR)
+        .containsOnly(tuple(stmt2, stmt6));
+    assertThat(tables).hasValue(2);
+  }
+
+  private static ReactorStatementBatcher newCountingBatcher(AtomicInteger tables) {
+    return new ReactorStatementBatcher(4) {
+      @NonNull
+      @Override
+      protected GroupingTable newGroupingTable() {
+        tables.incrementAndGet();
+        return super.newGroupingTable();
+      }
+    };
+  }
 }
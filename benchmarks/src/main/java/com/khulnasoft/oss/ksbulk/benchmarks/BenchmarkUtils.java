@@ -0,0 +1,139 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.benchmarks;
+
+import com.khulnasoft.oss.driver.api.core.CqlIdentifier;
+import com.khulnasoft.oss.driver.api.core.ProtocolVersion;
+import com.khulnasoft.oss.driver.api.core.cql.ColumnDefinition;
+import com.khulnasoft.oss.driver.api.core.cql.ColumnDefinitions;
+import com.khulnasoft.oss.driver.api.core.cql.PreparedStatement;
+import com.khulnasoft.oss.driver.api.core.detach.AttachmentPoint;
+import com.khulnasoft.oss.driver.api.core.type.DataType;
+import com.khulnasoft.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.khulnasoft.oss.driver.internal.core.cql.DefaultColumnDefinition;
+import com.khulnasoft.oss.driver.internal.core.cql.DefaultColumnDefinitions;
+import com.khulnasoft.oss.driver.internal.core.cql.DefaultPreparedStatement;
+import com.khulnasoft.oss.driver.internal.core.type.PrimitiveType;
+import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableMap;
+import com.khulnasoft.oss.ksbulk.config.ConfigUtils;
+import com.khulnasoft.oss.protocol.internal.response.result.ColumnSpec;
+import com.khulnasoft.oss.protocol.internal.response.result.RawType;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Fixtures shared by all benchmarks: driver objects that would normally require a live session,
+ * connector settings, and temporary files.
+ */
+public class BenchmarkUtils {
+
+  public static final String KEYSPACE = "ks";
+  public static final String TABLE = "t1";
+
+  /**
+   * Creates a fully-functional {@link PreparedStatement} for an INSERT query with the given
+   * variables, without requiring a session. The first variable is treated as the partition key.
+   */
+  @NonNull
+  public static PreparedStatement prepareInsert(
+      @NonNull List<String> names, @NonNull List<DataType> types) {
+    ColumnDefinitions variables = columnDefinitions(names, types);
+    StringBuilder query = new StringBuilder("INSERT INTO ").append(KEYSPACE).append('.');
+    query.append(TABLE).append(" (").append(String.join(",", names)).append(") VALUES (");
+    for (int i = 0; i < names.size(); i++) {
+      query.append(i == 0 ? ":" : ",:").append(names.get(i));
+    }
+    query.append(')');
+    return new DefaultPreparedStatement(
+        ByteBuffer.wrap(new byte[] {1, 2, 3, 4}),
+        query.toString(),
+        variables,
+        Collections.singletonList(0),
+        null,
+        DefaultColumnDefinitions.valueOf(Collections.emptyList()),
+        CqlIdentifier.fromInternal(KEYSPACE),
+        ImmutableMap.of(),
+        null,
+        null,
+        null,
+        null,
+        null,
+        ImmutableMap.of(),
+        null,
+        null,
+        null,
+        Integer.MIN_VALUE,
+        null,
+        null,
+        false,
+        CodecRegistry.DEFAULT,
+        ProtocolVersion.DEFAULT);
+  }
+
+  /** Creates {@link ColumnDefinitions} for the given names and primitive types. */
+  @NonNull
+  public static ColumnDefinitions columnDefinitions(
+      @NonNull List<String> names, @NonNull List<DataType> types) {
+    List<ColumnDefinition> definitions = new ArrayList<>(names.size());
+    for (int i = 0; i < names.size(); i++) {
+      int protocolCode = ((PrimitiveType) types.get(i)).getProtocolCode();
+      ColumnSpec spec =
+          new ColumnSpec(KEYSPACE, TABLE, names.get(i), i, RawType.PRIMITIVES.get(protocolCode));
+      definitions.add(new DefaultColumnDefinition(spec, AttachmentPoint.NONE));
+    }
+    return DefaultColumnDefinitions.valueOf(definitions);
+  }
+
+  /**
+   * Returns the reference settings for the given connector, overridden with the given key/value
+   * pairs, as if they had been passed on the command line.
+   */
+  @NonNull
+  public static Config connectorSettings(@NonNull String connectorName, Object... keyValues) {
+    Config settings =
+        ConfigUtils.createApplicationConfig(null)
+            .resolve()
+            .getConfig("ksbulk.connector." + connectorName);
+    for (int i = 0; i < keyValues.length; i += 2) {
+      settings =
+          ConfigFactory.parseString(keyValues[i] + "=" + keyValues[i + 1]).withFallback(settings);
+    }
+    return settings;
+  }
+
+  /** Writes the given lines to a new temporary file that will be deleted when the JVM exits. */
+  @NonNull
+  public static Path createTempFile(@NonNull String suffix, @NonNull Stream<String> lines) {
+    try {
+      Path file = Files.createTempFile("ksbulk-benchmark", suffix);
+      file.toFile().deleteOnExit();
+      Files.write(file, (Iterable<String>) lines::iterator);
+      return file;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
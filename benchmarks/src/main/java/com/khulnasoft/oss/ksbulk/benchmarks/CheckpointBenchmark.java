@@ -0,0 +1,129 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.benchmarks;
+
+import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.CheckpointJournal;
+import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.CheckpointJournalWriter;
+import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.CheckpointManager;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of checkpointing records, as done by the log manager for each record that was
+ * written or read: without checkpointing, with checkpointing, and with checkpointing and the
+ * checkpoint journal. Records are consumed mostly in order, but with gaps and failures, and the
+ * journal syncs its file at each interval. Scores are expressed per record.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckpointBenchmark {
+
+  static final int RECORDS = 100_000;
+
+  private static final URI RESOURCE = URI.create("file:///data.csv");
+
+  @Param({"10", "1000"})
+  long journalIntervalMillis;
+
+  private Path dir;
+  private CheckpointJournal journal;
+  private long offset;
+
+  @Setup(Level.Iteration)
+  public void setup() throws Exception {
+    dir = Files.createTempDirectory("ksbulk-benchmark");
+    journal =
+        new CheckpointJournal(
+            dir.resolve("checkpoint.journal"), Duration.ofMillis(journalIntervalMillis));
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() throws Exception {
+    journal.close();
+    Files.deleteIfExists(journal.getFile());
+    Files.deleteIfExists(dir);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void disabled(Blackhole bh) {
+    long start = nextOffset();
+    for (int i = 0; i < RECORDS; i++) {
+      bh.consume(position(start, i));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void enabled(Blackhole bh) {
+    CheckpointManager manager = new CheckpointManager();
+    long start = nextOffset();
+    for (int i = 0; i < RECORDS; i++) {
+      manager.update(RESOURCE, position(start, i), i % 1000 != 0);
+    }
+    bh.consume(manager);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void journaled(Blackhole bh) {
+    CheckpointManager manager = new CheckpointManager();
+    CheckpointJournalWriter writer = journal.newWriter();
+    long start = nextOffset();
+    for (int i = 0; i < RECORDS; i++) {
+      long position = position(start, i);
+      boolean success = i % 1000 != 0;
+      manager.update(RESOURCE, position, success);
+      writer.update(RESOURCE, position, success);
+    }
+    writer.flush();
+    bh.consume(manager);
+  }
+
+  /** Each invocation consumes new positions, as a real operation would. */
+  private long nextOffset() {
+    long start = offset;
+    offset += RECORDS * 2;
+    return start;
+  }
+
+  /** Consumes positions out of order within small windows, and skips one in every 100. */
+  private static long position(long start, int i) {
+    return start + 1 + (i ^ 3) + i / 100;
+  }
+}
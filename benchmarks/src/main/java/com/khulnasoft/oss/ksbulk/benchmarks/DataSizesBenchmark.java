@@ -0,0 +1,104 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.benchmarks;
+
+import com.khulnasoft.oss.driver.api.core.ProtocolVersion;
+import com.khulnasoft.oss.driver.api.core.cql.BatchStatement;
+import com.khulnasoft.oss.driver.api.core.cql.BatchType;
+import com.khulnasoft.oss.driver.api.core.cql.BoundStatement;
+import com.khulnasoft.oss.driver.api.core.cql.PreparedStatement;
+import com.khulnasoft.oss.driver.api.core.cql.SimpleStatement;
+import com.khulnasoft.oss.driver.api.core.type.DataType;
+import com.khulnasoft.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.khulnasoft.oss.ksbulk.sampler.DataSizes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DataSizes#getDataSize(com.khulnasoft.oss.driver.api.core.cql.Statement,
+ * ProtocolVersion, CodecRegistry)} for the statement types that the batcher and the sampler
+ * inspect.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataSizesBenchmark {
+
+  private BoundStatement bound;
+  private SimpleStatement simple;
+  private BatchStatement batch;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    List<String> names = new ArrayList<>();
+    List<DataType> types = new ArrayList<>();
+    List<Object> values = new ArrayList<>();
+    for (SampleColumn column : SampleColumn.SCALARS) {
+      names.add("c" + names.size());
+      types.add(column.getCqlType());
+      values.add(CodecRegistry.DEFAULT.codecFor(column.getCqlType()).parse(cql(column)));
+    }
+    PreparedStatement insert = BenchmarkUtils.prepareInsert(names, types);
+    bound = insert.bind(values.toArray());
+    simple = SimpleStatement.newInstance(insert.getQuery(), values.toArray());
+    List<BoundStatement> children = new ArrayList<>(32);
+    for (int i = 0; i < 32; i++) {
+      children.add(bound);
+    }
+    batch = BatchStatement.newInstance(BatchType.UNLOGGED).addAll(children);
+  }
+
+  @Benchmark
+  public long boundStatement() {
+    return DataSizes.getDataSize(bound, ProtocolVersion.DEFAULT, CodecRegistry.DEFAULT);
+  }
+
+  @Benchmark
+  public long simpleStatement() {
+    return DataSizes.getDataSize(simple, ProtocolVersion.DEFAULT, CodecRegistry.DEFAULT);
+  }
+
+  @Benchmark
+  public long batchStatement() {
+    return DataSizes.getDataSize(batch, ProtocolVersion.DEFAULT, CodecRegistry.DEFAULT);
+  }
+
+  private static String cql(SampleColumn column) {
+    switch (column) {
+      case TIMESTAMP:
+      case DATE:
+      case TEXT:
+        return '\'' + column.getText() + '\'';
+      default:
+        return column.getText();
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.benchmarks;
+
+import com.khulnasoft.oss.driver.api.core.ProtocolVersion;
+import com.khulnasoft.oss.driver.api.core.cql.BatchableStatement;
+import com.khulnasoft.oss.driver.api.core.cql.PreparedStatement;
+import com.khulnasoft.oss.driver.api.core.type.DataType;
+import com.khulnasoft.oss.driver.api.core.type.reflect.GenericType;
+import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableSet;
+import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableSetMultimap;
+import com.khulnasoft.oss.ksbulk.codecs.api.ConvertingCodecFactory;
+import com.khulnasoft.oss.ksbulk.codecs.text.TextConversionContext;
+import com.khulnasoft.oss.ksbulk.connectors.api.ArrayBackedRecord;
+import com.khulnasoft.oss.ksbulk.connectors.api.DefaultMappedField;
+import com.khulnasoft.oss.ksbulk.connectors.api.Field;
+import com.khulnasoft.oss.ksbulk.connectors.api.Record;
+import com.khulnasoft.oss.ksbulk.connectors.api.RecordSchema;
+import com.khulnasoft.oss.ksbulk.mapping.CQLWord;
+import com.khulnasoft.oss.ksbulk.mapping.DefaultMapping;
+import com.khulnasoft.oss.ksbulk.workflow.commons.schema.DefaultRecordMapper;
+import com.khulnasoft.oss.ksbulk.workflow.commons.schema.RecordMapper;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DefaultRecordMapper#map(Record)} for a record shaped like the ones emitted by the
+ * CSV connector when reading a file with a header: each value is present under both its mapped and
+ * its indexed field.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DefaultRecordMapperBenchmark {
+
+  @Param({"8", "64"})
+  int columns;
+
+  private RecordMapper mapper;
+  private Record record;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    List<String> names = new ArrayList<>(columns);
+    List<DataType> types = new ArrayList<>(columns);
+    ImmutableSetMultimap.Builder<Field, CQLWord> fieldsToVariables = ImmutableSetMultimap.builder();
+    Field[] fields = new Field[columns];
+    Object[] values = new Object[columns];
+    for (int i = 0; i < columns; i++) {
+      SampleColumn column = SampleColumn.SCALARS[i % SampleColumn.SCALARS.length];
+      String name = "c" + i;
+      names.add(name);
+      types.add(column.getCqlType());
+      fields[i] = new DefaultMappedField(name);
+      values[i] = column.getText();
+      fieldsToVariables.put(fields[i], CQLWord.fromInternal(name));
+    }
+    PreparedStatement insert = BenchmarkUtils.prepareInsert(names, types);
+    DefaultMapping mapping =
+        new DefaultMapping(
+            fieldsToVariables.build(),
+            new ConvertingCodecFactory(new TextConversionContext()),
+            ImmutableSet.of());
+    mapper =
+        new DefaultRecordMapper(
+            Collections.singletonList(insert),
+            ImmutableSet.of(CQLWord.fromInternal(names.get(0))),
+            ImmutableSet.of(CQLWord.fromInternal(names.get(1))),
+            ProtocolVersion.DEFAULT,
+            mapping,
+            (field, cqlType) -> GenericType.STRING,
+            false,
+            true,
+            false);
+    // same record structure as the one produced by the CSV connector when there is a header
+    Record delegate =
+        new ArrayBackedRecord(
+            RecordSchema.mappedAndIndexed(fields),
+            null,
+            URI.create("file:///benchmark.csv"),
+            1,
+            values);
+    record = new ReusableRecord(delegate);
+  }
+
+  @Benchmark
+  public BatchableStatement<?> map() {
+    return mapper.map(record).blockLast();
+  }
+
+  /**
+   * A record that survives {@link Record#clear()}, which the mapper invokes after each record, so
+   * that the same record can be mapped over and over.
+   */
+  private static class ReusableRecord implements Record {
+
+    private final Record delegate;
+
+    private ReusableRecord(Record delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Object getSource() {
+      return delegate.getSource();
+    }
+
+    @NonNull
+    @Override
+    public URI getResource() {
+      return delegate.getResource();
+    }
+
+    @Override
+    public long getPosition() {
+      return delegate.getPosition();
+    }
+
+    @NonNull
+    @Override
+    public Set<Field> fields() {
+      return delegate.fields();
+    }
+
+    @NonNull
+    @Override
+    public Collection<Object> values() {
+      return delegate.values();
+    }
+
+    @Override
+    public Object getFieldValue(@NonNull Field field) {
+      return delegate.getFieldValue(field);
+    }
+
+    @Override
+    public void clear() {}
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.benchmarks;
+
+import com.khulnasoft.oss.driver.api.core.cql.BatchableStatement;
+import com.khulnasoft.oss.driver.api.core.cql.PreparedStatement;
+import com.khulnasoft.oss.driver.api.core.cql.Statement;
+import com.khulnasoft.oss.driver.api.core.type.DataTypes;
+import com.khulnasoft.oss.ksbulk.batcher.api.DefaultStatementBatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how fast {@link DefaultStatementBatcher} groups a buffer of bound statements by
+ * partition key, for varying buffer sizes and partition key cardinalities. Scores are expressed per
+ * buffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DefaultStatementBatcherBenchmark {
+
+  @Param({"128", "1024"})
+  int bufferSize;
+
+  @Param({"1", "16", "1024"})
+  int distinctPartitions;
+
+  private DefaultStatementBatcher batcher;
+  private List<BatchableStatement<?>> buffer;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    PreparedStatement insert =
+        BenchmarkUtils.prepareInsert(
+            Arrays.asList("pk", "cc", "v"),
+            Arrays.asList(DataTypes.INT, DataTypes.INT, DataTypes.TEXT));
+    buffer = new ArrayList<>(bufferSize);
+    for (int i = 0; i < bufferSize; i++) {
+      buffer.add(insert.bind(i % distinctPartitions, i, "value" + i));
+    }
+    Collections.shuffle(buffer, new Random(42));
+    batcher = new DefaultStatementBatcher(32);
+  }
+
+  @Benchmark
+  public List<Statement<?>> batchByGroupingKey() {
+    return batcher.batchByGroupingKey(buffer);
+  }
+}
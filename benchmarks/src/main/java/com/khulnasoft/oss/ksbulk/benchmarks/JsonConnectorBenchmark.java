@@ -0,0 +1,95 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.benchmarks;
+
+import com.khulnasoft.oss.ksbulk.connectors.api.Resource;
+import com.khulnasoft.oss.ksbulk.connectors.json.JsonConnector;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+/**
+ * Measures how fast the Json connector parses a local, uncompressed file containing one document
+ * per line into records. Scores are expressed per record.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonConnectorBenchmark {
+
+  static final int ROWS = 10_000;
+
+  @Param({"8", "64"})
+  int columns;
+
+  private JsonConnector connector;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    Stream<String> documents =
+        IntStream.range(0, ROWS)
+            .mapToObj(
+                row ->
+                    IntStream.range(0, columns)
+                        .mapToObj(
+                            col ->
+                                "\"c"
+                                    + col
+                                    + "\":"
+                                    + SampleColumn.SCALARS[col % SampleColumn.SCALARS.length]
+                                        .getJson())
+                        .collect(Collectors.joining(",", "{", "}")));
+    Path file = BenchmarkUtils.createTempFile(".json", documents);
+    connector = new JsonConnector();
+    connector.configure(
+        BenchmarkUtils.connectorSettings("json", "url", '"' + file.toUri().toString() + '"'),
+        true,
+        false);
+    connector.init();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    connector.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void readRecords(Blackhole bh) {
+    Flux.from(connector.read()).flatMap(Resource::read).doOnNext(bh::consume).blockLast();
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.benchmarks;
+
+import com.khulnasoft.oss.driver.api.core.ProtocolVersion;
+import com.khulnasoft.oss.ksbulk.codecs.api.ConvertingCodec;
+import com.khulnasoft.oss.ksbulk.codecs.api.ConvertingCodecFactory;
+import com.khulnasoft.oss.ksbulk.codecs.text.TextConversionContext;
+import com.khulnasoft.oss.ksbulk.codecs.text.json.JsonCodecUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the Json codecs created by {@code JsonNodeConvertingCodecProvider}: {@link #parse()} is
+ * the load direction (Json node to bytes), {@link #format()} the unload direction (bytes to Json
+ * node).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonNodeConvertingCodecBenchmark {
+
+  @Param SampleColumn column;
+
+  private ConvertingCodec<JsonNode, Object> codec;
+  private JsonNode node;
+  private ByteBuffer bytes;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    ConvertingCodecFactory codecFactory = new ConvertingCodecFactory(new TextConversionContext());
+    codec =
+        codecFactory.createConvertingCodec(
+            column.getCqlType(), JsonCodecUtils.JSON_NODE_TYPE, true);
+    node = JsonCodecUtils.getObjectMapper().readTree(column.getJson());
+    bytes = codec.encode(node, ProtocolVersion.DEFAULT);
+  }
+
+  @Benchmark
+  public ByteBuffer parse() {
+    return codec.encode(node, ProtocolVersion.DEFAULT);
+  }
+
+  @Benchmark
+  public JsonNode format() {
+    return codec.decode(bytes.duplicate(), ProtocolVersion.DEFAULT);
+  }
+}
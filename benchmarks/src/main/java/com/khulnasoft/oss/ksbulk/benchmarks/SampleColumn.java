@@ -0,0 +1,87 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.benchmarks;
+
+import com.khulnasoft.oss.driver.api.core.type.DataType;
+import com.khulnasoft.oss.driver.api.core.type.DataTypes;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The column types exercised by the benchmarks, each with a representative value as it would appear
+ * in a CSV file and in a Json document.
+ */
+public enum SampleColumn {
+  INT(DataTypes.INT, "123456", "123456"),
+  BIGINT(DataTypes.BIGINT, "1234567890123", "1234567890123"),
+  DOUBLE(DataTypes.DOUBLE, "3.141592653589793", "3.141592653589793"),
+  DECIMAL(DataTypes.DECIMAL, "12345.6789", "12345.6789"),
+  BOOLEAN(DataTypes.BOOLEAN, "true", "true"),
+  TIMESTAMP(DataTypes.TIMESTAMP, "2021-03-04T05:06:07.123Z", "\"2021-03-04T05:06:07.123Z\""),
+  DATE(DataTypes.DATE, "2021-03-04", "\"2021-03-04\""),
+  UUID(
+      DataTypes.UUID,
+      "a4c4bb54-1e2b-4d35-9f0c-3ad1e5d6a7b8",
+      "\"a4c4bb54-1e2b-4d35-9f0c-3ad1e5d6a7b8\""),
+  TEXT(
+      DataTypes.TEXT,
+      "Lorem ipsum dolor sit amet, consectetur adipiscing elit",
+      "\"Lorem ipsum dolor sit amet, consectetur adipiscing elit\""),
+  LIST_OF_INT(DataTypes.listOf(DataTypes.INT), "[1,2,3,4,5,6,7,8,9,10]", "[1,2,3,4,5,6,7,8,9,10]"),
+  MAP_OF_TEXT_INT(
+      DataTypes.mapOf(DataTypes.TEXT, DataTypes.INT),
+      "{\"a\":1,\"b\":2,\"c\":3,\"d\":4}",
+      "{\"a\":1,\"b\":2,\"c\":3,\"d\":4}"),
+  VECTOR_OF_FLOAT(DataTypes.vectorOf(DataTypes.FLOAT, 128), vector(128), vector(128)),
+  ;
+
+  /** The scalar columns, used to build wide rows. */
+  public static final SampleColumn[] SCALARS = {
+    INT, BIGINT, DOUBLE, DECIMAL, BOOLEAN, TIMESTAMP, DATE, UUID, TEXT
+  };
+
+  private final DataType cqlType;
+  private final String text;
+  private final String json;
+
+  SampleColumn(DataType cqlType, String text, String json) {
+    this.cqlType = cqlType;
+    this.text = text;
+    this.json = json;
+  }
+
+  /** The column CQL type. */
+  public DataType getCqlType() {
+    return cqlType;
+  }
+
+  /** A sample value, as it would appear in a CSV file. */
+  public String getText() {
+    return text;
+  }
+
+  /** A sample value, as a Json literal. */
+  public String getJson() {
+    return json;
+  }
+
+  private static String vector(int dimensions) {
+    return IntStream.range(0, dimensions)
+        .mapToObj(i -> String.format(Locale.US, "%.6f", i / (double) dimensions))
+        .collect(Collectors.joining(", ", "[", "]"));
+  }
+}
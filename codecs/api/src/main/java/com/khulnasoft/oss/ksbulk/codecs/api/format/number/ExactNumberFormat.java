@@ -16,6 +16,7 @@
 package com.khulnasoft.oss.ksbulk.codecs.api.format.number;
 
 import com.khulnasoft.oss.ksbulk.codecs.api.util.CodecUtils;
+import com.khulnasoft.oss.ksbulk.codecs.api.util.NumericLiterals;
 import java.text.FieldPosition;
 import java.text.NumberFormat;
 import java.text.ParsePosition;
@@ -27,9 +28,20 @@ import java.text.ParsePosition;
 public class ExactNumberFormat extends NumberFormat {
 
   private final NumberFormat delegate;
+  private final boolean acceptsDecimalLiterals;
 
   public ExactNumberFormat(NumberFormat delegate) {
     this.delegate = delegate;
+    acceptsDecimalLiterals = NumericLiterals.acceptsDecimals(delegate);
+  }
+
+  /**
+   * Whether {@link NumericLiterals} can parse decimal literals on behalf of this format.
+   *
+   * @see NumericLiterals#acceptsDecimals(NumberFormat)
+   */
+  public boolean acceptsDecimalLiterals() {
+    return acceptsDecimalLiterals;
   }
 
   @Override
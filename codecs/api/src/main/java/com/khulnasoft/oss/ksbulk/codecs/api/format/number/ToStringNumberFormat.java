@@ -15,6 +15,7 @@
  */
 package com.khulnasoft.oss.ksbulk.codecs.api.format.number;
 
+import com.khulnasoft.oss.ksbulk.codecs.api.util.NumericLiterals;
 import java.text.FieldPosition;
 import java.text.NumberFormat;
 import java.text.ParsePosition;
@@ -26,9 +27,20 @@ import java.text.ParsePosition;
 public class ToStringNumberFormat extends NumberFormat {
 
   private final NumberFormat delegate;
+  private final boolean acceptsDecimalLiterals;
 
   public ToStringNumberFormat(NumberFormat delegate) {
     this.delegate = delegate;
+    acceptsDecimalLiterals = NumericLiterals.acceptsDecimals(delegate);
+  }
+
+  /**
+   * Whether {@link NumericLiterals} can parse decimal literals on behalf of this format.
+   *
+   * @see NumericLiterals#acceptsDecimals(NumberFormat)
+   */
+  public boolean acceptsDecimalLiterals() {
+    return acceptsDecimalLiterals;
   }
 
   @Override
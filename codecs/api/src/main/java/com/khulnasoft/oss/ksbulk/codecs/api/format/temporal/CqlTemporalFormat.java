@@ -28,23 +28,49 @@ import java.time.chrono.IsoChronology;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.ResolverStyle;
+import java.time.temporal.TemporalAccessor;
 
 /**
  * A special zoned temporal format that recognizes all valid CQL input formats when parsing.
  *
  * <p>When formatting, this format uses {@link DateTimeFormatter#ISO_OFFSET_DATE_TIME} as the
  * formatting pattern, which is compliant with both CQL and ISO-8601.
+ *
+ * <p>The most common ISO-8601 layouts are parsed and formatted by hand-written routines, without
+ * going through {@link DateTimeFormatter}; all other inputs, e.g. inputs with zone names, are
+ * handled by the formatters described above.
  */
 public class CqlTemporalFormat extends ZonedTemporalFormat {
 
   public static final CqlTemporalFormat DEFAULT_INSTANCE = new CqlTemporalFormat(ZoneId.of("UTC"));
 
+  private final ZoneId timeZone;
+
   public CqlTemporalFormat(@NonNull ZoneId timeZone) {
     super(createParser(), createFormatter(timeZone), timeZone);
+    this.timeZone = timeZone;
+  }
+
+  @Override
+  public TemporalAccessor parse(String text) {
+    if (text == null || text.isEmpty()) {
+      return null;
+    }
+    TemporalAccessor temporal = IsoTemporals.parse(text, timeZone);
+    return temporal == null ? super.parse(text) : temporal;
+  }
+
+  @Override
+  public String format(TemporalAccessor temporal) {
+    if (temporal == null) {
+      return null;
+    }
+    String formatted = IsoTemporals.format(temporal, timeZone);
+    return formatted == null ? super.format(temporal) : formatted;
   }
 
   @NonNull
-  private static DateTimeFormatter createParser() {
+  static DateTimeFormatter createParser() {
     // this formatter is a hybrid parser that combines all valid CQL patterns declared in C* 2.2+
     // into a single parser. To achieve that we "cheat" a little bit and accept many optional
     // components that would not make sense together. For example, we accept both 'T' and blank as
@@ -97,7 +123,7 @@ public class CqlTemporalFormat extends ZonedTemporalFormat {
   }
 
   @NonNull
-  private static DateTimeFormatter createFormatter(ZoneId timeZone) {
+  static DateTimeFormatter createFormatter(ZoneId timeZone) {
     return DateTimeFormatter.ISO_OFFSET_DATE_TIME
         .withLocale(US)
         .withResolverStyle(ResolverStyle.STRICT)
@@ -0,0 +1,250 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.codecs.api.format.temporal;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.chrono.IsoChronology;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Hand-written parsing and formatting routines for the most common ISO-8601 date-time layouts, used
+ * by {@link CqlTemporalFormat} to bypass {@link java.time.format.DateTimeFormatter}.
+ *
+ * <p>Both routines return {@code null} when they cannot handle their input with certainty; the
+ * caller is then expected to use a {@link java.time.format.DateTimeFormatter}, which remains the
+ * reference implementation, including for error reporting.
+ */
+final class IsoTemporals {
+
+  private static final int[] POWERS_OF_TEN = {
+    1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000
+  };
+
+  private IsoTemporals() {}
+
+  /**
+   * Parses inputs of the form {@code yyyy-MM-dd[('T'|' ')HH:mm[:ss[.[fffffffff]]]][offset]}, where
+   * offset is one of {@code Z}, {@code +HH}, {@code +HHmm} or {@code +HH:mm}.
+   *
+   * @param text the text to parse, cannot be {@code null}.
+   * @param timeZone the time zone to apply when the input does not contain any offset.
+   * @return the parsed date-time, or {@code null} if the input has any other form or is invalid.
+   */
+  @Nullable
+  static ZonedDateTime parse(@NonNull String text, @NonNull ZoneId timeZone) {
+    int length = text.length();
+    // date part
+    if (length < 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+      return null;
+    }
+    int year = digits(text, 0, 4);
+    int month = digits(text, 5, 2);
+    int day = digits(text, 8, 2);
+    if (year < 0
+        || month < 1
+        || month > 12
+        || day < 1
+        || day > Month.of(month).length(IsoChronology.INSTANCE.isLeapYear(year))) {
+      return null;
+    }
+    // time part
+    int i = 10;
+    int hour = 0;
+    int minute = 0;
+    int second = 0;
+    int nano = 0;
+    if (i + 1 < length
+        && (text.charAt(i) == 'T' || text.charAt(i) == ' ')
+        && isDigit(text.charAt(i + 1))) {
+      i++;
+      if (i + 5 > length || text.charAt(i + 2) != ':') {
+        return null;
+      }
+      hour = digits(text, i, 2);
+      minute = digits(text, i + 3, 2);
+      if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+        return null;
+      }
+      i += 5;
+      if (i < length && text.charAt(i) == ':') {
+        if (i + 3 > length) {
+          return null;
+        }
+        second = digits(text, i + 1, 2);
+        if (second < 0 || second > 59) {
+          return null;
+        }
+        i += 3;
+        if (i < length && text.charAt(i) == '.') {
+          int start = ++i;
+          while (i < length && i - start < 9 && isDigit(text.charAt(i))) {
+            nano = nano * 10 + (text.charAt(i) - '0');
+            i++;
+          }
+          // the fraction can be empty, as in DateTimeFormatter.ISO_LOCAL_TIME
+          int fractionDigits = i - start;
+          if (fractionDigits > 0) {
+            nano *= POWERS_OF_TEN[9 - fractionDigits];
+          }
+        }
+      }
+    }
+    // offset part
+    ZoneId zone;
+    if (i == length) {
+      zone = timeZone;
+    } else {
+      zone = parseOffset(text, i);
+      if (zone == null) {
+        return null;
+      }
+    }
+    return ZonedDateTime.of(LocalDateTime.of(year, month, day, hour, minute, second, nano), zone);
+  }
+
+  @Nullable
+  private static ZoneOffset parseOffset(@NonNull String text, int i) {
+    int length = text.length();
+    char sign = text.charAt(i);
+    if (sign == 'Z') {
+      return i + 1 == length ? ZoneOffset.UTC : null;
+    }
+    if (sign != '+' && sign != '-') {
+      return null;
+    }
+    int hours;
+    int minutes;
+    switch (length - i) {
+      case 3: // +HH
+        hours = digits(text, i + 1, 2);
+        minutes = 0;
+        break;
+      case 5: // +HHmm
+        hours = digits(text, i + 1, 2);
+        minutes = digits(text, i + 3, 2);
+        break;
+      case 6: // +HH:mm
+        if (text.charAt(i + 3) != ':') {
+          return null;
+        }
+        hours = digits(text, i + 1, 2);
+        minutes = digits(text, i + 4, 2);
+        break;
+      default:
+        return null;
+    }
+    if (hours < 0 || hours > 18 || minutes < 0 || minutes > 59 || (hours == 18 && minutes > 0)) {
+      return null;
+    }
+    int totalSeconds = hours * 3600 + minutes * 60;
+    return ZoneOffset.ofTotalSeconds(sign == '-' ? -totalSeconds : totalSeconds);
+  }
+
+  /**
+   * Formats instants and zoned or offset date-times exactly like {@link
+   * java.time.format.DateTimeFormatter#ISO_OFFSET_DATE_TIME} with the given override zone.
+   *
+   * @param temporal the temporal to format, cannot be {@code null}.
+   * @param timeZone the time zone in which to express the temporal.
+   * @return the formatted temporal, or {@code null} if the temporal is of another type, or if its
+   *     year is outside the range [0, 9999].
+   */
+  @Nullable
+  static String format(@NonNull TemporalAccessor temporal, @NonNull ZoneId timeZone) {
+    long epochSecond;
+    int nano;
+    if (temporal instanceof Instant) {
+      epochSecond = ((Instant) temporal).getEpochSecond();
+      nano = ((Instant) temporal).getNano();
+    } else if (temporal instanceof ZonedDateTime) {
+      epochSecond = ((ZonedDateTime) temporal).toEpochSecond();
+      nano = ((ZonedDateTime) temporal).getNano();
+    } else if (temporal instanceof OffsetDateTime) {
+      epochSecond = ((OffsetDateTime) temporal).toEpochSecond();
+      nano = ((OffsetDateTime) temporal).getNano();
+    } else {
+      return null;
+    }
+    ZoneOffset offset =
+        timeZone instanceof ZoneOffset
+            ? (ZoneOffset) timeZone
+            : timeZone.getRules().getOffset(Instant.ofEpochSecond(epochSecond, nano));
+    LocalDateTime local = LocalDateTime.ofEpochSecond(epochSecond, nano, offset);
+    int year = local.getYear();
+    if (year < 0 || year > 9999) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder(35);
+    appendDigits(sb, year, 4);
+    sb.append('-');
+    appendDigits(sb, local.getMonthValue(), 2);
+    sb.append('-');
+    appendDigits(sb, local.getDayOfMonth(), 2);
+    sb.append('T');
+    appendDigits(sb, local.getHour(), 2);
+    sb.append(':');
+    appendDigits(sb, local.getMinute(), 2);
+    sb.append(':');
+    appendDigits(sb, local.getSecond(), 2);
+    if (nano > 0) {
+      // trailing zeros are not printed
+      int fractionDigits = 9;
+      while (nano % 10 == 0) {
+        nano /= 10;
+        fractionDigits--;
+      }
+      sb.append('.');
+      appendDigits(sb, nano, fractionDigits);
+    }
+    if (offset.getTotalSeconds() == 0) {
+      sb.append('Z');
+    } else {
+      sb.append(offset.getId());
+    }
+    return sb.toString();
+  }
+
+  /** Returns the value of count digits starting at start, or -1 if they are not all digits. */
+  private static int digits(@NonNull String text, int start, int count) {
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      char c = text.charAt(i);
+      if (!isDigit(c)) {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static void appendDigits(@NonNull StringBuilder sb, int value, int width) {
+    for (int i = width - 1; i >= 0; i--) {
+      sb.append((char) ('0' + (value / POWERS_OF_TEN[i]) % 10));
+    }
+  }
+}
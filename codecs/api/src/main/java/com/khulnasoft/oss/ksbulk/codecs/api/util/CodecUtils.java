@@ -77,10 +77,13 @@ public class CodecUtils {
   /**
    * Parses the given string as a number.
    *
-   * <p>This method tries first to parse the string as a numeric value, using the given decimal
-   * formatter; then, if that fails, it tries to parse it as an alphanumeric temporal, using the
-   * given parser, and converts it to a numeric timestamp using the given time unit and the given
-   * epoch; and if that fails too, it tries to convert it to a boolean number.
+   * <p>Plain numeric literals, such as {@code 123} or {@code -1.5}, are recognized by {@link
+   * NumericLiterals} first, without going through the decimal formatter.
+   *
+   * <p>Other strings are first parsed as a numeric value, using the given decimal formatter; then,
+   * if that fails, it tries to parse it as an alphanumeric temporal, using the given parser, and
+   * converts it to a numeric timestamp using the given time unit and the given epoch; and if that
+   * fails too, it tries to convert it to a boolean number.
    *
    * @param s the string to parse, may be {@code null}.
    * @param numberFormat the {@link NumberFormat} to use to parse numbers; cannot be {@code null}.
@@ -115,7 +118,11 @@ public class CodecUtils {
     if (s == null || s.isEmpty()) {
       return null;
     }
-    Number number;
+    // 0) try plain numeric literals, the most common case
+    Number number = NumericLiterals.parse(s, NumericLiterals.acceptsDecimals(numberFormat));
+    if (number != null) {
+      return number;
+    }
     try {
       // 1) try user-specified patterns
       number = parseNumber(s, numberFormat);
@@ -0,0 +1,155 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.codecs.api.util;
+
+import com.khulnasoft.oss.ksbulk.codecs.api.format.number.ExactNumberFormat;
+import com.khulnasoft.oss.ksbulk.codecs.api.format.number.ToStringNumberFormat;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+
+/**
+ * A lexer for plain numeric literals, such as {@code 123}, {@code -1.5} or {@code 1.5E3}.
+ *
+ * <p>This lexer recognizes literals with an optional sign, at most 18 digits, an optional fraction
+ * part and an optional exponent, and converts them without going through {@link NumberFormat} nor
+ * throwing exceptions. Its results are always equal, value and scale included, to the ones of
+ * {@link CodecUtils#parseNumber(String, NumberFormat,
+ * com.khulnasoft.oss.ksbulk.codecs.api.format.temporal.TemporalFormat, java.time.ZoneId,
+ * java.util.concurrent.TimeUnit, java.time.ZonedDateTime, java.util.Map, java.util.List)
+ * parseNumber}; when the lexer cannot guarantee that, it returns {@code null} and the string must
+ * be parsed the usual way.
+ */
+public final class NumericLiterals {
+
+  // 10^18 - 1 is the largest number of 18 digits, and fits in a long
+  private static final int MAX_DIGITS = 18;
+
+  // the largest absolute exponent handled; larger exponents are parsed by BigDecimal
+  private static final int MAX_EXPONENT = 9999;
+
+  private NumericLiterals() {}
+
+  /**
+   * Parses the given string if it is a plain numeric literal.
+   *
+   * @param s the string to parse; cannot be {@code null}.
+   * @param decimals whether literals with a fraction part or an exponent can be parsed; this should
+   *     only be the case if '.' is not a grouping separator for the {@link NumberFormat} that would
+   *     otherwise parse the string, see {@link #acceptsDecimals(NumberFormat)}.
+   * @return a {@link Long} if the string is an integer literal, a {@link BigDecimal} if it is a
+   *     decimal literal, or {@code null} if the string is not a plain numeric literal.
+   */
+  @Nullable
+  public static Number parse(@NonNull String s, boolean decimals) {
+    int length = s.length();
+    int i = 0;
+    boolean negative = false;
+    if (length > 0) {
+      char first = s.charAt(0);
+      if (first == '-' || first == '+') {
+        negative = first == '-';
+        i++;
+      }
+    }
+    long unscaled = 0;
+    int start = i;
+    char c = 0;
+    while (i < length && (c = s.charAt(i)) >= '0' && c <= '9') {
+      unscaled = unscaled * 10 + (c - '0');
+      i++;
+    }
+    int digits = i - start;
+    if (digits == 0 || digits > MAX_DIGITS) {
+      return null;
+    }
+    if (i == length) {
+      if (!negative) {
+        return unscaled;
+      }
+      // "-0" is parsed as -0.0d by formats that do not parse BigDecimals: leave it to them
+      return unscaled == 0 ? null : Long.valueOf(-unscaled);
+    }
+    if (!decimals) {
+      return null;
+    }
+    int scale = 0;
+    if (c == '.') {
+      start = ++i;
+      while (i < length && (c = s.charAt(i)) >= '0' && c <= '9') {
+        unscaled = unscaled * 10 + (c - '0');
+        i++;
+      }
+      scale = i - start;
+      digits += scale;
+      if (scale == 0 || digits > MAX_DIGITS) {
+        return null;
+      }
+    }
+    if (i < length) {
+      if (c != 'e' && c != 'E') {
+        return null;
+      }
+      i++;
+      boolean negativeExponent = false;
+      if (i < length && ((c = s.charAt(i)) == '-' || c == '+')) {
+        negativeExponent = c == '-';
+        i++;
+      }
+      int exponent = 0;
+      start = i;
+      while (i < length && (c = s.charAt(i)) >= '0' && c <= '9' && exponent <= MAX_EXPONENT) {
+        exponent = exponent * 10 + (c - '0');
+        i++;
+      }
+      if (i == start || i < length || exponent > MAX_EXPONENT) {
+        return null;
+      }
+      scale += negativeExponent ? exponent : -exponent;
+    }
+    return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+  }
+
+  /**
+   * Returns whether the given format would parse decimal literals written with a '.' decimal
+   * separator to the same value as {@link BigDecimal#BigDecimal(String)}, or fail to parse them.
+   *
+   * <p>This is the case for all {@link DecimalFormat} instances configured to {@linkplain
+   * DecimalFormat#setParseBigDecimal(boolean) parse BigDecimals}, unless they use '.' as grouping
+   * separator, as is the case with some locales, e.g. {@code de_DE}.
+   *
+   * @param format the format to inspect; cannot be {@code null}.
+   * @return true if {@link #parse(String, boolean)} can parse decimal literals on behalf of this
+   *     format.
+   */
+  public static boolean acceptsDecimals(@NonNull NumberFormat format) {
+    if (format instanceof ExactNumberFormat) {
+      return ((ExactNumberFormat) format).acceptsDecimalLiterals();
+    }
+    if (format instanceof ToStringNumberFormat) {
+      return ((ToStringNumberFormat) format).acceptsDecimalLiterals();
+    }
+    if (format instanceof DecimalFormat) {
+      DecimalFormat decimalFormat = (DecimalFormat) format;
+      return decimalFormat.isParseBigDecimal()
+          && (!decimalFormat.isGroupingUsed()
+              || decimalFormat.getDecimalFormatSymbols().getGroupingSeparator() != '.');
+    }
+    return false;
+  }
+}
@@ -25,7 +25,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import com.khulnasoft.oss.driver.shaded.guava.common.collect.Lists;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.DateTimeException;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -64,6 +66,35 @@ class CqlTemporalFormatTest {
     assertThat(actual).isEqualTo(expected);
   }
 
+  @ParameterizedTest(name = "\"{0}\" with zone {1} should parse like DateTimeFormatter")
+  @ArgumentsSource(FastParse.class)
+  void should_parse_like_reference_parser(String input, ZoneId zone) {
+    ZonedTemporalFormat reference =
+        new ZonedTemporalFormat(
+            CqlTemporalFormat.createParser(), CqlTemporalFormat.createFormatter(zone), zone);
+    ZonedDateTime actual = IsoTemporals.parse(input, zone);
+    TemporalAccessor expected;
+    try {
+      expected = reference.parse(input);
+    } catch (DateTimeException e) {
+      assertThat(actual).isNull();
+      return;
+    }
+    if (actual != null) {
+      assertThat(actual.toInstant()).isEqualTo(Instant.from(expected));
+      assertThat(actual.toLocalDateTime()).isEqualTo(LocalDateTime.from(expected));
+    }
+    // the fast path must be taken for all valid inputs, except those with blank-separated zones
+    assertThat(actual != null || input.matches(".* \\D.*")).as(input).isTrue();
+  }
+
+  @ParameterizedTest(name = "{0} with zone {1} should format like DateTimeFormatter")
+  @ArgumentsSource(FastFormat.class)
+  void should_format_like_reference_formatter(TemporalAccessor input, ZoneId zone) {
+    CqlTemporalFormat format = new CqlTemporalFormat(zone);
+    assertThat(format.format(input)).isEqualTo(ISO_OFFSET_DATE_TIME.withZone(zone).format(input));
+  }
+
   // all valid CQL patterns, as used in Cassandra 2.2+
   private static final List<String> PATTERNS =
       Lists.newArrayList(
@@ -185,6 +216,81 @@ class CqlTemporalFormatTest {
     }
   }
 
+  private static class FastParse implements ArgumentsProvider {
+
+    @Override
+    public Stream<? extends Arguments> provideArguments(ExtensionContext context) {
+      List<String> inputs =
+          Lists.newArrayList(
+              "2019-08-01T12:34:56.123456789Z",
+              "2019-08-01T12:34:56.1+01:00",
+              "2019-08-01T12:34:56.000-00:00",
+              "2019-08-01T12:34:56.",
+              "2019-08-01 12:34:56+0530",
+              "2019-08-01T12:34:56-18:00",
+              "2019-08-01+02",
+              "2020-02-29",
+              "0000-01-01T00:00Z",
+              "9999-12-31T23:59:59.999999999Z",
+              // invalid inputs
+              "2019-02-29",
+              "2019-13-01",
+              "2019-08-01T24:00",
+              "2019-08-01T12:60",
+              "2019-08-01T12:34:60",
+              "2019-08-01T12:34:56.1234567890Z",
+              "2019-08-01T12:34:56+19:00",
+              "2019-08-01T12:34:56+01:60",
+              "2019-08-01T12:34:56+1",
+              "2019-08-01T12:34:56z",
+              "2019-08-01t12:34:56",
+              "2019-08-01T",
+              "2019-8-01",
+              "+2019-08-01",
+              " 2019-08-01",
+              "2019-08-01 ");
+      List<Arguments> args = new ArrayList<>();
+      for (ZoneId zone : ZONES) {
+        for (String input : inputs) {
+          args.add(Arguments.of(input, zone));
+        }
+        ZonedDateTime zdt = Instant.parse("2019-08-01T12:34:56.789Z").atZone(zone);
+        for (String pattern : PATTERNS) {
+          if (Parse.checkZone(pattern, zone)) {
+            args.add(Arguments.of(DateTimeFormatter.ofPattern(pattern).format(zdt), zone));
+          }
+        }
+      }
+      return args.stream();
+    }
+  }
+
+  private static class FastFormat implements ArgumentsProvider {
+
+    @Override
+    public Stream<? extends Arguments> provideArguments(ExtensionContext context) {
+      List<Instant> instants =
+          Lists.newArrayList(
+              Instant.EPOCH,
+              Instant.parse("2019-08-01T12:34:56.100Z"),
+              Instant.parse("2019-08-01T12:34:56.000000001Z"),
+              Instant.parse("1969-12-31T23:59:59.999999999Z"),
+              Instant.parse("0000-01-01T00:00:00Z"),
+              Instant.parse("9999-12-31T23:59:59Z"),
+              Instant.parse("+10000-01-01T00:00:00Z"),
+              Instant.parse("-0001-01-01T00:00:00Z"));
+      List<Arguments> args = new ArrayList<>();
+      for (ZoneId zone : ZONES) {
+        for (Instant instant : instants) {
+          args.add(Arguments.of(instant, zone));
+          args.add(Arguments.of(instant.atZone(ZoneOffset.ofHours(5)), zone));
+          args.add(Arguments.of(instant.atOffset(ZoneOffset.ofHours(-5)), zone));
+        }
+      }
+      return args.stream();
+    }
+  }
+
   private static class Format implements ArgumentsProvider {
 
     @Override
@@ -45,6 +45,7 @@ import static java.time.Instant.ofEpochMilli;
 import static java.time.Instant.ofEpochSecond;
 import static java.time.ZoneOffset.UTC;
 import static java.time.ZoneOffset.ofHours;
+import static java.util.Locale.GERMANY;
 import static java.util.Locale.US;
 import static java.util.concurrent.TimeUnit.DAYS;
 import static java.util.concurrent.TimeUnit.HOURS;
@@ -271,6 +272,46 @@ class CodecUtilsTest {
         .isEqualTo(BigDecimal.ZERO);
   }
 
+  @Test
+  void should_parse_numeric_literals() {
+    NumberFormat germanFormat = CodecUtils.getNumberFormat("#,###.##", GERMANY, HALF_EVEN, true);
+    // plain literals
+    assertThat(
+            parseNumber(
+                "-123456",
+                numberFormat1,
+                timestampFormat1,
+                UTC,
+                MILLISECONDS,
+                EPOCH.atZone(UTC),
+                booleanInputWords,
+                booleanNumbers))
+        .isEqualTo(-123456L);
+    assertThat(
+            parseNumber(
+                "1.50E3",
+                numberFormat1,
+                timestampFormat1,
+                UTC,
+                MILLISECONDS,
+                EPOCH.atZone(UTC),
+                booleanInputWords,
+                booleanNumbers))
+        .isEqualTo(new BigDecimal("1.50E3"));
+    // '.' is the grouping separator: the literal must be parsed by the format
+    assertThat(
+            parseNumber(
+                "1.5",
+                germanFormat,
+                timestampFormat1,
+                UTC,
+                MILLISECONDS,
+                EPOCH.atZone(UTC),
+                booleanInputWords,
+                booleanNumbers))
+        .isEqualTo(new BigDecimal("15"));
+  }
+
   @Test
   void should_parse_number() throws ParseException {
     assertThat(parseNumber("1,234.567", numberFormat1)).isEqualTo(new BigDecimal("1234.567"));
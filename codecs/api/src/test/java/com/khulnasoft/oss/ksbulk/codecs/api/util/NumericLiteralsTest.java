@@ -0,0 +1,93 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.codecs.api.util;
+
+import static java.math.RoundingMode.HALF_EVEN;
+import static java.util.Locale.GERMANY;
+import static java.util.Locale.US;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class NumericLiteralsTest {
+
+  @ParameterizedTest
+  @ValueSource(strings = {"0", "1", "-1", "+1", "123456789012345678", "-123456789012345678"})
+  void should_parse_integer_literals(String s) {
+    assertThat(NumericLiterals.parse(s, false)).isEqualTo(Long.parseLong(s));
+    assertThat(NumericLiterals.parse(s, true)).isEqualTo(Long.parseLong(s));
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "0.0",
+        "-0.0",
+        "1.5",
+        "-1.50",
+        "+1.5",
+        "0.000001",
+        "123456789.123456789",
+        "1e3",
+        "1E-3",
+        "-1.5e+10",
+        "1.25E9999",
+        "1.25E-9999"
+      })
+  void should_parse_decimal_literals(String s) {
+    // value and scale must match
+    assertThat(NumericLiterals.parse(s, true)).isEqualTo(new BigDecimal(s));
+    assertThat(NumericLiterals.parse(s, false)).isNull();
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "",
+        "-",
+        "+",
+        "-0",
+        ".5",
+        "1.",
+        "1e",
+        "1e+",
+        "1e10000",
+        "1,000",
+        " 1",
+        "1 ",
+        "0x10",
+        "1d",
+        "NaN",
+        "Infinity",
+        "1234567890123456789",
+        "12345678901234567.89"
+      })
+  void should_not_parse_other_strings(String s) {
+    assertThat(NumericLiterals.parse(s, true)).isNull();
+  }
+
+  @Test
+  void should_accept_decimals_when_dot_is_not_a_grouping_separator() {
+    NumberFormat us = CodecUtils.getNumberFormat("#,###.##", US, HALF_EVEN, true);
+    NumberFormat germany = CodecUtils.getNumberFormat("#,###.##", GERMANY, HALF_EVEN, true);
+    assertThat(NumericLiterals.acceptsDecimals(us)).isTrue();
+    assertThat(NumericLiterals.acceptsDecimals(germany)).isFalse();
+  }
+}
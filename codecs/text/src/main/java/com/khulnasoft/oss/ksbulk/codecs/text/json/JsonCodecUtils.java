@@ -16,12 +16,16 @@
 package com.khulnasoft.oss.ksbulk.codecs.text.json;
 
 import com.khulnasoft.oss.driver.api.core.type.reflect.GenericType;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import java.io.IOException;
 import java.math.BigDecimal;
 
 public class JsonCodecUtils {
@@ -56,4 +60,29 @@ public class JsonCodecUtils {
         .enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
         .build();
   }
+
+  /**
+   * Checks that the given parser has no more tokens after the value it just read, if the given
+   * mapper is configured to {@linkplain DeserializationFeature#FAIL_ON_TRAILING_TOKENS fail on
+   * trailing tokens}.
+   *
+   * @param parser The parser to check, positioned on the last token of the root value.
+   * @param objectMapper The object mapper whose configuration should be honored.
+   * @throws IOException If the parser has trailing tokens.
+   */
+  public static void checkNoTrailingTokens(JsonParser parser, ObjectMapper objectMapper)
+      throws IOException {
+    if (objectMapper.isEnabled(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)) {
+      JsonToken trailing = parser.nextToken();
+      if (trailing != null) {
+        throw MismatchedInputException.from(
+            parser,
+            JsonNode.class,
+            String.format(
+                "Trailing token (of type %s) found after value (bound as %s): "
+                    + "not allowed as per `DeserializationFeature.FAIL_ON_TRAILING_TOKENS`",
+                trailing, JsonNode.class.getName()));
+      }
+    }
+  }
 }
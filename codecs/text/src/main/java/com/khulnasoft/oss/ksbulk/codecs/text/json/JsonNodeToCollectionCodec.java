@@ -15,11 +15,17 @@
  */
 package com.khulnasoft.oss.ksbulk.codecs.text.json;
 
+import com.khulnasoft.oss.driver.api.core.ProtocolVersion;
 import com.khulnasoft.oss.driver.api.core.type.codec.TypeCodec;
 import com.khulnasoft.oss.ksbulk.codecs.api.ConvertingCodec;
+import com.khulnasoft.oss.ksbulk.json.JsonValueReader;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -30,7 +36,9 @@ public abstract class JsonNodeToCollectionCodec<E, C extends Collection<E>>
 
   private final ConvertingCodec<JsonNode, E> eltCodec;
   private final Supplier<C> collectionSupplier;
+  private final Supplier<Collection<ByteBuffer>> encodedCollectionSupplier;
   private final ObjectMapper objectMapper;
+  private final JsonValueReader valueReader;
   private final C emptyCollection;
 
   JsonNodeToCollectionCodec(
@@ -38,12 +46,15 @@ public abstract class JsonNodeToCollectionCodec<E, C extends Collection<E>>
       ConvertingCodec<JsonNode, E> eltCodec,
       ObjectMapper objectMapper,
       Supplier<C> collectionSupplier,
+      Supplier<Collection<ByteBuffer>> encodedCollectionSupplier,
       List<String> nullStrings,
       C emptyCollection) {
     super(collectionCodec, nullStrings);
     this.eltCodec = eltCodec;
     this.objectMapper = objectMapper;
+    valueReader = new JsonValueReader(objectMapper);
     this.collectionSupplier = collectionSupplier;
+    this.encodedCollectionSupplier = encodedCollectionSupplier;
     this.emptyCollection = emptyCollection;
   }
 
@@ -67,6 +78,51 @@ public abstract class JsonNodeToCollectionCodec<E, C extends Collection<E>>
     return collection;
   }
 
+  /**
+   * Encodes the Json array starting at the current token of the given parser directly in the CQL
+   * native protocol format, without materializing the array as a Json tree nor as a Java
+   * collection.
+   *
+   * <p>The result is the same as encoding the collection returned by {@link
+   * #externalToInternal(JsonNode)} for the same array.
+   *
+   * @param parser The parser to read from, positioned on a {@link JsonToken#START_ARRAY} token;
+   *     when this method returns, the parser is positioned on the matching {@link
+   *     JsonToken#END_ARRAY} token.
+   * @param protocolVersion The protocol version to use.
+   * @return The encoded collection.
+   * @throws IOException If the array cannot be read.
+   */
+  public ByteBuffer encode(JsonParser parser, ProtocolVersion protocolVersion) throws IOException {
+    if (!parser.isExpectedStartArrayToken()) {
+      throw new IllegalArgumentException("Expecting ARRAY node, got " + parser.currentToken());
+    }
+    Collection<ByteBuffer> elements = encodedCollectionSupplier.get();
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      JsonNode element = valueReader.readValue(parser);
+      elements.add(eltCodec.encode(element, protocolVersion));
+    }
+    return pack(elements);
+  }
+
+  private static ByteBuffer pack(Collection<ByteBuffer> elements) {
+    int size = 4;
+    for (ByteBuffer element : elements) {
+      if (element == null) {
+        throw new NullPointerException("Collection elements cannot be null");
+      }
+      size += 4 + element.remaining();
+    }
+    ByteBuffer result = ByteBuffer.allocate(size);
+    result.putInt(elements.size());
+    for (ByteBuffer element : elements) {
+      result.putInt(element.remaining());
+      result.put(element.duplicate());
+    }
+    result.flip();
+    return result;
+  }
+
   @Override
   public JsonNode internalToExternal(C value) {
     if (value == null) {
@@ -30,6 +30,13 @@ public class JsonNodeToListCodec<E> extends JsonNodeToCollectionCodec<E, List<E>
       ConvertingCodec<JsonNode, E> eltCodec,
       ObjectMapper objectMapper,
       List<String> nullStrings) {
-    super(collectionCodec, eltCodec, objectMapper, ArrayList::new, nullStrings, ImmutableList.of());
+    super(
+        collectionCodec,
+        eltCodec,
+        objectMapper,
+        ArrayList::new,
+        ArrayList::new,
+        nullStrings,
+        ImmutableList.of());
   }
 }
@@ -15,12 +15,18 @@
  */
 package com.khulnasoft.oss.ksbulk.codecs.text.json;
 
+import com.khulnasoft.oss.driver.api.core.ProtocolVersion;
 import com.khulnasoft.oss.driver.api.core.type.codec.TypeCodec;
 import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableMap;
 import com.khulnasoft.oss.ksbulk.codecs.api.ConvertingCodec;
+import com.khulnasoft.oss.ksbulk.json.JsonValueReader;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -31,6 +37,7 @@ public class JsonNodeToMapCodec<K, V> extends JsonNodeConvertingCodec<Map<K, V>>
   private final ConvertingCodec<String, K> keyCodec;
   private final ConvertingCodec<JsonNode, V> valueCodec;
   private final ObjectMapper objectMapper;
+  private final JsonValueReader valueReader;
   private final Map<K, V> emptyMap;
 
   public JsonNodeToMapCodec(
@@ -43,6 +50,7 @@ public class JsonNodeToMapCodec<K, V> extends JsonNodeConvertingCodec<Map<K, V>>
     this.keyCodec = keyCodec;
     this.valueCodec = valueCodec;
     this.objectMapper = objectMapper;
+    valueReader = new JsonValueReader(objectMapper);
     emptyMap = ImmutableMap.of();
   }
 
@@ -68,6 +76,58 @@ public class JsonNodeToMapCodec<K, V> extends JsonNodeConvertingCodec<Map<K, V>>
     return map;
   }
 
+  /**
+   * Encodes the Json object starting at the current token of the given parser directly in the CQL
+   * native protocol format, without materializing the object as a Json tree nor as a Java map.
+   *
+   * <p>The result is the same as encoding the map returned by {@link #externalToInternal(JsonNode)}
+   * for the same object.
+   *
+   * @param parser The parser to read from, positioned on a {@link JsonToken#START_OBJECT} token;
+   *     when this method returns, the parser is positioned on the matching {@link
+   *     JsonToken#END_OBJECT} token.
+   * @param protocolVersion The protocol version to use.
+   * @return The encoded map.
+   * @throws IOException If the object cannot be read.
+   */
+  public ByteBuffer encode(JsonParser parser, ProtocolVersion protocolVersion) throws IOException {
+    if (!parser.isExpectedStartObjectToken()) {
+      throw new IllegalArgumentException("Expecting OBJECT node, got " + parser.currentToken());
+    }
+    // entries are keyed by their encoded form, so that duplicate keys behave like in a Java map
+    Map<ByteBuffer, ByteBuffer> entries = new LinkedHashMap<>();
+    while (parser.nextToken() != JsonToken.END_OBJECT) {
+      ByteBuffer key = keyCodec.encode(parser.currentName(), protocolVersion);
+      parser.nextToken();
+      JsonNode value = valueReader.readValue(parser);
+      entries.put(key, valueCodec.encode(value, protocolVersion));
+    }
+    return pack(entries);
+  }
+
+  private static ByteBuffer pack(Map<ByteBuffer, ByteBuffer> entries) {
+    int size = 4;
+    for (Map.Entry<ByteBuffer, ByteBuffer> entry : entries.entrySet()) {
+      if (entry.getKey() == null) {
+        throw new NullPointerException("Map keys cannot be null");
+      }
+      if (entry.getValue() == null) {
+        throw new NullPointerException("Map values cannot be null");
+      }
+      size += 8 + entry.getKey().remaining() + entry.getValue().remaining();
+    }
+    ByteBuffer result = ByteBuffer.allocate(size);
+    result.putInt(entries.size());
+    for (Map.Entry<ByteBuffer, ByteBuffer> entry : entries.entrySet()) {
+      result.putInt(entry.getKey().remaining());
+      result.put(entry.getKey().duplicate());
+      result.putInt(entry.getValue().remaining());
+      result.put(entry.getValue().duplicate());
+    }
+    result.flip();
+    return result;
+  }
+
   @Override
   public JsonNode internalToExternal(Map<K, V> map) {
     if (map == null) {
@@ -36,6 +36,8 @@ public class JsonNodeToSetCodec<E> extends JsonNodeToCollectionCodec<E, Set<E>>
         eltCodec,
         objectMapper,
         LinkedHashSet::new,
+        // encoded elements are deduplicated as well
+        LinkedHashSet::new,
         nullStrings,
         ImmutableSet.of());
   }
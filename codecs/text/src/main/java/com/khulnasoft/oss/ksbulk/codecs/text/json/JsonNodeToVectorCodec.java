@@ -15,23 +15,40 @@
  */
 package com.khulnasoft.oss.ksbulk.codecs.text.json;
 
+import com.khulnasoft.oss.driver.api.core.ProtocolVersion;
 import com.khulnasoft.oss.driver.api.core.data.CqlVector;
+import com.khulnasoft.oss.driver.api.core.type.DataTypes;
+import com.khulnasoft.oss.driver.api.core.type.VectorType;
 import com.khulnasoft.oss.driver.internal.core.type.codec.VectorCodec;
 import com.khulnasoft.oss.driver.shaded.guava.common.collect.Streams;
 import com.khulnasoft.oss.ksbulk.codecs.api.ConvertingCodec;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * A codec that converts Json arrays to and from CQL vectors.
+ *
+ * <p>Vectors of floats are encoded directly into the fixed-width CQL vector format, and decoded
+ * directly from it, without materializing a {@link CqlVector}. Elements are still converted by the
+ * subtype codec when encoding, so that overflow and rounding settings apply as usual; anything
+ * unusual, such as a null element or a wrong number of elements, is handed over to {@link
+ * VectorCodec}.
+ */
 public class JsonNodeToVectorCodec<SubtypeT extends Number>
     extends JsonNodeConvertingCodec<CqlVector<SubtypeT>> {
 
   private final ConvertingCodec<JsonNode, SubtypeT> subtypeCodec;
   private final ObjectMapper objectMapper;
 
+  /** The number of dimensions of a float vector, or -1 if this is not a float vector. */
+  private final int floatDimensions;
+
   public JsonNodeToVectorCodec(
       VectorCodec<SubtypeT> targetCodec,
       ConvertingCodec<JsonNode, SubtypeT> subtypeCodec,
@@ -40,6 +57,12 @@ public class JsonNodeToVectorCodec<SubtypeT extends Number>
     super(targetCodec, nullStrings);
     this.subtypeCodec = subtypeCodec;
     this.objectMapper = objectMapper;
+    VectorType vectorType = (VectorType) targetCodec.getCqlType();
+    floatDimensions =
+        vectorType.getElementType().equals(DataTypes.FLOAT)
+                && subtypeCodec instanceof JsonNodeToFloatCodec
+            ? vectorType.getDimensions()
+            : -1;
   }
 
   @Override
@@ -61,4 +84,49 @@ public class JsonNodeToVectorCodec<SubtypeT extends Number>
     }
     return root;
   }
+
+  @Override
+  public ByteBuffer encode(JsonNode jsonNode, @NonNull ProtocolVersion protocolVersion) {
+    if (floatDimensions > 0 && jsonNode != null && jsonNode.size() == floatDimensions) {
+      ByteBuffer bb = encodeFloats(jsonNode);
+      if (bb != null) {
+        return bb;
+      }
+    }
+    return super.encode(jsonNode, protocolVersion);
+  }
+
+  @Override
+  public JsonNode decode(ByteBuffer bytes, @NonNull ProtocolVersion protocolVersion) {
+    if (floatDimensions > 0 && bytes != null && bytes.remaining() == floatDimensions * 4) {
+      ArrayNode root = objectMapper.createArrayNode();
+      int position = bytes.position();
+      for (int i = 0; i < floatDimensions; i++) {
+        root.add(JsonCodecUtils.JSON_NODE_FACTORY.numberNode(bytes.getFloat(position + i * 4)));
+      }
+      return root;
+    }
+    return super.decode(bytes, protocolVersion);
+  }
+
+  private ByteBuffer encodeFloats(JsonNode jsonNode) {
+    if (!jsonNode.isArray()) {
+      return null;
+    }
+    ByteBuffer bb = ByteBuffer.allocate(floatDimensions * 4);
+    for (int i = 0; i < floatDimensions; i++) {
+      JsonNode element = jsonNode.get(i);
+      // fast track for elements that are already floats, otherwise apply the usual conversion
+      if (element.isFloat()) {
+        bb.putFloat(i * 4, element.floatValue());
+      } else {
+        SubtypeT value = subtypeCodec.externalToInternal(element);
+        if (value == null) {
+          return null;
+        }
+        bb.putFloat(i * 4, value.floatValue());
+      }
+    }
+    return bb;
+  }
 }
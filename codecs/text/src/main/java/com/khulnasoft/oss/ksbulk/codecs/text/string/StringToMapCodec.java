@@ -15,12 +15,18 @@
  */
 package com.khulnasoft.oss.ksbulk.codecs.text.string;
 
+import com.khulnasoft.oss.driver.api.core.ProtocolVersion;
 import com.khulnasoft.oss.ksbulk.codecs.api.ConvertingCodec;
+import com.khulnasoft.oss.ksbulk.codecs.text.json.JsonCodecUtils;
+import com.khulnasoft.oss.ksbulk.codecs.text.json.JsonNodeToMapCodec;
 import com.khulnasoft.oss.ksbulk.codecs.text.utils.StringUtils;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 
@@ -51,6 +57,24 @@ public class StringToMapCodec<K, V> extends StringConvertingCodec<Map<K, V>> {
     }
   }
 
+  @Override
+  public ByteBuffer encode(String s, @NonNull ProtocolVersion protocolVersion) {
+    if (!(jsonCodec instanceof JsonNodeToMapCodec)
+        || isNullOrEmpty(s)
+        || !StringUtils.hasBraces(s)) {
+      return super.encode(s, protocolVersion);
+    }
+    // stream the object straight into the protocol format
+    try (JsonParser parser = objectMapper.createParser(s)) {
+      parser.nextToken();
+      ByteBuffer bytes = ((JsonNodeToMapCodec<?, ?>) jsonCodec).encode(parser, protocolVersion);
+      JsonCodecUtils.checkNoTrailingTokens(parser, objectMapper);
+      return bytes;
+    } catch (IOException e) {
+      throw new IllegalArgumentException(String.format("Could not parse '%s' as Json", s), e);
+    }
+  }
+
   @Override
   public String internalToExternal(Map<K, V> map) {
     if (map == null) {
@@ -15,15 +15,35 @@
  */
 package com.khulnasoft.oss.ksbulk.codecs.text.string;
 
+import com.khulnasoft.oss.driver.api.core.ProtocolVersion;
 import com.khulnasoft.oss.driver.api.core.data.CqlVector;
+import com.khulnasoft.oss.driver.api.core.type.DataTypes;
+import com.khulnasoft.oss.driver.api.core.type.VectorType;
 import com.khulnasoft.oss.driver.internal.core.type.codec.VectorCodec;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.nio.ByteBuffer;
 import java.util.List;
 
+/**
+ * A codec that converts textual vector literals such as {@code [1.1, 2.2, 3.3]}.
+ *
+ * <p>Vectors of floats, by far the most common kind, are parsed directly into the fixed-width CQL
+ * vector format when encoding, and formatted directly from it when decoding, without materializing
+ * a {@link CqlVector} of boxed elements. Anything the fast path is not sure about, including all
+ * malformed inputs, is handed over to {@link VectorCodec}, which remains the reference for both
+ * results and errors.
+ */
 public class StringToVectorCodec<SubtypeT extends Number>
     extends StringConvertingCodec<CqlVector<SubtypeT>> {
 
+  /** The number of dimensions of a float vector, or -1 if this is not a float vector. */
+  private final int floatDimensions;
+
   public StringToVectorCodec(VectorCodec<SubtypeT> targetCodec, List<String> nullStrings) {
     super(targetCodec, nullStrings);
+    VectorType vectorType = (VectorType) targetCodec.getCqlType();
+    floatDimensions =
+        vectorType.getElementType().equals(DataTypes.FLOAT) ? vectorType.getDimensions() : -1;
   }
 
   @Override
@@ -35,4 +55,70 @@ public class StringToVectorCodec<SubtypeT extends Number>
   public String internalToExternal(CqlVector<SubtypeT> cqlVector) {
     return this.internalCodec.format(cqlVector);
   }
+
+  @Override
+  public ByteBuffer encode(String s, @NonNull ProtocolVersion protocolVersion) {
+    if (floatDimensions > 0) {
+      ByteBuffer bb = encodeFloats(s);
+      if (bb != null) {
+        return bb;
+      }
+    }
+    return super.encode(s, protocolVersion);
+  }
+
+  @Override
+  public String decode(ByteBuffer bytes, @NonNull ProtocolVersion protocolVersion) {
+    if (floatDimensions > 0 && bytes != null && bytes.remaining() == floatDimensions * 4) {
+      // same output as VectorCodec.format, i.e. Iterables.toString
+      StringBuilder sb = new StringBuilder(floatDimensions * 12).append('[');
+      int position = bytes.position();
+      for (int i = 0; i < floatDimensions; i++) {
+        if (i > 0) {
+          sb.append(", ");
+        }
+        sb.append(bytes.getFloat(position + i * 4));
+      }
+      return sb.append(']').toString();
+    }
+    return super.decode(bytes, protocolVersion);
+  }
+
+  /**
+   * Parses the given literal the same way as {@link CqlVector#from} followed by {@link
+   * VectorCodec#encode} would, or returns null if the input should be handled by the regular path.
+   */
+  private ByteBuffer encodeFloats(String s) {
+    int length = s == null ? 0 : s.length();
+    if (length < 2 || s.charAt(0) != '[' || s.charAt(length - 1) != ']') {
+      return null;
+    }
+    ByteBuffer bb = ByteBuffer.allocate(floatDimensions * 4);
+    int end = length - 1;
+    int start = 1;
+    int count = 0;
+    while (start <= end) {
+      // CqlVector.from splits on a comma followed by a space
+      int comma = s.indexOf(", ", start);
+      if (comma == -1 || comma > end) {
+        comma = end;
+      }
+      if (count == floatDimensions) {
+        // too many elements: let VectorCodec decide
+        return null;
+      }
+      String element = s.substring(start, comma);
+      if (element.isEmpty() || element.equalsIgnoreCase("NULL")) {
+        return null;
+      }
+      try {
+        bb.putFloat(count * 4, Float.parseFloat(element));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+      count++;
+      start = comma + 2;
+    }
+    return count == floatDimensions ? bb : null;
+  }
 }
@@ -46,4 +46,41 @@ public class StringUtils {
     }
     return "{" + value + "}";
   }
+
+  /**
+   * Whether the given string, once trimmed, is surrounded by square brackets; in which case {@link
+   * #ensureBrackets(String)} would return it trimmed but otherwise intact.
+   *
+   * @param value The string to check.
+   * @return true if the string is surrounded by square brackets, ignoring leading and trailing
+   *     whitespace.
+   */
+  public static boolean hasBrackets(String value) {
+    return isSurroundedBy(value, '[', ']');
+  }
+
+  /**
+   * Whether the given string, once trimmed, is surrounded by curly braces; in which case {@link
+   * #ensureBraces(String)} would return it trimmed but otherwise intact.
+   *
+   * @param value The string to check.
+   * @return true if the string is surrounded by curly braces, ignoring leading and trailing
+   *     whitespace.
+   */
+  public static boolean hasBraces(String value) {
+    return isSurroundedBy(value, '{', '}');
+  }
+
+  private static boolean isSurroundedBy(String value, char open, char close) {
+    // same definition of whitespace as String.trim()
+    int start = 0;
+    int end = value.length() - 1;
+    while (start <= end && value.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && value.charAt(end) <= ' ') {
+      end--;
+    }
+    return start < end && value.charAt(start) == open && value.charAt(end) == close;
+  }
 }
@@ -15,6 +15,7 @@
  */
 package com.khulnasoft.oss.ksbulk.codecs.text.json;
 
+import static com.khulnasoft.oss.driver.api.core.ProtocolVersion.V4;
 import static com.khulnasoft.oss.ksbulk.codecs.text.json.JsonCodecUtils.JSON_NODE_FACTORY;
 import static com.khulnasoft.oss.ksbulk.tests.assertions.TestAssertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -29,7 +30,9 @@ import com.khulnasoft.oss.driver.internal.core.type.codec.VectorCodec;
 import com.khulnasoft.oss.driver.shaded.guava.common.collect.Lists;
 import com.khulnasoft.oss.ksbulk.codecs.api.ConvertingCodecFactory;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import org.junit.jupiter.api.Test;
 
@@ -104,4 +107,34 @@ public class JsonNodeToVectorCodecTest {
     assertThatThrownBy(() -> ksbulkCodec.encode(tooFewNode, ProtocolVersion.DEFAULT))
         .isInstanceOf(IllegalArgumentException.class);
   }
+
+  @Test
+  void should_encode_like_vector_codec() throws Exception {
+    ObjectMapper mapper = JsonCodecUtils.getObjectMapper();
+    for (String s :
+        new String[] {
+          "[1.1,2.2,3.3,4.4,5.5]", "[1,2,3,4,5]", "[\"1\",\"-2.5e3\",3,4,5]", "[1,2,3,4,5,6]"
+        }) {
+      JsonNode node = mapper.readTree(s);
+      assertThat(ksbulkCodec.encode(node, V4))
+          .isEqualTo(vectorCodec.encode(ksbulkCodec.externalToInternal(node), V4));
+    }
+    vectorDoc.forEach(element -> assertThat(element.isFloat()).isTrue());
+    assertThat(ksbulkCodec.encode(vectorDoc, V4)).isEqualTo(vectorCodec.encode(vector, V4));
+    assertThat(ksbulkCodec.encode(JSON_NODE_FACTORY.textNode(""), V4)).isNull();
+    for (String s : new String[] {"[1,2,3,4]", "[1,null,3,4,5]", "[1,\"\",3,4,5]"}) {
+      JsonNode node = mapper.readTree(s);
+      assertThatThrownBy(() -> ksbulkCodec.encode(node, V4))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Test
+  void should_decode_like_vector_codec() {
+    CqlVector<Float> vector =
+        CqlVector.newInstance(1.1f, -0f, Float.NaN, Float.MIN_VALUE, Float.MAX_VALUE);
+    ByteBuffer bytes = vectorCodec.encode(vector, V4);
+    assertThat(ksbulkCodec.decode(bytes, V4)).isEqualTo(ksbulkCodec.internalToExternal(vector));
+    assertThat(bytes.remaining()).isEqualTo(20);
+  }
 }
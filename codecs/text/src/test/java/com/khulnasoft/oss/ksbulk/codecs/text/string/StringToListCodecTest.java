@@ -15,7 +15,9 @@
  */
 package com.khulnasoft.oss.ksbulk.codecs.text.string;
 
+import static com.khulnasoft.oss.driver.api.core.ProtocolVersion.V4;
 import static com.khulnasoft.oss.ksbulk.tests.assertions.TestAssertions.assertThat;
+import static com.khulnasoft.oss.ksbulk.tests.assertions.TestAssertions.assertThatThrownBy;
 
 import com.khulnasoft.oss.driver.api.core.type.DataTypes;
 import com.khulnasoft.oss.driver.api.core.type.reflect.GenericType;
@@ -174,6 +176,27 @@ class StringToListCodecTest {
         .toExternal("NULL");
   }
 
+  @Test
+  void should_encode_like_converted_value() {
+    for (String s :
+        new String[] {"[1,2,3]", "1,2,3", " [ 1 , 1 ] ", "[1.5e3,\"1,234.56\"]", "[]"}) {
+      assertThat(codec1.encode(s, V4))
+          .isEqualTo(codec1.getInternalCodec().encode(codec1.externalToInternal(s), V4));
+    }
+    for (String s : new String[] {"['foo','bar']", "[\"foo\",\"\"]", "[\"NULL\"]"}) {
+      assertThat(codec3.encode(s, V4))
+          .isEqualTo(codec3.getInternalCodec().encode(codec3.externalToInternal(s), V4));
+    }
+    assertThat(codec1.encode("NULL", V4)).isNull();
+    assertThat(codec1.encode("", V4)).isNull();
+    assertThatThrownBy(() -> codec1.encode("[1,,2]", V4))
+        .isInstanceOf(NullPointerException.class)
+        .hasMessage("Collection elements cannot be null");
+    assertThatThrownBy(() -> codec1.encode("[1,2] [3]", V4))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Could not parse '[1,2] [3]' as Json");
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(codec1).cannotConvertFromExternal("[1,\"not a valid double\"]");
@@ -15,7 +15,9 @@
  */
 package com.khulnasoft.oss.ksbulk.codecs.text.string;
 
+import static com.khulnasoft.oss.driver.api.core.ProtocolVersion.V4;
 import static com.khulnasoft.oss.ksbulk.tests.assertions.TestAssertions.assertThat;
+import static com.khulnasoft.oss.ksbulk.tests.assertions.TestAssertions.assertThatThrownBy;
 
 import com.khulnasoft.oss.driver.api.core.type.DataTypes;
 import com.khulnasoft.oss.driver.api.core.type.reflect.GenericType;
@@ -94,6 +96,27 @@ class StringToMapCodecTest {
         .toExternal("NULL");
   }
 
+  @Test
+  void should_encode_like_converted_value() {
+    // duplicate keys must be merged
+    for (String s :
+        new String[] {
+          "{1 : [\"foo\", \"bar\"], 2:[\"qix\"]}",
+          "1 : [\"foo\", \"bar\"], 2:[\"qix\"]",
+          "{ '1,234.56' : ['foo'] , '1234.560' : ['bar'], 1: [] }",
+          "{}"
+        }) {
+      assertThat(codec.encode(s, V4))
+          .isEqualTo(codec.getInternalCodec().encode(codec.externalToInternal(s), V4));
+    }
+    assertThatThrownBy(() -> codec.encode("{1: null}", V4))
+        .isInstanceOf(NullPointerException.class)
+        .hasMessage("Map values cannot be null");
+    assertThatThrownBy(() -> codec.encode("{'': []}", V4))
+        .isInstanceOf(NullPointerException.class)
+        .hasMessage("Map keys cannot be null");
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(codec)
@@ -15,7 +15,9 @@
  */
 package com.khulnasoft.oss.ksbulk.codecs.text.string;
 
+import static com.khulnasoft.oss.driver.api.core.ProtocolVersion.V4;
 import static com.khulnasoft.oss.ksbulk.tests.assertions.TestAssertions.assertThat;
+import static com.khulnasoft.oss.ksbulk.tests.assertions.TestAssertions.assertThatThrownBy;
 
 import com.khulnasoft.oss.driver.api.core.type.DataTypes;
 import com.khulnasoft.oss.driver.api.core.type.reflect.GenericType;
@@ -143,6 +145,22 @@ class StringToSetCodecTest {
         .toExternal("NULL");
   }
 
+  @Test
+  void should_encode_like_converted_value() {
+    // duplicates must be removed
+    for (String s : new String[] {"[1,2,3]", "[1,1.0,'1']", "[3,2,1,2]", "[]"}) {
+      assertThat(codec1.encode(s, V4))
+          .isEqualTo(codec1.getInternalCodec().encode(codec1.externalToInternal(s), V4));
+    }
+    for (String s : new String[] {"['foo','bar','foo']", "[\"\",\"\"]"}) {
+      assertThat(codec2.encode(s, V4))
+          .isEqualTo(codec2.getInternalCodec().encode(codec2.externalToInternal(s), V4));
+    }
+    assertThatThrownBy(() -> codec2.encode("[null,'foo']", V4))
+        .isInstanceOf(NullPointerException.class)
+        .hasMessage("Collection elements cannot be null");
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(codec1)
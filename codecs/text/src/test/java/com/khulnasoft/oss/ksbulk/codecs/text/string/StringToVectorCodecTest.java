@@ -15,6 +15,7 @@
  */
 package com.khulnasoft.oss.ksbulk.codecs.text.string;
 
+import static com.khulnasoft.oss.driver.api.core.ProtocolVersion.V4;
 import static com.khulnasoft.oss.ksbulk.tests.assertions.TestAssertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -25,6 +26,7 @@ import com.khulnasoft.oss.driver.api.core.type.codec.TypeCodecs;
 import com.khulnasoft.oss.driver.internal.core.type.DefaultVectorType;
 import com.khulnasoft.oss.driver.internal.core.type.codec.VectorCodec;
 import com.khulnasoft.oss.driver.shaded.guava.common.collect.Lists;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import org.junit.jupiter.api.Test;
 
@@ -88,4 +90,45 @@ public class StringToVectorCodecTest {
     assertThatThrownBy(() -> ksbulkCodec.encode(tooFewString, ProtocolVersion.DEFAULT))
         .isInstanceOf(IllegalArgumentException.class);
   }
+
+  @Test
+  void should_encode_like_vector_codec() {
+    for (String s :
+        new String[] {
+          "[1.1, 2.2, 3.3, 4.4, 5.5]",
+          "[ -1 , 2.5e3 , NaN, -Infinity, 0x1p3 ]",
+          "[1e39, 1e-46, -0, 4f, 5d]",
+          "[1, 2, 3, 4, 5, 6]"
+        }) {
+      assertThat(ksbulkCodec.encode(s, V4)).isEqualTo(vectorCodec.encode(vectorCodec.parse(s), V4));
+    }
+    assertThat(ksbulkCodec.encode("NULL", V4)).isNull();
+    assertThat(ksbulkCodec.encode("", V4)).isNull();
+    for (String s :
+        new String[] {
+          "[1, 2, 3, 4]",
+          "[1,2,3,4,5]",
+          "[1, , 3, 4, 5]",
+          "[1, NULL, 3, 4, 5]",
+          "[1, a, 3, 4, 5]",
+          "[1, 2, 3, 4, 5, ]",
+          " [1, 2, 3, 4, 5]",
+          "[1, 2, 3, 4, 5",
+          "[]"
+        }) {
+      assertThatThrownBy(() -> ksbulkCodec.encode(s, V4))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Test
+  void should_decode_like_vector_codec() {
+    CqlVector<Float> vector =
+        CqlVector.newInstance(1.1f, -0f, Float.NaN, Float.MIN_VALUE, Float.MAX_VALUE);
+    ByteBuffer bytes = vectorCodec.encode(vector, V4);
+    assertThat(ksbulkCodec.decode(bytes, V4)).isEqualTo("[1.1, -0.0, NaN, 1.4E-45, 3.4028235E38]");
+    assertThat(bytes.remaining()).isEqualTo(20);
+    assertThat(ksbulkCodec.decode(vectorCodec.encode(this.vector, V4), V4))
+        .isEqualTo(vectorCodec.format(this.vector));
+  }
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.connectors.api;
+
+import com.khulnasoft.oss.driver.shaded.guava.common.base.MoreObjects;
+import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableList;
+import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableSet;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.net.URI;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A {@link Record} whose values are stored in an array, and whose fields are described by a {@link
+ * RecordSchema} shared with other records.
+ *
+ * <p>Contrary to {@link DefaultRecord}, creating such a record does not allocate any per-field
+ * object: accessing a value by field is a lookup of the field's slot in the schema, followed by an
+ * array access. This makes this implementation well suited for connectors that read records with a
+ * fixed structure, such as CSV files.
+ *
+ * <p>Array-backed records are equal to {@link DefaultRecord}s with the same fields and values.
+ */
+public class ArrayBackedRecord implements Record {
+
+  private final RecordSchema schema;
+  private final Object source;
+  private final URI resource;
+  private final long position;
+
+  private Object[] values;
+
+  /**
+   * Creates a new record.
+   *
+   * @param schema the record schema.
+   * @param source the record source (its original form); may be null if the source cannot be
+   *     determined or should not be retained.
+   * @param resource the record resource (where it comes from: file, database, etc).
+   * @param position the record position inside the resource (line number, etc.).
+   * @param values the record values, in slot order; the array is not copied.
+   * @throws IllegalArgumentException if the number of values does not match the schema width.
+   */
+  public ArrayBackedRecord(
+      @NonNull RecordSchema schema,
+      @Nullable Object source,
+      @NonNull URI resource,
+      long position,
+      @NonNull Object[] values) {
+    if (schema.width() != values.length) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Expecting record to contain %d fields but found %d.",
+              schema.width(), values.length));
+    }
+    this.schema = schema;
+    this.source = source;
+    this.resource = resource;
+    this.position = position;
+    this.values = values;
+  }
+
+  /** @return The record schema. */
+  @NonNull
+  public RecordSchema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Returns the value in the given slot; this is faster than {@link #getFieldValue(Field)} when the
+   * slot has been {@linkplain RecordSchema#slotOf(Field) resolved} beforehand.
+   *
+   * @param slot the slot, as returned by {@link RecordSchema#slotOf(Field)}.
+   * @return the value in the given slot, or null if this record has been cleared.
+   */
+  @Nullable
+  public Object getValue(int slot) {
+    Object[] values = this.values;
+    return values == null ? null : values[slot];
+  }
+
+  @Nullable
+  @Override
+  public Object getSource() {
+    return source;
+  }
+
+  @NonNull
+  @Override
+  public URI getResource() {
+    return resource;
+  }
+
+  @Override
+  public long getPosition() {
+    return position;
+  }
+
+  @NonNull
+  @Override
+  public Set<Field> fields() {
+    return values == null ? ImmutableSet.of() : schema.fields();
+  }
+
+  @NonNull
+  @Override
+  public Collection<Object> values() {
+    if (values == null) {
+      return ImmutableList.of();
+    }
+    Object[] values = this.values;
+    return new AbstractList<Object>() {
+      @Override
+      public Object get(int index) {
+        return values[schema.slotAt(index)];
+      }
+
+      @Override
+      public int size() {
+        return schema.fields().size();
+      }
+    };
+  }
+
+  @Nullable
+  @Override
+  public Object getFieldValue(@NonNull Field field) {
+    if (values == null) {
+      return null;
+    }
+    int slot = schema.slotOf(field);
+    return slot == -1 ? null : values[slot];
+  }
+
+  @Override
+  public void clear() {
+    values = null;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder entries = new StringBuilder("[");
+    Iterator<Object> it = values().iterator();
+    for (Field field : fields()) {
+      if (entries.length() > 1) {
+        entries.append(", ");
+      }
+      entries.append(field).append('=').append(it.next());
+    }
+    return MoreObjects.toStringHelper(this)
+        .add("source", source)
+        .add("resource", resource)
+        .add("position", position)
+        .add("entries", entries.append(']'))
+        .toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Record)) {
+      return false;
+    }
+    Record that = (Record) o;
+    return this.getPosition() == that.getPosition()
+        && Objects.equals(this.getSource(), that.getSource())
+        && Objects.equals(this.getResource(), that.getResource())
+        && sameEntries(this, that);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(entriesHashCode(this), source, resource, position);
+  }
+
+  /** Compares the fields and values of two records, regardless of their implementation. */
+  static boolean sameEntries(@NonNull Record r1, @NonNull Record r2) {
+    Set<Field> fields = r1.fields();
+    if (!fields.equals(r2.fields())) {
+      return false;
+    }
+    for (Field field : fields) {
+      if (!Objects.equals(r1.getFieldValue(field), r2.getFieldValue(field))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Computes a hash code for the fields and values of a record, using the same algorithm as {@link
+   * java.util.Map#hashCode()}, so that it is consistent with {@link DefaultRecord#hashCode()}.
+   */
+  static int entriesHashCode(@NonNull Record record) {
+    int h = 0;
+    Iterator<Object> it = record.values().iterator();
+    for (Field field : record.fields()) {
+      h += Objects.hashCode(field) ^ Objects.hashCode(it.next());
+    }
+    return h;
+  }
+}
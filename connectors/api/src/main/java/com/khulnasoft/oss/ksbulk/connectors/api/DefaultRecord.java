@@ -194,10 +194,11 @@ public class DefaultRecord extends LinkedHashMap<Field, Object> implements Recor
     if (!(o instanceof Record)) {
       return false;
     }
-    if (!super.equals(o)) {
+    Record that = (Record) o;
+    // also compare with other implementations, such as ArrayBackedRecord
+    if (o instanceof Map ? !super.equals(o) : !ArrayBackedRecord.sameEntries(this, that)) {
       return false;
     }
-    Record that = (Record) o;
     return this.getPosition() == that.getPosition()
         && Objects.equals(this.getSource(), that.getSource())
         && Objects.equals(that.getResource(), this.getResource());
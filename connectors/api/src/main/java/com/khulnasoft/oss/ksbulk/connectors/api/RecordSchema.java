@@ -0,0 +1,152 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.connectors.api;
+
+import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableMap;
+import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableSet;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * The fields of a family of {@linkplain ArrayBackedRecord array-backed records}, and the position
+ * of each field's value in the records' value arrays, a.k.a. its <em>slot</em>.
+ *
+ * <p>A schema is typically created once per resource, e.g. from a file header, and shared by all
+ * the records read from that resource, so that field-to-slot resolution is not repeated for each
+ * record.
+ *
+ * <p>A schema can expose each value under two fields, a {@link MappedField} and an {@link
+ * IndexedField}: both resolve to the same slot, see {@link #mappedAndIndexed(Field...)}.
+ */
+public final class RecordSchema {
+
+  private static final RecordSchema[] INDEXED = new RecordSchema[64];
+
+  static {
+    for (int i = 0; i < INDEXED.length; i++) {
+      INDEXED[i] = new RecordSchema(new Field[0], i);
+    }
+  }
+
+  /**
+   * Returns a schema for records containing the given number of values, each value being exposed
+   * under an {@link IndexedField}.
+   *
+   * @param width the number of values.
+   * @return an indexed schema.
+   */
+  @NonNull
+  public static RecordSchema indexed(int width) {
+    return width < INDEXED.length ? INDEXED[width] : new RecordSchema(new Field[0], width);
+  }
+
+  /**
+   * Returns a schema for records containing one value for each of the given fields, in the same
+   * order.
+   *
+   * @param fields the fields.
+   * @return a mapped schema.
+   */
+  @NonNull
+  public static RecordSchema mapped(@NonNull Field... fields) {
+    return new RecordSchema(fields, 0);
+  }
+
+  /**
+   * Returns a schema for records containing one value for each of the given fields, in the same
+   * order; each value is also exposed under an {@link IndexedField} whose index is the position of
+   * the field in the given array.
+   *
+   * @param fields the fields.
+   * @return a mapped schema whose values are also indexed.
+   */
+  @NonNull
+  public static RecordSchema mappedAndIndexed(@NonNull Field... fields) {
+    return new RecordSchema(fields, fields.length);
+  }
+
+  private final int width;
+  private final int indexed;
+  private final ImmutableSet<Field> fields;
+  private final ImmutableMap<Field, Integer> mappedSlots;
+  // slot of each field, in the iteration order of fields
+  private final int[] slots;
+
+  private RecordSchema(Field[] mapped, int indexed) {
+    this.width = Math.max(mapped.length, indexed);
+    this.indexed = indexed;
+    ImmutableSet.Builder<Field> fieldsBuilder = ImmutableSet.builder();
+    ImmutableMap.Builder<Field, Integer> slotsBuilder = ImmutableMap.builder();
+    int[] slots = new int[mapped.length + indexed];
+    for (int i = 0; i < mapped.length; i++) {
+      fieldsBuilder.add(mapped[i]);
+      slotsBuilder.put(mapped[i], i);
+      slots[i] = i;
+    }
+    for (int i = 0; i < indexed; i++) {
+      fieldsBuilder.add(new DefaultIndexedField(i));
+      slots[mapped.length + i] = i;
+    }
+    this.fields = fieldsBuilder.build();
+    // throws if there are duplicate fields
+    this.mappedSlots = slotsBuilder.build();
+    if (fields.size() != slots.length) {
+      throw new IllegalArgumentException("Duplicate fields: " + Arrays.toString(mapped));
+    }
+    this.slots = slots;
+  }
+
+  /** @return The number of values in records of this schema. */
+  public int width() {
+    return width;
+  }
+
+  /**
+   * @return The fields of this schema: the mapped fields, if any, followed by the indexed fields,
+   *     if any.
+   */
+  @NonNull
+  public Set<Field> fields() {
+    return fields;
+  }
+
+  /**
+   * Returns the slot of the given field, that is, the index of its value in the values array of
+   * records of this schema.
+   *
+   * @param field the field.
+   * @return the slot of the field, or -1 if the field does not belong to this schema.
+   */
+  public int slotOf(@NonNull Field field) {
+    if (field instanceof IndexedField) {
+      int index = ((IndexedField) field).getFieldIndex();
+      if (index < indexed) {
+        return index;
+      }
+    }
+    Integer slot = mappedSlots.get(field);
+    return slot == null ? -1 : slot;
+  }
+
+  /**
+   * @param i the position of a field in the iteration order of {@link #fields()}.
+   * @return the slot of that field.
+   */
+  int slotAt(int i) {
+    return slots[i];
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.connectors.api;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import org.reactivestreams.Publisher;
+
+/**
+ * A resource that can be read starting from a record other than the first one, without reading the
+ * records that precede it.
+ *
+ * <p>While being read, a seekable resource reports <em>sync points</em>: pairs of a record position
+ * and of the byte offset at which that record starts in the resource. Sync points are facts about
+ * the resource contents, and remain valid as long as the resource is not modified; a later read can
+ * start from any of them.
+ */
+public interface SeekableResource extends Resource {
+
+  /**
+   * Reads this resource from its first record, and reports the sync points found while reading.
+   *
+   * @param listener A listener to notify of the sync points found while reading.
+   * @return A publisher that will emit records from this resource.
+   */
+  @NonNull
+  Publisher<Record> read(@NonNull SyncPointListener listener);
+
+  /**
+   * Reads this resource starting from the given sync point, and reports the sync points found while
+   * reading.
+   *
+   * @param position The position of the first record to read; must be the position of a sync point
+   *     previously reported for this resource.
+   * @param offset The byte offset at which the first record to read starts; must be the offset of
+   *     the same sync point.
+   * @param listener A listener to notify of the sync points found while reading, or null if sync
+   *     points need not be tracked.
+   * @return A publisher that will emit records from this resource, starting at the given position.
+   */
+  @NonNull
+  Publisher<Record> read(long position, long offset, @Nullable SyncPointListener listener);
+
+  /** A listener for the sync points of a {@link SeekableResource}. */
+  @FunctionalInterface
+  interface SyncPointListener {
+
+    /**
+     * Called when a sync point is found.
+     *
+     * @param position The position of the record starting at the sync point.
+     * @param offset The byte offset at which the record starts.
+     */
+    void onSyncPoint(long position, long offset);
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.connectors.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URI;
+import org.junit.jupiter.api.Test;
+
+class ArrayBackedRecordTest {
+
+  private static final URI RESOURCE = URI.create("file://file1.csv");
+
+  private static final Field F1 = new DefaultMappedField("f1");
+  private static final Field F2 = new DefaultMappedField("f2");
+  private static final Field F3 = new DefaultMappedField("f3");
+
+  @Test
+  void should_expose_mapped_values() {
+    ArrayBackedRecord record =
+        new ArrayBackedRecord(
+            RecordSchema.mapped(F1, F2), "source", RESOURCE, 1, new Object[] {"v1", "v2"});
+    assertThat(record.fields()).containsExactly(F1, F2);
+    assertThat(record.values()).containsExactly("v1", "v2");
+    assertThat(record.getFieldValue(new DefaultMappedField("f2"))).isEqualTo("v2");
+    assertThat(record.getFieldValue(F1)).isEqualTo("v1");
+  }
+
+  @Test
+  void should_expose_values_under_mapped_and_indexed_fields() {
+    ArrayBackedRecord record =
+        new ArrayBackedRecord(
+            RecordSchema.mappedAndIndexed(F1, F2),
+            "source",
+            RESOURCE,
+            1,
+            new Object[] {"v1", "v2"});
+    assertThat(record.fields())
+        .containsExactly(F1, F2, new DefaultIndexedField(0), new DefaultIndexedField(1));
+    assertThat(record.values()).containsExactly("v1", "v2", "v1", "v2");
+    assertThat(record.getFieldValue(new DefaultIndexedField(1))).isEqualTo("v2");
+  }
+
+  @Test
+  void should_return_null_for_missing_field() {
+    ArrayBackedRecord record =
+        new ArrayBackedRecord(
+            RecordSchema.mapped(F1, F2), "source", RESOURCE, 1, new Object[] {"v1", "v2"});
+    assertThat(record.getFieldValue(F3)).isNull();
+    assertThat(record.getFieldValue(new DefaultIndexedField(0))).isNull();
+  }
+
+  @Test
+  void should_reject_missing_or_extra_values() {
+    RecordSchema schema = RecordSchema.mapped(F1, F2);
+    assertThatThrownBy(() -> new ArrayBackedRecord(schema, null, RESOURCE, 1, new Object[] {"v1"}))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Expecting record to contain 2 fields but found 1.");
+    assertThatThrownBy(
+            () -> new ArrayBackedRecord(schema, null, RESOURCE, 1, new Object[] {"v1", "v2", "v3"}))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Expecting record to contain 2 fields but found 3.");
+  }
+
+  @Test
+  void should_be_empty_when_cleared() {
+    ArrayBackedRecord record =
+        new ArrayBackedRecord(
+            RecordSchema.mapped(F1, F2), "source", RESOURCE, 1, new Object[] {"v1", "v2"});
+    record.clear();
+    assertThat(record.fields()).isEmpty();
+    assertThat(record.values()).isEmpty();
+    assertThat(record.getFieldValue(F1)).isNull();
+  }
+
+  @Test
+  void should_equal_default_record_with_same_entries() {
+    ArrayBackedRecord record =
+        new ArrayBackedRecord(
+            RecordSchema.mapped(F1, F2), "source", RESOURCE, 1, new Object[] {"v1", null});
+    DefaultRecord other =
+        DefaultRecord.mapped("source", RESOURCE, 1, new Field[] {F1, F2}, "v1", null);
+    assertThat(record).isEqualTo(other).hasSameHashCodeAs(other);
+    assertThat(other).isEqualTo(record);
+  }
+
+  @Test
+  void should_equal_indexed_default_record_with_same_entries() {
+    ArrayBackedRecord record =
+        new ArrayBackedRecord(
+            RecordSchema.indexed(2), "source", RESOURCE, 1, new Object[] {"v1", "v2"});
+    DefaultRecord other = DefaultRecord.indexed("source", RESOURCE, 1, "v1", "v2");
+    assertThat(record).isEqualTo(other).hasSameHashCodeAs(other);
+    assertThat(other).isEqualTo(record);
+  }
+
+  @Test
+  void should_not_equal_default_record_with_different_entries() {
+    ArrayBackedRecord record =
+        new ArrayBackedRecord(
+            RecordSchema.mapped(F1, F2), "source", RESOURCE, 1, new Object[] {"v1", "v2"});
+    // missing field
+    DefaultRecord missing = DefaultRecord.mapped("source", RESOURCE, 1, new Field[] {F1}, "v1");
+    // extra field
+    DefaultRecord extra =
+        DefaultRecord.mapped("source", RESOURCE, 1, new Field[] {F1, F2, F3}, "v1", "v2", "v3");
+    // different value
+    DefaultRecord different =
+        DefaultRecord.mapped("source", RESOURCE, 1, new Field[] {F1, F2}, "v1", "other");
+    // different position
+    DefaultRecord moved =
+        DefaultRecord.mapped("source", RESOURCE, 2, new Field[] {F1, F2}, "v1", "v2");
+    for (DefaultRecord other : new DefaultRecord[] {missing, extra, different, moved}) {
+      assertThat(record).isNotEqualTo(other);
+      assertThat(other).isNotEqualTo(record);
+    }
+  }
+
+  @Test
+  void should_equal_array_backed_record_with_same_entries_in_other_schema() {
+    ArrayBackedRecord record =
+        new ArrayBackedRecord(
+            RecordSchema.mapped(F1, F2), "source", RESOURCE, 1, new Object[] {"v1", "v2"});
+    ArrayBackedRecord other =
+        new ArrayBackedRecord(
+            RecordSchema.mapped(F2, F1), "source", RESOURCE, 1, new Object[] {"v2", "v1"});
+    assertThat(record).isEqualTo(other).hasSameHashCodeAs(other);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.connectors.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class RecordSchemaTest {
+
+  private static final Field F1 = new DefaultMappedField("f1");
+  private static final Field F2 = new DefaultMappedField("f2");
+  private static final Field F3 = new DefaultMappedField("f3");
+
+  @Test
+  void should_resolve_slots_of_mapped_fields() {
+    RecordSchema schema = RecordSchema.mapped(F1, F2);
+    assertThat(schema.width()).isEqualTo(2);
+    assertThat(schema.fields()).containsExactly(F1, F2);
+    assertThat(schema.slotOf(F1)).isZero();
+    assertThat(schema.slotOf(new DefaultMappedField("f2"))).isOne();
+    assertThat(schema.slotOf(F3)).isEqualTo(-1);
+    // mapped fields are not reachable by index
+    assertThat(schema.slotOf(new DefaultIndexedField(0))).isEqualTo(-1);
+  }
+
+  @Test
+  void should_resolve_slots_of_indexed_fields() {
+    RecordSchema schema = RecordSchema.indexed(3);
+    assertThat(schema.width()).isEqualTo(3);
+    assertThat(schema.fields())
+        .containsExactly(
+            new DefaultIndexedField(0), new DefaultIndexedField(1), new DefaultIndexedField(2));
+    assertThat(schema.slotOf(new DefaultIndexedField(2))).isEqualTo(2);
+    assertThat(schema.slotOf(new DefaultIndexedField(3))).isEqualTo(-1);
+    assertThat(schema.slotOf(F1)).isEqualTo(-1);
+  }
+
+  @Test
+  void should_resolve_slots_of_mapped_and_indexed_fields() {
+    RecordSchema schema = RecordSchema.mappedAndIndexed(F1, F2);
+    assertThat(schema.width()).isEqualTo(2);
+    assertThat(schema.fields())
+        .containsExactly(F1, F2, new DefaultIndexedField(0), new DefaultIndexedField(1));
+    assertThat(schema.slotOf(F2)).isOne();
+    assertThat(schema.slotOf(new DefaultIndexedField(1))).isOne();
+    assertThat(schema.slotOf(new DefaultIndexedField(2))).isEqualTo(-1);
+    for (int i = 0; i < schema.fields().size(); i++) {
+      assertThat(schema.slotAt(i)).isEqualTo(i % 2);
+    }
+  }
+
+  @Test
+  void should_share_small_indexed_schemas() {
+    assertThat(RecordSchema.indexed(5)).isSameAs(RecordSchema.indexed(5));
+    assertThat(RecordSchema.indexed(100).width()).isEqualTo(100);
+  }
+
+  @Test
+  void should_reject_duplicate_fields() {
+    assertThatThrownBy(() -> RecordSchema.mapped(F1, F2, new DefaultMappedField("f1")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -67,6 +67,7 @@ public abstract class AbstractFileBasedConnector implements Connector {
   protected static final String MAX_CONCURRENT_FILES = "maxConcurrentFiles";
   protected static final String RECURSIVE = "recursive";
   protected static final String FILE_NAME_FORMAT = "fileNameFormat";
+  protected static final String MEMORY_MAPPED = "memoryMapped";
 
   protected boolean read;
   protected boolean retainRecordSources;
@@ -75,6 +76,7 @@ public abstract class AbstractFileBasedConnector implements Connector {
   protected List<URL> files = new ArrayList<>();
   protected Charset encoding;
   protected String compression;
+  protected boolean memoryMapped;
   protected String fileNameFormat;
   protected boolean recursive;
   protected String pattern;
@@ -121,6 +123,7 @@ public abstract class AbstractFileBasedConnector implements Connector {
               String.join(",", CompressedIOUtils.getSupportedCompressions(read)),
               compression));
     }
+    memoryMapped = settings.getBoolean(MEMORY_MAPPED);
     pattern = settings.getString(FILE_NAME_PATTERN);
     if (!CompressedIOUtils.isNoneCompression(compression)
         && ConfigUtils.hasReferenceValue(settings, FILE_NAME_PATTERN)) {
@@ -170,12 +173,7 @@ public abstract class AbstractFileBasedConnector implements Connector {
     assert read;
     return Flux.concat(
             Flux.fromIterable(roots).flatMap(this::scanRootDirectory), Flux.fromIterable(files))
-        .map(
-            url -> {
-              URI resource = URI.create(url.toExternalForm());
-              Flux<Record> flux = readSingleFile(url, resource).transform(this::applyPerFileLimits);
-              return new DefaultResource(resource, flux);
-            });
+        .concatMap(this::readResources);
   }
 
   @NonNull
@@ -253,6 +251,24 @@ public abstract class AbstractFileBasedConnector implements Connector {
   @NonNull
   protected abstract String getConnectorName();
 
+  /**
+   * Returns the resources to read for the given URL. Used during the {@linkplain #read() data
+   * reading phase}.
+   *
+   * <p>This implementation returns one single resource per URL, whose records are read with {@link
+   * #readSingleFile(URL, URI)}. Subclasses may override this method to split large files into
+   * several resources that can be read in parallel.
+   *
+   * @param url The URL to read; must not be null.
+   * @return The resources to read; never null but may be empty.
+   */
+  @NonNull
+  protected Publisher<Resource> readResources(@NonNull URL url) {
+    URI resource = URI.create(url.toExternalForm());
+    Flux<Record> flux = readSingleFile(url, resource).transform(this::applyPerFileLimits);
+    return Mono.just(new DefaultResource(resource, flux));
+  }
+
   /**
    * Reads a single text file accessible through the given URL. Used during the {@linkplain #read()
    * data reading phase}.
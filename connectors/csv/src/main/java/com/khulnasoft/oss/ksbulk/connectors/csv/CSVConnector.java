@@ -17,18 +17,23 @@ package com.khulnasoft.oss.ksbulk.connectors.csv;
 
 import com.khulnasoft.oss.driver.api.core.type.reflect.GenericType;
 import com.khulnasoft.oss.ksbulk.config.ConfigUtils;
+import com.khulnasoft.oss.ksbulk.connectors.api.ArrayBackedRecord;
 import com.khulnasoft.oss.ksbulk.connectors.api.CommonConnectorFeature;
 import com.khulnasoft.oss.ksbulk.connectors.api.ConnectorFeature;
 import com.khulnasoft.oss.ksbulk.connectors.api.DefaultErrorRecord;
-import com.khulnasoft.oss.ksbulk.connectors.api.DefaultIndexedField;
 import com.khulnasoft.oss.ksbulk.connectors.api.DefaultMappedField;
-import com.khulnasoft.oss.ksbulk.connectors.api.DefaultRecord;
 import com.khulnasoft.oss.ksbulk.connectors.api.Field;
 import com.khulnasoft.oss.ksbulk.connectors.api.MappedField;
 import com.khulnasoft.oss.ksbulk.connectors.api.Record;
 import com.khulnasoft.oss.ksbulk.connectors.api.RecordMetadata;
+import com.khulnasoft.oss.ksbulk.connectors.api.RecordSchema;
+import com.khulnasoft.oss.ksbulk.connectors.api.Resource;
+import com.khulnasoft.oss.ksbulk.connectors.api.SeekableResource;
+import com.khulnasoft.oss.ksbulk.connectors.api.SeekableResource.SyncPointListener;
 import com.khulnasoft.oss.ksbulk.connectors.commons.AbstractFileBasedConnector;
+import com.khulnasoft.oss.ksbulk.connectors.csv.CSVFileSplitter.Chunk;
 import com.khulnasoft.oss.ksbulk.io.CompressedIOUtils;
+import com.khulnasoft.oss.ksbulk.io.IOUtils;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
 import com.univocity.parsers.common.ParsingContext;
@@ -40,6 +45,7 @@ import com.univocity.parsers.csv.CsvParserSettings;
 import com.univocity.parsers.csv.CsvWriter;
 import com.univocity.parsers.csv.CsvWriterSettings;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.io.Reader;
 import java.net.URI;
@@ -47,11 +53,17 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLStreamHandler;
 import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.publisher.SynchronousSink;
 
 /**
@@ -61,6 +73,16 @@ import reactor.core.publisher.SynchronousSink;
  * handler} installed for it. For file URLs, it is also capable of reading several files at once
  * from a given root directory.
  *
+ * <p>When {@code splitSize} is set, local uncompressed files larger than that size are split into
+ * several resources, one per chunk of the file, that can be parsed in parallel; see {@link
+ * CSVFileSplitter}.
+ *
+ * <p>Local uncompressed files are read as {@linkplain SeekableResource seekable resources}: while
+ * they are parsed, and if the operation asks for it, the byte offsets of some records are derived
+ * from the parser's own character offsets, so that an interrupted operation can later resume from
+ * the record it stopped at, without parsing the preceding records again. The conditions are the
+ * same as for splitting files, except that {@code splitSize} need not be set.
+ *
  * <p>This connector is highly configurable; see its {@code ksbulk-reference.conf} file, bundled
  * within its jar archive, for detailed information.
  */
@@ -88,8 +110,18 @@ public class CSVConnector extends AbstractFileBasedConnector {
   private static final String NORMALIZE_LINE_ENDINGS_IN_QUOTES = "normalizeLineEndingsInQuotes";
   private static final String NULL_VALUE = "nullValue";
   private static final String EMPTY_VALUE = "emptyValue";
+  private static final String SPLIT_SIZE = "splitSize";
   private static final String AUTO = "AUTO";
 
+  /** The minimum number of bytes between two sync points. */
+  private static final long MIN_SYNC_INTERVAL = 16 * 1024 * 1024;
+
+  /** The maximum number of sync points per resource. */
+  private static final long MAX_SYNC_POINTS = 1024;
+
+  /** The input buffer size, in chars, of the parsers that only read the header line of a file. */
+  private static final int HEADER_BUFFER_SIZE = 8 * 1024;
+
   private String delimiter;
   private char quote;
   private char escape;
@@ -105,7 +137,12 @@ public class CSVConnector extends AbstractFileBasedConnector {
   private boolean normalizeLineEndingsInQuotes;
   private String nullValue;
   private String emptyValue;
+  private long splitSize;
+  private boolean splittable;
+  private boolean seekable;
   private CsvParserSettings parserSettings;
+  private CsvParserSettings chunkParserSettings;
+  private CsvParserSettings headerParserSettings;
   private CsvWriterSettings writerSettings;
 
   @Override
@@ -140,6 +177,7 @@ public class CSVConnector extends AbstractFileBasedConnector {
       normalizeLineEndingsInQuotes = settings.getBoolean(NORMALIZE_LINE_ENDINGS_IN_QUOTES);
       nullValue = settings.getIsNull(NULL_VALUE) ? null : settings.getString(NULL_VALUE);
       emptyValue = settings.getIsNull(EMPTY_VALUE) ? null : settings.getString(EMPTY_VALUE);
+      splitSize = ConfigUtils.getBytes(settings, SPLIT_SIZE);
       if (!AUTO_NEWLINE.equalsIgnoreCase(newline) && (newline.isEmpty() || newline.length() > 2)) {
         throw new IllegalArgumentException(
             String.format(
@@ -182,6 +220,15 @@ public class CSVConnector extends AbstractFileBasedConnector {
       } else {
         format.setLineSeparator(newline);
       }
+      // chunks other than the first one do not contain the header line
+      chunkParserSettings = parserSettings.clone();
+      chunkParserSettings.setHeaderExtractionEnabled(false);
+      // these chunks read the header line separately, and nothing else
+      headerParserSettings = parserSettings.clone();
+      headerParserSettings.setInputBufferSize(HEADER_BUFFER_SIZE);
+      headerParserSettings.setReadInputOnSeparateThread(false);
+      splittable = isSplittingEnabled(autoNewline);
+      seekable = isSeekingEnabled(autoNewline);
     } else {
       writerSettings = new CsvWriterSettings();
       writerSettings.setFormat(format);
@@ -202,6 +249,52 @@ public class CSVConnector extends AbstractFileBasedConnector {
     }
   }
 
+  private boolean isSplittingEnabled(boolean autoNewline) {
+    if (splitSize <= 0) {
+      return false;
+    }
+    if (!CompressedIOUtils.isNoneCompression(compression)) {
+      LOGGER.debug("Files will not be split because they are compressed");
+      return false;
+    }
+    if (skipRecords > 0 || maxRecords != -1) {
+      LOGGER.warn(
+          "Setting connector.csv.{} is ignored when {} or {} are set",
+          SPLIT_SIZE,
+          SKIP_RECORDS,
+          MAX_RECORDS);
+      return false;
+    }
+    if (!CSVFileSplitter.isSplittable(
+        encoding, delimiter, quote, escape, comment, autoNewline ? "\n" : newline)) {
+      LOGGER.warn(
+          "Setting connector.csv.{} is ignored: files can only be split when the encoding is "
+              + "ASCII-compatible and the delimiter, quote, escape, comment and newline are "
+              + "ASCII characters, and the delimiter is a single character",
+          SPLIT_SIZE);
+      return false;
+    }
+    return true;
+  }
+
+  private boolean isSeekingEnabled(boolean autoNewline) {
+    // per-file limits would be applied to the records read from a sync point, not from the start
+    return CompressedIOUtils.isNoneCompression(compression)
+        && skipRecords == 0
+        && maxRecords == -1
+        && CSVFileSplitter.isSplittable(
+            encoding, delimiter, quote, escape, comment, autoNewline ? "\n" : newline);
+  }
+
+  @Override
+  public int readConcurrency() {
+    if (splittable) {
+      // even a single file can be read in parallel if it is large enough
+      return Math.max(1, maxConcurrentFiles);
+    }
+    return super.readConcurrency();
+  }
+
   @NonNull
   @Override
   public RecordMetadata getRecordMetadata() {
@@ -226,10 +319,184 @@ public class CSVConnector extends AbstractFileBasedConnector {
     return false;
   }
 
+  @NonNull
+  @Override
+  protected Publisher<Resource> readResources(@NonNull URL url) {
+    Path file = getSplittableFile(url);
+    if (file == null) {
+      Path seekableFile = getSeekableFile(url);
+      if (seekableFile == null) {
+        return super.readResources(url);
+      }
+      return Mono.fromCallable(() -> newFileResource(url, seekableFile));
+    }
+    CSVFileSplitter splitter =
+        new CSVFileSplitter(
+            file,
+            splitSize,
+            header,
+            delimiter.charAt(0),
+            quote,
+            escape,
+            comment,
+            getScanNewline(),
+            ignoreLeadingWhitespaces);
+    // files that can be split can also be read from sync points
+    return splitter
+        .split()
+        .map(
+            chunk ->
+                chunk.isWholeFile()
+                    ? new CSVSeekableResource(url, URI.create(url.toExternalForm()), file, chunk)
+                    : newChunkResource(url, file, chunk));
+  }
+
+  /**
+   * Returns the local file that the given URL points to, if it should be split, or null otherwise.
+   */
+  @Nullable
+  private Path getSplittableFile(@NonNull URL url) {
+    if (splittable && url.getProtocol().equals("file")) {
+      try {
+        Path file = Paths.get(url.toURI());
+        if (Files.isRegularFile(file) && Files.size(file) > splitSize) {
+          return file;
+        }
+      } catch (URISyntaxException | IOException | RuntimeException e) {
+        LOGGER.debug("Could not determine if " + url + " can be split", e);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the local file that the given URL points to, if it can be read as a seekable resource,
+   * or null otherwise.
+   */
+  @Nullable
+  private Path getSeekableFile(@NonNull URL url) {
+    if (seekable && url.getProtocol().equals("file")) {
+      try {
+        Path file = Paths.get(url.toURI());
+        if (Files.isRegularFile(file)) {
+          return file;
+        }
+      } catch (URISyntaxException | RuntimeException e) {
+        LOGGER.debug("Could not determine if " + url + " is seekable", e);
+      }
+    }
+    return null;
+  }
+
+  /** The last character of the line separator, as seen by {@link CSVRecordScanner}. */
+  private char getScanNewline() {
+    return AUTO_NEWLINE.equalsIgnoreCase(newline) ? '\n' : newline.charAt(newline.length() - 1);
+  }
+
+  @NonNull
+  private Resource newFileResource(@NonNull URL url, @NonNull Path file) throws IOException {
+    Chunk wholeFile = new Chunk(0, Files.size(file), 1, true);
+    return new CSVSeekableResource(url, URI.create(url.toExternalForm()), file, wholeFile);
+  }
+
+  @NonNull
+  private Resource newChunkResource(@NonNull URL url, @NonNull Path file, @NonNull Chunk chunk) {
+    URI resource = URI.create(url.toExternalForm() + "#" + chunk);
+    LOGGER.debug("Splitting {}: {}, first record: {}", url, chunk, chunk.getFirstRecord());
+    return new CSVSeekableResource(url, resource, file, chunk);
+  }
+
+  @NonNull
+  private Flux<Record> readChunk(
+      @NonNull URL url,
+      @NonNull URI resource,
+      @NonNull Path file,
+      @NonNull Chunk chunk,
+      @Nullable SyncPointTracking tracking) {
+    return Flux.generate(
+        () -> new CSVRecordReader(url, resource, file, chunk, tracking),
+        RecordReader::readNext,
+        recordReader -> {
+          try {
+            recordReader.close();
+          } catch (IOException e) {
+            LOGGER.error("Error closing " + resource, e);
+          }
+        });
+  }
+
   @Override
   @NonNull
   protected RecordReader newSingleFileReader(@NonNull URL url, URI resource) throws IOException {
-    return new CSVRecordReader(url, resource);
+    return new CSVRecordReader(url, resource, null, null, null);
+  }
+
+  /** A chunk of a local file, or a whole local file, that can be read from any sync point. */
+  private class CSVSeekableResource implements SeekableResource {
+
+    private final URL url;
+    private final URI resource;
+    private final Path file;
+    private final Chunk chunk;
+
+    private CSVSeekableResource(URL url, URI resource, Path file, Chunk chunk) {
+      this.url = url;
+      this.resource = resource;
+      this.file = file;
+      this.chunk = chunk;
+    }
+
+    @NonNull
+    @Override
+    public URI getURI() {
+      return resource;
+    }
+
+    @NonNull
+    @Override
+    public Publisher<Record> read() {
+      return readChunk(url, resource, file, chunk, null);
+    }
+
+    @NonNull
+    @Override
+    public Publisher<Record> read(@NonNull SyncPointListener listener) {
+      return readChunk(url, resource, file, chunk, new SyncPointTracking(chunk, listener));
+    }
+
+    @NonNull
+    @Override
+    public Publisher<Record> read(
+        long position, long offset, @Nullable SyncPointListener listener) {
+      if (offset <= chunk.getStart() || offset >= chunk.getEnd()) {
+        return Flux.error(
+            new IllegalArgumentException(
+                String.format("Invalid sync point for %s: %d@%d", resource, position, offset)));
+      }
+      LOGGER.debug("Seeking {} to record {} at offset {}", resource, position, offset);
+      Chunk remainder = new Chunk(offset, chunk.getEnd(), position, false);
+      return readChunk(
+          url,
+          resource,
+          file,
+          remainder,
+          listener == null ? null : new SyncPointTracking(chunk, listener));
+    }
+  }
+
+  /** How to track sync points while reading a chunk. */
+  private static class SyncPointTracking {
+
+    private final long interval;
+    private final SyncPointListener listener;
+
+    private SyncPointTracking(Chunk chunk, SyncPointListener listener) {
+      // the interval is based on the initial chunk, so that sync points are spaced in the same way
+      // regardless of where reading started
+      long size = chunk.getEnd() - chunk.getStart();
+      this.interval = Math.max(MIN_SYNC_INTERVAL, size / MAX_SYNC_POINTS);
+      this.listener = listener;
+    }
   }
 
   private class CSVRecordReader implements RecordReader {
@@ -239,23 +506,97 @@ public class CSVConnector extends AbstractFileBasedConnector {
     private final CsvParser parser;
     private final ParsingContext context;
     private final MappedField[] fieldNames;
+    @Nullable private CSVSyncPointTracker tracker;
 
-    private long recordNumber = 1;
+    // values are exposed both as mapped fields, if there is a header, and as indexed fields
+    private RecordSchema schema;
+    private long recordNumber;
 
-    private CSVRecordReader(URL url, URI resource) throws IOException {
+    /**
+     * Creates a reader for the entire resource if {@code chunk} is null, or for the given chunk of
+     * a local file otherwise. Sync points are only tracked when reading a chunk.
+     */
+    private CSVRecordReader(
+        URL url,
+        URI resource,
+        @Nullable Path file,
+        @Nullable Chunk chunk,
+        @Nullable SyncPointTracking tracking)
+        throws IOException {
       this.url = url;
       this.resource = resource;
       try {
-        parser = new CsvParser(parserSettings);
-        Reader r = CompressedIOUtils.newBufferedReader(url, encoding, compression);
-        parser.beginParsing(r);
-        context = parser.getContext();
-        fieldNames = header ? getFieldNames(url, context) : null;
+        if (chunk == null) {
+          parser = new CsvParser(parserSettings);
+          parser.beginParsing(
+              CompressedIOUtils.newReader(url, encoding, compression, memoryMapped));
+          context = parser.getContext();
+          fieldNames = header ? getFieldNames(url, context) : null;
+          recordNumber = 1;
+        } else {
+          assert file != null;
+          Reader r =
+              IOUtils.newReader(file, chunk.getStart(), chunk.getEnd(), encoding, memoryMapped);
+          if (tracking != null) {
+            tracker =
+                new CSVSyncPointTracker(
+                    chunk.getStart(),
+                    chunk.getEnd(),
+                    encoding,
+                    tracking.interval,
+                    tracking.listener);
+            r = tracker.track(r);
+          }
+          if (chunk.isFirst()) {
+            parser = newParser(parserSettings, chunk);
+            parser.beginParsing(r);
+            context = parser.getContext();
+            fieldNames = header ? getFieldNames(url, context) : null;
+          } else {
+            fieldNames = header ? readFieldNames(url) : null;
+            parser = newParser(chunkParserSettings, chunk);
+            parser.beginParsing(r);
+            context = parser.getContext();
+          }
+          recordNumber = chunk.getFirstRecord();
+        }
+        if (header) {
+          schema = RecordSchema.mappedAndIndexed(fieldNames);
+        }
       } catch (Exception e) {
         throw asIOException(url, e, "Error creating CSV parser for " + url);
       }
     }
 
+    @NonNull
+    private CsvParser newParser(@NonNull CsvParserSettings settings, @NonNull Chunk chunk) {
+      // the default input buffer holds 1M chars, far more than a small chunk needs; the size of a
+      // chunk in bytes is an upper bound of its size in chars
+      int inputBufferSize =
+          (int) Math.min(settings.getInputBufferSize(), chunk.getEnd() - chunk.getStart() + 1);
+      if (tracker == null && inputBufferSize == settings.getInputBufferSize()) {
+        return new CsvParser(settings);
+      }
+      CsvParserSettings chunkSettings = settings.clone();
+      chunkSettings.setInputBufferSize(inputBufferSize);
+      if (tracker != null) {
+        // the tracker needs the parser to read its input on this thread
+        chunkSettings.setReadInputOnSeparateThread(false);
+      }
+      return new CsvParser(chunkSettings);
+    }
+
+    /** Reads the field names from the header line at the beginning of the file. */
+    private MappedField[] readFieldNames(URL url) throws IOException {
+      CsvParser headerParser = new CsvParser(headerParserSettings);
+      try {
+        headerParser.beginParsing(IOUtils.newReader(url, encoding, memoryMapped));
+        return getFieldNames(url, headerParser.getContext());
+      } finally {
+        headerParser.stopParsing();
+      }
+    }
+
     private MappedField[] getFieldNames(URL url, ParsingContext context) throws IOException {
       List<String> fieldNames = new ArrayList<>();
       String[] parsedHeaders = context.headers();
@@ -289,6 +630,9 @@ public class CSVConnector extends AbstractFileBasedConnector {
         com.univocity.parsers.common.record.Record row = parser.parseNextRecord();
         if (row != null) {
           Record record = parseNext(row);
+          if (tracker != null) {
+            tracker.advance(record.getPosition(), context.currentChar());
+          }
           LOGGER.trace("Emitting record {}", record);
           sink.next(record);
         } else {
@@ -310,17 +654,11 @@ public class CSVConnector extends AbstractFileBasedConnector {
       Record record;
       try {
         Object[] values = row.getValues();
-        if (header) {
-          record = DefaultRecord.mapped(source, resource, recordNumber++, fieldNames, values);
-          // also emit indexed fields
-          for (int i = 0; i < values.length; i++) {
-            DefaultIndexedField field = new DefaultIndexedField(i);
-            Object value = values[i];
-            ((DefaultRecord) record).setFieldValue(field, value);
-          }
-        } else {
-          record = DefaultRecord.indexed(source, resource, recordNumber++, values);
+        if (schema == null || (!header && schema.width() != values.length)) {
+          // rows may have different lengths when there is no header
+          schema = RecordSchema.indexed(values.length);
         }
+        record = new ArrayBackedRecord(schema, source, resource, recordNumber++, values);
       } catch (Exception e) {
         record = new DefaultErrorRecord(source, resource, recordNumber, e);
       }
@@ -328,7 +666,7 @@ public class CSVConnector extends AbstractFileBasedConnector {
     }
 
     @Override
-    public void close() {
+    public void close() throws IOException {
       if (parser != null) {
         parser.stopParsing();
       }
@@ -0,0 +1,238 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.connectors.csv;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SynchronousSink;
+
+/**
+ * Splits a local, uncompressed CSV file into chunks of roughly {@code splitSize} bytes that can be
+ * parsed independently.
+ *
+ * <p>Chunk boundaries are always aligned on record boundaries: the file is scanned sequentially,
+ * tracking quoted values, escaped quotes and comment lines, and a chunk only ends on a line
+ * separator that is not inside a quoted value. Multi-line values are thus never split. Scanning is
+ * much cheaper than parsing, and is performed lazily: each chunk is emitted as soon as its end has
+ * been found.
+ *
+ * <p>While scanning, records are counted, so that each chunk knows the position of its first record
+ * in the file; see {@link CSVRecordScanner}.
+ *
+ * <p>Scanning operates on bytes, so splitting is only possible if the file encoding is
+ * ASCII-compatible and all the special characters of the CSV format are ASCII characters, see
+ * {@link #isSplittable(Charset, String, char, char, char, String)}.
+ */
+class CSVFileSplitter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CSVFileSplitter.class);
+
+  private static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+
+  private final Path file;
+  private final long splitSize;
+  private final boolean header;
+  private final char delimiter;
+  private final char quote;
+  private final char escape;
+  private final char comment;
+  private final char newline;
+  private final boolean ignoreLeadingWhitespaces;
+
+  CSVFileSplitter(
+      @NonNull Path file,
+      long splitSize,
+      boolean header,
+      char delimiter,
+      char quote,
+      char escape,
+      char comment,
+      char newline,
+      boolean ignoreLeadingWhitespaces) {
+    this.file = file;
+    this.splitSize = splitSize;
+    this.header = header;
+    this.delimiter = delimiter;
+    this.quote = quote;
+    this.escape = escape;
+    this.comment = comment;
+    this.newline = newline;
+    this.ignoreLeadingWhitespaces = ignoreLeadingWhitespaces;
+  }
+
+  /**
+   * Returns whether files using the given encoding and format can be split. The encoding must be
+   * ASCII-compatible, and all special characters must be single ASCII characters.
+   */
+  static boolean isSplittable(
+      @NonNull Charset encoding,
+      @NonNull String delimiter,
+      char quote,
+      char escape,
+      char comment,
+      @NonNull String newline) {
+    boolean asciiCompatible =
+        encoding.equals(StandardCharsets.UTF_8)
+            || encoding.equals(StandardCharsets.US_ASCII)
+            || encoding.equals(StandardCharsets.ISO_8859_1);
+    return asciiCompatible
+        && delimiter.length() == 1
+        && isAscii(delimiter.charAt(0))
+        && isAscii(quote)
+        && isAscii(escape)
+        && isAscii(comment)
+        && newline.chars().allMatch(c -> isAscii((char) c));
+  }
+
+  private static boolean isAscii(char c) {
+    return c < 128;
+  }
+
+  /** Scans the file and emits its chunks, in order. */
+  @NonNull
+  Flux<Chunk> split() {
+    return Flux.generate(
+        () -> new Scanner(FileChannel.open(file, StandardOpenOption.READ)),
+        Scanner::next,
+        Scanner::close);
+  }
+
+  /** A chunk of a file, as a range of bytes. */
+  static final class Chunk {
+
+    private final long start;
+    private final long end;
+    private final long firstRecord;
+    private final boolean last;
+
+    Chunk(long start, long end, long firstRecord, boolean last) {
+      this.start = start;
+      this.end = end;
+      this.firstRecord = firstRecord;
+      this.last = last;
+    }
+
+    /** The position of the first byte of this chunk in the file (inclusive). */
+    long getStart() {
+      return start;
+    }
+
+    /** The position of the last byte of this chunk in the file (exclusive). */
+    long getEnd() {
+      return end;
+    }
+
+    /** The position of the first record of this chunk in the file, starting at 1. */
+    long getFirstRecord() {
+      return firstRecord;
+    }
+
+    /** Whether this chunk is the first one of the file. */
+    boolean isFirst() {
+      return start == 0;
+    }
+
+    /** Whether this chunk covers the entire file. */
+    boolean isWholeFile() {
+      return start == 0 && last;
+    }
+
+    @Override
+    public String toString() {
+      return "bytes=" + start + "-" + (end - 1);
+    }
+  }
+
+  private class Scanner {
+
+    private final FileChannel channel;
+    private final long size;
+    private final ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+
+    // position of the next byte to scan
+    private long position = 0;
+    private long chunkStart = 0;
+    private boolean done;
+
+    private final CSVRecordScanner scanner =
+        new CSVRecordScanner(
+            delimiter, quote, escape, comment, newline, ignoreLeadingWhitespaces, header);
+
+    private Scanner(FileChannel channel) throws IOException {
+      this.channel = channel;
+      this.size = channel.size();
+      buffer.limit(0);
+    }
+
+    private Scanner next(SynchronousSink<Chunk> sink) {
+      if (done) {
+        sink.complete();
+        return this;
+      }
+      try {
+        long firstRecord = scanner.getRecords() + 1;
+        long chunkEnd = scanNextChunk();
+        boolean last = chunkEnd >= size;
+        sink.next(new Chunk(chunkStart, chunkEnd, firstRecord, last));
+        chunkStart = chunkEnd;
+        done = last;
+      } catch (IOException e) {
+        sink.error(new UncheckedIOException("Error scanning " + file, e));
+      }
+      return this;
+    }
+
+    /**
+     * Scans bytes until the end of the first record that ends after {@code chunkStart + splitSize},
+     * or until the end of the file, and returns the position where the chunk ends.
+     */
+    private long scanNextChunk() throws IOException {
+      long threshold = chunkStart + splitSize;
+      while (true) {
+        while (buffer.hasRemaining()) {
+          position++;
+          if (scanner.scan(buffer.get()) && position >= threshold) {
+            return position;
+          }
+        }
+        buffer.clear();
+        int read = channel.read(buffer);
+        buffer.flip();
+        if (read == -1) {
+          return Math.max(position, size);
+        }
+      }
+    }
+
+    private void close() {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        LOGGER.error("Error closing " + file, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.connectors.csv;
+
+/**
+ * A state machine that finds record boundaries in the bytes of a CSV file, without parsing it.
+ *
+ * <p>The scanner tracks quoted values, escaped quotes and comment lines, so that line separators
+ * inside quoted values are not mistaken for record boundaries. It also counts records the way the
+ * parser does: empty lines and comment lines are not counted, and neither is the header line if the
+ * file has one.
+ *
+ * <p>Scanning operates on bytes, so it is only correct if the file encoding is ASCII-compatible and
+ * all the special characters of the CSV format are ASCII characters, see {@link
+ * CSVFileSplitter#isSplittable}.
+ */
+final class CSVRecordScanner {
+
+  private final byte delimiter;
+  private final byte quote;
+  private final byte escape;
+  private final byte comment;
+  private final byte newline;
+  private final boolean ignoreLeadingWhitespaces;
+
+  // number of records found so far, excluding the header
+  private long records = 0;
+  private boolean headerSeen;
+
+  private boolean inQuotes;
+  private boolean quoteInQuotes;
+  private boolean escaping;
+  private boolean inComment;
+  private boolean recordStart = true;
+  private boolean fieldStart = true;
+  private boolean recordHasContent;
+
+  /**
+   * Creates a scanner positioned at the start of a record.
+   *
+   * @param header whether the first record found is a header line, that should not be counted.
+   */
+  CSVRecordScanner(
+      char delimiter,
+      char quote,
+      char escape,
+      char comment,
+      char newline,
+      boolean ignoreLeadingWhitespaces,
+      boolean header) {
+    this.delimiter = (byte) delimiter;
+    this.quote = (byte) quote;
+    this.escape = (byte) escape;
+    this.comment = (byte) comment;
+    this.newline = (byte) newline;
+    this.ignoreLeadingWhitespaces = ignoreLeadingWhitespaces;
+    this.headerSeen = !header;
+  }
+
+  /** The number of records found so far, excluding the header. */
+  long getRecords() {
+    return records;
+  }
+
+  /** Advances the state machine by one byte; returns true if the byte ends a record. */
+  boolean scan(byte b) {
+    if (inComment) {
+      if (b == newline) {
+        inComment = false;
+        recordStart = true;
+        fieldStart = true;
+        return true;
+      }
+      return false;
+    }
+    if (inQuotes) {
+      if (escaping) {
+        escaping = false;
+        return false;
+      }
+      if (!quoteInQuotes) {
+        if (b == quote) {
+          // either the closing quote, or the first half of a doubled quote
+          quoteInQuotes = true;
+        } else if (b == escape) {
+          escaping = true;
+        }
+        return false;
+      }
+      quoteInQuotes = false;
+      if (b == quote) {
+        // doubled quote, still inside the quoted value
+        return false;
+      }
+      // the previous quote was a closing quote, process this byte as unquoted
+      inQuotes = false;
+    }
+    if (b == newline) {
+      if (recordHasContent) {
+        if (headerSeen) {
+          records++;
+        } else {
+          headerSeen = true;
+        }
+      }
+      recordStart = true;
+      fieldStart = true;
+      recordHasContent = false;
+      return true;
+    }
+    if (recordStart && comment != '\0' && b == comment) {
+      inComment = true;
+      recordStart = false;
+      return false;
+    }
+    recordStart = false;
+    if (fieldStart) {
+      if (b == quote) {
+        inQuotes = true;
+        fieldStart = false;
+        recordHasContent = true;
+        return false;
+      }
+      if (ignoreLeadingWhitespaces && (b == ' ' || b == '\t')) {
+        // skipped by the parser: a line made only of whitespace is an empty line
+        return false;
+      }
+    }
+    fieldStart = b == delimiter;
+    if (b != '\r') {
+      recordHasContent = true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.connectors.csv;
+
+import com.khulnasoft.oss.ksbulk.connectors.api.SeekableResource.SyncPointListener;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds sync points in a range of bytes of a local CSV file, while the range is being parsed.
+ *
+ * <p>The tracker does not read the file itself: it {@linkplain #track(Reader) wraps} the reader
+ * that the parser reads from, and counts the bytes that the characters handed to the parser were
+ * decoded from. Each time the parser emits a record, the parser's own character offset, which is
+ * then the start of the next record, is translated into a byte offset; each time at least {@code
+ * interval} bytes have been read since the last sync point, that offset is reported as a new sync
+ * point.
+ *
+ * <p>The parser must read its input on the calling thread, so that the characters it is parsing are
+ * always the ones it last read from the wrapped reader. Only UTF-8 and single-byte encodings are
+ * supported.
+ */
+final class CSVSyncPointTracker {
+
+  private final long start;
+  private final long end;
+  private final boolean utf8;
+  private final long interval;
+  private final SyncPointListener listener;
+
+  // the characters last handed to the parser; their array belongs to the parser, and is not
+  // modified until the parser reads again
+  private char[] chars;
+  private int charsOffset;
+  private int charsLength;
+
+  // the offset, in characters since the start, of the first of these characters
+  private long charsStart;
+
+  // how many of these characters have been counted, and the offset, in bytes since the start, of
+  // the first character not counted yet
+  private int counted;
+  private long bytes;
+
+  private long lastSyncPoint;
+  private boolean disabled;
+
+  /**
+   * Creates a new tracker.
+   *
+   * @param start the position of the first byte to read; must be the start of a record.
+   * @param end the position of the last byte to read (exclusive).
+   * @param encoding the encoding of the file.
+   * @param interval the minimum number of bytes between two sync points.
+   * @param listener the listener to notify of sync points.
+   */
+  CSVSyncPointTracker(
+      long start,
+      long end,
+      @NonNull Charset encoding,
+      long interval,
+      @NonNull SyncPointListener listener) {
+    this.start = start;
+    this.end = end;
+    this.utf8 = encoding.equals(StandardCharsets.UTF_8);
+    this.interval = interval;
+    this.listener = listener;
+    lastSyncPoint = start;
+  }
+
+  /** Returns a reader that reads from the given one, and that the parser must read from. */
+  @NonNull
+  Reader track(@NonNull Reader reader) {
+    return new FilterReader(reader) {
+
+      // reused like the parser's own buffer: its contents are counted before being overwritten
+      private final char[] single = new char[1];
+
+      @Override
+      public int read() throws IOException {
+        return read(single, 0, 1) == -1 ? -1 : single[0];
+      }
+
+      @Override
+      public int read(@NonNull char[] cbuf, int off, int len) throws IOException {
+        // the parser may reuse its buffer: count the previous characters before it is overwritten
+        count(charsLength);
+        charsStart += charsLength;
+        int read = super.read(cbuf, off, len);
+        chars = cbuf;
+        charsOffset = off;
+        charsLength = Math.max(0, read);
+        counted = 0;
+        return read;
+      }
+    };
+  }
+
+  /**
+   * Called each time the parser emits a record.
+   *
+   * @param recordNumber the position of the record just emitted.
+   * @param charOffset the parser's offset, in characters since the start, after the record.
+   */
+  void advance(long recordNumber, long charOffset) {
+    if (disabled) {
+      return;
+    }
+    long relative = charOffset - charsStart;
+    if (relative < counted || relative > charsLength) {
+      // should not happen as long as the parser reads on the calling thread
+      disabled = true;
+      return;
+    }
+    count((int) relative);
+    long offset = start + bytes;
+    if (!disabled && offset - lastSyncPoint >= interval && offset < end) {
+      listener.onSyncPoint(recordNumber + 1, offset);
+      lastSyncPoint = offset;
+    }
+  }
+
+  /** Counts the bytes of the current characters, up to the given index (exclusive). */
+  private void count(int upTo) {
+    if (utf8) {
+      for (int i = charsOffset + counted; i < charsOffset + upTo; i++) {
+        char c = chars[i];
+        if (c < 0x80) {
+          bytes++;
+        } else if (c < 0x800) {
+          bytes += 2;
+        } else if (Character.isSurrogate(c)) {
+          // a pair of surrogates is encoded as 4 bytes
+          bytes += 2;
+        } else {
+          if (c == '\uFFFD') {
+            // the replacement character may stand for any number of malformed bytes
+            disabled = true;
+          }
+          bytes += 3;
+        }
+      }
+    } else {
+      bytes += upTo - counted;
+    }
+    counted = upTo;
+  }
+}
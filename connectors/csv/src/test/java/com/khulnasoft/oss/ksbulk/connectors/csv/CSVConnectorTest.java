@@ -38,6 +38,7 @@ import com.khulnasoft.oss.ksbulk.connectors.api.ErrorRecord;
 import com.khulnasoft.oss.ksbulk.connectors.api.Field;
 import com.khulnasoft.oss.ksbulk.connectors.api.Record;
 import com.khulnasoft.oss.ksbulk.connectors.api.Resource;
+import com.khulnasoft.oss.ksbulk.connectors.api.SeekableResource;
 import com.khulnasoft.oss.ksbulk.io.CompressedIOUtils;
 import com.khulnasoft.oss.ksbulk.tests.logging.LogCapture;
 import com.khulnasoft.oss.ksbulk.tests.logging.LogInterceptingExtension;
@@ -50,6 +51,8 @@ import com.khulnasoft.oss.ksbulk.url.BulkLoaderURLStreamHandlerFactory;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.typesafe.config.Config;
 import com.univocity.parsers.common.TextParsingException;
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -971,6 +974,158 @@ class CSVConnectorTest {
     connector.close();
   }
 
+  @Test
+  void should_split_large_file() throws Exception {
+    Path file = Files.createTempFile("test", ".csv");
+    List<String> lines = new ArrayList<>();
+    lines.add("# a comment");
+    lines.add("key,value");
+    for (int i = 0; i < 100; i++) {
+      if (i % 10 == 0) {
+        lines.add("");
+        lines.add("# another comment");
+      }
+      if (i % 7 == 0) {
+        lines.add(i + ",\"multi-line\nvalue with \"\"quotes\"\" and \\\"escaped quotes\\\"\"");
+      } else {
+        lines.add(i + ",value " + i);
+      }
+    }
+    Files.write(file, lines);
+    List<Record> expected = readRecords(file, -1);
+    List<Record> actual = readRecords(file, 100);
+    assertThat(actual).hasSameSizeAs(expected).hasSize(100);
+    for (int i = 0; i < expected.size(); i++) {
+      assertThat(actual.get(i).getPosition())
+          .isEqualTo(expected.get(i).getPosition())
+          .isEqualTo(i + 1);
+      assertThat(actual.get(i).fields()).isEqualTo(expected.get(i).fields());
+      assertThat(actual.get(i).values()).containsExactlyElementsOf(expected.get(i).values());
+    }
+    assertThat(expected).extracting(Record::getResource).containsOnly(file.toUri());
+    assertThat(actual)
+        .extracting(Record::getResource)
+        .allMatch(uri -> uri.toString().startsWith(expected.get(0).getResource() + "#bytes="));
+    assertThat(actual.stream().map(Record::getResource).distinct().count()).isGreaterThan(10);
+    Files.delete(file);
+  }
+
+  @Test
+  void should_read_seekable_file_from_sync_points() throws Exception {
+    Path file = Files.createTempFile("test", ".csv");
+    List<String> lines = new ArrayList<>();
+    lines.add("key,value");
+    for (int i = 0; i < 50; i++) {
+      if (i % 10 == 0) {
+        lines.add("# a comment");
+      }
+      if (i % 7 == 0) {
+        lines.add(i + ",\"multi-line\nvalue with \"\"quotes\"\"\"");
+      } else {
+        lines.add(i + ",valeur \u00e9 " + i);
+      }
+    }
+    Files.write(file, lines);
+    List<Record> expected = readRecords(file, -1);
+    // find all sync points
+    List<long[]> syncPoints = new ArrayList<>();
+    CSVSyncPointTracker tracker =
+        new CSVSyncPointTracker(
+            0,
+            Files.size(file),
+            UTF_8,
+            1,
+            (position, offset) -> syncPoints.add(new long[] {position, offset}));
+    CsvParserSettings parserSettings = new CsvParserSettings();
+    parserSettings.getFormat().setComment('#');
+    parserSettings.setHeaderExtractionEnabled(true);
+    parserSettings.setReadInputOnSeparateThread(false);
+    CsvParser parser = new CsvParser(parserSettings);
+    parser.beginParsing(tracker.track(Files.newBufferedReader(file, UTF_8)));
+    for (long position = 1; parser.parseNextRecord() != null; position++) {
+      tracker.advance(position, parser.getContext().currentChar());
+    }
+    // one after each record, except the last one
+    assertThat(syncPoints).hasSize(49);
+    CSVConnector connector = new CSVConnector();
+    Config settings =
+        TestConfigUtils.createTestConfig(
+            "ksbulk.connector.csv", "url", StringUtils.quoteJson(file), "comment", "\"#\"");
+    connector.configure(settings, true, true);
+    connector.init();
+    Resource resource = Flux.from(connector.read()).blockFirst();
+    assertThat(resource).isInstanceOf(SeekableResource.class);
+    for (long[] syncPoint : syncPoints) {
+      List<Record> actual =
+          Flux.from(
+                  ((SeekableResource) resource)
+                      .read(syncPoint[0], syncPoint[1], (position, offset) -> {}))
+              .collectList()
+              .block();
+      List<Record> remaining = expected.subList((int) syncPoint[0] - 1, expected.size());
+      assertThat(actual).hasSameSizeAs(remaining);
+      for (int i = 0; i < remaining.size(); i++) {
+        assertThat(actual.get(i).getPosition()).isEqualTo(remaining.get(i).getPosition());
+        assertThat(actual.get(i).fields()).isEqualTo(remaining.get(i).fields());
+        assertThat(actual.get(i).values()).containsExactlyElementsOf(remaining.get(i).values());
+      }
+    }
+    connector.close();
+    Files.delete(file);
+  }
+
+  @Test
+  void should_not_split_small_file() throws Exception {
+    Path file = Files.createTempFile("test", ".csv");
+    Files.write(file, Arrays.asList("key,value", "1,foo", "2,bar"));
+    List<Record> records = readRecords(file, 1024);
+    assertThat(records).hasSize(2).extracting(Record::getResource).containsOnly(file.toUri());
+    Files.delete(file);
+  }
+
+  @Test
+  void should_not_split_file_when_skip_records_set(@LogCapture LogInterceptor logs)
+      throws Exception {
+    CSVConnector connector = new CSVConnector();
+    Config settings =
+        TestConfigUtils.createTestConfig(
+            "ksbulk.connector.csv",
+            "url",
+            url("/root/ip-by-country-sample1.csv"),
+            "skipRecords",
+            10,
+            "splitSize",
+            100);
+    connector.configure(settings, true, true);
+    connector.init();
+    List<Record> records =
+        Flux.from(connector.read()).flatMap(Resource::read).collectList().block();
+    assertThat(records).isNotNull().hasSize(90);
+    assertThat(logs.getLoggedMessages())
+        .contains(
+            "Setting connector.csv.splitSize is ignored when skipRecords or maxRecords are set");
+    connector.close();
+  }
+
+  private static List<Record> readRecords(Path file, long splitSize) throws Exception {
+    CSVConnector connector = new CSVConnector();
+    Config settings =
+        TestConfigUtils.createTestConfig(
+            "ksbulk.connector.csv",
+            "url",
+            StringUtils.quoteJson(file),
+            "comment",
+            "\"#\"",
+            "splitSize",
+            splitSize);
+    connector.configure(settings, true, true);
+    connector.init();
+    List<Record> records =
+        Flux.from(connector.read()).concatMap(Resource::read).collectList().block();
+    connector.close();
+    return records;
+  }
+
   @Test
   void should_honor_ignoreLeadingWhitespaces_and_ignoreTrailingWhitespaces_when_reading()
       throws Exception {
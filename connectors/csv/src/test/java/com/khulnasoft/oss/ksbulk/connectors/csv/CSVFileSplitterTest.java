@@ -0,0 +1,104 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.connectors.csv;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.khulnasoft.oss.ksbulk.connectors.csv.CSVFileSplitter.Chunk;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CSVFileSplitterTest {
+
+  private Path file;
+
+  @BeforeEach
+  void createFile() throws IOException {
+    file = Files.createTempFile("test", ".csv");
+  }
+
+  @AfterEach
+  void deleteFile() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  void should_split_on_record_boundaries() throws IOException {
+    String contents = "a,b\n1,foo\n2,\"bar\nbaz\"\n\n#comment\n3,\"qix\"\"\nquux\"\n4,x\n";
+    Files.write(file, contents.getBytes(UTF_8));
+    List<Chunk> chunks = split(1);
+    assertThat(chunks)
+        .extracting(Chunk::getStart, Chunk::getEnd, Chunk::getFirstRecord)
+        .containsExactly(
+            tuple(0, 4, 1),
+            tuple(4, 10, 1),
+            tuple(10, 22, 2),
+            tuple(22, 23, 3),
+            tuple(23, 32, 3),
+            tuple(32, 47, 3),
+            tuple(47, 51, 4));
+    assertThat(chunks.get(0).isFirst()).isTrue();
+    assertThat(chunks.get(0).isWholeFile()).isFalse();
+    assertThat(chunks.get(1).toString()).isEqualTo("bytes=4-9");
+  }
+
+  @Test
+  void should_honor_split_size() throws IOException {
+    String contents = "1,foo\n2,bar\n3,baz\n4,qix\n";
+    Files.write(file, contents.getBytes(UTF_8));
+    assertThat(split(10))
+        .extracting(Chunk::getStart, Chunk::getEnd, Chunk::getFirstRecord)
+        .containsExactly(tuple(0, 12, 1), tuple(12, 24, 2));
+  }
+
+  @Test
+  void should_emit_whole_file() throws IOException {
+    Files.write(file, "a,b\n1,foo".getBytes(UTF_8));
+    List<Chunk> chunks = split(1024);
+    assertThat(chunks).hasSize(1);
+    assertThat(chunks.get(0).isWholeFile()).isTrue();
+    assertThat(chunks.get(0).getEnd()).isEqualTo(9);
+  }
+
+  @Test
+  void should_detect_splittable_formats() {
+    assertThat(CSVFileSplitter.isSplittable(UTF_8, ",", '"', '\\', '\0', "\n")).isTrue();
+    assertThat(CSVFileSplitter.isSplittable(ISO_8859_1, ";", '\'', '\'', '#', "\r\n")).isTrue();
+    assertThat(CSVFileSplitter.isSplittable(UTF_16, ",", '"', '\\', '\0', "\n")).isFalse();
+    assertThat(CSVFileSplitter.isSplittable(UTF_8, "||", '"', '\\', '\0', "\n")).isFalse();
+    assertThat(CSVFileSplitter.isSplittable(UTF_8, "§", '"', '\\', '\0', "\n")).isFalse();
+  }
+
+  private List<Chunk> split(long splitSize) {
+    return new CSVFileSplitter(file, splitSize, true, ',', '"', '"', '#', '\n', false)
+        .split()
+        .collectList()
+        .block();
+  }
+
+  private static Tuple tuple(long start, long end, long firstRecord) {
+    return Tuple.tuple(start, end, firstRecord);
+  }
+}
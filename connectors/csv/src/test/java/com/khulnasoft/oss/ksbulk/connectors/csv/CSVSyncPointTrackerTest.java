@@ -0,0 +1,118 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.connectors.csv;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class CSVSyncPointTrackerTest {
+
+  private static final String CONTENTS =
+      "a,b\n1,foo\n2,\"bar\nbaz\"\n\n#comment\n3,\"qix\"\"\nquux\"\n4,x\n";
+
+  private static final String MULTI_BYTE_CONTENTS =
+      "a,b\r\n1,fée\r\n2,\"😀\r\n€\"\r\n3,ü\r\n4,x\r\n";
+
+  private final List<Tuple> syncPoints = new ArrayList<>();
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 7, 1024})
+  void should_report_sync_points_after_records(int bufferSize) {
+    parse(CONTENTS, UTF_8, 0, 1, bufferSize);
+    // the sync point after record 2 precedes the empty line and the comment that follow it
+    assertThat(syncPoints)
+        .containsExactly(Tuple.tuple(2L, 10L), Tuple.tuple(3L, 22L), Tuple.tuple(4L, 47L));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 7, 1024})
+  void should_count_multi_byte_characters(int bufferSize) {
+    parse(MULTI_BYTE_CONTENTS, UTF_8, 0, 1, bufferSize);
+    assertThat(syncPoints)
+        .containsExactly(Tuple.tuple(2L, 13L), Tuple.tuple(3L, 28L), Tuple.tuple(4L, 34L));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 7, 1024})
+  void should_count_single_byte_characters(int bufferSize) {
+    parse(MULTI_BYTE_CONTENTS.replace("😀", "").replace("€", ""), ISO_8859_1, 0, 1, bufferSize);
+    assertThat(syncPoints)
+        .containsExactly(Tuple.tuple(2L, 12L), Tuple.tuple(3L, 20L), Tuple.tuple(4L, 25L));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 7, 1024})
+  void should_honor_interval(int bufferSize) {
+    parse(CONTENTS, UTF_8, 0, 20, bufferSize);
+    assertThat(syncPoints).containsExactly(Tuple.tuple(3L, 22L), Tuple.tuple(4L, 47L));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 7, 1024})
+  void should_start_from_sync_point(int bufferSize) {
+    parse(CONTENTS.substring(22), UTF_8, 22, 1, bufferSize);
+    assertThat(syncPoints).containsExactly(Tuple.tuple(4L, 47L));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 7, 1024})
+  void should_stop_tracking_after_malformed_input(int bufferSize) {
+    byte[] bytes = MULTI_BYTE_CONTENTS.getBytes(UTF_8);
+    // truncate the encoded emoji
+    bytes[17] = 'x';
+    parse(bytes, UTF_8, 0, 1, bufferSize);
+    assertThat(syncPoints).containsExactly(Tuple.tuple(2L, 13L));
+  }
+
+  private void parse(String contents, Charset encoding, long start, long interval, int bufferSize) {
+    parse(contents.getBytes(encoding), encoding, start, interval, bufferSize);
+  }
+
+  private void parse(byte[] contents, Charset encoding, long start, long interval, int bufferSize) {
+    CSVSyncPointTracker tracker =
+        new CSVSyncPointTracker(
+            start,
+            start + contents.length,
+            encoding,
+            interval,
+            (position, offset) -> syncPoints.add(Tuple.tuple(position, offset)));
+    CsvParserSettings settings = new CsvParserSettings();
+    settings.getFormat().setComment('#');
+    settings.setLineSeparatorDetectionEnabled(true);
+    settings.setHeaderExtractionEnabled(start == 0);
+    settings.setReadInputOnSeparateThread(false);
+    settings.setInputBufferSize(bufferSize);
+    CsvParser parser = new CsvParser(settings);
+    parser.beginParsing(
+        tracker.track(new InputStreamReader(new ByteArrayInputStream(contents), encoding)));
+    long recordNumber = start == 0 ? 1 : 3;
+    while (parser.parseNextRecord() != null) {
+      tracker.advance(recordNumber++, parser.getContext().currentChar());
+    }
+  }
+}
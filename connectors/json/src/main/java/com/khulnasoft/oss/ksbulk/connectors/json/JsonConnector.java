@@ -17,15 +17,18 @@ package com.khulnasoft.oss.ksbulk.connectors.json;
 
 import com.khulnasoft.oss.driver.api.core.type.reflect.GenericType;
 import com.khulnasoft.oss.ksbulk.config.ConfigUtils;
+import com.khulnasoft.oss.ksbulk.connectors.api.ArrayBackedRecord;
 import com.khulnasoft.oss.ksbulk.connectors.api.CommonConnectorFeature;
 import com.khulnasoft.oss.ksbulk.connectors.api.ConnectorFeature;
 import com.khulnasoft.oss.ksbulk.connectors.api.DefaultMappedField;
-import com.khulnasoft.oss.ksbulk.connectors.api.DefaultRecord;
+import com.khulnasoft.oss.ksbulk.connectors.api.Field;
 import com.khulnasoft.oss.ksbulk.connectors.api.MappedField;
 import com.khulnasoft.oss.ksbulk.connectors.api.Record;
 import com.khulnasoft.oss.ksbulk.connectors.api.RecordMetadata;
+import com.khulnasoft.oss.ksbulk.connectors.api.RecordSchema;
 import com.khulnasoft.oss.ksbulk.connectors.commons.AbstractFileBasedConnector;
 import com.khulnasoft.oss.ksbulk.io.CompressedIOUtils;
+import com.khulnasoft.oss.ksbulk.json.JsonValueReader;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -34,26 +37,30 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
 import edu.umd.cs.findbugs.annotations.NonNull;
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLStreamHandler;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.SynchronousSink;
@@ -87,6 +94,8 @@ public class JsonConnector extends AbstractFileBasedConnector {
   private static final String SERIALIZATION_STRATEGY = "serializationStrategy";
   private static final String PRETTY_PRINT = "prettyPrint";
 
+  private static final int MAX_CACHED_SCHEMAS = 64;
+
   private DocumentMode mode;
   private ObjectMapper objectMapper;
   private Map<JsonParser.Feature, Boolean> parserFeatures;
@@ -177,12 +186,36 @@ public class JsonConnector extends AbstractFileBasedConnector {
     return new JsonRecordReader(url, resource);
   }
 
+  /**
+   * Reads documents token by token, without materializing each document as a tree.
+   *
+   * <p>Values are read by a {@link JsonValueReader}, which converts scalar values to Json nodes
+   * directly from the current token, applying the same rules as {@link
+   * ObjectMapper#readTree(JsonParser)}; only nested objects and arrays are read as subtrees. Field
+   * names are resolved to {@link MappedField}s once per file, and documents that have the same
+   * fields in the same order as the previous one are written straight into the slots of its {@link
+   * RecordSchema}, which is therefore shared by all the records of a file with a regular structure.
+   */
   private class JsonRecordReader implements RecordReader {
 
     private final URL url;
     private final URI resource;
     private final JsonParser parser;
-    private final MappingIterator<JsonNode> nodesIterator;
+    private final JsonValueReader valueReader;
+    private final JsonNodeFactory nodeFactory;
+    private final boolean failOnDuplicateKeys;
+
+    private final Map<String, MappedField> fieldsByName = new HashMap<>();
+    private final Map<List<MappedField>, RecordSchema> schemas = new HashMap<>();
+
+    // the fields of the last document read and their schema
+    private MappedField[] lastFields;
+    private RecordSchema lastSchema;
+
+    // the fields and values of the current document, when it does not match the last one
+    private final List<MappedField> documentFields = new ArrayList<>();
+    private final List<JsonNode> documentValues = new ArrayList<>();
+    private final Map<MappedField, Integer> documentSlots = new HashMap<>();
 
     private long recordNumber = 1;
 
@@ -191,7 +224,7 @@ public class JsonConnector extends AbstractFileBasedConnector {
       this.resource = resource;
       try {
         JsonFactory factory = objectMapper.getFactory();
-        BufferedReader r = CompressedIOUtils.newBufferedReader(url, encoding, compression);
+        Reader r = CompressedIOUtils.newReader(url, encoding, compression, memoryMapped);
         parser = factory.createParser(r);
         if (mode == DocumentMode.SINGLE_DOCUMENT) {
           do {
@@ -199,7 +232,10 @@ public class JsonConnector extends AbstractFileBasedConnector {
           } while (parser.currentToken() != JsonToken.START_ARRAY && parser.currentToken() != null);
           parser.nextToken();
         }
-        nodesIterator = objectMapper.readValues(parser, JsonNode.class);
+        valueReader = new JsonValueReader(objectMapper);
+        DeserializationConfig config = objectMapper.getDeserializationConfig();
+        nodeFactory = config.getNodeFactory();
+        failOnDuplicateKeys = config.isEnabled(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY);
       } catch (Exception e) {
         throw new IOException(String.format("Error reading from %s", url), e);
       }
@@ -209,24 +245,20 @@ public class JsonConnector extends AbstractFileBasedConnector {
     @Override
     public RecordReader readNext(@NonNull SynchronousSink<Record> sink) {
       try {
-        if (nodesIterator.hasNext()) {
-          if (parser.currentToken() != JsonToken.START_OBJECT) {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+          token = parser.nextToken();
+        }
+        if (token != null && token != JsonToken.END_ARRAY) {
+          if (token != JsonToken.START_OBJECT) {
             throw new JsonParseException(
                 parser,
                 String.format(
                     "Expecting START_OBJECT, got %s. Did you forget to set connector.json.mode to SINGLE_DOCUMENT?",
-                    parser.currentToken()));
-          }
-          JsonNode source = nodesIterator.next();
-          Map<MappedField, JsonNode> fields = new HashMap<>();
-          Iterator<Entry<String, JsonNode>> children = source.fields();
-          while (children.hasNext()) {
-            Entry<String, JsonNode> child = children.next();
-            fields.put(new DefaultMappedField(child.getKey()), child.getValue());
+                    token));
           }
-          Record record =
-              DefaultRecord.mapped(
-                  retainRecordSources ? source : null, resource, recordNumber++, fields);
+          Record record = readDocument();
+          parser.clearCurrentToken();
           LOGGER.trace("Emitting record {}", record);
           sink.next(record);
         } else {
@@ -239,6 +271,105 @@ public class JsonConnector extends AbstractFileBasedConnector {
       return this;
     }
 
+    /** Reads the document starting at the current token, which must be START_OBJECT. */
+    private Record readDocument() throws IOException {
+      MappedField[] layout = lastFields;
+      boolean matching = layout != null;
+      Object[] values = null;
+      if (matching) {
+        values = new Object[layout.length];
+      } else {
+        startDocument(null, null, 0);
+      }
+      int count = 0;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.currentName();
+        parser.nextToken();
+        JsonNode value = valueReader.readValue(parser);
+        if (matching) {
+          if (count < layout.length && layout[count].getFieldName().equals(name)) {
+            values[count++] = value;
+            continue;
+          }
+          matching = false;
+          startDocument(layout, values, count);
+        }
+        addField(name, value);
+      }
+      RecordSchema schema;
+      if (matching && count == layout.length) {
+        schema = lastSchema;
+      } else {
+        if (matching) {
+          // fewer fields than in the last document
+          startDocument(layout, values, count);
+        }
+        schema = resolveSchema();
+        values = documentValues.toArray();
+      }
+      Object source = retainRecordSources ? createSource(schema, values) : null;
+      return new ArrayBackedRecord(schema, source, resource, recordNumber++, values);
+    }
+
+    /** Switches to reading the current document field by field, starting with the given ones. */
+    private void startDocument(MappedField[] fields, Object[] values, int count) {
+      documentFields.clear();
+      documentValues.clear();
+      documentSlots.clear();
+      for (int i = 0; i < count; i++) {
+        documentSlots.put(fields[i], i);
+        documentFields.add(fields[i]);
+        documentValues.add((JsonNode) values[i]);
+      }
+    }
+
+    private void addField(String name, JsonNode value) throws JsonMappingException {
+      MappedField field = fieldsByName.computeIfAbsent(name, DefaultMappedField::new);
+      Integer slot = documentSlots.putIfAbsent(field, documentFields.size());
+      if (slot == null) {
+        documentFields.add(field);
+        documentValues.add(value);
+      } else if (failOnDuplicateKeys) {
+        throw MismatchedInputException.from(
+            parser,
+            JsonNode.class,
+            String.format(
+                "Duplicate field '%s' for `ObjectNode`: not allowed when `DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY` enabled",
+                name));
+      } else {
+        // like ObjectNode: the last value wins, but the field keeps its position
+        documentValues.set(slot, value);
+      }
+    }
+
+    /**
+     * Returns the schema of the document that was just read field by field, and makes it the schema
+     * expected for the next document.
+     */
+    private RecordSchema resolveSchema() {
+      RecordSchema schema = schemas.get(documentFields);
+      MappedField[] fields = documentFields.toArray(new MappedField[0]);
+      if (schema == null) {
+        schema = RecordSchema.mapped(fields);
+        // documents with no regular structure should not make the cache grow indefinitely
+        if (schemas.size() < MAX_CACHED_SCHEMAS) {
+          schemas.put(Arrays.asList(fields), schema);
+        }
+      }
+      lastFields = fields;
+      lastSchema = schema;
+      return schema;
+    }
+
+    private JsonNode createSource(RecordSchema schema, Object[] values) {
+      ObjectNode source = nodeFactory.objectNode();
+      int i = 0;
+      for (Field field : schema.fields()) {
+        source.replace(((MappedField) field).getFieldName(), (JsonNode) values[i++]);
+      }
+      return source;
+    }
+
     @Override
     public void close() throws IOException {
       if (parser != null) {
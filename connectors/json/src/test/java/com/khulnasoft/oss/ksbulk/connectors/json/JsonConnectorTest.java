@@ -31,6 +31,7 @@ import static org.junit.jupiter.params.provider.Arguments.arguments;
 
 import com.khulnasoft.oss.driver.shaded.guava.common.base.Charsets;
 import com.khulnasoft.oss.ksbulk.config.ConfigUtils;
+import com.khulnasoft.oss.ksbulk.connectors.api.ArrayBackedRecord;
 import com.khulnasoft.oss.ksbulk.connectors.api.CommonConnectorFeature;
 import com.khulnasoft.oss.ksbulk.connectors.api.DefaultMappedField;
 import com.khulnasoft.oss.ksbulk.connectors.api.DefaultRecord;
@@ -46,12 +47,16 @@ import com.khulnasoft.oss.ksbulk.tests.utils.ReflectionUtils;
 import com.khulnasoft.oss.ksbulk.tests.utils.TestConfigUtils;
 import com.khulnasoft.oss.ksbulk.url.BulkLoaderURLStreamHandlerFactory;
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -70,7 +75,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -1157,6 +1164,106 @@ class JsonConnectorTest {
     connector.close();
   }
 
+  @ParameterizedTest(name = "[{index}] features {0} (sources: {1})")
+  @MethodSource
+  void should_read_documents_like_tree_model(
+      String deserializationFeatures, boolean retainRecordSources) throws Exception {
+    List<String> documents =
+        Arrays.asList(
+            "{\"a\":1,\"b\":\"foo\",\"c\":1.5}",
+            "{\"a\":12345678901,\"b\":null,\"c\":NaN}",
+            "{\"a\":123456789012345678901234567890,\"b\":true,\"c\":-Infinity}",
+            "{\"b\":false,\"a\":{\"x\":[1,{\"y\":2.50}]},\"c\":[]}",
+            "{\"a\":1,\"b\":2}",
+            "{\"a\":1,\"b\":2,\"c\":3,\"d\":4}",
+            "{\"a\":1,\"b\":2,\"a\":3}",
+            "{}",
+            "{\"a\":1,\"b\":\"foo\",\"c\":1e300}");
+    Path file = Files.createTempFile("documents", ".json");
+    try {
+      Files.write(file, documents);
+      JsonConnector connector = new JsonConnector();
+      Config settings =
+          TestConfigUtils.createTestConfig(
+              "ksbulk.connector.json",
+              "url",
+              quoteJson(file),
+              "parserFeatures",
+              "{ALLOW_NON_NUMERIC_NUMBERS:true}",
+              "deserializationFeatures",
+              deserializationFeatures);
+      connector.configure(settings, true, retainRecordSources);
+      connector.init();
+      List<Record> actual =
+          Flux.from(connector.read()).flatMap(Resource::read).collectList().block();
+      connector.close();
+      assertThat(actual).hasSize(documents.size());
+      ObjectMapper mapper = new ObjectMapper();
+      mapper.setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+      mapper.enable(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS);
+      // the connector default, see ksbulk-reference.conf
+      mapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+      ConfigFactory.parseString(deserializationFeatures)
+          .root()
+          .unwrapped()
+          .forEach(
+              (feature, enabled) ->
+                  mapper.configure(DeserializationFeature.valueOf(feature), (Boolean) enabled));
+      URI resource = actual.get(0).getResource();
+      for (int i = 0; i < documents.size(); i++) {
+        JsonNode node = mapper.readTree(documents.get(i));
+        Map<Field, JsonNode> fields = new HashMap<>();
+        node.fields()
+            .forEachRemaining(
+                entry -> fields.put(new DefaultMappedField(entry.getKey()), entry.getValue()));
+        Record expected =
+            DefaultRecord.mapped(retainRecordSources ? node : null, resource, i + 1, fields);
+        assertThat(actual.get(i)).isEqualTo(expected);
+      }
+      // documents with the same fields in the same order share their schema
+      assertThat(((ArrayBackedRecord) actual.get(1)).getSchema())
+          .isSameAs(((ArrayBackedRecord) actual.get(0)).getSchema())
+          .isSameAs(((ArrayBackedRecord) actual.get(8)).getSchema());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @SuppressWarnings("unused")
+  private static Stream<Arguments> should_read_documents_like_tree_model() {
+    return Stream.of(
+        arguments("{}", true),
+        arguments("{}", false),
+        arguments("{USE_BIG_DECIMAL_FOR_FLOATS:false}", true),
+        arguments("{USE_BIG_DECIMAL_FOR_FLOATS:false, USE_BIG_INTEGER_FOR_INTS:true}", true),
+        arguments("{USE_BIG_INTEGER_FOR_INTS:true}", false));
+  }
+
+  @Test
+  void should_report_duplicate_keys_when_configured() throws Exception {
+    Path file = Files.createTempFile("documents", ".json");
+    try {
+      Files.write(file, Arrays.asList("{\"a\":1,\"b\":2}", "{\"a\":1,\"b\":2,\"a\":3}"));
+      JsonConnector connector = new JsonConnector();
+      Config settings =
+          TestConfigUtils.createTestConfig(
+              "ksbulk.connector.json",
+              "url",
+              quoteJson(file),
+              "deserializationFeatures",
+              "{FAIL_ON_READING_DUP_TREE_KEY:true}");
+      connector.configure(settings, true, true);
+      connector.init();
+      assertThatThrownBy(
+              () -> Flux.from(connector.read()).flatMap(Resource::read).collectList().block())
+          .hasRootCauseExactlyInstanceOf(MismatchedInputException.class)
+          .satisfies(t -> assertThat(getRootCause(t)).hasMessageContaining("Duplicate field 'a'"));
+      connector.close();
+    } finally {
+      Files.delete(file);
+    }
+  }
+
   @ParameterizedTest
   @ValueSource(booleans = {true, false})
   void should_read_from_http_url(boolean retainRecordSources, @Wiremock WireMockServer server)
@@ -16,18 +16,31 @@
 package com.khulnasoft.oss.ksbulk.executor.api;
 
 import com.khulnasoft.oss.driver.api.core.CqlSession;
-import com.khulnasoft.oss.driver.shaded.guava.common.util.concurrent.RateLimiter;
+import com.khulnasoft.oss.driver.shaded.guava.common.util.concurrent.ThreadFactoryBuilder;
 import com.khulnasoft.oss.ksbulk.executor.api.listener.ExecutionListener;
+import com.khulnasoft.oss.ksbulk.executor.api.listener.MetricsCollectingExecutionListener;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.AdaptiveConcurrencyLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.AsyncRateLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.ConcurrencyLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.FixedConcurrencyLimiter;
+import com.codahale.metrics.MetricRegistry;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.Objects;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /** Base class for implementations of {@link BulkExecutor}. */
 public abstract class AbstractBulkExecutor implements BulkExecutor, AutoCloseable {
 
   /** The default number of maximum in-flight requests. */
-  static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 1_000;
+  public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 1_000;
+
+  /** The initial number of maximum in-flight requests, when the limit is adaptive. */
+  static final int INITIAL_ADAPTIVE_IN_FLIGHT_REQUESTS = 32;
 
   /** The default maximum number of concurrent requests per second. */
   static final int DEFAULT_MAX_REQUESTS_PER_SECOND = 100_000;
@@ -39,19 +52,29 @@ public abstract class AbstractBulkExecutor implements BulkExecutor, AutoCloseabl
 
   protected final boolean failFast;
 
-  protected final @Nullable Semaphore maxConcurrentRequests;
+  protected final @Nullable ConcurrencyLimiter maxConcurrentRequests;
 
-  protected final @Nullable RateLimiter rateLimiter;
+  protected final @Nullable AsyncRateLimiter rateLimiter;
 
-  protected final @Nullable RateLimiter bytesRateLimiter;
+  protected final @Nullable AsyncRateLimiter bytesRateLimiter;
 
   protected final @Nullable ExecutionListener listener;
 
+  /** The scheduler that times deferred permits of the rate limiters, if any. */
+  private final @Nullable ScheduledExecutorService rateLimiterScheduler;
+
+  /**
+   * The pool that grants deferred permits of the rate limiters, if any, and thus runs the work that
+   * was waiting for them, such as emitting throttled results.
+   */
+  private final @Nullable ThreadPoolExecutor rateLimiterExecutor;
+
   protected AbstractBulkExecutor(CqlSession session) {
     this(
         session,
         true,
         DEFAULT_MAX_IN_FLIGHT_REQUESTS,
+        false,
         DEFAULT_MAX_REQUESTS_PER_SECOND,
         DEFAULT_MAX_BYTES_PER_SECOND,
         null);
@@ -62,6 +85,7 @@ public abstract class AbstractBulkExecutor implements BulkExecutor, AutoCloseabl
         builder.session,
         builder.failFast,
         builder.maxInFlightRequests,
+        builder.adaptiveInFlightRequests,
         builder.maxRequestsPerSecond,
         builder.maxBytesPerSecond,
         builder.listener);
@@ -71,21 +95,76 @@ public abstract class AbstractBulkExecutor implements BulkExecutor, AutoCloseabl
       @NonNull CqlSession session,
       boolean failFast,
       int maxInFlightRequests,
+      boolean adaptiveInFlightRequests,
       int maxRequestsPerSecond,
       long maxBytesPerSecond,
       @Nullable ExecutionListener listener) {
     Objects.requireNonNull(session, "session cannot be null");
     this.session = session;
     this.failFast = failFast;
-    this.maxConcurrentRequests =
-        maxInFlightRequests <= 0 ? null : new Semaphore(maxInFlightRequests);
-    this.rateLimiter = maxRequestsPerSecond <= 0 ? null : RateLimiter.create(maxRequestsPerSecond);
-    this.bytesRateLimiter = maxBytesPerSecond <= 0 ? null : RateLimiter.create(maxBytesPerSecond);
+    if (adaptiveInFlightRequests) {
+      int maxLimit =
+          maxInFlightRequests <= 0 ? DEFAULT_MAX_IN_FLIGHT_REQUESTS : maxInFlightRequests;
+      ConcurrencyLimiter limiter =
+          new AdaptiveConcurrencyLimiter(INITIAL_ADAPTIVE_IN_FLIGHT_REQUESTS, 1, maxLimit);
+      if (listener instanceof MetricsCollectingExecutionListener) {
+        MetricRegistry registry = ((MetricsCollectingExecutionListener) listener).getRegistry();
+        registry.remove("executor/in-flight-limit");
+        registry.gauge("executor/in-flight-limit", () -> limiter::getLimit);
+      }
+      this.maxConcurrentRequests = limiter;
+    } else {
+      this.maxConcurrentRequests =
+          maxInFlightRequests <= 0 ? null : new FixedConcurrencyLimiter(maxInFlightRequests);
+    }
+    // Deferred permits are granted on a scheduler owned by this executor, rather than on the timer
+    // thread shared by all rate limiters, so that throttled requests of one executor are never
+    // started behind those of another one. They are then granted on a pool, so that the results
+    // that were waiting for them are emitted in parallel, rather than one at a time on the
+    // scheduler thread.
+    if (maxRequestsPerSecond <= 0 && maxBytesPerSecond <= 0) {
+      this.rateLimiterScheduler = null;
+      this.rateLimiterExecutor = null;
+    } else {
+      this.rateLimiterScheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("bulk-executor-rate-limiter-%d")
+                  .build());
+      int numThreads = Runtime.getRuntime().availableProcessors();
+      this.rateLimiterExecutor =
+          new ThreadPoolExecutor(
+              numThreads,
+              numThreads,
+              60,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(),
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("bulk-executor-permits-%d")
+                  .build());
+      rateLimiterExecutor.allowCoreThreadTimeOut(true);
+    }
+    this.rateLimiter =
+        maxRequestsPerSecond <= 0
+            ? null
+            : AsyncRateLimiter.create(
+                maxRequestsPerSecond, rateLimiterScheduler, rateLimiterExecutor);
+    this.bytesRateLimiter =
+        maxBytesPerSecond <= 0
+            ? null
+            : AsyncRateLimiter.create(maxBytesPerSecond, rateLimiterScheduler, rateLimiterExecutor);
     this.listener = listener;
   }
 
   @Override
   public void close() {
-    // no-op
+    if (rateLimiterScheduler != null) {
+      rateLimiterScheduler.shutdownNow();
+    }
+    if (rateLimiterExecutor != null) {
+      rateLimiterExecutor.shutdownNow();
+    }
   }
 }
@@ -28,6 +28,8 @@ public abstract class AbstractBulkExecutorBuilder<T extends BulkExecutor>
 
   protected int maxInFlightRequests = AbstractBulkExecutor.DEFAULT_MAX_IN_FLIGHT_REQUESTS;
 
+  protected boolean adaptiveInFlightRequests = false;
+
   protected int maxRequestsPerSecond = AbstractBulkExecutor.DEFAULT_MAX_REQUESTS_PER_SECOND;
 
   protected long maxBytesPerSecond = AbstractBulkExecutor.DEFAULT_MAX_BYTES_PER_SECOND;
@@ -52,6 +54,14 @@ public abstract class AbstractBulkExecutorBuilder<T extends BulkExecutor>
     return this;
   }
 
+  @Override
+  @SuppressWarnings("UnusedReturnValue")
+  public AbstractBulkExecutorBuilder<T> withAdaptiveInFlightRequests(
+      boolean adaptiveInFlightRequests) {
+    this.adaptiveInFlightRequests = adaptiveInFlightRequests;
+    return this;
+  }
+
   @Override
   @SuppressWarnings("UnusedReturnValue")
   public AbstractBulkExecutorBuilder<T> withMaxRequestsPerSecond(int maxRequestsPerSecond) {
@@ -54,8 +54,8 @@ public interface BulkExecutorBuilder<T extends BulkExecutor> {
   /**
    * Sets the maximum number of in-flight requests. In other words, sets the maximum number of
    * concurrent uncompleted requests waiting for a response from the server. If that limit is
-   * reached, the executor will block until the number of in-flight requests drops below the
-   * threshold. <em>This feature should not be used in a fully non-blocking application</em>.
+   * reached, the executor will defer new requests until the number of in-flight requests drops
+   * below the threshold; no thread is blocked while waiting.
    *
    * <p>This acts as a safeguard against workflows that generate more requests than they can handle.
    * The default is {@link AbstractBulkExecutor#DEFAULT_MAX_IN_FLIGHT_REQUESTS}. Setting this option
@@ -67,10 +67,25 @@ public interface BulkExecutorBuilder<T extends BulkExecutor> {
   @SuppressWarnings("UnusedReturnValue")
   BulkExecutorBuilder<T> withMaxInFlightRequests(int maxInFlightRequests);
 
+  /**
+   * Sets whether the maximum number of in-flight requests should adapt to the cluster load.
+   *
+   * <p>When enabled, the executor starts with a low in-flight limit and raises it as long as
+   * requests succeed with stable latencies; it lowers it whenever the server reports that it is
+   * overloaded, requests time out, or latencies degrade. The limit set with {@link
+   * #withMaxInFlightRequests(int)} then becomes the upper bound of the adaptive limit. The default
+   * is {@code false}.
+   *
+   * @param adaptiveInFlightRequests whether the maximum number of in-flight requests is adaptive.
+   * @return this builder (for method chaining).
+   */
+  @SuppressWarnings("UnusedReturnValue")
+  BulkExecutorBuilder<T> withAdaptiveInFlightRequests(boolean adaptiveInFlightRequests);
+
   /**
    * Sets the maximum number of concurrent requests per second. If that limit is reached, the
-   * executor will block until the number of requests per second drops below the threshold. <em>This
-   * feature should not be used in a fully non-blocking application</em>.
+   * executor will defer new requests until the number of requests per second drops below the
+   * threshold; no thread is blocked while waiting.
    *
    * <p>This acts as a safeguard against workflows that could overwhelm the cluster with more
    * requests than it can handle. The default is {@link
@@ -84,9 +99,9 @@ public interface BulkExecutorBuilder<T extends BulkExecutor> {
   BulkExecutorBuilder<T> withMaxRequestsPerSecond(int maxRequestsPerSecond);
 
   /**
-   * Sets the maximum number of bytes per second. If that limit is reached, the executor will block
-   * until the number of bytes per second drops below the threshold. <em>This feature should not be
-   * used in a fully non-blocking application</em>.
+   * Sets the maximum number of bytes per second. If that limit is reached, the executor will defer
+   * new requests until the number of bytes per second drops below the threshold; no thread is
+   * blocked while waiting.
    *
    * <p>This acts as a safeguard against workflows that could overwhelm the cluster with more
    * requests than it can handle. The default is {@link
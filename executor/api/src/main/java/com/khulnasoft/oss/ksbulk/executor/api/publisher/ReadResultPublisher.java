@@ -17,15 +17,15 @@ package com.khulnasoft.oss.ksbulk.executor.api.publisher;
 
 import com.khulnasoft.oss.driver.api.core.CqlSession;
 import com.khulnasoft.oss.driver.api.core.cql.Statement;
-import com.khulnasoft.oss.driver.shaded.guava.common.util.concurrent.RateLimiter;
 import com.khulnasoft.oss.ksbulk.executor.api.AbstractBulkExecutor;
 import com.khulnasoft.oss.ksbulk.executor.api.listener.ExecutionListener;
 import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
 import com.khulnasoft.oss.ksbulk.executor.api.subscription.ReadResultSubscription;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.AsyncRateLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.ConcurrencyLimiter;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.Objects;
-import java.util.concurrent.Semaphore;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 
@@ -40,9 +40,9 @@ public class ReadResultPublisher implements Publisher<ReadResult> {
   private final Statement<?> statement;
   private final CqlSession session;
   private final @Nullable ExecutionListener listener;
-  private final @Nullable Semaphore maxConcurrentRequests;
-  private final @Nullable RateLimiter rateLimiter;
-  private final @Nullable RateLimiter bytesRateLimiter;
+  private final @Nullable ConcurrencyLimiter maxConcurrentRequests;
+  private final @Nullable AsyncRateLimiter rateLimiter;
+  private final @Nullable AsyncRateLimiter bytesRateLimiter;
   private final boolean failFast;
 
   /**
@@ -65,10 +65,11 @@ public class ReadResultPublisher implements Publisher<ReadResult> {
    * @param session The {@link CqlSession} to use.
    * @param failFast whether to fail-fast in case of error.
    * @param listener The {@link ExecutionListener} to use.
-   * @param maxConcurrentRequests The {@link Semaphore} to use to regulate the amount of in-flight
-   *     requests.
-   * @param rateLimiter The {@link RateLimiter} to use to regulate throughput in rows per second.
-   * @param bytesRateLimiter The {@link RateLimiter} to use to regulate throughput in bytes per
+   * @param maxConcurrentRequests The {@link ConcurrencyLimiter} to use to regulate the amount of
+   *     in-flight requests.
+   * @param rateLimiter The {@link AsyncRateLimiter} to use to regulate throughput in rows per
+   *     second.
+   * @param bytesRateLimiter The {@link AsyncRateLimiter} to use to regulate throughput in bytes per
    *     second.
    */
   public ReadResultPublisher(
@@ -76,9 +77,9 @@ public class ReadResultPublisher implements Publisher<ReadResult> {
       @NonNull CqlSession session,
       boolean failFast,
       @Nullable ExecutionListener listener,
-      @Nullable Semaphore maxConcurrentRequests,
-      @Nullable RateLimiter rateLimiter,
-      @Nullable RateLimiter bytesRateLimiter) {
+      @Nullable ConcurrencyLimiter maxConcurrentRequests,
+      @Nullable AsyncRateLimiter rateLimiter,
+      @Nullable AsyncRateLimiter bytesRateLimiter) {
     this.statement = statement;
     this.session = session;
     this.listener = listener;
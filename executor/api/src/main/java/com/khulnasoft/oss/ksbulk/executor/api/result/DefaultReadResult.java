@@ -39,9 +39,13 @@ public final class DefaultReadResult extends DefaultResult implements ReadResult
   }
 
   public DefaultReadResult(@NonNull BulkExecutionException error) {
+    this(error, -1);
+  }
+
+  public DefaultReadResult(@NonNull BulkExecutionException error, long position) {
     super(error);
     row = null;
-    position = -1;
+    this.position = position;
   }
 
   @NonNull
@@ -20,18 +20,20 @@ import com.khulnasoft.oss.driver.api.core.cql.Row;
 import com.khulnasoft.oss.driver.api.core.cql.Statement;
 import com.khulnasoft.oss.driver.api.core.detach.AttachmentPoint;
 import com.khulnasoft.oss.driver.shaded.guava.common.collect.AbstractIterator;
-import com.khulnasoft.oss.driver.shaded.guava.common.util.concurrent.RateLimiter;
 import com.khulnasoft.oss.ksbulk.executor.api.exception.BulkExecutionException;
 import com.khulnasoft.oss.ksbulk.executor.api.listener.ExecutionContext;
 import com.khulnasoft.oss.ksbulk.executor.api.listener.ExecutionListener;
 import com.khulnasoft.oss.ksbulk.executor.api.result.DefaultReadResult;
 import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.AsyncRateLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.ConcurrencyLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.Permits;
 import com.khulnasoft.oss.ksbulk.sampler.DataSizes;
 import com.khulnasoft.oss.ksbulk.sampler.SizeableRow;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.Iterator;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 import org.reactivestreams.Subscriber;
 
@@ -44,9 +46,9 @@ public class ReadResultSubscription extends ResultSubscription<ReadResult, Async
       @NonNull Statement<?> statement,
       @NonNull AttachmentPoint attachmentPoint,
       @Nullable ExecutionListener listener,
-      @Nullable Semaphore maxConcurrentRequests,
-      @Nullable RateLimiter rateLimiter,
-      @Nullable RateLimiter bytesRateLimiter,
+      @Nullable ConcurrencyLimiter maxConcurrentRequests,
+      @Nullable AsyncRateLimiter rateLimiter,
+      @Nullable AsyncRateLimiter bytesRateLimiter,
       boolean failFast) {
     super(
         subscriber,
@@ -108,13 +110,12 @@ public class ReadResultSubscription extends ResultSubscription<ReadResult, Async
   }
 
   @Override
-  void onBeforeResultEmitted(ReadResult result) {
-    if (rateLimiter != null) {
-      rateLimiter.acquire();
-    }
+  CompletableFuture<Void> onBeforeResultEmitted(ReadResult result) {
+    CompletableFuture<Void> permits = Permits.acquire(rateLimiter, 1);
     if (bytesRateLimiter != null && result.getRow().isPresent()) {
       long dataSize = DataSizes.getDataSize(result.getRow().get());
-      bytesRateLimiter.acquire((int) dataSize);
+      permits = Permits.both(permits, bytesRateLimiter.acquire(dataSize));
     }
+    return permits;
   }
 }
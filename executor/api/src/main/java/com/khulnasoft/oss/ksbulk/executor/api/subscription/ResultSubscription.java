@@ -21,7 +21,6 @@ import com.khulnasoft.oss.driver.api.core.cql.BatchStatement;
 import com.khulnasoft.oss.driver.api.core.cql.Row;
 import com.khulnasoft.oss.driver.api.core.cql.Statement;
 import com.khulnasoft.oss.driver.api.core.detach.AttachmentPoint;
-import com.khulnasoft.oss.driver.shaded.guava.common.util.concurrent.RateLimiter;
 import com.khulnasoft.oss.ksbulk.executor.api.exception.BulkExecutionException;
 import com.khulnasoft.oss.ksbulk.executor.api.listener.DefaultExecutionContext;
 import com.khulnasoft.oss.ksbulk.executor.api.listener.ExecutionContext;
@@ -29,6 +28,9 @@ import com.khulnasoft.oss.ksbulk.executor.api.listener.ExecutionListener;
 import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
 import com.khulnasoft.oss.ksbulk.executor.api.result.Result;
 import com.khulnasoft.oss.ksbulk.executor.api.result.WriteResult;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.AsyncRateLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.ConcurrencyLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.Permits;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.Collections;
@@ -38,7 +40,6 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import org.jctools.queues.SpscArrayQueue;
@@ -78,9 +79,9 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
 
   final @NonNull AttachmentPoint attachmentPoint;
   final @Nullable ExecutionListener listener;
-  private final @Nullable Semaphore maxConcurrentRequests;
-  final @Nullable RateLimiter rateLimiter;
-  final @Nullable RateLimiter bytesRateLimiter;
+  private final @Nullable ConcurrencyLimiter maxConcurrentRequests;
+  final @Nullable AsyncRateLimiter rateLimiter;
+  final @Nullable AsyncRateLimiter bytesRateLimiter;
   private final boolean failFast;
 
   /** The number of writes in the batch. 1 for other types of statement. */
@@ -113,6 +114,14 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
    */
   private final AtomicInteger draining = new AtomicInteger(0);
 
+  /**
+   * A result that was dequeued but could not be emitted yet because of throttling, and the permits
+   * it is waiting for. Only accessed from drain(), see {@link #draining}.
+   */
+  private R throttled;
+
+  private CompletableFuture<Void> throttledPermits;
+
   /**
    * The global execution context, used to record latencies for the execution as a whole.
    *
@@ -149,9 +158,9 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
       @NonNull Statement<?> statement,
       @NonNull AttachmentPoint attachmentPoint,
       @Nullable ExecutionListener listener,
-      @Nullable Semaphore maxConcurrentRequests,
-      @Nullable RateLimiter rateLimiter,
-      @Nullable RateLimiter bytesRateLimiter,
+      @Nullable ConcurrencyLimiter maxConcurrentRequests,
+      @Nullable AsyncRateLimiter rateLimiter,
+      @Nullable AsyncRateLimiter bytesRateLimiter,
       boolean failFast) {
     this.subscriber = subscriber;
     this.statement = statement;
@@ -229,8 +238,9 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
   }
 
   /**
-   * May run on a driver IO thread when invoked from {@link #fetchNextPage(Page)}, or on a
-   * subscriber thread, when invoked from {@link #request(long)}.
+   * May run on a driver IO thread when invoked from {@link #fetchNextPage(Page)}, on a subscriber
+   * thread, when invoked from {@link #request(long)}, or on a thread of the pool that grants the
+   * deferred permits of the rate limiters, when a throttled result can finally be emitted.
    *
    * <p>The {@link #draining} field guarantees serialized access to it, without locking.
    */
@@ -258,11 +268,30 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
           clear();
           return;
         }
-        R result = tryNext();
-        if (result == null) {
-          break;
-        }
-        if (result.isSuccess() || !failFast) {
+        R result;
+        if (throttled == null) {
+          result = tryNext();
+          if (result == null) {
+            break;
+          }
+          if (result.isSuccess() || !failFast) {
+            CompletableFuture<Void> permits = onBeforeResultEmitted(result);
+            if (!permits.isDone()) {
+              // hold the result until permits are available, then drain again
+              throttled = result;
+              throttledPermits = permits;
+              permits.thenRun(this::drain);
+              break;
+            }
+            doOnNext(result);
+          }
+        } else {
+          if (!throttledPermits.isDone()) {
+            break;
+          }
+          result = throttled;
+          throttled = null;
+          throttledPermits = null;
           doOnNext(result);
         }
         if (isExhausted()) {
@@ -329,6 +358,9 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
     if (cancelled) {
       return true;
     }
+    if (throttled != null) {
+      return false;
+    }
     Page current = pages.peek();
     // Note: current page can only be null when:
     // 1) we are waiting for the first page and it hasn't arrived yet;
@@ -344,21 +376,38 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
    * the fact that one can only fetch the next page when the current one is arrived and enqueued.
    */
   private void fetchNextPage(Page current) {
+    // Throttling must not block the current thread: if permits are not readily available, the
+    // request is deferred until they are.
+    CompletableFuture<Void> permits = onBeforeRequestStarted();
+    if (permits.isDone()) {
+      sendRequest(current);
+    } else {
+      permits.thenRun(
+          () -> {
+            if (cancelled) {
+              // the subscription was cancelled while waiting: give the permit back instead
+              if (maxConcurrentRequests != null) {
+                maxConcurrentRequests.release();
+              }
+            } else {
+              sendRequest(current);
+            }
+          });
+    }
+  }
+
+  private void sendRequest(Page current) {
     // A local execution context to record metrics for this specific request-response cycle.
     DefaultExecutionContext local = new DefaultExecutionContext();
-    onBeforeRequestStarted();
-    local.start();
-    onRequestStarted(local);
-    current
-        .nextPage()
+    startRequest(current, local)
         // as soon as the response arrives, notify our listener and
         // update maxConcurrentRequests.
         .whenComplete(
             (rs, t) -> {
+              local.stop();
               if (maxConcurrentRequests != null) {
-                maxConcurrentRequests.release();
+                maxConcurrentRequests.release(local.elapsedTimeNanos(), t);
               }
-              local.stop();
               if (t == null) {
                 onRequestSuccessful(rs, local);
               } else {
@@ -395,10 +444,20 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
             });
   }
 
-  void onBeforeRequestStarted() {
-    if (maxConcurrentRequests != null) {
-      maxConcurrentRequests.acquireUninterruptibly();
-    }
+  private CompletionStage<? extends P> startRequest(Page current, DefaultExecutionContext local) {
+    local.start();
+    onRequestStarted(local);
+    return current.nextPage();
+  }
+
+  /**
+   * Acquires the permits required to start the next request.
+   *
+   * @return a future that completes when the request can be started; an already completed one if it
+   *     can be started immediately.
+   */
+  CompletableFuture<Void> onBeforeRequestStarted() {
+    return maxConcurrentRequests == null ? Permits.granted() : maxConcurrentRequests.acquire();
   }
 
   /*
@@ -453,7 +512,6 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
 
   private void doOnNext(R result) {
     try {
-      onBeforeResultEmitted(result);
       subscriber.onNext(result);
     } catch (Throwable t) {
       LOG.error(
@@ -464,8 +522,14 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
     }
   }
 
-  void onBeforeResultEmitted(R result) {
-    // nothing to do by default
+  /**
+   * Acquires the permits required to emit the given result.
+   *
+   * @return a future that completes when the result can be emitted; an already completed one if it
+   *     can be emitted immediately.
+   */
+  CompletableFuture<Void> onBeforeResultEmitted(R result) {
+    return Permits.granted();
   }
 
   private void stop(@Nullable BulkExecutionException error) {
@@ -518,6 +582,8 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
     // We don't need these pages anymore and should not hold references
     // to them.
     pages.clear();
+    throttled = null;
+    throttledPermits = null;
     // As per 3.13, Subscription.cancel() MUST request the Publisher to
     // eventually drop any references to the corresponding subscriber.
     // Our own publishers do not keep references to this subscription,
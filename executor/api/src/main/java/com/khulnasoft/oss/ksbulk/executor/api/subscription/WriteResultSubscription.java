@@ -18,18 +18,20 @@ package com.khulnasoft.oss.ksbulk.executor.api.subscription;
 import com.khulnasoft.oss.driver.api.core.cql.AsyncResultSet;
 import com.khulnasoft.oss.driver.api.core.cql.Statement;
 import com.khulnasoft.oss.driver.api.core.detach.AttachmentPoint;
-import com.khulnasoft.oss.driver.shaded.guava.common.util.concurrent.RateLimiter;
 import com.khulnasoft.oss.ksbulk.executor.api.exception.BulkExecutionException;
 import com.khulnasoft.oss.ksbulk.executor.api.listener.ExecutionContext;
 import com.khulnasoft.oss.ksbulk.executor.api.listener.ExecutionListener;
 import com.khulnasoft.oss.ksbulk.executor.api.result.DefaultWriteResult;
 import com.khulnasoft.oss.ksbulk.executor.api.result.WriteResult;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.AsyncRateLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.ConcurrencyLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.Permits;
 import com.khulnasoft.oss.ksbulk.sampler.DataSizes;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.CompletableFuture;
 import org.reactivestreams.Subscriber;
 
 public class WriteResultSubscription extends ResultSubscription<WriteResult, AsyncResultSet> {
@@ -39,9 +41,9 @@ public class WriteResultSubscription extends ResultSubscription<WriteResult, Asy
       @NonNull Statement<?> statement,
       @NonNull AttachmentPoint attachmentPoint,
       @Nullable ExecutionListener listener,
-      @Nullable Semaphore maxConcurrentRequests,
-      @Nullable RateLimiter rateLimiter,
-      @Nullable RateLimiter bytesRateLimiter,
+      @Nullable ConcurrencyLimiter maxConcurrentRequests,
+      @Nullable AsyncRateLimiter rateLimiter,
+      @Nullable AsyncRateLimiter bytesRateLimiter,
       boolean failFast) {
     super(
         subscriber,
@@ -67,17 +69,18 @@ public class WriteResultSubscription extends ResultSubscription<WriteResult, Asy
   }
 
   @Override
-  void onBeforeRequestStarted() {
-    if (rateLimiter != null) {
-      rateLimiter.acquire(batchSize);
-    }
+  CompletableFuture<Void> onBeforeRequestStarted() {
+    CompletableFuture<Void> permits = Permits.acquire(rateLimiter, batchSize);
     if (bytesRateLimiter != null) {
       long dataSize =
           DataSizes.getDataSize(
               statement, attachmentPoint.getProtocolVersion(), attachmentPoint.getCodecRegistry());
-      bytesRateLimiter.acquire((int) dataSize);
+      permits = Permits.both(permits, bytesRateLimiter.acquire(dataSize));
     }
-    super.onBeforeRequestStarted();
+    // only take an in-flight request slot once the rate limiters allow the request to proceed
+    return permits.isDone()
+        ? super.onBeforeRequestStarted()
+        : permits.thenCompose(v -> super.onBeforeRequestStarted());
   }
 
   @Override
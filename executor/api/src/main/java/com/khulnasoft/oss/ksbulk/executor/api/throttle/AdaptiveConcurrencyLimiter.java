@@ -0,0 +1,191 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.executor.api.throttle;
+
+import com.khulnasoft.oss.driver.api.core.AllNodesFailedException;
+import com.khulnasoft.oss.driver.api.core.DriverTimeoutException;
+import com.khulnasoft.oss.driver.api.core.connection.BusyConnectionException;
+import com.khulnasoft.oss.driver.api.core.servererrors.OverloadedException;
+import com.khulnasoft.oss.driver.api.core.servererrors.ReadTimeoutException;
+import com.khulnasoft.oss.driver.api.core.servererrors.WriteTimeoutException;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link ConcurrencyLimiter} that adjusts its limit at runtime with an AIMD (additive increase,
+ * multiplicative decrease) algorithm, similar to TCP congestion control.
+ *
+ * <p>The limit grows by one for each successful request until the first congestion signal ("slow
+ * start"), then by one for each window of {@code limit} successful requests, that is, roughly by
+ * one per round trip. It only grows when at least half of the permits are in use, so that it does
+ * not drift upwards when the workload cannot saturate it.
+ *
+ * <p>The limit is multiplied by {@value #BACKOFF_RATIO}, at most once per window, whenever a
+ * congestion signal is detected:
+ *
+ * <ol>
+ *   <li>the server replies that it is overloaded;
+ *   <li>a request times out, either server-side or client-side, or the connection is busy;
+ *   <li>the recent average latency gets {@value #LATENCY_TOLERANCE} times higher than the long-term
+ *       average latency.
+ * </ol>
+ */
+public final class AdaptiveConcurrencyLimiter implements ConcurrencyLimiter {
+
+  private static final double BACKOFF_RATIO = 0.9;
+  private static final double LATENCY_TOLERANCE = 2.0;
+
+  /** Smoothing factors of the recent and long-term latency averages. */
+  private static final double SHORT_TERM_ALPHA = 0.1;
+
+  private static final double LONG_TERM_ALPHA = 0.01;
+
+  /** The number of samples to collect before comparing latency averages. */
+  private static final int LATENCY_WARMUP = 100;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final AsyncSemaphore permits;
+
+  // the state below is guarded by this
+  private double limit;
+  private int appliedLimit;
+  private boolean slowStart = true;
+  private long samplesSinceBackoff;
+  private long latencySamples;
+  private double shortTermLatency;
+  private double longTermLatency;
+
+  /**
+   * Creates a new limiter.
+   *
+   * @param initialLimit the initial limit.
+   * @param minLimit the minimum limit, must be strictly positive.
+   * @param maxLimit the maximum limit.
+   */
+  public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+    if (minLimit <= 0 || maxLimit < minLimit) {
+      throw new IllegalArgumentException(
+          String.format("Invalid concurrency limits: min %d, max %d", minLimit, maxLimit));
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    appliedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    limit = appliedLimit;
+    permits = new AsyncSemaphore(appliedLimit);
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<Void> acquire() {
+    return permits.acquire();
+  }
+
+  @Override
+  public void release(long latencyNanos, @Nullable Throwable error) {
+    int delta;
+    synchronized (this) {
+      delta = adjustLimit(latencyNanos, error);
+    }
+    // apply changes outside of the lock, as this may complete waiters
+    if (delta > 0) {
+      permits.addPermits(delta);
+    } else if (delta < 0) {
+      permits.reducePermits(-delta);
+    }
+    permits.release();
+  }
+
+  @Override
+  public void release() {
+    permits.release();
+  }
+
+  @Override
+  public synchronized int getLimit() {
+    return appliedLimit;
+  }
+
+  /** @return the difference between the new limit and the previous one. */
+  private int adjustLimit(long latencyNanos, @Nullable Throwable error) {
+    samplesSinceBackoff++;
+    boolean congested;
+    if (error == null) {
+      congested = recordLatency(latencyNanos);
+    } else {
+      congested = isCongestionSignal(error);
+    }
+    if (congested) {
+      if (slowStart || samplesSinceBackoff >= limit) {
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        samplesSinceBackoff = 0;
+        slowStart = false;
+      }
+    } else if (error == null && isSaturated()) {
+      limit = Math.min(maxLimit, slowStart ? limit + 1 : limit + 1 / limit);
+    }
+    int previous = appliedLimit;
+    appliedLimit = (int) limit;
+    return appliedLimit - previous;
+  }
+
+  /** @return whether the recent latencies are abnormally high. */
+  private boolean recordLatency(long latencyNanos) {
+    if (latencyNanos < 0) {
+      return false;
+    }
+    if (latencySamples++ == 0) {
+      shortTermLatency = longTermLatency = latencyNanos;
+      return false;
+    }
+    shortTermLatency += SHORT_TERM_ALPHA * (latencyNanos - shortTermLatency);
+    longTermLatency += LONG_TERM_ALPHA * (latencyNanos - longTermLatency);
+    return latencySamples > LATENCY_WARMUP
+        && shortTermLatency > longTermLatency * LATENCY_TOLERANCE;
+  }
+
+  private boolean isSaturated() {
+    int inFlight = appliedLimit - permits.availablePermits();
+    return inFlight * 2 >= appliedLimit;
+  }
+
+  private static boolean isCongestionSignal(Throwable error) {
+    for (Throwable t = error; t != null; t = t.getCause()) {
+      if (t instanceof OverloadedException
+          || t instanceof ReadTimeoutException
+          || t instanceof WriteTimeoutException
+          || t instanceof DriverTimeoutException
+          || t instanceof BusyConnectionException) {
+        return true;
+      }
+      if (t instanceof AllNodesFailedException) {
+        for (List<Throwable> errors : ((AllNodesFailedException) t).getAllErrors().values()) {
+          for (Throwable nodeError : errors) {
+            if (isCongestionSignal(nodeError)) {
+              return true;
+            }
+          }
+        }
+      }
+      if (t.getCause() == t) {
+        break;
+      }
+    }
+    return false;
+  }
+}
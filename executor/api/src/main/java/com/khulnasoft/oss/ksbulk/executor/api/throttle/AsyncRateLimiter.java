@@ -0,0 +1,187 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.executor.api.throttle;
+
+import com.khulnasoft.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
+import com.khulnasoft.oss.driver.shaded.guava.common.util.concurrent.ThreadFactoryBuilder;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A non-blocking rate limiter.
+ *
+ * <p>Instead of parking the calling thread like Guava's {@code RateLimiter} does, {@link
+ * #acquire(long)} returns a future that completes when the permits become available. Callers are
+ * expected to defer their work until then.
+ *
+ * <p>This rate limiter follows the same model as Guava's {@code SmoothBursty} limiter: a request
+ * for permits is always granted immediately, but the cost of that request is paid by the next
+ * caller; and permits not used while the limiter is idle are stored, up to one second's worth.
+ *
+ * <p>The state of the limiter is a single timestamp updated with compare-and-set operations, so
+ * that it never blocks, even under contention.
+ *
+ * <p>Deferred permits are granted on the scheduler given at creation time, which is also where the
+ * callers' deferred work will run, unless an executor to grant them on is given as well, or the
+ * callers hand that work off to another executor.
+ */
+public final class AsyncRateLimiter {
+
+  private static final long MAX_BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final double permitsPerSecond;
+  private final double intervalNanos;
+  private final LongSupplier nanoClock;
+  private final ScheduledExecutorService scheduler;
+  private final Executor executor;
+
+  /**
+   * The instant at which the next permit will be available. When that instant is in the past, the
+   * difference with the current time represents stored permits.
+   */
+  private final AtomicLong nextFreeNanos;
+
+  /**
+   * Creates a new rate limiter that grants deferred permits on a timer thread shared by all such
+   * limiters. Callers should not run any significant work upon completion of the returned futures
+   * without handing it off to another executor; see {@link #create(double,
+   * ScheduledExecutorService)}.
+   *
+   * @param permitsPerSecond the rate of the returned limiter, in permits per second.
+   * @return a new rate limiter.
+   * @throws IllegalArgumentException if {@code permitsPerSecond} is negative or zero.
+   */
+  @NonNull
+  public static AsyncRateLimiter create(double permitsPerSecond) {
+    return create(permitsPerSecond, TimerHolder.TIMER);
+  }
+
+  /**
+   * Creates a new rate limiter that grants deferred permits on the given scheduler.
+   *
+   * @param permitsPerSecond the rate of the returned limiter, in permits per second.
+   * @param scheduler the scheduler to grant deferred permits on.
+   * @return a new rate limiter.
+   * @throws IllegalArgumentException if {@code permitsPerSecond} is negative or zero.
+   */
+  @NonNull
+  public static AsyncRateLimiter create(
+      double permitsPerSecond, @NonNull ScheduledExecutorService scheduler) {
+    return new AsyncRateLimiter(permitsPerSecond, System::nanoTime, scheduler, Runnable::run);
+  }
+
+  /**
+   * Creates a new rate limiter that waits for deferred permits on the given scheduler, then grants
+   * them on the given executor. This keeps the scheduler available for timing other permits while
+   * the callers' deferred work runs.
+   *
+   * @param permitsPerSecond the rate of the returned limiter, in permits per second.
+   * @param scheduler the scheduler to wait for deferred permits on.
+   * @param executor the executor to grant deferred permits on.
+   * @return a new rate limiter.
+   * @throws IllegalArgumentException if {@code permitsPerSecond} is negative or zero.
+   */
+  @NonNull
+  public static AsyncRateLimiter create(
+      double permitsPerSecond,
+      @NonNull ScheduledExecutorService scheduler,
+      @NonNull Executor executor) {
+    return new AsyncRateLimiter(permitsPerSecond, System::nanoTime, scheduler, executor);
+  }
+
+  @VisibleForTesting
+  AsyncRateLimiter(
+      double permitsPerSecond, LongSupplier nanoClock, ScheduledExecutorService scheduler) {
+    this(permitsPerSecond, nanoClock, scheduler, Runnable::run);
+  }
+
+  private AsyncRateLimiter(
+      double permitsPerSecond,
+      LongSupplier nanoClock,
+      ScheduledExecutorService scheduler,
+      Executor executor) {
+    if (permitsPerSecond <= 0.0 || Double.isNaN(permitsPerSecond)) {
+      throw new IllegalArgumentException("rate must be positive");
+    }
+    this.permitsPerSecond = permitsPerSecond;
+    this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+    this.nanoClock = nanoClock;
+    this.scheduler = scheduler;
+    this.executor = executor;
+    nextFreeNanos = new AtomicLong(nanoClock.getAsLong());
+  }
+
+  /** @return the stable rate of this limiter, in permits per second. */
+  public double getRate() {
+    return permitsPerSecond;
+  }
+
+  /**
+   * Acquires the given number of permits.
+   *
+   * @param permits the number of permits to acquire.
+   * @return a future that completes when the caller is allowed to proceed; if that is the case
+   *     already, the returned future is already complete, otherwise it is completed on this
+   *     limiter's executor, or on its scheduler if it has no executor.
+   */
+  @NonNull
+  public CompletableFuture<Void> acquire(long permits) {
+    long waitNanos = reserve(permits);
+    if (waitNanos <= 0) {
+      return Permits.granted();
+    }
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    scheduler.schedule(
+        () -> executor.execute(() -> future.complete(null)), waitNanos, TimeUnit.NANOSECONDS);
+    return future;
+  }
+
+  /**
+   * Reserves the given number of permits.
+   *
+   * @param permits the number of permits to reserve.
+   * @return the time to wait before using the permits, in nanoseconds; zero or negative if they can
+   *     be used immediately.
+   */
+  public long reserve(long permits) {
+    if (permits < 0) {
+      throw new IllegalArgumentException("Requested permits must not be negative");
+    }
+    long cost = (long) (permits * intervalNanos);
+    while (true) {
+      long now = nanoClock.getAsLong();
+      long prev = nextFreeNanos.get();
+      // never store more than MAX_BURST_NANOS worth of permits
+      long base = Math.max(prev, now - MAX_BURST_NANOS);
+      if (nextFreeNanos.compareAndSet(prev, base + cost)) {
+        return base - now;
+      }
+    }
+  }
+
+  private static final class TimerHolder {
+
+    private static final ScheduledExecutorService TIMER =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("rate-limiter-%d").build());
+  }
+}
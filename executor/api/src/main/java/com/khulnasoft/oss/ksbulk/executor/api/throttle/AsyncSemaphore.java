@@ -0,0 +1,145 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.executor.api.throttle;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A non-blocking semaphore.
+ *
+ * <p>Instead of parking the calling thread like {@link java.util.concurrent.Semaphore} does, {@link
+ * #acquire()} returns a future that completes when a permit has been assigned to the caller.
+ * Waiters are served in FIFO order. Both the permit count and the queue of waiters are lock-free.
+ */
+public final class AsyncSemaphore {
+
+  private final AtomicInteger permits;
+
+  private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger assigning = new AtomicInteger(0);
+
+  /**
+   * Creates a new semaphore.
+   *
+   * @param permits the initial number of permits available.
+   */
+  public AsyncSemaphore(int permits) {
+    this.permits = new AtomicInteger(permits);
+  }
+
+  /** @return the number of permits currently available. */
+  public int availablePermits() {
+    return permits.get();
+  }
+
+  /**
+   * Acquires a permit.
+   *
+   * @return a future that completes when the permit has been assigned to the caller; if a permit
+   *     was readily available, the returned future is already complete. Cancelling the future
+   *     before it completes gives up the permit.
+   */
+  @NonNull
+  public CompletableFuture<Void> acquire() {
+    // don't overtake callers already waiting
+    if (waiters.isEmpty() && tryAcquire()) {
+      return Permits.granted();
+    }
+    CompletableFuture<Void> waiter = new CompletableFuture<>();
+    waiters.offer(waiter);
+    // a permit may have been released before we enqueued
+    assignPermits();
+    return waiter;
+  }
+
+  /**
+   * Acquires a permit if one is available.
+   *
+   * @return {@code true} if a permit was acquired, {@code false} otherwise.
+   */
+  public boolean tryAcquire() {
+    while (true) {
+      int available = permits.get();
+      if (available <= 0) {
+        return false;
+      }
+      if (permits.compareAndSet(available, available - 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Adds the given number of permits, assigning them to waiters if any.
+   *
+   * @param permits the number of permits to add.
+   */
+  public void addPermits(int permits) {
+    this.permits.addAndGet(permits);
+    assignPermits();
+  }
+
+  /**
+   * Removes the given number of permits. Unlike {@link #tryAcquire()}, this never fails: the number
+   * of available permits may become negative, in which case callers will have to wait until enough
+   * permits are released.
+   *
+   * @param permits the number of permits to remove.
+   */
+  public void reducePermits(int permits) {
+    this.permits.addAndGet(-permits);
+  }
+
+  /**
+   * Releases a permit. If callers are waiting, the permit is assigned to the oldest one, and its
+   * future is completed in the current thread.
+   */
+  public void release() {
+    permits.incrementAndGet();
+    assignPermits();
+  }
+
+  /**
+   * Assigns available permits to waiters. Completing a waiter may trigger a call to {@link
+   * #release()} in the same thread; to avoid deep recursions, the {@link #assigning} field
+   * serializes access to this method, and keeps track of missed attempts to enter it, in the same
+   * way as {@code ResultSubscription.drain()}.
+   */
+  private void assignPermits() {
+    if (assigning.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      while (!waiters.isEmpty() && tryAcquire()) {
+        CompletableFuture<Void> waiter = waiters.poll();
+        if (waiter == null) {
+          // cannot happen as long as only this method polls the queue
+          permits.incrementAndGet();
+        } else if (!waiter.complete(null)) {
+          // the waiter was cancelled: the permit goes to the next one
+          permits.incrementAndGet();
+        }
+      }
+      missed = assigning.addAndGet(-missed);
+    } while (missed != 0);
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.executor.api.throttle;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.concurrent.CompletableFuture;
+
+/** Limits the number of requests that can be in flight at the same time. */
+public interface ConcurrencyLimiter {
+
+  /**
+   * Acquires a permit to start a request.
+   *
+   * @return a future that completes when the request can be started; an already completed one if it
+   *     can be started immediately.
+   */
+  @NonNull
+  CompletableFuture<Void> acquire();
+
+  /**
+   * Releases the permit acquired for a request, once that request is complete.
+   *
+   * @param latencyNanos the request latency, in nanoseconds.
+   * @param error the error the request failed with, or {@code null} if it succeeded.
+   */
+  void release(long latencyNanos, @Nullable Throwable error);
+
+  /**
+   * Releases the permit acquired for a request that was never started. Unlike {@link #release(long,
+   * Throwable)}, this has no influence on the limit.
+   */
+  void release();
+
+  /** @return the current maximum number of in-flight requests. */
+  int getLimit();
+}
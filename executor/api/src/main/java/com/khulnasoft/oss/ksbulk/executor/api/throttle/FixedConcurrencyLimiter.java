@@ -0,0 +1,58 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.executor.api.throttle;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.concurrent.CompletableFuture;
+
+/** A {@link ConcurrencyLimiter} whose limit never changes. */
+public final class FixedConcurrencyLimiter implements ConcurrencyLimiter {
+
+  private final int limit;
+  private final AsyncSemaphore permits;
+
+  public FixedConcurrencyLimiter(int limit) {
+    this.limit = limit;
+    permits = new AsyncSemaphore(limit);
+  }
+
+  @NonNull
+  @Override
+  public CompletableFuture<Void> acquire() {
+    return permits.acquire();
+  }
+
+  @Override
+  public void release(long latencyNanos, @Nullable Throwable error) {
+    permits.release();
+  }
+
+  @Override
+  public void release() {
+    permits.release();
+  }
+
+  @Override
+  public int getLimit() {
+    return limit;
+  }
+
+  /** @return the number of requests that can be started immediately. */
+  public int availablePermits() {
+    return permits.availablePermits();
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.executor.api.throttle;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Utilities to combine the futures returned by {@link AsyncRateLimiter} and {@link AsyncSemaphore}.
+ */
+public final class Permits {
+
+  private Permits() {}
+
+  /**
+   * Returns a new future that is already complete, for permits granted immediately. Callers should
+   * check {@link CompletableFuture#isDone()} to avoid deferring their work needlessly.
+   */
+  @NonNull
+  public static CompletableFuture<Void> granted() {
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Acquires the given number of permits from the given limiter, if any.
+   *
+   * @return a future that completes when permits are available; an already completed one if the
+   *     limiter is null.
+   */
+  @NonNull
+  public static CompletableFuture<Void> acquire(@Nullable AsyncRateLimiter limiter, long permits) {
+    return limiter == null ? granted() : limiter.acquire(permits);
+  }
+
+  /**
+   * @return a future that completes when both futures are complete; one of them if the other one is
+   *     already done.
+   */
+  @NonNull
+  public static CompletableFuture<Void> both(
+      @NonNull CompletableFuture<Void> first, @NonNull CompletableFuture<Void> second) {
+    if (second.isDone()) {
+      return first;
+    }
+    if (first.isDone()) {
+      return second;
+    }
+    return CompletableFuture.allOf(first, second);
+  }
+}
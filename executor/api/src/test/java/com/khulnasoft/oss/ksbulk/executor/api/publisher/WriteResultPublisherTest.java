@@ -15,8 +15,11 @@
  */
 package com.khulnasoft.oss.ksbulk.executor.api.publisher;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.khulnasoft.oss.driver.api.core.CqlSession;
@@ -25,9 +28,13 @@ import com.khulnasoft.oss.driver.api.core.cql.ExecutionInfo;
 import com.khulnasoft.oss.driver.api.core.cql.SimpleStatement;
 import com.khulnasoft.oss.driver.api.core.cql.Statement;
 import com.khulnasoft.oss.ksbulk.executor.api.result.WriteResult;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.FixedConcurrencyLimiter;
 import com.khulnasoft.oss.ksbulk.tests.driver.MockAsyncResultSet;
 import java.util.concurrent.CompletableFuture;
 import org.reactivestreams.Publisher;
+import org.testng.annotations.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 
 public class WriteResultPublisherTest extends ResultPublisherTestBase<WriteResult> {
 
@@ -50,6 +57,22 @@ public class WriteResultPublisherTest extends ResultPublisherTestBase<WriteResul
     return new WriteResultPublisher(statement, session, true, FAILED_LISTENER, null, null, null);
   }
 
+  @Test
+  public void should_not_start_request_cancelled_while_waiting_for_permit() {
+    Statement<?> statement = SimpleStatement.newInstance("irrelevant");
+    CqlSession session = setUpSession();
+    FixedConcurrencyLimiter limiter = new FixedConcurrencyLimiter(1);
+    assertThat(limiter.acquire()).isDone();
+    Disposable subscription =
+        Flux.from(new WriteResultPublisher(statement, session, true, null, limiter, null, null))
+            .subscribe();
+    subscription.dispose();
+    // hands the permit over to the waiting request, which must give it back unused
+    limiter.release(0, null);
+    verify(session, never()).executeAsync(any(SimpleStatement.class));
+    assertThat(limiter.availablePermits()).isOne();
+  }
+
   private static CqlSession setUpSession() {
     CqlSession session = mock(CqlSession.class);
     CompletableFuture<AsyncResultSet> future = new CompletableFuture<>();
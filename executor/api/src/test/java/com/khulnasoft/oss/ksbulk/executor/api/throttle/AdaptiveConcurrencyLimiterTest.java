@@ -0,0 +1,131 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.executor.api.throttle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.khulnasoft.oss.driver.api.core.DriverTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  void should_grow_limit_during_slow_start_when_saturated() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 100);
+    for (int i = 0; i < 4; i++) {
+      assertThat(limiter.acquire()).isDone();
+    }
+    limiter.release(LATENCY, null);
+    assertThat(limiter.getLimit()).isEqualTo(5);
+    limiter.release(LATENCY, null);
+    assertThat(limiter.getLimit()).isEqualTo(6);
+  }
+
+  @Test
+  void should_not_grow_limit_when_not_saturated() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+    for (int i = 0; i < 100; i++) {
+      limiter.acquire();
+      limiter.release(LATENCY, null);
+    }
+    assertThat(limiter.getLimit()).isEqualTo(10);
+  }
+
+  @Test
+  void should_not_grow_limit_beyond_max() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 5);
+    for (int i = 0; i < 4; i++) {
+      limiter.acquire();
+    }
+    limiter.release(LATENCY, null);
+    limiter.acquire();
+    limiter.release(LATENCY, null);
+    assertThat(limiter.getLimit()).isEqualTo(5);
+  }
+
+  @Test
+  void should_shrink_limit_on_overload() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+    limiter.acquire();
+    limiter.release(LATENCY, new CompletionException(new DriverTimeoutException("timeout")));
+    assertThat(limiter.getLimit()).isEqualTo(9);
+    // at most one decrease per window
+    limiter.acquire();
+    limiter.release(LATENCY, new DriverTimeoutException("timeout"));
+    assertThat(limiter.getLimit()).isEqualTo(9);
+  }
+
+  @Test
+  void should_not_shrink_limit_on_other_errors() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+    limiter.acquire();
+    limiter.release(LATENCY, new IllegalArgumentException("syntax error"));
+    assertThat(limiter.getLimit()).isEqualTo(10);
+  }
+
+  @Test
+  void should_not_shrink_limit_below_min() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2, 100);
+    for (int i = 0; i < 10; i++) {
+      limiter.acquire();
+      limiter.release(LATENCY, new DriverTimeoutException("timeout"));
+    }
+    assertThat(limiter.getLimit()).isEqualTo(2);
+  }
+
+  @Test
+  void should_shrink_limit_when_latency_degrades() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+    for (int i = 0; i < 200; i++) {
+      limiter.acquire();
+      limiter.release(LATENCY, null);
+    }
+    assertThat(limiter.getLimit()).isEqualTo(10);
+    for (int i = 0; i < 20; i++) {
+      limiter.acquire();
+      limiter.release(LATENCY * 10, null);
+    }
+    assertThat(limiter.getLimit()).isLessThan(10);
+  }
+
+  @Test
+  void should_withhold_permits_when_limit_shrinks() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 100);
+    limiter.acquire();
+    limiter.acquire();
+    limiter.release(LATENCY, new DriverTimeoutException("timeout"));
+    assertThat(limiter.getLimit()).isOne();
+    // one request is still in flight: the next one must wait
+    CompletableFuture<Void> waiter = limiter.acquire();
+    assertThat(waiter).isNotDone();
+    limiter.release(LATENCY, null);
+    assertThat(waiter).isDone();
+  }
+
+  @Test
+  void should_reject_invalid_limits() {
+    assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(1, 0, 10))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(1, 10, 5))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.executor.api.throttle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncRateLimiterTest {
+
+  private static final long START = 1_000_000_000_000L;
+
+  private final AtomicLong clock = new AtomicLong(START);
+
+  private ScheduledExecutorService timer;
+
+  @BeforeEach
+  void createTimer() {
+    timer = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @AfterEach
+  void shutdownTimer() {
+    timer.shutdownNow();
+  }
+
+  @Test
+  void should_reject_invalid_rates() {
+    assertThatThrownBy(() -> AsyncRateLimiter.create(0))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> AsyncRateLimiter.create(-1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void should_make_next_caller_pay_for_permits() {
+    // 10 permits per second = 100 ms per permit
+    AsyncRateLimiter limiter = new AsyncRateLimiter(10, clock::get, timer);
+    assertThat(limiter.getRate()).isEqualTo(10);
+    assertThat(limiter.reserve(1)).isZero();
+    assertThat(limiter.reserve(1)).isEqualTo(millis(100));
+    assertThat(limiter.reserve(5)).isEqualTo(millis(200));
+    assertThat(limiter.reserve(1)).isEqualTo(millis(700));
+    clock.addAndGet(millis(700));
+    assertThat(limiter.reserve(1)).isEqualTo(millis(100));
+  }
+
+  @Test
+  void should_store_at_most_one_second_of_permits() {
+    AsyncRateLimiter limiter = new AsyncRateLimiter(10, clock::get, timer);
+    clock.addAndGet(millis(5000));
+    // 10 stored permits
+    for (int i = 0; i < 10; i++) {
+      assertThat(limiter.reserve(1)).isLessThanOrEqualTo(0);
+    }
+    assertThat(limiter.reserve(1)).isZero();
+    assertThat(limiter.reserve(1)).isEqualTo(millis(100));
+  }
+
+  @Test
+  void should_grant_permits_immediately_when_available() {
+    AsyncRateLimiter limiter = new AsyncRateLimiter(10, clock::get, timer);
+    assertThat(limiter.acquire(1)).isDone();
+  }
+
+  @Test
+  void should_defer_permits_when_not_available() throws Exception {
+    AsyncRateLimiter limiter = AsyncRateLimiter.create(20);
+    // consume the first permit and make the next caller wait 50 ms
+    limiter.acquire(1);
+    long start = System.nanoTime();
+    CompletableFuture<Void> permits = limiter.acquire(1);
+    assertThat(permits).isNotDone();
+    permits.get(1, TimeUnit.SECONDS);
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(millis(40));
+  }
+
+  @Test
+  void should_grant_deferred_permits_on_given_scheduler() throws Exception {
+    Thread timerThread = timer.submit(Thread::currentThread).get();
+    AsyncRateLimiter limiter = AsyncRateLimiter.create(20, timer);
+    limiter.acquire(1);
+    CompletableFuture<Thread> completer =
+        limiter.acquire(1).thenApply(ignored -> Thread.currentThread());
+    assertThat(completer.get(1, TimeUnit.SECONDS)).isSameAs(timerThread);
+  }
+
+  @Test
+  void should_grant_deferred_permits_on_given_executor() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Thread executorThread = executor.submit(Thread::currentThread).get();
+      AsyncRateLimiter limiter = AsyncRateLimiter.create(20, timer, executor);
+      limiter.acquire(1);
+      CompletableFuture<Thread> completer =
+          limiter.acquire(1).thenApply(ignored -> Thread.currentThread());
+      assertThat(completer.get(1, TimeUnit.SECONDS)).isSameAs(executorThread);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.executor.api.throttle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class AsyncSemaphoreTest {
+
+  @Test
+  void should_grant_permits_immediately_when_available() {
+    AsyncSemaphore semaphore = new AsyncSemaphore(2);
+    assertThat(semaphore.acquire()).isDone();
+    assertThat(semaphore.tryAcquire()).isTrue();
+    assertThat(semaphore.tryAcquire()).isFalse();
+    assertThat(semaphore.availablePermits()).isZero();
+  }
+
+  @Test
+  void should_assign_released_permits_to_waiters_in_order() {
+    AsyncSemaphore semaphore = new AsyncSemaphore(1);
+    semaphore.acquire();
+    CompletableFuture<Void> waiter1 = semaphore.acquire();
+    CompletableFuture<Void> waiter2 = semaphore.acquire();
+    assertThat(waiter1).isNotDone();
+    assertThat(waiter2).isNotDone();
+    semaphore.release();
+    assertThat(waiter1).isDone();
+    assertThat(waiter2).isNotDone();
+    // a permit is released, but a caller is waiting: new callers must not overtake it
+    semaphore.release();
+    assertThat(waiter2).isDone();
+    assertThat(semaphore.availablePermits()).isZero();
+    semaphore.release();
+    assertThat(semaphore.availablePermits()).isOne();
+  }
+
+  @Test
+  void should_skip_cancelled_waiters() {
+    AsyncSemaphore semaphore = new AsyncSemaphore(1);
+    semaphore.acquire();
+    CompletableFuture<Void> waiter1 = semaphore.acquire();
+    CompletableFuture<Void> waiter2 = semaphore.acquire();
+    waiter1.cancel(false);
+    semaphore.release();
+    assertThat(waiter2).isDone();
+    assertThat(semaphore.availablePermits()).isZero();
+    semaphore.release();
+    assertThat(semaphore.availablePermits()).isOne();
+  }
+
+  @Test
+  void should_never_exceed_permits_under_contention() throws Exception {
+    int permits = 4;
+    int threads = 8;
+    int acquisitionsPerThread = 10_000;
+    AsyncSemaphore semaphore = new AsyncSemaphore(permits);
+    AtomicInteger inUse = new AtomicInteger();
+    AtomicInteger maxInUse = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(threads * acquisitionsPerThread);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Runnable> tasks = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        tasks.add(
+            () -> {
+              for (int j = 0; j < acquisitionsPerThread; j++) {
+                semaphore
+                    .acquire()
+                    .thenRun(
+                        () -> {
+                          maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                          inUse.decrementAndGet();
+                          semaphore.release();
+                          done.countDown();
+                        });
+              }
+            });
+      }
+      tasks.forEach(executor::execute);
+      assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(maxInUse.get()).isLessThanOrEqualTo(permits);
+    assertThat(semaphore.availablePermits()).isEqualTo(permits);
+  }
+}
@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -111,6 +112,20 @@ public final class CompressedIOUtils {
     return reader;
   }
 
+  /**
+   * Opens a reader for the given URL. Uncompressed resources are read with {@link
+   * IOUtils#newReader(URL, Charset, boolean)}, so local files are memory-mapped if {@code
+   * memoryMapped} is true.
+   */
+  public static Reader newReader(
+      final URL url, final Charset charset, final String compression, boolean memoryMapped)
+      throws IOException {
+    if (compression == null || isNoneCompression(compression)) {
+      return IOUtils.newReader(url, charset, memoryMapped);
+    }
+    return newBufferedReader(url, charset, compression);
+  }
+
   public static BufferedWriter newBufferedWriter(
       final URL url, final Charset charset, final String compression) throws IOException {
     final BufferedWriter writer;
@@ -17,7 +17,9 @@ package com.khulnasoft.oss.ksbulk.io;
 
 import static java.nio.file.StandardOpenOption.CREATE_NEW;
 
+import com.khulnasoft.oss.driver.shaded.guava.common.io.ByteStreams;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
@@ -27,14 +29,18 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.stream.Stream;
 
 public final class IOUtils {
@@ -46,8 +52,8 @@ public final class IOUtils {
    * scheme is {@code std:/}.
    *
    * <p>This is a copy of {@code
-   * com.khulnasoft.oss.ksbulk.url.StdinStdoutURLStreamHandlerProvider#STANDARD_STREAM_PROTOCOL} since
-   * this module does not have a compile-time dependency on ksbulk-url.
+   * com.khulnasoft.oss.ksbulk.url.StdinStdoutURLStreamHandlerProvider#STANDARD_STREAM_PROTOCOL}
+   * since this module does not have a compile-time dependency on ksbulk-url.
    */
   private static final String STANDARD_STREAM_PROTOCOL = "std";
 
@@ -86,6 +92,71 @@ public final class IOUtils {
         new InputStreamReader(newBufferedInputStream(url), charset), BUFFER_SIZE);
   }
 
+  /**
+   * Opens a reader for the given URL.
+   *
+   * <p>If {@code memoryMapped} is true, local files are memory-mapped and decoded directly into the
+   * caller's buffers, see {@link MappedFileReader}; the returned reader should not be wrapped in a
+   * {@link BufferedReader}. Other URLs, and all URLs if {@code memoryMapped} is false or if mapped
+   * regions cannot be unmapped on this JVM, are read with {@link #newBufferedReader(URL, Charset)}.
+   */
+  public static Reader newReader(@NonNull URL url, @NonNull Charset charset, boolean memoryMapped)
+      throws IOException {
+    if (memoryMapped && MappedFileReader.isUnmappingSupported()) {
+      Path file = getLocalFile(url);
+      if (file != null) {
+        return new MappedFileReader(file, 0, Files.size(file), charset);
+      }
+    }
+    return newBufferedReader(url, charset);
+  }
+
+  /**
+   * Opens a reader for the bytes of the given local file that are comprised between {@code start}
+   * (inclusive) and {@code end} (exclusive).
+   *
+   * <p>If {@code memoryMapped} is true, and if mapped regions can be unmapped on this JVM, the file
+   * is memory-mapped, see {@link MappedFileReader}; otherwise, it is read through a file channel.
+   *
+   * <p>The range boundaries must fall on character boundaries for the given charset; it is the
+   * caller's responsibility to ensure that.
+   */
+  public static Reader newReader(
+      @NonNull Path file, long start, long end, @NonNull Charset charset, boolean memoryMapped)
+      throws IOException {
+    if (start < 0 || end < start) {
+      throw new IllegalArgumentException(String.format("Invalid range: %d-%d", start, end));
+    }
+    if (memoryMapped && MappedFileReader.isUnmappingSupported()) {
+      return new MappedFileReader(file, start, end, charset);
+    }
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      channel.position(start);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    InputStream in = ByteStreams.limit(Channels.newInputStream(channel), end - start);
+    return new BufferedReader(new InputStreamReader(in, charset), BUFFER_SIZE);
+  }
+
+  /** Returns the regular file that the given URL points to, or null if it is not a local file. */
+  @Nullable
+  private static Path getLocalFile(@NonNull URL url) {
+    if (url.getProtocol().equals("file")) {
+      try {
+        Path file = Paths.get(url.toURI());
+        if (Files.isRegularFile(file)) {
+          return file;
+        }
+      } catch (URISyntaxException | IllegalArgumentException e) {
+        // not a valid local path, e.g. a URL with an authority component
+      }
+    }
+    return null;
+  }
+
   public static BufferedWriter newBufferedWriter(URL url, Charset charset) throws IOException {
     return new BufferedWriter(
         new OutputStreamWriter(newBufferedOutputStream(url), charset), BUFFER_SIZE);
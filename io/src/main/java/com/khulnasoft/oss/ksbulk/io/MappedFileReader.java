@@ -0,0 +1,264 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.io;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link Reader} for a range of bytes of a local file, backed by memory-mapped buffers.
+ *
+ * <p>Bytes are decoded directly from the mapped buffer into the caller's array: there is no
+ * intermediate copy into a byte array, as with {@link java.io.InputStreamReader}, nor into a char
+ * array, as with {@link java.io.BufferedReader}. Callers such as CSV or Json parsers, that read
+ * into their own buffers, should therefore not wrap this reader in a {@link
+ * java.io.BufferedReader}.
+ *
+ * <p>A single mapping cannot exceed 2 GB; larger ranges are mapped in consecutive regions, each
+ * region being mapped when the previous one has been fully decoded. A region always starts at the
+ * first byte that has not been decoded yet, so characters spanning two regions are decoded
+ * correctly.
+ *
+ * <p>Malformed input and unmappable characters are replaced, as done by {@link
+ * java.io.InputStreamReader}.
+ *
+ * <p>Regions are unmapped as soon as they have been decoded, and when the reader is closed, instead
+ * of when they are garbage-collected: a mapped file cannot be deleted or renamed on some platforms,
+ * such as Windows. This requires JVM internals; when they are not available, {@link
+ * #isUnmappingSupported()} returns false and this reader should not be used.
+ */
+final class MappedFileReader extends Reader {
+
+  /** The default maximum size of a mapped region. */
+  static final long DEFAULT_REGION_SIZE = 1 << 30;
+
+  @Nullable private static final Unmapper UNMAPPER = createUnmapper();
+
+  private final FileChannel channel;
+  private final CharsetDecoder decoder;
+  private final long end;
+  private final long regionSize;
+
+  // the position in the file of the first byte of the current region
+  private long regionStart;
+  private ByteBuffer region;
+  // the second half of a surrogate pair that could not be returned by the last read
+  private int leftover = -1;
+  private final char[] single = new char[1];
+  private final char[] pair = new char[2];
+  private boolean eof;
+  private boolean closed;
+
+  MappedFileReader(@NonNull Path file, long start, long end, @NonNull Charset charset)
+      throws IOException {
+    this(file, start, end, charset, DEFAULT_REGION_SIZE);
+  }
+
+  MappedFileReader(
+      @NonNull Path file, long start, long end, @NonNull Charset charset, long regionSize)
+      throws IOException {
+    if (start < 0 || end < start) {
+      throw new IllegalArgumentException(String.format("Invalid range: %d-%d", start, end));
+    }
+    // a region must be able to hold at least one character in any charset
+    if (regionSize < 8 || regionSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid region size: " + regionSize);
+    }
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    this.decoder =
+        charset
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.end = end;
+    this.regionSize = regionSize;
+    try {
+      map(start);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** @return Whether mapped regions can be unmapped explicitly on this JVM. */
+  static boolean isUnmappingSupported() {
+    return UNMAPPER != null;
+  }
+
+  @Override
+  public int read() throws IOException {
+    synchronized (lock) {
+      return read(single, 0, 1) == -1 ? -1 : single[0];
+    }
+  }
+
+  @Override
+  public int read(@NonNull char[] cbuf, int off, int len) throws IOException {
+    // regions must not be unmapped by a concurrent close while they are being decoded
+    synchronized (lock) {
+      return readLocked(cbuf, off, len);
+    }
+  }
+
+  private int readLocked(char[] cbuf, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (off < 0 || len < 0 || len > cbuf.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (leftover != -1) {
+      cbuf[off] = (char) leftover;
+      leftover = -1;
+      return 1;
+    }
+    if (eof) {
+      return -1;
+    }
+    if (len == 1) {
+      // a supplementary character needs two chars
+      int read = decode(CharBuffer.wrap(pair));
+      if (read == 2) {
+        leftover = pair[1];
+      }
+      if (read > 0) {
+        cbuf[off] = pair[0];
+        return 1;
+      }
+      return read;
+    }
+    return decode(CharBuffer.wrap(cbuf, off, len));
+  }
+
+  private int decode(CharBuffer out) throws IOException {
+    int start = out.position();
+    while (true) {
+      boolean lastRegion = regionStart + region.limit() >= end;
+      CoderResult result = decoder.decode(region, out, lastRegion);
+      if (result.isOverflow()) {
+        break;
+      }
+      // underflow: the region has been decoded, except maybe for an incomplete character
+      if (lastRegion) {
+        decoder.flush(out);
+        eof = true;
+        break;
+      }
+      if (out.position() > start) {
+        // return what has been decoded so far, the next region will be mapped on the next read
+        break;
+      }
+      map(regionStart + region.position());
+    }
+    int read = out.position() - start;
+    return read == 0 && eof ? -1 : read;
+  }
+
+  private void map(long position) throws IOException {
+    long size = Math.min(regionSize, end - position);
+    ByteBuffer previous = region;
+    region = channel.map(MapMode.READ_ONLY, position, size);
+    regionStart = position;
+    unmap(previous);
+  }
+
+  @Override
+  public boolean ready() throws IOException {
+    synchronized (lock) {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+      return !eof;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (lock) {
+      if (!closed) {
+        closed = true;
+        ByteBuffer last = region;
+        region = null;
+        try {
+          channel.close();
+        } finally {
+          unmap(last);
+        }
+      }
+    }
+  }
+
+  private static void unmap(@Nullable ByteBuffer buffer) {
+    if (buffer != null && UNMAPPER != null) {
+      try {
+        UNMAPPER.unmap(buffer);
+      } catch (Exception ignored) {
+        // the region will be unmapped when it is garbage-collected
+      }
+    }
+  }
+
+  @FunctionalInterface
+  private interface Unmapper {
+    void unmap(ByteBuffer buffer) throws Exception;
+  }
+
+  @Nullable
+  private static Unmapper createUnmapper() {
+    try {
+      // Java 9+
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      Object unsafe = theUnsafe.get(null);
+      return buffer -> invokeCleaner.invoke(unsafe, buffer);
+    } catch (NoSuchMethodException e) {
+      try {
+        // Java 8
+        Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+        Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+        return buffer -> {
+          Object c = cleaner.invoke(buffer);
+          if (c != null) {
+            clean.invoke(c);
+          }
+        };
+      } catch (Exception | LinkageError e2) {
+        return null;
+      }
+    } catch (Exception | LinkageError e) {
+      return null;
+    }
+  }
+}
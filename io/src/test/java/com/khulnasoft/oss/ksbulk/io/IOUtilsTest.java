@@ -17,10 +17,18 @@ package com.khulnasoft.oss.ksbulk.io;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.khulnasoft.oss.driver.shaded.guava.common.io.CharStreams;
 import com.khulnasoft.oss.ksbulk.url.BulkLoaderURLStreamHandlerFactory;
+import java.io.IOException;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 class IOUtilsTest {
 
@@ -33,4 +41,38 @@ class IOUtilsTest {
     assertThat(IOUtils.isStandardStream(new URL("http://acme.com"))).isFalse();
     assertThat(IOUtils.isStandardStream(new URL("std:/"))).isTrue();
   }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void should_read_local_file(boolean memoryMapped) throws IOException {
+    Path file = Files.createTempFile("mapped", ".txt");
+    try {
+      Files.write(file, "line1\nlïne2\n".getBytes(StandardCharsets.UTF_8));
+      try (Reader reader =
+          IOUtils.newReader(file.toUri().toURL(), StandardCharsets.UTF_8, memoryMapped)) {
+        assertThat(reader instanceof MappedFileReader).isEqualTo(memoryMapped);
+        assertThat(CharStreams.toString(reader)).isEqualTo("line1\nlïne2\n");
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void should_read_file_range(boolean memoryMapped) throws IOException {
+    Path file = Files.createTempFile("range", ".txt");
+    try {
+      Files.write(file, "line1\nlïne2\nline3\n".getBytes(StandardCharsets.UTF_8));
+      try (Reader reader = IOUtils.newReader(file, 6, 13, StandardCharsets.UTF_8, memoryMapped)) {
+        assertThat(reader instanceof MappedFileReader).isEqualTo(memoryMapped);
+        assertThat(CharStreams.toString(reader)).isEqualTo("lïne2\n");
+      }
+      try (Reader reader = IOUtils.newReader(file, 13, 19, StandardCharsets.UTF_8, memoryMapped)) {
+        assertThat(CharStreams.toString(reader)).isEqualTo("line3\n");
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
 }
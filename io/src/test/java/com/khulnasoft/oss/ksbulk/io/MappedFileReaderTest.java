@@ -0,0 +1,143 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.khulnasoft.oss.driver.shaded.guava.common.io.CharStreams;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class MappedFileReaderTest {
+
+  // multi-byte characters, including a supplementary character (2 chars, 4 bytes in UTF-8)
+  private static final String CONTENTS = "abc,dé€f\n😀,ghï\nxyz\n";
+
+  private Path file;
+
+  @BeforeEach
+  void createFile() throws IOException {
+    file = Files.createTempFile("mapped", ".txt");
+  }
+
+  @AfterEach
+  void deleteFile() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {8, 9, 10, 11, 13, 1024})
+  void should_read_file_across_regions(long regionSize) throws IOException {
+    Files.write(file, CONTENTS.getBytes(UTF_8));
+    try (Reader reader = newReader(0, Files.size(file), UTF_8, regionSize)) {
+      assertThat(CharStreams.toString(reader)).isEqualTo(CONTENTS);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {8, 9, 10, 11, 13, 1024})
+  void should_read_file_char_by_char(long regionSize) throws IOException {
+    Files.write(file, CONTENTS.getBytes(UTF_8));
+    StringBuilder sb = new StringBuilder();
+    try (Reader reader = newReader(0, Files.size(file), UTF_8, regionSize)) {
+      int c;
+      while ((c = reader.read()) != -1) {
+        sb.append((char) c);
+      }
+    }
+    assertThat(sb.toString()).isEqualTo(CONTENTS);
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {8, 1024})
+  void should_read_range(long regionSize) throws IOException {
+    byte[] bytes = CONTENTS.getBytes(UTF_8);
+    Files.write(file, bytes);
+    int start = "abc,dé€f\n".getBytes(UTF_8).length;
+    int end = bytes.length - "xyz\n".length();
+    try (Reader reader = newReader(start, end, UTF_8, regionSize)) {
+      assertThat(CharStreams.toString(reader)).isEqualTo("😀,ghï\n");
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"UTF-8", "UTF-16", "ISO-8859-1"})
+  void should_read_empty_range(String charset) throws IOException {
+    Files.write(file, CONTENTS.getBytes(UTF_8));
+    try (Reader reader = newReader(3, 3, Charset.forName(charset), 1024)) {
+      assertThat(reader.read()).isEqualTo(-1);
+      assertThat(reader.read(new char[10], 0, 10)).isEqualTo(-1);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"UTF-16", "ISO-8859-1"})
+  void should_read_file_with_other_charsets(String charset) throws IOException {
+    Charset cs = Charset.forName(charset);
+    String contents = cs.equals(StandardCharsets.ISO_8859_1) ? "abc,déf\nghï\n" : CONTENTS;
+    Files.write(file, contents.getBytes(cs));
+    try (Reader reader = newReader(0, Files.size(file), cs, 9)) {
+      assertThat(CharStreams.toString(reader)).isEqualTo(contents);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {8, 1024})
+  void should_replace_malformed_input(long regionSize) throws IOException {
+    // truncated 3-byte sequence at the end of the file
+    Files.write(file, new byte[] {'a', 'b', (byte) 0xE2, (byte) 0x82});
+    try (Reader reader = newReader(0, 4, UTF_8, regionSize)) {
+      assertThat(CharStreams.toString(reader)).startsWith("ab�");
+    }
+  }
+
+  @Test
+  void should_fail_when_reading_closed_reader() throws IOException {
+    Files.write(file, CONTENTS.getBytes(UTF_8));
+    Reader reader = new MappedFileReader(file, 0, Files.size(file), UTF_8);
+    reader.close();
+    assertThatThrownBy(reader::read).isInstanceOf(IOException.class).hasMessage("Stream closed");
+  }
+
+  @Test
+  void should_unmap_regions_when_closed() throws IOException {
+    assertThat(MappedFileReader.isUnmappingSupported()).isTrue();
+    Files.write(file, CONTENTS.getBytes(UTF_8));
+    Reader reader = newReader(0, Files.size(file), UTF_8, 8);
+    assertThat(reader.read(new char[4], 0, 4)).isEqualTo(4);
+    reader.close();
+    // closing twice is harmless, and the file can be replaced right away
+    reader.close();
+    Files.move(file, file.resolveSibling(file.getFileName() + ".moved"));
+    file = file.resolveSibling(file.getFileName() + ".moved");
+  }
+
+  private Reader newReader(long start, long end, Charset charset, long regionSize)
+      throws IOException {
+    return new MappedFileReader(file, start, end, charset, regionSize);
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+
+/**
+ * Reads Json values in the middle of a document as Json nodes, token by token.
+ *
+ * <p>The result is the same as {@link ObjectMapper#readTree(JsonParser)} for the object mapper this
+ * reader was created with, including its node factory and number coercion features; but scalar
+ * values are created directly from the current token, which is much cheaper than going through the
+ * mapper. Objects and arrays are still read by the mapper.
+ *
+ * <p>This class is used both by the Json connector, to read record fields, and by the Json codecs,
+ * to read collection elements and map values.
+ */
+public final class JsonValueReader {
+
+  private final ObjectReader subtreeReader;
+  private final JsonNodeFactory nodeFactory;
+  private final boolean bigDecimalsForFloats;
+  private final boolean bigIntegersForInts;
+  private final boolean longsForInts;
+
+  /**
+   * Creates a new reader.
+   *
+   * @param objectMapper the object mapper whose configuration should be honored.
+   */
+  public JsonValueReader(@NonNull ObjectMapper objectMapper) {
+    // values are read in the middle of a document: there are trailing tokens after each of them
+    subtreeReader =
+        objectMapper
+            .readerFor(JsonNode.class)
+            .without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+    DeserializationConfig config = objectMapper.getDeserializationConfig();
+    nodeFactory = config.getNodeFactory();
+    bigDecimalsForFloats = config.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    bigIntegersForInts = config.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS);
+    longsForInts = config.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS);
+  }
+
+  /**
+   * Reads the value starting at the current token of the given parser.
+   *
+   * @param parser the parser to read from, positioned on the first token of the value; when this
+   *     method returns, the parser is positioned on the last token of the value.
+   * @return the value read.
+   * @throws IOException if the value cannot be read.
+   */
+  @NonNull
+  public JsonNode readValue(@NonNull JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == null) {
+      // no more values: let the mapper handle the end of input
+      return subtreeReader.readTree(parser);
+    }
+    switch (token) {
+      case VALUE_STRING:
+        return nodeFactory.textNode(parser.getText());
+      case VALUE_NUMBER_INT:
+        JsonParser.NumberType intType =
+            bigIntegersForInts
+                ? JsonParser.NumberType.BIG_INTEGER
+                : longsForInts ? JsonParser.NumberType.LONG : parser.getNumberType();
+        switch (intType) {
+          case INT:
+            return nodeFactory.numberNode(parser.getIntValue());
+          case LONG:
+            return nodeFactory.numberNode(parser.getLongValue());
+          default:
+            return nodeFactory.numberNode(parser.getBigIntegerValue());
+        }
+      case VALUE_NUMBER_FLOAT:
+        JsonParser.NumberType floatType = parser.getNumberType();
+        if (floatType == JsonParser.NumberType.BIG_DECIMAL) {
+          return nodeFactory.numberNode(parser.getDecimalValue());
+        }
+        if (bigDecimalsForFloats) {
+          // NaN and infinities cannot be converted to BigDecimal
+          return parser.isNaN()
+              ? nodeFactory.numberNode(parser.getDoubleValue())
+              : nodeFactory.numberNode(parser.getDecimalValue());
+        }
+        return floatType == JsonParser.NumberType.FLOAT
+            ? nodeFactory.numberNode(parser.getFloatValue())
+            : nodeFactory.numberNode(parser.getDoubleValue());
+      case VALUE_TRUE:
+        return nodeFactory.booleanNode(true);
+      case VALUE_FALSE:
+        return nodeFactory.booleanNode(false);
+      case VALUE_NULL:
+        return nodeFactory.nullNode();
+      default:
+        // objects, arrays and embedded values
+        return subtreeReader.readTree(parser);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import java.io.IOException;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class JsonValueReaderTest {
+
+  private static final String[] VALUES = {
+    "1",
+    "-2147483649",
+    "123456789012345678901234567890",
+    "1.10",
+    "-0.0",
+    "1e400",
+    "NaN",
+    "\"foo\"",
+    "'bar'",
+    "true",
+    "false",
+    "null",
+    "",
+    "[1,[2,{\"a\":3}]]",
+    "{a:1.0}"
+  };
+
+  @ParameterizedTest
+  @MethodSource
+  void should_read_value_like_object_mapper(ObjectMapper objectMapper, String value)
+      throws IOException {
+    JsonValueReader reader = new JsonValueReader(objectMapper);
+    String document = "[" + value + ",42]";
+    JsonNode expected = objectMapper.readTree(document).get(0);
+    try (JsonParser parser = objectMapper.createParser(document)) {
+      parser.nextToken();
+      parser.nextToken();
+      JsonNode actual = reader.readValue(parser);
+      assertThat(actual).isEqualTo(expected);
+      assertThat(actual.getClass()).isEqualTo(expected.getClass());
+      // the parser must be positioned on the last token of the value
+      assertThat(parser.nextToken()).isEqualTo(JsonToken.VALUE_NUMBER_INT);
+    }
+  }
+
+  @SuppressWarnings("unused")
+  static Stream<Arguments> should_read_value_like_object_mapper() {
+    ObjectMapper[] objectMappers = {
+      // the mapper of the Json codecs
+      lenientMapper().nodeFactory(JsonNodeFactory.withExactBigDecimals(true)).build(),
+      // the Json connector's mapper, when configured to coerce numbers
+      lenientMapper()
+          .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+          .enable(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS)
+          .build()
+    };
+    return Stream.of(objectMappers)
+        .flatMap(mapper -> Stream.of(VALUES).map(value -> Arguments.of(mapper, value)));
+  }
+
+  private static JsonMapper.Builder lenientMapper() {
+    return JsonMapper.builder()
+        .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES)
+        .enable(JsonReadFeature.ALLOW_MISSING_VALUES)
+        .enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS)
+        .enable(JsonReadFeature.ALLOW_SINGLE_QUOTES)
+        .enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+  }
+}
@@ -37,4 +37,19 @@ public class TokenUtils {
     }
     return value;
   }
+
+  /** Returns true if the given token was produced by the Murmur3 partitioner. */
+  public static boolean isMurmur3Token(@NonNull Token token) {
+    return token instanceof Murmur3Token;
+  }
+
+  /**
+   * Returns the value of the given Murmur3 token as a primitive long, sparing the boxing of {@link
+   * #getTokenValue(Token)} in hot paths.
+   *
+   * @throws ClassCastException if the token was not produced by the Murmur3 partitioner.
+   */
+  public static long getMurmur3TokenValue(@NonNull Token token) {
+    return ((Murmur3Token) token).getValue();
+  }
 }
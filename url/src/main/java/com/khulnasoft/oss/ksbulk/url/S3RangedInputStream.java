@@ -0,0 +1,286 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.url;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+/**
+ * An {@link InputStream} that reads an S3 object in fixed-size parts, using ranged GET requests.
+ *
+ * <p>Up to {@code prefetchWindow} parts are downloaded concurrently, ahead of the part currently
+ * being read. Memory usage is therefore bounded by {@code (prefetchWindow + 1) * partSize} bytes,
+ * regardless of the size of the object, and the first bytes become available as soon as the first
+ * part has been downloaded.
+ *
+ * <p>All parts are requested with an {@code If-Match} condition on the ETag of the object as it was
+ * when the stream was opened: if the object is modified while being read, reading fails instead of
+ * returning a mix of old and new contents.
+ *
+ * <p>Closing the stream aborts the requests of the parts still being downloaded.
+ *
+ * <p>This class is not thread-safe.
+ */
+class S3RangedInputStream extends InputStream {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(S3RangedInputStream.class);
+
+  private final S3Client s3Client;
+  private final GetObjectRequest getObjectRequest;
+  private final long partSize;
+  private final int prefetchWindow;
+  private final Executor executor;
+  private final long objectSize;
+  private final String eTag;
+
+  private final Deque<Part> pendingParts = new ArrayDeque<>();
+
+  private long nextPartStart = 0;
+  private byte[] currentPart;
+  private int positionInPart;
+  private boolean closed;
+
+  /**
+   * Creates a new stream. The object metadata is fetched immediately, and the download of the first
+   * parts is initiated.
+   *
+   * @param s3Client the client to use.
+   * @param getObjectRequest the request identifying the object to read; must not include a range.
+   * @param partSize the size in bytes of each part; must be strictly positive and fit in an int.
+   * @param prefetchWindow the maximum number of parts to download concurrently; must be strictly
+   *     positive.
+   * @param executor the executor to use to download parts.
+   */
+  S3RangedInputStream(
+      @NonNull S3Client s3Client,
+      @NonNull GetObjectRequest getObjectRequest,
+      long partSize,
+      int prefetchWindow,
+      @NonNull Executor executor) {
+    if (partSize <= 0 || partSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          "Part size must be between 1 and " + Integer.MAX_VALUE + " bytes, got: " + partSize);
+    }
+    if (prefetchWindow <= 0) {
+      throw new IllegalArgumentException(
+          "Prefetch window must be strictly positive, got: " + prefetchWindow);
+    }
+    this.s3Client = s3Client;
+    this.getObjectRequest = getObjectRequest;
+    this.partSize = partSize;
+    this.prefetchWindow = prefetchWindow;
+    this.executor = executor;
+    HeadObjectResponse head =
+        s3Client.headObject(
+            HeadObjectRequest.builder()
+                .bucket(getObjectRequest.bucket())
+                .key(getObjectRequest.key())
+                .versionId(getObjectRequest.versionId())
+                .build());
+    objectSize = head.contentLength();
+    eTag = head.eTag();
+    LOGGER.debug(
+        "Reading S3 object '{}' in bucket '{}' ({} bytes) in parts of {} bytes",
+        getObjectRequest.key(),
+        getObjectRequest.bucket(),
+        objectSize,
+        partSize);
+    schedulePendingParts();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!ensurePartAvailable()) {
+      return -1;
+    }
+    return currentPart[positionInPart++] & 0xFF;
+  }
+
+  @Override
+  public int read(@NonNull byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (!ensurePartAvailable()) {
+      return -1;
+    }
+    int n = Math.min(len, currentPart.length - positionInPart);
+    System.arraycopy(currentPart, positionInPart, b, off, n);
+    positionInPart += n;
+    return n;
+  }
+
+  @Override
+  public int available() throws IOException {
+    ensureOpen();
+    return currentPart == null ? 0 : currentPart.length - positionInPart;
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      for (Part part : pendingParts) {
+        part.abort();
+      }
+      pendingParts.clear();
+      currentPart = null;
+    }
+  }
+
+  private boolean ensurePartAvailable() throws IOException {
+    ensureOpen();
+    while (currentPart == null || positionInPart == currentPart.length) {
+      Part nextPart = pendingParts.poll();
+      if (nextPart == null) {
+        return false;
+      }
+      // release the exhausted part and keep the window full while we wait for the next one
+      currentPart = null;
+      schedulePendingParts();
+      try {
+        currentPart = nextPart.bytes.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException(
+            "Interrupted while waiting for S3 object '" + getObjectRequest.key() + "'");
+      } catch (ExecutionException e) {
+        throw new IOException(
+            String.format(
+                "Could not read S3 object '%s' in bucket '%s'",
+                getObjectRequest.key(), getObjectRequest.bucket()),
+            e.getCause());
+      }
+      positionInPart = 0;
+    }
+    return true;
+  }
+
+  private void schedulePendingParts() {
+    while (pendingParts.size() < prefetchWindow && nextPartStart < objectSize) {
+      long start = nextPartStart;
+      long end = Math.min(start + partSize, objectSize) - 1;
+      GetObjectRequest rangeRequest =
+          getObjectRequest.toBuilder().range("bytes=" + start + "-" + end).ifMatch(eTag).build();
+      Part part = new Part(rangeRequest, (int) (end - start + 1));
+      pendingParts.add(part);
+      executor.execute(part::fetch);
+      nextPartStart = end + 1;
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+  }
+
+  /**
+   * The download of a part. The response stream of the GET request is kept until the part is fully
+   * read, so that {@link #abort()} can abort the request while it is in flight; cancelling a future
+   * would only stop waiting for it, and leave the connection busy until the download ends.
+   */
+  private class Part {
+
+    private final CompletableFuture<byte[]> bytes = new CompletableFuture<>();
+    private final GetObjectRequest rangeRequest;
+    private final int expectedLength;
+
+    // guarded by this
+    private ResponseInputStream<GetObjectResponse> response;
+    private boolean aborted;
+
+    private Part(GetObjectRequest rangeRequest, int expectedLength) {
+      this.rangeRequest = rangeRequest;
+      this.expectedLength = expectedLength;
+    }
+
+    private void fetch() {
+      try {
+        if (isAborted()) {
+          return;
+        }
+        ResponseInputStream<GetObjectResponse> in = s3Client.getObject(rangeRequest);
+        if (!setResponse(in)) {
+          in.abort();
+          return;
+        }
+        try {
+          bytes.complete(readPart(in));
+        } finally {
+          setResponse(null);
+          in.close();
+        }
+      } catch (Throwable t) {
+        bytes.completeExceptionally(t);
+      }
+    }
+
+    private byte[] readPart(InputStream in) throws IOException {
+      byte[] part = new byte[expectedLength];
+      int length = 0;
+      int n;
+      while (length < expectedLength
+          && (n = in.read(part, length, expectedLength - length)) != -1) {
+        length += n;
+      }
+      if (length != expectedLength || in.read() != -1) {
+        throw new IllegalStateException(
+            String.format(
+                "Expected %d bytes for range %s, got %s",
+                expectedLength,
+                rangeRequest.range(),
+                length == expectedLength ? "more" : String.valueOf(length)));
+      }
+      return part;
+    }
+
+    private synchronized boolean isAborted() {
+      return aborted;
+    }
+
+    private synchronized boolean setResponse(ResponseInputStream<GetObjectResponse> response) {
+      this.response = response;
+      return !aborted;
+    }
+
+    private synchronized void abort() {
+      aborted = true;
+      bytes.cancel(false);
+      if (response != null) {
+        response.abort();
+      }
+    }
+  }
+}
@@ -16,8 +16,11 @@
 package com.khulnasoft.oss.ksbulk.url;
 
 import com.khulnasoft.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
+import com.khulnasoft.oss.driver.shaded.guava.common.util.concurrent.ThreadFactoryBuilder;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
@@ -30,19 +33,33 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
 import software.amazon.awssdk.http.SdkHttpClient;
-import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.utils.StringUtils;
 
-/** A {@link URLStreamHandler} for reading from AWS S3 URls. */
+/**
+ * A {@link URLStreamHandler} for reading from AWS S3 URls.
+ *
+ * <p>All objects read through this handler share one pool of at most {@code maxConcurrentDownloads}
+ * threads to download their parts, and one HTTP client with as many connections; parts requested
+ * beyond that wait for a thread. S3 clients are cached per set of credentials; a client evicted
+ * from the cache is closed once the last stream reading through it is closed.
+ *
+ * <p>This handler does not need to be closed: idle download threads exit after a minute, and idle
+ * HTTP connections are closed by the HTTP client.
+ */
 public class S3URLStreamHandler extends URLStreamHandler {
 
   private static final String REGION = "region";
@@ -52,30 +69,78 @@ public class S3URLStreamHandler extends URLStreamHandler {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(S3URLStreamHandler.class);
 
-  private final Cache<S3ClientInfo, S3Client> s3ClientCache;
+  private final Cache<S3ClientInfo, CachedS3Client> s3ClientCache;
+  private final long partSize;
+  private final int prefetchWindow;
+  private final ThreadPoolExecutor executor;
+  private final SdkHttpClient httpClient;
 
-  S3URLStreamHandler(int s3ClientCacheSize) {
-    this.s3ClientCache = Caffeine.newBuilder().maximumSize(s3ClientCacheSize).build();
+  S3URLStreamHandler(
+      int s3ClientCacheSize, long partSize, int prefetchWindow, int maxConcurrentDownloads) {
+    if (maxConcurrentDownloads <= 0) {
+      throw new IllegalArgumentException(
+          "Maximum concurrent downloads must be strictly positive, got: " + maxConcurrentDownloads);
+    }
+    this.s3ClientCache =
+        Caffeine.newBuilder()
+            .maximumSize(s3ClientCacheSize)
+            .<S3ClientInfo, CachedS3Client>removalListener(
+                (info, client, cause) -> {
+                  if (client != null) {
+                    client.evict();
+                  }
+                })
+            .build();
+    this.partSize = partSize;
+    this.prefetchWindow = prefetchWindow;
+    this.executor =
+        new ThreadPoolExecutor(
+            maxConcurrentDownloads,
+            maxConcurrentDownloads,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("s3-reader-%d").build());
+    executor.allowCoreThreadTimeOut(true);
+    // The Apache client is used because it actually closes the connection when a response stream
+    // is aborted, which S3RangedInputStream relies on to stop downloading parts when closed.
+    // Each download thread holds at most one connection; the object metadata requests, issued by
+    // the reading threads, wait for a connection when all of them are busy.
+    this.httpClient = ApacheHttpClient.builder().maxConnections(maxConcurrentDownloads).build();
   }
 
   @Override
   protected URLConnection openConnection(URL url) {
-    return new S3Connection(url, s3ClientCache);
+    return new S3Connection(url, s3ClientCache, partSize, prefetchWindow, executor, httpClient);
   }
 
   @VisibleForTesting
   static class S3Connection extends URLConnection {
 
-    private final Cache<S3ClientInfo, S3Client> s3ClientCache;
+    private final Cache<S3ClientInfo, CachedS3Client> s3ClientCache;
+    private final long partSize;
+    private final int prefetchWindow;
+    private final ExecutorService executor;
+    private final SdkHttpClient httpClient;
 
     @Override
     public void connect() {
       // Nothing to see here...
     }
 
-    S3Connection(URL url, Cache<S3ClientInfo, S3Client> s3ClientCache) {
+    S3Connection(
+        URL url,
+        Cache<S3ClientInfo, CachedS3Client> s3ClientCache,
+        long partSize,
+        int prefetchWindow,
+        ExecutorService executor,
+        SdkHttpClient httpClient) {
       super(url);
       this.s3ClientCache = s3ClientCache;
+      this.partSize = partSize;
+      this.prefetchWindow = prefetchWindow;
+      this.executor = executor;
+      this.httpClient = httpClient;
     }
 
     @Override
@@ -91,18 +156,30 @@ public class S3URLStreamHandler extends URLStreamHandler {
             "You must provide S3 client credentials in the URL query parameters.");
       }
       S3ClientInfo s3ClientInfo = new S3ClientInfo(query);
-      S3Client s3Client = s3ClientCache.get(s3ClientInfo, this::getS3Client);
-      return getInputStream(s3Client, getObjectRequest);
+      CachedS3Client s3Client;
+      // retry if the cached client was evicted and closed before we could retain it
+      do {
+        s3Client = s3ClientCache.get(s3ClientInfo, info -> new CachedS3Client(getS3Client(info)));
+      } while (!s3Client.retain());
+      InputStream in;
+      try {
+        in = getInputStream(s3Client.client, getObjectRequest);
+      } catch (RuntimeException e) {
+        s3Client.release();
+        throw e;
+      }
+      return new ClientReleasingInputStream(in, s3Client);
     }
 
     @VisibleForTesting
     InputStream getInputStream(S3Client s3Client, GetObjectRequest getObjectRequest) {
-      return s3Client.getObjectAsBytes(getObjectRequest).asInputStream();
+      return new S3RangedInputStream(
+          s3Client, getObjectRequest, partSize, prefetchWindow, executor);
     }
 
     @VisibleForTesting
     S3Client getS3Client(S3ClientInfo s3ClientInfo) {
-      SdkHttpClient httpClient = UrlConnectionHttpClient.builder().build();
+      // The HTTP client is shared by all S3 clients, and is not closed when they are.
       S3ClientBuilder builder =
           S3Client.builder().httpClient(httpClient).region(Region.of(s3ClientInfo.getRegion()));
 
@@ -134,6 +211,75 @@ public class S3URLStreamHandler extends URLStreamHandler {
     }
   }
 
+  /**
+   * A cached S3 client, and the number of open streams reading through it. The client is closed
+   * when it has been evicted from the cache and the last of these streams is closed.
+   */
+  @VisibleForTesting
+  static class CachedS3Client {
+
+    private final S3Client client;
+
+    // guarded by this
+    private int streams;
+    private boolean evicted;
+    private boolean closed;
+
+    CachedS3Client(S3Client client) {
+      this.client = client;
+    }
+
+    synchronized boolean retain() {
+      if (closed) {
+        return false;
+      }
+      streams++;
+      return true;
+    }
+
+    synchronized void release() {
+      streams--;
+      maybeClose();
+    }
+
+    synchronized void evict() {
+      evicted = true;
+      maybeClose();
+    }
+
+    private void maybeClose() {
+      if (evicted && streams == 0 && !closed) {
+        closed = true;
+        LOGGER.debug("Closing evicted S3 client");
+        client.close();
+      }
+    }
+  }
+
+  /** Releases the client of the stream it wraps once that stream is closed. */
+  private static class ClientReleasingInputStream extends FilterInputStream {
+
+    private final CachedS3Client s3Client;
+    private boolean closed;
+
+    private ClientReleasingInputStream(InputStream in, CachedS3Client s3Client) {
+      super(in);
+      this.s3Client = s3Client;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        try {
+          super.close();
+        } finally {
+          s3Client.release();
+        }
+      }
+    }
+  }
+
   @VisibleForTesting
   static class S3ClientInfo {
 
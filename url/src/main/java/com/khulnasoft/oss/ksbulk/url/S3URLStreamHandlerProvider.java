@@ -24,6 +24,12 @@ public class S3URLStreamHandlerProvider implements URLStreamHandlerProvider {
 
   private static final String S3CLIENT_CACHE_SIZE_PATH = "ksbulk.s3.clientCacheSize";
   private static final int DEFAULT_S3CLIENT_CACHE_SIZE = 20; // Totally arbitrary default.
+  private static final String PART_SIZE_PATH = "ksbulk.s3.partSize";
+  private static final long DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+  private static final String PREFETCH_WINDOW_PATH = "ksbulk.s3.prefetchWindow";
+  private static final int DEFAULT_PREFETCH_WINDOW = 4;
+  private static final String MAX_CONCURRENT_DOWNLOADS_PATH = "ksbulk.s3.maxConcurrentDownloads";
+  private static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS = 16;
 
   /** The protocol for AWS S3 URLs. I.e., URLs beginning with {@code s3://} */
   public static final String S3_STREAM_PROTOCOL = "s3";
@@ -37,7 +43,19 @@ public class S3URLStreamHandlerProvider implements URLStreamHandlerProvider {
           config.hasPath(S3CLIENT_CACHE_SIZE_PATH)
               ? config.getInt(S3CLIENT_CACHE_SIZE_PATH)
               : DEFAULT_S3CLIENT_CACHE_SIZE;
-      return Optional.of(new S3URLStreamHandler(s3ClientCacheSize));
+      long partSize =
+          config.hasPath(PART_SIZE_PATH) ? config.getBytes(PART_SIZE_PATH) : DEFAULT_PART_SIZE;
+      int prefetchWindow =
+          config.hasPath(PREFETCH_WINDOW_PATH)
+              ? config.getInt(PREFETCH_WINDOW_PATH)
+              : DEFAULT_PREFETCH_WINDOW;
+      int maxConcurrentDownloads =
+          config.hasPath(MAX_CONCURRENT_DOWNLOADS_PATH)
+              ? config.getInt(MAX_CONCURRENT_DOWNLOADS_PATH)
+              : DEFAULT_MAX_CONCURRENT_DOWNLOADS;
+      return Optional.of(
+          new S3URLStreamHandler(
+              s3ClientCacheSize, partSize, prefetchWindow, maxConcurrentDownloads));
     }
     return Optional.empty();
   }
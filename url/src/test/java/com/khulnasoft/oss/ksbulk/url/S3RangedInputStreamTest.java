@@ -0,0 +1,256 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.url;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+class S3RangedInputStreamTest {
+
+  private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+  private final List<String> ranges = new CopyOnWriteArrayList<>();
+
+  private volatile byte[] content;
+  private volatile String eTag = "\"v1\"";
+  private volatile CountDownLatch stall;
+
+  private HttpServer server;
+  private S3Client s3Client;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/test-bucket/test-key", this::handle);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    s3Client =
+        S3Client.builder()
+            .httpClient(ApacheHttpClient.builder().build())
+            .region(Region.US_EAST_1)
+            .endpointOverride(URI.create("http://localhost:" + server.getAddress().getPort()))
+            .serviceConfiguration(
+                S3Configuration.builder()
+                    .pathStyleAccessEnabled(true)
+                    .checksumValidationEnabled(false)
+                    .build())
+            .credentialsProvider(
+                StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+            .build();
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (stall != null) {
+      stall.countDown();
+    }
+    s3Client.close();
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  @ParameterizedTest
+  @CsvSource({"10000,1000,1,10", "10500,1000,4,11", "999,1000,4,1", "1000,1000,2,1"})
+  void should_read_object_in_parts(
+      int objectSize, int partSize, int prefetchWindow, int expectedParts) throws IOException {
+    content = randomBytes(objectSize);
+    try (InputStream in = newStream(partSize, prefetchWindow)) {
+      assertThat(readFully(in)).isEqualTo(content);
+    }
+    // parts are downloaded concurrently, so requests may be received in any order
+    List<String> expectedRanges = new ArrayList<>();
+    for (int i = 0; i < expectedParts; i++) {
+      long end = Math.min((i + 1) * partSize, objectSize) - 1;
+      expectedRanges.add("bytes=" + i * partSize + "-" + end);
+    }
+    assertThat(ranges).containsExactlyInAnyOrderElementsOf(expectedRanges);
+  }
+
+  @Test
+  void should_read_single_bytes() throws IOException {
+    content = randomBytes(250);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = newStream(100, 2)) {
+      int b;
+      while ((b = in.read()) != -1) {
+        out.write(b);
+      }
+    }
+    assertThat(out.toByteArray()).isEqualTo(content);
+  }
+
+  @Test
+  void should_read_empty_object_without_get_requests() throws IOException {
+    content = new byte[0];
+    try (InputStream in = newStream(100, 2)) {
+      assertThat(in.read()).isEqualTo(-1);
+      assertThat(in.read(new byte[10])).isEqualTo(-1);
+    }
+    assertThat(ranges).isEmpty();
+  }
+
+  @Test
+  void should_not_prefetch_more_than_window() throws IOException {
+    content = randomBytes(10_000);
+    try (InputStream in = newStream(100, 3)) {
+      assertThat(in.read()).isEqualTo(content[0] & 0xFF);
+      // the first part was consumed, so at most one more part was requested after the first three
+      assertThat(ranges.size()).isLessThanOrEqualTo(4);
+      byte[] rest = readFully(in);
+      assertThat(rest).hasSize(content.length - 1);
+    }
+    assertThat(ranges).hasSize(100);
+  }
+
+  @Test
+  void should_fail_when_object_modified_while_reading() throws IOException {
+    content = randomBytes(1000);
+    try (InputStream in = newStream(100, 1)) {
+      assertThat(in.read(new byte[100])).isEqualTo(100);
+      eTag = "\"v2\"";
+      Throwable error = catchThrowable(() -> readFully(in));
+      assertThat(error)
+          .isInstanceOf(IOException.class)
+          .hasMessage("Could not read S3 object 'test-key' in bucket 'test-bucket'")
+          .hasRootCauseInstanceOf(S3Exception.class);
+    }
+  }
+
+  @Test
+  void should_fail_when_reading_closed_stream() throws IOException {
+    content = randomBytes(1000);
+    InputStream in = newStream(100, 2);
+    in.close();
+    Throwable error = catchThrowable(in::read);
+    assertThat(error).isInstanceOf(IOException.class).hasMessage("Stream closed");
+  }
+
+  @Test
+  void should_abort_pending_downloads_when_closed() throws Exception {
+    content = randomBytes(1000);
+    stall = new CountDownLatch(1);
+    InputStream in = newStream(100, 1);
+    while (ranges.isEmpty()) {
+      Thread.sleep(10);
+    }
+    in.close();
+    // the download is stuck mid-body until the server is released: it only ends if aborted
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, SECONDS)).isTrue();
+  }
+
+  private S3RangedInputStream newStream(int partSize, int prefetchWindow) {
+    GetObjectRequest request =
+        GetObjectRequest.builder().bucket("test-bucket").key("test-key").build();
+    return new S3RangedInputStream(s3Client, request, partSize, prefetchWindow, executor);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    byte[] body = content;
+    exchange.getResponseHeaders().set("ETag", eTag);
+    if (exchange.getRequestMethod().equals("HEAD")) {
+      exchange.getResponseHeaders().set("Content-Length", String.valueOf(body.length));
+      exchange.sendResponseHeaders(200, -1);
+    } else {
+      String range = exchange.getRequestHeaders().getFirst("Range");
+      ranges.add(range);
+      String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+      Matcher matcher = RANGE.matcher(range);
+      if (ifMatch != null && !ifMatch.equals(eTag)) {
+        exchange.sendResponseHeaders(412, -1);
+      } else if (!matcher.matches()) {
+        exchange.sendResponseHeaders(416, -1);
+      } else {
+        int start = Integer.parseInt(matcher.group(1));
+        int end = Math.min(Integer.parseInt(matcher.group(2)), body.length - 1);
+        exchange
+            .getResponseHeaders()
+            .set("Content-Range", "bytes " + start + "-" + end + "/" + body.length);
+        exchange.sendResponseHeaders(206, end - start + 1);
+        try (OutputStream out = exchange.getResponseBody()) {
+          CountDownLatch stall = this.stall;
+          if (stall == null) {
+            out.write(body, start, end - start + 1);
+          } else {
+            out.write(body, start, (end - start + 1) / 2);
+            out.flush();
+            awaitUninterruptibly(stall);
+          }
+        }
+      }
+    }
+    exchange.close();
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[333];
+    int n;
+    while ((n = in.read(buffer)) != -1) {
+      out.write(buffer, 0, n);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    new Random(length).nextBytes(bytes);
+    return bytes;
+  }
+}
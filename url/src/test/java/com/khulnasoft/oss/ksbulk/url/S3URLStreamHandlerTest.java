@@ -22,17 +22,20 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.khulnasoft.oss.ksbulk.url.S3URLStreamHandler.CachedS3Client;
 import com.khulnasoft.oss.ksbulk.url.S3URLStreamHandler.S3ClientInfo;
 import com.khulnasoft.oss.ksbulk.url.S3URLStreamHandler.S3Connection;
 import com.typesafe.config.Config;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -41,11 +44,10 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.mockito.stubbing.Answer;
-import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 
 class S3URLStreamHandlerTest {
 
@@ -116,22 +118,15 @@ class S3URLStreamHandlerTest {
     S3Connection connection2 = spy((S3Connection) url2.openConnection());
 
     S3Client mockClient = mock(S3Client.class);
-    when(mockClient.getObjectAsBytes(any(GetObjectRequest.class)))
-        .thenAnswer(
-            (Answer<ResponseBytes<GetObjectResponse>>)
-                invocation -> {
-                  GetObjectResponse response = GetObjectResponse.builder().build();
-                  byte[] bytes = new byte[] {};
-                  InputStream is = new ByteArrayInputStream(bytes);
-                  return ResponseBytes.fromInputStream(response, is);
-                });
+    when(mockClient.headObject(any(HeadObjectRequest.class)))
+        .thenReturn(HeadObjectResponse.builder().contentLength(0L).eTag("\"etag\"").build());
     doReturn(mockClient).when(connection1).getS3Client(any());
 
     InputStream stream1 = connection1.getInputStream();
     InputStream stream2 = connection2.getInputStream();
 
     assertThat(stream1).isNotSameAs(stream2); // Two different URls produce different streams.
-    verify(mockClient, times(2)).getObjectAsBytes(any(GetObjectRequest.class));
+    verify(mockClient, times(2)).headObject(any(HeadObjectRequest.class));
     verify(connection1)
         .getS3Client(
             new S3ClientInfo(
@@ -151,4 +146,68 @@ class S3URLStreamHandlerTest {
         .isInstanceOf(UnsupportedOperationException.class)
         .hasMessage("Writing to S3 has not yet been implemented.");
   }
+
+  @Test
+  void should_close_evicted_client_when_its_last_stream_is_closed() {
+    S3Client mockClient = mock(S3Client.class);
+    CachedS3Client cachedClient = new CachedS3Client(mockClient);
+    assertThat(cachedClient.retain()).isTrue();
+    assertThat(cachedClient.retain()).isTrue();
+
+    cachedClient.evict();
+    cachedClient.release();
+    verify(mockClient, never()).close();
+
+    cachedClient.release();
+    verify(mockClient).close();
+    // a client that was closed cannot be used by new streams
+    assertThat(cachedClient.retain()).isFalse();
+  }
+
+  @Test
+  void should_not_close_client_that_was_not_evicted() {
+    S3Client mockClient = mock(S3Client.class);
+    CachedS3Client cachedClient = new CachedS3Client(mockClient);
+
+    assertThat(cachedClient.retain()).isTrue();
+    cachedClient.release();
+
+    verify(mockClient, never()).close();
+    assertThat(cachedClient.retain()).isTrue();
+  }
+
+  @Test
+  void should_bound_concurrent_downloads() throws Exception {
+    S3URLStreamHandler handler = new S3URLStreamHandler(1, 1, 4, 2);
+    AtomicInteger downloads = new AtomicInteger();
+    CountDownLatch blocked = new CountDownLatch(1);
+    S3Client mockClient = mockClient(4);
+    when(mockClient.getObject(any(GetObjectRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              downloads.incrementAndGet();
+              blocked.await();
+              throw new IllegalStateException("download failed");
+            });
+    S3Connection connection =
+        spy((S3Connection) handler.openConnection(new URL("s3://test-bucket/test-key?region=r1")));
+    doReturn(mockClient).when(connection).getS3Client(any());
+
+    try (InputStream ignored = connection.getInputStream()) {
+      // 4 parts are requested at once, but only 2 of them are downloaded concurrently
+      verify(mockClient, timeout(5000).times(2)).getObject(any(GetObjectRequest.class));
+      Thread.sleep(100);
+      assertThat(downloads).hasValue(2);
+    } finally {
+      blocked.countDown();
+    }
+  }
+
+  private static S3Client mockClient(long objectSize) {
+    S3Client mockClient = mock(S3Client.class);
+    when(mockClient.headObject(any(HeadObjectRequest.class)))
+        .thenReturn(
+            HeadObjectResponse.builder().contentLength(objectSize).eTag("\"etag\"").build());
+    return mockClient;
+  }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.log;
+
+import com.khulnasoft.oss.driver.api.core.DriverTimeoutException;
+import com.khulnasoft.oss.driver.api.core.servererrors.ReadFailureException;
+import com.khulnasoft.oss.driver.api.core.servererrors.ReadTimeoutException;
+import com.khulnasoft.oss.ksbulk.executor.api.reader.BulkReader;
+import com.khulnasoft.oss.ksbulk.executor.api.result.DefaultReadResult;
+import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
+import com.khulnasoft.oss.ksbulk.workflow.commons.statement.RangeReadBoundStatement;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+/**
+ * A {@link RangeReadResource} whose statement computes an aggregate over its token range, such as
+ * {@code SELECT count(*)}, server-side.
+ *
+ * <p>Aggregating a large token range may exceed the server's timeouts, or fail server-side; when
+ * this happens, the range is split into smaller sub-ranges, which are then read sequentially, and
+ * split again if needed. The resource thus emits one result per (sub-)range read; all results,
+ * successful or not, are numbered consecutively from 1, regardless of the statement they come from.
+ */
+public class AggregateRangeReadResource implements RangeReadResource {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AggregateRangeReadResource.class);
+
+  /** The number of sub-ranges to split a range into when its statement times out or fails. */
+  private static final int SPLIT_FACTOR = 4;
+
+  /** How many times a range can be split, in other words, sub-ranges are at least 1/256 of it. */
+  private static final int MAX_SPLIT_DEPTH = 4;
+
+  private final RangeReadBoundStatement statement;
+  private final BulkReader executor;
+  private final BiFunction<RangeReadBoundStatement, Integer, List<RangeReadBoundStatement>>
+      splitter;
+
+  /**
+   * @param statement the statement to read.
+   * @param executor the executor to use.
+   * @param splitter a function that splits a statement into the given number of statements for
+   *     sub-ranges, or returns an empty list if the statement cannot be split.
+   */
+  public AggregateRangeReadResource(
+      @NonNull RangeReadBoundStatement statement,
+      @NonNull BulkReader executor,
+      @NonNull
+          BiFunction<RangeReadBoundStatement, Integer, List<RangeReadBoundStatement>> splitter) {
+    this.statement = statement;
+    this.executor = executor;
+    this.splitter = splitter;
+  }
+
+  @NonNull
+  @Override
+  public URI getURI() {
+    return statement.getResource();
+  }
+
+  @NonNull
+  @Override
+  public Publisher<ReadResult> read() {
+    return Flux.defer(
+        () -> {
+          AtomicLong position = new AtomicLong();
+          return read(statement, 0).map(result -> renumber(result, position.incrementAndGet()));
+        });
+  }
+
+  @NonNull
+  private Flux<ReadResult> read(@NonNull RangeReadBoundStatement statement, int depth) {
+    return Flux.from(executor.readReactive(statement))
+        .collectList()
+        .flatMapMany(
+            results -> {
+              if (depth < MAX_SPLIT_DEPTH
+                  && results.stream().anyMatch(AggregateRangeReadResource::shouldSplit)) {
+                List<RangeReadBoundStatement> subStatements =
+                    splitter.apply(statement, SPLIT_FACTOR);
+                if (!subStatements.isEmpty()) {
+                  LOGGER.debug(
+                      "Read of token range {} failed, splitting it into {} sub-ranges",
+                      statement.getTokenRange(),
+                      subStatements.size());
+                  // read sub-ranges sequentially, to avoid adding load to a struggling cluster
+                  return Flux.fromIterable(subStatements)
+                      .concatMap(subStatement -> read(subStatement, depth + 1));
+                }
+              }
+              return Flux.fromIterable(results);
+            });
+  }
+
+  private static boolean shouldSplit(@NonNull ReadResult result) {
+    return result
+        .getError()
+        .map(Throwable::getCause)
+        .filter(
+            cause ->
+                cause instanceof ReadTimeoutException
+                    || cause instanceof ReadFailureException
+                    || cause instanceof DriverTimeoutException)
+        .isPresent();
+  }
+
+  @NonNull
+  private static ReadResult renumber(@NonNull ReadResult result, long position) {
+    if (result.getPosition() == position) {
+      return result;
+    }
+    if (!result.isSuccess()) {
+      return new DefaultReadResult(
+          result.getError().orElseThrow(IllegalStateException::new), position);
+    }
+    return new DefaultReadResult(
+        result.getStatement(),
+        result.getExecutionInfo().orElseThrow(IllegalStateException::new),
+        result.getRow().orElseThrow(IllegalStateException::new),
+        position);
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.log;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.khulnasoft.oss.driver.shaded.guava.common.util.concurrent.ThreadFactoryBuilder;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Writes entries to log files, such as bad files and debug files, on a dedicated thread.
+ *
+ * <p>Appending an entry only enqueues it, along with a function that formats it; formatting and
+ * writing happen on the writer thread, so that a burst of errors does not make the workflow threads
+ * wait on many small disk writes. Entries are written in batches: they are flushed to the file
+ * system once {@code maxBatchSize} entries are pending, or at most {@code flushInterval} after they
+ * were appended, whichever comes first. When the queue is full, {@link #append(Path, Consumer)}
+ * blocks until the writer catches up, rather than buffering an unbounded number of entries.
+ *
+ * <p>When {@link #close()} returns, all the entries appended before it was called have been
+ * written, flushed and synced to the storage device, and all files are closed. Appends racing with
+ * {@link #close()} are either written, or rejected with an {@link IllegalStateException}; they are
+ * never silently dropped. Entries pending when the process is killed may be lost.
+ *
+ * <p>If writing an entry fails, the writer discards all subsequent entries, and the error is
+ * rethrown by the next call to {@link #append(Path, Consumer)}, or by {@link #close()}.
+ */
+@ThreadSafe
+class AsyncLogWriter implements AutoCloseable {
+
+  private static final ThreadFactory THREAD_FACTORY =
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("log-writer-%d").build();
+
+  private static final Entry CLOSE = new Entry(null, null);
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final BlockingQueue<Entry> queue;
+  private final int maxBatchSize;
+  private final long flushIntervalNanos;
+  private final Set<Path> files = ConcurrentHashMap.newKeySet();
+  private final Thread thread;
+
+  // appends hold the read lock, so that no entry can be enqueued after CLOSE
+  private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+  private volatile boolean closed;
+  private volatile Throwable error;
+
+  // the state below is only accessed by the writer thread
+  private final Map<Path, LogFile> logFiles = new LinkedHashMap<>();
+  private int pending;
+  private long flushDeadline;
+
+  /**
+   * Creates and starts a new writer.
+   *
+   * @param capacity the maximum number of entries waiting to be written.
+   * @param maxBatchSize the number of written entries after which files are flushed.
+   * @param flushInterval the maximum time an entry can stay unflushed.
+   */
+  AsyncLogWriter(int capacity, int maxBatchSize, @NonNull Duration flushInterval) {
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.maxBatchSize = maxBatchSize;
+    this.flushIntervalNanos = flushInterval.toNanos();
+    thread = THREAD_FACTORY.newThread(this::run);
+    thread.start();
+  }
+
+  /**
+   * Appends an entry to the given file. The file is created on the first append, and must not exist
+   * beforehand.
+   *
+   * @param file the file to write to.
+   * @param formatter a function that prints the entry to the file; it will be invoked on the writer
+   *     thread, and thus must only access state that is safe to publish to that thread.
+   * @throws IllegalStateException if this writer is closed, or being closed.
+   */
+  void append(@NonNull Path file, @NonNull Consumer<PrintWriter> formatter) throws IOException {
+    maybeThrowError();
+    closeLock.readLock().lock();
+    try {
+      if (closed) {
+        throw new IllegalStateException("Log writer is closed");
+      }
+      files.add(file);
+      queue.put(new Entry(file, formatter));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while appending to " + file);
+    } finally {
+      closeLock.readLock().unlock();
+    }
+  }
+
+  /** @return all the files that were appended to so far. */
+  @NonNull
+  Set<Path> getFiles() {
+    return files;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (enqueueClose()) {
+        thread.join();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while closing log files");
+    }
+    maybeThrowError();
+  }
+
+  private boolean enqueueClose() throws InterruptedException {
+    // waits for pending appends to be enqueued; the writer thread keeps consuming the queue even
+    // after an error, so this cannot block forever
+    closeLock.writeLock().lockInterruptibly();
+    try {
+      if (closed) {
+        return false;
+      }
+      closed = true;
+      queue.put(CLOSE);
+      return true;
+    } finally {
+      closeLock.writeLock().unlock();
+    }
+  }
+
+  private void maybeThrowError() throws IOException {
+    Throwable t = error;
+    if (t != null) {
+      throw new IOException("Could not write to log files", t);
+    }
+  }
+
+  private void run() {
+    List<Entry> batch = new ArrayList<>(maxBatchSize);
+    boolean done = false;
+    try {
+      while (!done) {
+        Entry first =
+            pending == 0
+                ? queue.take()
+                : queue.poll(flushDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        if (first != null) {
+          batch.add(first);
+          queue.drainTo(batch, maxBatchSize - 1);
+          for (Entry entry : batch) {
+            if (entry == CLOSE) {
+              done = true;
+            } else {
+              write(entry);
+            }
+          }
+          batch.clear();
+        }
+        if (pending >= maxBatchSize || (pending > 0 && System.nanoTime() - flushDeadline >= 0)) {
+          flush();
+        }
+      }
+    } catch (InterruptedException e) {
+      recordError(new InterruptedIOException("Log writer interrupted"));
+    } finally {
+      // entries still queued when the writer thread is interrupted are written as well
+      queue.drainTo(batch);
+      batch.stream().filter(entry -> entry != CLOSE).forEach(this::write);
+      closeFiles();
+    }
+  }
+
+  private void write(Entry entry) {
+    if (error != null) {
+      return;
+    }
+    try {
+      LogFile logFile = logFiles.get(entry.file);
+      if (logFile == null) {
+        logFile = new LogFile(entry.file);
+        logFiles.put(entry.file, logFile);
+      }
+      entry.formatter.accept(logFile.writer);
+      if (pending++ == 0) {
+        flushDeadline = System.nanoTime() + flushIntervalNanos;
+      }
+    } catch (Throwable t) {
+      recordError(t);
+    }
+  }
+
+  private void flush() {
+    pending = 0;
+    for (LogFile logFile : logFiles.values()) {
+      try {
+        logFile.flush();
+      } catch (Throwable t) {
+        recordError(t);
+      }
+    }
+  }
+
+  private void closeFiles() {
+    for (LogFile logFile : logFiles.values()) {
+      try {
+        logFile.close();
+      } catch (Throwable t) {
+        recordError(t);
+      }
+    }
+  }
+
+  private void recordError(Throwable t) {
+    if (error == null) {
+      error = t;
+    }
+  }
+
+  private static class Entry {
+
+    private final Path file;
+    private final Consumer<PrintWriter> formatter;
+
+    private Entry(Path file, Consumer<PrintWriter> formatter) {
+      this.file = file;
+      this.formatter = formatter;
+    }
+  }
+
+  private static class LogFile {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final PrintWriter writer;
+
+    private LogFile(Path file) throws IOException {
+      this.file = file;
+      channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+      writer = new PrintWriter(Channels.newWriter(channel, UTF_8.newEncoder(), BUFFER_SIZE));
+    }
+
+    private void flush() throws IOException {
+      writer.flush();
+      // PrintWriter swallows I/O errors
+      if (writer.checkError()) {
+        throw new IOException("Could not write to " + file);
+      }
+    }
+
+    private void close() throws IOException {
+      try {
+        flush();
+        channel.force(false);
+      } finally {
+        writer.close();
+      }
+    }
+  }
+}
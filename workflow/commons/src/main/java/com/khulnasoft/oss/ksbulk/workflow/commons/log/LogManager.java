@@ -40,9 +40,11 @@ import com.khulnasoft.oss.driver.api.core.servererrors.ServerError;
 import com.khulnasoft.oss.driver.api.core.type.codec.registry.CodecRegistry;
 import com.khulnasoft.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
 import com.khulnasoft.oss.driver.shaded.guava.common.base.Joiner;
+import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableSet;
 import com.khulnasoft.oss.ksbulk.connectors.api.ErrorRecord;
 import com.khulnasoft.oss.ksbulk.connectors.api.Record;
 import com.khulnasoft.oss.ksbulk.connectors.api.Resource;
+import com.khulnasoft.oss.ksbulk.connectors.api.SeekableResource;
 import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
 import com.khulnasoft.oss.ksbulk.executor.api.result.Result;
 import com.khulnasoft.oss.ksbulk.executor.api.result.WriteResult;
@@ -52,6 +54,8 @@ import com.khulnasoft.oss.ksbulk.format.statement.StatementFormatter;
 import com.khulnasoft.oss.ksbulk.workflow.api.error.ErrorThreshold;
 import com.khulnasoft.oss.ksbulk.workflow.api.error.TooManyErrorsException;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.Checkpoint;
+import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.CheckpointJournal;
+import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.CheckpointJournalWriter;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.CheckpointManager;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.ReplayStrategy;
 import com.khulnasoft.oss.ksbulk.workflow.commons.schema.InvalidMappingException;
@@ -61,18 +65,19 @@ import com.khulnasoft.oss.ksbulk.workflow.commons.settings.LogSettings;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.MappedStatement;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.RangeReadStatement;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.UnmappableStatement;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeMap;
@@ -81,6 +86,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
@@ -108,7 +114,12 @@ public class LogManager implements AutoCloseable {
   private static final String LOAD_BAD_FILE = "load.bad";
   private static final String CAS_BAD_FILE = "paxos.bad";
 
-  private static final String CHECKPOINT_CSV = "checkpoint.csv";
+  public static final String CHECKPOINT_CSV = "checkpoint.csv";
+  public static final String CHECKPOINT_JOURNAL = "checkpoint.journal";
+
+  private static final int LOG_WRITER_CAPACITY = 8192;
+  private static final int LOG_WRITER_BATCH_SIZE = 1024;
+  private static final Duration LOG_WRITER_FLUSH_INTERVAL = Duration.ofMillis(500);
 
   private final CqlSession session;
   private final Path operationDirectory;
@@ -118,6 +129,7 @@ public class LogManager implements AutoCloseable {
   private final StatementFormatVerbosity statementFormatVerbosity;
   private final RowFormatter rowFormatter;
   private final boolean checkpointEnabled;
+  private final Duration checkpointJournalInterval;
 
   private final AtomicInteger errors = new AtomicInteger(0);
   private final LongAdder totalItems = new LongAdder();
@@ -125,18 +137,17 @@ public class LogManager implements AutoCloseable {
   private final AtomicInteger queryWarnings = new AtomicInteger(0);
   private final AtomicBoolean queryWarningsEnabled = new AtomicBoolean(true);
 
-  private final LoadingCache<Path, PrintWriter> openFiles =
-      Caffeine.newBuilder()
-          .build(path -> new PrintWriter(Files.newBufferedWriter(path, UTF_8, CREATE_NEW, WRITE)));
-
   private CodecRegistry codecRegistry;
   private ProtocolVersion protocolVersion;
 
   private StackTracePrinter stackTracePrinter;
+  private AsyncLogWriter logWriter;
 
   private final CheckpointManager initialCheckpointManager;
+  private final Set<URI> replayedResources;
   private final ReplayStrategy replayStrategy;
   private final Queue<CheckpointManager> checkpointManagers = new ConcurrentLinkedQueue<>();
+  private CheckpointJournal checkpointJournal;
 
   private FluxSink<ErrorRecord> failedRecordSink;
   private FluxSink<ErrorRecord> unmappableRecordSink;
@@ -160,6 +171,32 @@ public class LogManager implements AutoCloseable {
       boolean checkpointEnabled,
       @NonNull CheckpointManager initialCheckpointManager,
       ReplayStrategy replayStrategy) {
+    this(
+        session,
+        operationDirectory,
+        errorThreshold,
+        queryWarningsThreshold,
+        statementFormatter,
+        statementFormatVerbosity,
+        rowFormatter,
+        checkpointEnabled,
+        Duration.ZERO,
+        initialCheckpointManager,
+        replayStrategy);
+  }
+
+  public LogManager(
+      CqlSession session,
+      Path operationDirectory,
+      ErrorThreshold errorThreshold,
+      ErrorThreshold queryWarningsThreshold,
+      StatementFormatter statementFormatter,
+      StatementFormatVerbosity statementFormatVerbosity,
+      RowFormatter rowFormatter,
+      boolean checkpointEnabled,
+      Duration checkpointJournalInterval,
+      @NonNull CheckpointManager initialCheckpointManager,
+      ReplayStrategy replayStrategy) {
     this.session = session;
     this.operationDirectory = operationDirectory;
     this.errorThreshold = errorThreshold;
@@ -168,7 +205,10 @@ public class LogManager implements AutoCloseable {
     this.statementFormatVerbosity = statementFormatVerbosity;
     this.rowFormatter = rowFormatter;
     this.checkpointEnabled = checkpointEnabled;
+    this.checkpointJournalInterval = checkpointJournalInterval;
     this.initialCheckpointManager = initialCheckpointManager;
+    // snapshot the resources now, the initial manager gains new entries as the operation progresses
+    this.replayedResources = ImmutableSet.copyOf(initialCheckpointManager.getResources());
     this.replayStrategy = replayStrategy;
   }
 
@@ -178,6 +218,8 @@ public class LogManager implements AutoCloseable {
     stackTracePrinter = new StackTracePrinter();
     stackTracePrinter.setOptionList(LogSettings.STACK_TRACE_PRINTER_OPTIONS);
     stackTracePrinter.start();
+    logWriter =
+        new AsyncLogWriter(LOG_WRITER_CAPACITY, LOG_WRITER_BATCH_SIZE, LOG_WRITER_FLUSH_INTERVAL);
     failedRecordSink = newFailedRecordSink();
     unmappableRecordSink = newUnmappableRecordSink();
     unmappableStatementSink = newUnmappableStatementSink();
@@ -196,6 +238,17 @@ public class LogManager implements AutoCloseable {
     Thread.setDefaultUncaughtExceptionHandler((thread, t) -> uncaughtExceptionSink.error(t));
     totalItems.add(initialCheckpointManager.getTotalItems(replayStrategy));
     errors.set((int) initialCheckpointManager.getRejectedItems(replayStrategy));
+    if (checkpointEnabled
+        && !checkpointJournalInterval.isNegative()
+        && !checkpointJournalInterval.isZero()) {
+      Path journalFile = operationDirectory.resolve(CHECKPOINT_JOURNAL);
+      try {
+        checkpointJournal = new CheckpointJournal(journalFile, checkpointJournalInterval);
+        checkpointJournal.appendInitial(initialCheckpointManager, replayStrategy);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not create checkpoint journal: " + journalFile, e);
+      }
+    }
   }
 
   public Path getOperationDirectory() {
@@ -210,6 +263,15 @@ public class LogManager implements AutoCloseable {
     return errors.get();
   }
 
+  /**
+   * Returns the resources found in the checkpoint file being replayed, or an empty set if this
+   * operation is not replaying a checkpoint file.
+   */
+  @NonNull
+  public Set<URI> getReplayedResources() {
+    return replayedResources;
+  }
+
   @Override
   public void close() throws IOException {
     failedRecordSink.complete();
@@ -219,23 +281,21 @@ public class LogManager implements AutoCloseable {
     failedCASWriteSink.complete();
     failedReadSink.complete();
     uncaughtExceptionSink.complete();
-    stackTracePrinter.stop();
-    // Forcibly close all open files on the thread that invokes close()
-    // Using a cache removal listener is not an option because cache listeners
-    // are invoked on the common ForkJoinPool, which uses daemon threads.
-    openFiles
-        .asMap()
-        .values()
-        .forEach(
-            pw -> {
-              pw.flush();
-              pw.close();
-            });
+    try {
+      // Wait until all pending entries are written and all files are closed; the stack trace
+      // printer is used by the writer thread, so it can only be stopped afterwards.
+      logWriter.close();
+    } finally {
+      stackTracePrinter.stop();
+      if (checkpointJournal != null) {
+        checkpointJournal.close();
+      }
+    }
   }
 
   public void reportAvailableFiles() throws IOException {
     PathMatcher badFileMatcher = FileSystems.getDefault().getPathMatcher("glob:*.bad");
-    Set<Path> files = openFiles.asMap().keySet();
+    Set<Path> files = logWriter.getFiles();
     List<Path> badFiles =
         files.stream().map(Path::getFileName).filter(badFileMatcher::matches).collect(toList());
     if (!badFiles.isEmpty()) {
@@ -261,6 +321,10 @@ public class LogManager implements AutoCloseable {
             "To resume the current operation, re-run it with the same settings, and add the following command line flag:");
         LOGGER.info("--ksbulk.log.checkpoint.file={}/{}", operationDirectory, CHECKPOINT_CSV);
       }
+      // the journal is only useful if the checkpoint file could not be written
+      if (checkpointJournal != null) {
+        Files.deleteIfExists(checkpointJournal.getFile());
+      }
     }
   }
 
@@ -544,8 +608,12 @@ public class LogManager implements AutoCloseable {
                 return Flux.empty();
               }
               replayStrategy.reset(initial);
-              return Flux.from(resource.read())
-                  .doOnComplete(() -> initial.setComplete(true))
+              return Flux.from(read(resource, initial))
+                  .doOnComplete(
+                      () -> {
+                        initial.setComplete(true);
+                        journalCompleted(resource.getURI(), initial);
+                      })
                   .filter(record -> replayStrategy.shouldReplay(initial, record.getPosition()))
                   // increment even for failed records since they will be considered
                   // processed and will increment the position manager.
@@ -553,6 +621,41 @@ public class LogManager implements AutoCloseable {
             });
   }
 
+  /**
+   * Reads the given resource. If the resource is seekable, reading starts from the last sync point
+   * before the first record to replay, instead of from the first record. New sync points are only
+   * tracked when the checkpoint journal is enabled, in which case they are recorded in the
+   * checkpoint and appended to the journal.
+   */
+  @NonNull
+  private Publisher<Record> read(@NonNull Resource resource, @NonNull Checkpoint initial) {
+    if (!(resource instanceof SeekableResource)) {
+      return resource.read();
+    }
+    SeekableResource seekable = (SeekableResource) resource;
+    URI uri = resource.getURI();
+    SeekableResource.SyncPointListener listener = null;
+    if (checkpointJournal != null) {
+      listener =
+          (position, offset) -> {
+            initial.addSyncPoint(position, offset);
+            try {
+              checkpointJournal.appendSyncPoint(uri, position, offset);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          };
+    }
+    Map.Entry<Long, Long> syncPoint =
+        initial.getSyncPoint(replayStrategy.getFirstPositionToReplay(initial));
+    if (syncPoint == null) {
+      return listener == null ? seekable.read() : seekable.read(listener);
+    }
+    LOGGER.debug(
+        "Resuming {} from record {} at offset {}", uri, syncPoint.getKey(), syncPoint.getValue());
+    return seekable.read(syncPoint.getKey(), syncPoint.getValue(), listener);
+  }
+
   public Function<Flux<RangeReadResource>, Flux<Flux<ReadResult>>> newRangeReadCheckpointHandler() {
     if (!checkpointEnabled) {
       return upstream -> upstream.map(resource -> Flux.from(resource.read()));
@@ -562,12 +665,21 @@ public class LogManager implements AutoCloseable {
             resource -> {
               Checkpoint initial = initialCheckpointManager.getCheckpoint(resource.getURI());
               if (replayStrategy.isComplete(initial)) {
+                resource.discard();
                 return Flux.empty();
               }
               replayStrategy.reset(initial);
               AtomicBoolean failed = new AtomicBoolean();
               return Flux.from(resource.read())
-                  .doOnComplete(() -> initial.setComplete(!failed.get()))
+                  .doOnComplete(
+                      () -> {
+                        // the rest of a truncated range is read under other resources; if those
+                        // are missing from the checkpoint, replaying must read the rest again
+                        initial.setComplete(!failed.get() && !resource.isTruncated());
+                        if (initial.isComplete()) {
+                          journalCompleted(resource.getURI(), initial);
+                        }
+                      })
                   .filter(record -> replayStrategy.shouldReplay(initial, record.getPosition()))
                   .doOnNext(
                       r -> {
@@ -762,8 +874,18 @@ public class LogManager implements AutoCloseable {
         .transformDeferredContextual(
             (original, ctx) -> {
               CheckpointManager manager = ctx.get(CheckpointManager.class);
-              return original.doOnNext(
-                  record -> manager.update(record.getResource(), record.getPosition(), success));
+              if (checkpointJournal == null) {
+                return original.doOnNext(
+                    record -> manager.update(record.getResource(), record.getPosition(), success));
+              }
+              CheckpointJournalWriter writer = checkpointJournal.newWriter();
+              return original
+                  .doOnNext(
+                      record -> {
+                        manager.update(record.getResource(), record.getPosition(), success);
+                        writer.update(record.getResource(), record.getPosition(), success);
+                      })
+                  .doFinally(signal -> writer.flush());
             })
         .contextWrite(
             ctx -> {
@@ -779,12 +901,19 @@ public class LogManager implements AutoCloseable {
         .transformDeferredContextual(
             (original, ctx) -> {
               CheckpointManager manager = ctx.get(CheckpointManager.class);
-              return original.doOnNext(
-                  result -> {
-                    URI resource = ((RangeReadStatement) result.getStatement()).getResource();
-                    long position = result.getPosition();
-                    manager.update(resource, position, result.isSuccess());
-                  });
+              CheckpointJournalWriter writer =
+                  checkpointJournal == null ? null : checkpointJournal.newWriter();
+              Flux<ReadResult> flux =
+                  original.doOnNext(
+                      result -> {
+                        URI resource = ((RangeReadStatement) result.getStatement()).getResource();
+                        long position = result.getPosition();
+                        manager.update(resource, position, result.isSuccess());
+                        if (writer != null) {
+                          writer.update(resource, position, result.isSuccess());
+                        }
+                      });
+              return writer == null ? flux : flux.doFinally(signal -> writer.flush());
             })
         .contextWrite(
             ctx -> {
@@ -808,26 +937,26 @@ public class LogManager implements AutoCloseable {
             });
   }
 
-  private void doAppendToBadFile(Record record, String file) {
+  private void doAppendToBadFile(Record record, String file) throws IOException {
     Object source = record.getSource();
     if (source != null) {
-      Path logFile = operationDirectory.resolve(file);
-      PrintWriter writer = openFiles.get(logFile);
-      assert writer != null;
-      if (source instanceof ReadResult) {
-        ((ReadResult) source)
-            .getRow()
-            .ifPresent(
-                row -> {
-                  // In a bad file we must keep each element in one line, so use
-                  // getFormattedContents instead of rowFormatter
-                  String line = LogManagerUtils.formatSingleLine(row.getFormattedContents());
-                  LogManagerUtils.printAndMaybeAddNewLine(line, writer);
-                });
-      } else {
-        LogManagerUtils.printAndMaybeAddNewLine(source.toString(), writer);
-      }
-      writer.flush();
+      logWriter.append(operationDirectory.resolve(file), writer -> printSource(source, writer));
+    }
+  }
+
+  private void printSource(Object source, PrintWriter writer) {
+    if (source instanceof ReadResult) {
+      ((ReadResult) source)
+          .getRow()
+          .ifPresent(
+              row -> {
+                // In a bad file we must keep each element in one line, so use
+                // getFormattedContents instead of rowFormatter
+                String line = LogManagerUtils.formatSingleLine(row.getFormattedContents());
+                LogManagerUtils.printAndMaybeAddNewLine(line, writer);
+              });
+    } else {
+      LogManagerUtils.printAndMaybeAddNewLine(source.toString(), writer);
     }
   }
 
@@ -853,7 +982,7 @@ public class LogManager implements AutoCloseable {
         .handle(
             (r, sink) -> {
               try {
-                doAppendStatement(r, logFileName, true);
+                doAppendStatement(r, logFileName);
                 sink.next(r);
               } catch (Exception e) {
                 sink.error(e);
@@ -861,11 +990,14 @@ public class LogManager implements AutoCloseable {
             });
   }
 
-  private <R extends Result> void doAppendStatement(
-      R result, String logFileName, boolean appendNewLine) {
-    Path logFile = operationDirectory.resolve(logFileName);
-    PrintWriter writer = openFiles.get(logFile);
-    assert writer != null;
+  private <R extends Result> void doAppendStatement(R result, String logFileName)
+      throws IOException {
+    logWriter.append(
+        operationDirectory.resolve(logFileName), writer -> printStatement(result, writer, true));
+  }
+
+  private <R extends Result> void printStatement(
+      R result, PrintWriter writer, boolean appendNewLine) {
     writer.print("Statement: ");
     String format =
         statementFormatter.format(
@@ -891,7 +1023,6 @@ public class LogManager implements AutoCloseable {
     if (appendNewLine) {
       writer.println();
     }
-    writer.flush();
   }
 
   // Mapping errors (failed record -> statement or row -> record mappings)
@@ -911,10 +1042,14 @@ public class LogManager implements AutoCloseable {
             });
   }
 
-  private void doAppendUnmappableStatementToDebugFile(UnmappableStatement statement) {
-    Path logFile = operationDirectory.resolve(MAPPING_ERRORS_FILE);
-    PrintWriter writer = openFiles.get(logFile);
-    assert writer != null;
+  private void doAppendUnmappableStatementToDebugFile(UnmappableStatement statement)
+      throws IOException {
+    logWriter.append(
+        operationDirectory.resolve(MAPPING_ERRORS_FILE),
+        writer -> printUnmappableStatement(statement, writer));
+  }
+
+  private void printUnmappableStatement(UnmappableStatement statement, PrintWriter writer) {
     Record record = statement.getRecord();
     appendResourceAndPosition(writer, record);
     if (record.getSource() != null) {
@@ -922,7 +1057,6 @@ public class LogManager implements AutoCloseable {
     }
     stackTracePrinter.printStackTrace(statement.getError(), writer);
     writer.println();
-    writer.flush();
   }
 
   // row -> record failed (unload workflow)
@@ -939,17 +1073,19 @@ public class LogManager implements AutoCloseable {
             });
   }
 
-  private void doAppendUnmappableReadResultToDebugFile(ErrorRecord record) {
-    Path logFile = operationDirectory.resolve(MAPPING_ERRORS_FILE);
-    PrintWriter writer = openFiles.get(logFile);
-    assert writer != null;
+  private void doAppendUnmappableReadResultToDebugFile(ErrorRecord record) throws IOException {
+    logWriter.append(
+        operationDirectory.resolve(MAPPING_ERRORS_FILE),
+        writer -> printUnmappableReadResult(record, writer));
+  }
+
+  private void printUnmappableReadResult(ErrorRecord record, PrintWriter writer) {
     appendResourceAndPosition(writer, record);
     if (record.getSource() instanceof ReadResult) {
-      appendReadResult((ReadResult) record.getSource(), MAPPING_ERRORS_FILE, writer);
+      appendReadResult((ReadResult) record.getSource(), writer);
     }
     stackTracePrinter.printStackTrace(record.getError(), writer);
     writer.println();
-    writer.flush();
   }
 
   // Connector errors
@@ -967,23 +1103,25 @@ public class LogManager implements AutoCloseable {
             });
   }
 
-  private void doAppendFailedRecordToDebugFile(ErrorRecord record) {
-    Path logFile = operationDirectory.resolve(CONNECTOR_ERRORS_FILE);
-    PrintWriter writer = openFiles.get(logFile);
-    assert writer != null;
+  private void doAppendFailedRecordToDebugFile(ErrorRecord record) throws IOException {
+    logWriter.append(
+        operationDirectory.resolve(CONNECTOR_ERRORS_FILE),
+        writer -> printFailedRecord(record, writer));
+  }
+
+  private void printFailedRecord(ErrorRecord record, PrintWriter writer) {
     appendResourceAndPosition(writer, record);
     if (record.getSource() instanceof ReadResult) {
-      appendReadResult((ReadResult) record.getSource(), CONNECTOR_ERRORS_FILE, writer);
+      appendReadResult((ReadResult) record.getSource(), writer);
     } else if (record.getSource() != null) {
       writer.println("Source: " + LogManagerUtils.formatSource(record));
     }
     stackTracePrinter.printStackTrace(record.getError(), writer);
     writer.println();
-    writer.flush();
   }
 
-  private void appendReadResult(ReadResult source, String logFileName, PrintWriter writer) {
-    doAppendStatement(source, logFileName, false);
+  private void appendReadResult(ReadResult source, PrintWriter writer) {
+    printStatement(source, writer, false);
     source
         .getRow()
         .ifPresent(
@@ -1012,6 +1150,16 @@ public class LogManager implements AutoCloseable {
     }
   }
 
+  private void journalCompleted(URI resource, Checkpoint checkpoint) {
+    if (checkpointJournal != null) {
+      try {
+        checkpointJournal.appendCompleted(resource, checkpoint.getProduced());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
   @VisibleForTesting
   CheckpointManager mergeCheckpointManagers() {
     CheckpointManager merged = new CheckpointManager(new TreeMap<>());
@@ -1094,7 +1242,6 @@ public class LogManager implements AutoCloseable {
     private void printStackTrace(Throwable t, PrintWriter writer) {
       // throwableProxyToString already appends a line break at the end
       writer.print(throwableProxyToString(new ThrowableProxy(t)));
-      writer.flush();
     }
   }
 }
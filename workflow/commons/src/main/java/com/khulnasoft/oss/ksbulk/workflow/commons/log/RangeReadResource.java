@@ -31,4 +31,20 @@ public interface RangeReadResource {
 
   @NonNull
   Publisher<ReadResult> read();
+
+  /**
+   * Called instead of {@link #read()} when this resource is not going to be read, for example
+   * because it was complete in the checkpoint file being replayed. The default implementation does
+   * nothing.
+   */
+  default void discard() {}
+
+  /**
+   * Returns true if the read stopped before the end of the token range, because the rest of the
+   * range was handed over to other reads, see {@link RangeReadScheduler}. Only meaningful once the
+   * read completed. The default implementation returns false.
+   */
+  default boolean isTruncated() {
+    return false;
+  }
 }
@@ -0,0 +1,586 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.log;
+
+import com.khulnasoft.oss.driver.api.core.metadata.EndPoint;
+import com.khulnasoft.oss.driver.api.core.metadata.token.Token;
+import com.khulnasoft.oss.driver.api.core.metadata.token.TokenRange;
+import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
+import com.khulnasoft.oss.ksbulk.partitioner.BulkTokenRange;
+import com.khulnasoft.oss.ksbulk.workflow.commons.statement.RangeReadBoundStatement;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Operators;
+
+/**
+ * Hands out token range reads on demand, instead of in a fixed order decided upfront.
+ *
+ * <p>Reads are queued per replica set. A read is only handed out when downstream requests one, that
+ * is, when a reader becomes idle, and it is taken from the replica set with the fewest reads in
+ * flight; a reader that finishes early thus naturally takes over work that would otherwise have
+ * waited behind a slow range, and no replica set gets more than its share of the load while others
+ * are idle. Each replica set also has a limit of reads in flight; when all replica sets with
+ * pending reads reached their limit, no read is handed out until one of them completes. A read
+ * counts against its replica set's limit from the moment it is handed out, and until it completes,
+ * fails, is cancelled or is {@linkplain RangeReadResource#discard() discarded}; thus the limit
+ * holds even when downstream requests reads in bursts and subscribes to them later.
+ *
+ * <p>When fewer reads are pending than there are readers, which happens at the tail of the
+ * operation, the largest pending ranges are split in halves, so that idle readers get some of their
+ * work. When nothing is left to hand out while readers are idle, ranges being read can be split
+ * too: each read tracks the token of the partition it is reading, and a straggling read, that is,
+ * one that at the throughput observed so far would need more than the straggler threshold to read
+ * the rest of its range, stops at the next partition boundary; the unread rest of its range is then
+ * queued again, split in halves, for idle readers to take over. This requires the rows read to
+ * contain the partition key, see {@link RangeReadSplitter#token(ReadResult)}; otherwise, a single
+ * large or slow range can still delay the end of the operation.
+ *
+ * <p>Split ranges have their own resource URIs. Since ranges are always split in halves, or at the
+ * start of the rest of a straggling range, and at most {@link #MAX_SPLIT_DEPTH} times, the
+ * sub-ranges recorded in a checkpoint file can be found again when replaying it. A read that was
+ * cut is left incomplete in the checkpoint, see {@link RangeReadResource#isTruncated()}; when
+ * replayed, it only reads its range up to the first sub-range of the rest recorded in the
+ * checkpoint file, or reads its entire range again if none was recorded.
+ */
+public class RangeReadScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RangeReadScheduler.class);
+
+  /** How many times a range can be split, in other words, sub-ranges are at least 1/16 of it. */
+  private static final int MAX_SPLIT_DEPTH = 4;
+
+  /** How often a read checks whether it is straggling, at most. */
+  private static final long STRAGGLER_CHECK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final RangeReadSplitter splitter;
+  private final int concurrency;
+  private final int maxInFlightPerReplicaSet;
+  private final long stragglerThresholdNanos;
+  private final Set<URI> replayedResources;
+  private final List<TokenRange> replayedRanges = new ArrayList<>();
+  private final List<ReplicaSetQueue> queues;
+  private final Map<EndPoint, AtomicInteger> inFlightByNode;
+
+  private final AtomicInteger wip = new AtomicInteger();
+  private final AtomicLong requested = new AtomicLong();
+
+  private FluxSink<RangeReadResource> sink;
+  private Function<RangeReadBoundStatement, RangeReadResource> factory;
+  private int pending;
+  private int inFlight;
+  private int cursor;
+  private boolean done;
+
+  /**
+   * @param statements the statements to read.
+   * @param splitter the splitter to split ranges with.
+   * @param concurrency the number of ranges read in parallel.
+   * @param maxInFlightPerReplicaSet the maximum number of ranges read in parallel from the same
+   *     replica set, or a negative value to derive it from the concurrency and the number of
+   *     replica sets.
+   * @param stragglerThreshold the estimated time to read the rest of its range above which a range
+   *     being read is split, or zero to never split ranges being read.
+   * @param replayedResources the resources found in the checkpoint file being replayed, if any.
+   */
+  public RangeReadScheduler(
+      @NonNull List<RangeReadBoundStatement> statements,
+      @NonNull RangeReadSplitter splitter,
+      int concurrency,
+      int maxInFlightPerReplicaSet,
+      @NonNull Duration stragglerThreshold,
+      @NonNull Set<URI> replayedResources) {
+    this.splitter = splitter;
+    this.concurrency = concurrency;
+    this.stragglerThresholdNanos = stragglerThreshold.toNanos();
+    this.replayedResources = replayedResources;
+    for (URI resource : replayedResources) {
+      TokenRange range = splitter.range(resource);
+      if (range != null) {
+        replayedRanges.add(range);
+      }
+    }
+    Map<Set<EndPoint>, ReplicaSetQueue> queuesByReplicas = new LinkedHashMap<>();
+    Map<EndPoint, AtomicInteger> inFlightByNode = new LinkedHashMap<>();
+    for (RangeReadBoundStatement statement : statements) {
+      List<PendingRead> reads = new ArrayList<>();
+      if (replayedResources.isEmpty()) {
+        reads.add(new PendingRead(statement, 0));
+      } else {
+        resolveReplayed(new PendingRead(statement, 0), reads);
+      }
+      for (PendingRead read : reads) {
+        Set<EndPoint> replicas = replicas(read.statement);
+        queuesByReplicas.computeIfAbsent(replicas, ReplicaSetQueue::new).reads.add(read);
+        replicas.forEach(node -> inFlightByNode.computeIfAbsent(node, n -> new AtomicInteger()));
+        pending++;
+      }
+    }
+    queues = new ArrayList<>(queuesByReplicas.values());
+    this.inFlightByNode = Collections.unmodifiableMap(inFlightByNode);
+    this.maxInFlightPerReplicaSet =
+        maxInFlightPerReplicaSet > 0
+            ? maxInFlightPerReplicaSet
+            : autoMaxInFlightPerReplicaSet(concurrency, queuesByReplicas.keySet());
+    LOGGER.debug(
+        "Scheduling {} range reads over {} replica sets, with at most {} in flight per replica set",
+        pending,
+        queues.size(),
+        this.maxInFlightPerReplicaSet);
+  }
+
+  /**
+   * Returns a flux of resources, one per range to read, created on demand with the given factory.
+   * The flux should be subscribed to only once.
+   */
+  @NonNull
+  public Flux<RangeReadResource> schedule(
+      @NonNull Function<RangeReadBoundStatement, RangeReadResource> factory) {
+    return Flux.create(
+        sink -> {
+          synchronized (this) {
+            this.sink = sink;
+            this.factory = factory;
+          }
+          sink.onRequest(
+              n -> {
+                requested.getAndUpdate(r -> Operators.addCap(r, n));
+                drain();
+              });
+        });
+  }
+
+  /** Returns the nodes replicating the ranges to read. */
+  @NonNull
+  public Set<EndPoint> getNodes() {
+    return inFlightByNode.keySet();
+  }
+
+  /**
+   * Returns the number of reads in flight against ranges replicated by the given node; since any
+   * replica may serve a read, this is the number of reads that the node may be serving.
+   */
+  public int getInFlightReads(@NonNull EndPoint node) {
+    AtomicInteger inFlight = inFlightByNode.get(node);
+    return inFlight == null ? 0 : inFlight.get();
+  }
+
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      while (requested.get() > 0) {
+        RangeReadResource resource = next();
+        if (resource == null) {
+          break;
+        }
+        requested.decrementAndGet();
+        sink.next(resource);
+      }
+      if (complete()) {
+        sink.complete();
+      }
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  @Nullable
+  private synchronized RangeReadResource next() {
+    if (pending == 0) {
+      return null;
+    }
+    splitTail();
+    ReplicaSetQueue queue = leastLoadedQueue();
+    if (queue == null) {
+      // all replica sets with pending reads are busy, wait until a read completes
+      return null;
+    }
+    PendingRead read = queue.reads.pollFirst();
+    pending--;
+    acquire(queue);
+    return new TrackedRangeReadResource(factory.apply(read.statement), read, queue);
+  }
+
+  private synchronized boolean complete() {
+    // reads in flight may still hand over the rest of their range, see truncate()
+    if (pending == 0 && (stragglerThresholdNanos == 0 || inFlight == 0) && !done) {
+      done = true;
+      return true;
+    }
+    return false;
+  }
+
+  @Nullable
+  private ReplicaSetQueue leastLoadedQueue() {
+    ReplicaSetQueue leastLoaded = null;
+    int leastLoadedIndex = -1;
+    // start from the cursor, so that replica sets equally loaded are picked round-robin
+    for (int i = 0; i < queues.size(); i++) {
+      int index = (cursor + i) % queues.size();
+      ReplicaSetQueue queue = queues.get(index);
+      if (isAvailable(queue) && (leastLoaded == null || queue.inFlight < leastLoaded.inFlight)) {
+        leastLoaded = queue;
+        leastLoadedIndex = index;
+      }
+    }
+    if (leastLoaded != null) {
+      cursor = (leastLoadedIndex + 1) % queues.size();
+    }
+    return leastLoaded;
+  }
+
+  private boolean isAvailable(@NonNull ReplicaSetQueue queue) {
+    // reads with unknown replicas are not limited
+    return !queue.reads.isEmpty()
+        && (queue.replicas.isEmpty() || queue.inFlight < maxInFlightPerReplicaSet);
+  }
+
+  /**
+   * Splits the largest pending reads in halves until there are as many pending reads as readers, or
+   * nothing is left to split. Reads already handed out are never split.
+   */
+  private void splitTail() {
+    while (pending < concurrency) {
+      ReplicaSetQueue largestQueue = null;
+      PendingRead largest = null;
+      for (ReplicaSetQueue queue : queues) {
+        if (isAvailable(queue)) {
+          for (PendingRead read : queue.reads) {
+            if (read.splittable && (largest == null || read.fraction > largest.fraction)) {
+              largestQueue = queue;
+              largest = read;
+            }
+          }
+        }
+      }
+      if (largest == null) {
+        return;
+      }
+      List<RangeReadBoundStatement> halves = splitter.split(largest.statement);
+      if (halves.size() < 2) {
+        largest.splittable = false;
+        continue;
+      }
+      LOGGER.debug(
+          "Splitting pending token range {} into {} sub-ranges",
+          largest.statement.getTokenRange(),
+          halves.size());
+      largestQueue.reads.remove(largest);
+      for (int i = halves.size() - 1; i >= 0; i--) {
+        largestQueue.reads.addFirst(new PendingRead(halves.get(i), largest.depth + 1));
+      }
+      pending += halves.size() - 1;
+    }
+  }
+
+  /**
+   * Cuts the given read after the given token, the token of the last partition that it read
+   * entirely, if the read is straggling, that is: if a reader is idle, no pending read can be
+   * handed out, and at the throughput observed so far, reading the rest of the range would take
+   * longer than the straggler threshold. The rest of the range is then queued again, split in
+   * halves if possible.
+   *
+   * @return true if the read was cut and must stop.
+   */
+  private synchronized boolean truncate(
+      @NonNull PendingRead read,
+      @NonNull ReplicaSetQueue queue,
+      @NonNull Token token,
+      long elapsedNanos) {
+    if (requested.get() == 0 || hasAvailableRead()) {
+      return false;
+    }
+    List<RangeReadBoundStatement> parts = splitter.splitAfter(read.statement, token);
+    if (parts.size() < 2) {
+      return false;
+    }
+    double progress = fraction(parts.get(0)) / fraction(read.statement);
+    // false if the progress is unknown
+    if (!(elapsedNanos * (1 - progress) > stragglerThresholdNanos * progress)) {
+      return false;
+    }
+    RangeReadBoundStatement rest = parts.get(1);
+    List<RangeReadBoundStatement> restParts = splitter.split(rest);
+    if (restParts.size() < 2) {
+      restParts = Collections.singletonList(rest);
+    }
+    LOGGER.debug(
+        "Splitting straggling token range {} after token {} ({}% read in {} ms), "
+            + "the rest is queued as {} sub-ranges",
+        read.statement.getTokenRange(),
+        token,
+        Math.round(progress * 100),
+        TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+        restParts.size());
+    for (int i = restParts.size() - 1; i >= 0; i--) {
+      queue.reads.addFirst(new PendingRead(restParts.get(i), read.depth + 1));
+    }
+    pending += restParts.size();
+    return true;
+  }
+
+  private boolean hasAvailableRead() {
+    for (ReplicaSetQueue queue : queues) {
+      if (isAvailable(queue)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private synchronized void acquire(@NonNull ReplicaSetQueue queue) {
+    inFlight++;
+    queue.inFlight++;
+    queue.replicas.forEach(node -> inFlightByNode.get(node).incrementAndGet());
+  }
+
+  private void release(@NonNull ReplicaSetQueue queue) {
+    synchronized (this) {
+      inFlight--;
+      queue.inFlight--;
+      queue.replicas.forEach(node -> inFlightByNode.get(node).decrementAndGet());
+    }
+    drain();
+  }
+
+  /**
+   * Replaces the given read with the sub-range reads recorded in the checkpoint file, if its range
+   * was split in the operation being replayed.
+   *
+   * @return true if the read, or any of its sub-ranges, was recorded in the checkpoint file.
+   */
+  private boolean resolveReplayed(@NonNull PendingRead read, @NonNull List<PendingRead> out) {
+    if (replayedResources.contains(read.statement.getResource())) {
+      List<RangeReadBoundStatement> parts = truncateReplayed(read.statement);
+      if (parts.isEmpty()) {
+        // the checkpoint of this resource refers to the entire range, it must not be split
+        read.splittable = false;
+        out.add(read);
+      } else {
+        // the read was cut: the checkpoint of this resource refers to the head of the range only,
+        // and the rest was queued again, split in halves if possible
+        PendingRead head = new PendingRead(parts.get(0), read.depth);
+        head.splittable = false;
+        out.add(head);
+        resolveReplayed(new PendingRead(parts.get(1), read.depth), out);
+      }
+      return true;
+    }
+    if (read.splittable) {
+      List<RangeReadBoundStatement> halves = splitter.split(read.statement);
+      if (halves.size() >= 2) {
+        List<PendingRead> subReads = new ArrayList<>();
+        boolean replayed = false;
+        for (RangeReadBoundStatement half : halves) {
+          replayed |= resolveReplayed(new PendingRead(half, read.depth + 1), subReads);
+        }
+        if (replayed) {
+          out.addAll(subReads);
+          return true;
+        }
+      }
+    }
+    out.add(read);
+    return false;
+  }
+
+  /**
+   * Splits the given statement where its read was cut in the operation being replayed, that is, at
+   * the start of the first sub-range recorded in the checkpoint file that starts inside its range;
+   * returns an empty list if there is no such sub-range.
+   */
+  @NonNull
+  private List<RangeReadBoundStatement> truncateReplayed(
+      @NonNull RangeReadBoundStatement statement) {
+    TokenRange range = statement.getTokenRange();
+    List<RangeReadBoundStatement> truncated = Collections.emptyList();
+    double smallestHead = Double.MAX_VALUE;
+    for (TokenRange replayed : replayedRanges) {
+      Token start = replayed.getStart();
+      if (range.contains(start) && !start.equals(range.getEnd())) {
+        List<RangeReadBoundStatement> parts = splitter.splitAfter(statement, start);
+        if (parts.size() == 2 && fraction(parts.get(0)) < smallestHead) {
+          smallestHead = fraction(parts.get(0));
+          truncated = parts;
+        }
+      }
+    }
+    return truncated;
+  }
+
+  /**
+   * Allows each replica set up to twice its fair share of the concurrency, so that replica sets
+   * that are faster than others can go ahead, but a single replica set cannot take over all readers
+   * at the tail of the operation.
+   */
+  private static int autoMaxInFlightPerReplicaSet(
+      int concurrency, @NonNull Set<Set<EndPoint>> replicaSets) {
+    long known = replicaSets.stream().filter(replicas -> !replicas.isEmpty()).count();
+    if (known == 0) {
+      return Integer.MAX_VALUE;
+    }
+    return (int) Math.max(1, (2L * concurrency + known - 1) / known);
+  }
+
+  private static double fraction(@NonNull RangeReadBoundStatement statement) {
+    TokenRange range = statement.getTokenRange();
+    return range instanceof BulkTokenRange ? ((BulkTokenRange) range).fraction() : Double.NaN;
+  }
+
+  @NonNull
+  private static Set<EndPoint> replicas(@NonNull RangeReadBoundStatement statement) {
+    TokenRange range = statement.getTokenRange();
+    return range instanceof BulkTokenRange
+        ? ((BulkTokenRange) range).replicas()
+        : Collections.emptySet();
+  }
+
+  private static class ReplicaSetQueue {
+
+    private final Set<EndPoint> replicas;
+    private final Deque<PendingRead> reads = new ArrayDeque<>();
+    private int inFlight;
+
+    private ReplicaSetQueue(Set<EndPoint> replicas) {
+      this.replicas = replicas;
+    }
+  }
+
+  private static class PendingRead {
+
+    private final RangeReadBoundStatement statement;
+    private final int depth;
+    private final double fraction;
+    private boolean splittable;
+
+    private PendingRead(RangeReadBoundStatement statement, int depth) {
+      this.statement = statement;
+      this.depth = depth;
+      TokenRange range = statement.getTokenRange();
+      // when the ring fraction is unknown, assume that ranges were initially of similar sizes
+      fraction =
+          range instanceof BulkTokenRange
+              ? ((BulkTokenRange) range).fraction()
+              : Math.scalb(1d, -depth);
+      splittable = depth < MAX_SPLIT_DEPTH;
+    }
+  }
+
+  /**
+   * Counts a read as in flight from the moment it is handed out, until it terminates or is
+   * discarded, whichever comes first; and cuts it if it is straggling.
+   */
+  private class TrackedRangeReadResource implements RangeReadResource {
+
+    private final RangeReadResource delegate;
+    private final PendingRead read;
+    private final ReplicaSetQueue queue;
+    private final AtomicBoolean released = new AtomicBoolean();
+    private volatile boolean truncated;
+
+    // only accessed by the thread emitting results
+    private long startNanos;
+    private long nextCheckNanos;
+    private Token current;
+
+    private TrackedRangeReadResource(
+        RangeReadResource delegate, PendingRead read, ReplicaSetQueue queue) {
+      this.delegate = delegate;
+      this.read = read;
+      this.queue = queue;
+    }
+
+    @NonNull
+    @Override
+    public URI getURI() {
+      return delegate.getURI();
+    }
+
+    @NonNull
+    @Override
+    public Publisher<ReadResult> read() {
+      Flux<ReadResult> results = Flux.from(delegate.read());
+      if (stragglerThresholdNanos > 0 && read.splittable) {
+        results =
+            results
+                .doOnSubscribe(s -> startNanos = nextCheckNanos = System.nanoTime())
+                .takeWhile(this::continueReading);
+      }
+      return results.doFinally(signal -> releaseOnce());
+    }
+
+    @Override
+    public boolean isTruncated() {
+      return truncated;
+    }
+
+    @Override
+    public void discard() {
+      delegate.discard();
+      releaseOnce();
+    }
+
+    /**
+     * Tracks the partition being read; when a new partition starts, the previous one was read
+     * entirely, and the read can be cut after it if it is straggling.
+     */
+    private boolean continueReading(ReadResult result) {
+      Token token = splitter.token(result);
+      if (token == null || token.equals(current)) {
+        return true;
+      }
+      if (current != null && requested.get() > 0) {
+        long now = System.nanoTime();
+        if (now - nextCheckNanos >= 0) {
+          nextCheckNanos = now + STRAGGLER_CHECK_INTERVAL_NANOS;
+          if (truncate(read, queue, current, now - startNanos)) {
+            truncated = true;
+            return false;
+          }
+        }
+      }
+      current = token;
+      return true;
+    }
+
+    private void releaseOnce() {
+      if (released.compareAndSet(false, true)) {
+        release(queue);
+      }
+    }
+  }
+}
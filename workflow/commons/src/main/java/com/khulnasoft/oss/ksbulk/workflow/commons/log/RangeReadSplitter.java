@@ -0,0 +1,76 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.log;
+
+import com.khulnasoft.oss.driver.api.core.metadata.token.Token;
+import com.khulnasoft.oss.driver.api.core.metadata.token.TokenRange;
+import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
+import com.khulnasoft.oss.ksbulk.workflow.commons.statement.RangeReadBoundStatement;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits token range reads for a {@link RangeReadScheduler}.
+ *
+ * <p>Only {@link #split(RangeReadBoundStatement)} is mandatory; the other methods are needed to
+ * split ranges while they are being read, and their default implementations disable it.
+ */
+@FunctionalInterface
+public interface RangeReadSplitter {
+
+  /**
+   * Splits the given statement into two statements for the two halves of its token range, each with
+   * its own resource, or returns an empty list if the statement cannot be split.
+   *
+   * <p>The split must be deterministic: splitting the same statement again yields the same
+   * sub-ranges.
+   */
+  @NonNull
+  List<RangeReadBoundStatement> split(@NonNull RangeReadBoundStatement statement);
+
+  /**
+   * Splits the given statement after the given token: returns a statement for the part of its token
+   * range up to the token, inclusive, with the same resource as the given statement, and a
+   * statement for the rest of the range, with its own resource; or returns an empty list if the
+   * range cannot be split at that token.
+   */
+  @NonNull
+  default List<RangeReadBoundStatement> splitAfter(
+      @NonNull RangeReadBoundStatement statement, @NonNull Token token) {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns the token of the partition that the given result belongs to, or null if it cannot be
+   * determined, for example because the row does not contain the partition key.
+   */
+  @Nullable
+  default Token token(@NonNull ReadResult result) {
+    return null;
+  }
+
+  /**
+   * Returns the token range identified by the given resource, or null if the resource does not
+   * identify a token range read by this operation.
+   */
+  @Nullable
+  default TokenRange range(@NonNull URI resource) {
+    return null;
+  }
+}
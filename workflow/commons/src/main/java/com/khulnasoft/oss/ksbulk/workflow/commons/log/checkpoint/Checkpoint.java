@@ -16,17 +16,29 @@
 package com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import net.jcip.annotations.NotThreadSafe;
 
 /**
  * A checkpoint holds information about a resource that can be used to resume a previous run.
  *
+ * <p>A checkpoint may also hold the sync points of its resource, if the resource is seekable: pairs
+ * of a record position and of the byte offset at which that record starts, that allow a resumed
+ * operation to start reading the resource close to the first record to replay.
+ *
  * <p>Checkpoint instances are not thread-safe. They should be used by a single thread at a time,
  * then be merged together to get a global result.
  */
 @NotThreadSafe
 public class Checkpoint {
 
+  private static final Pattern SYNC_POINT_SEPARATOR = Pattern.compile(",");
+
   @NonNull
   public static Checkpoint parse(@NonNull String line) {
     String[] tokens = line.split(";", -1);
@@ -34,13 +46,23 @@ public class Checkpoint {
     long produced = Long.parseLong(tokens[1]);
     RangeSet consumedSuccessful = RangeSet.parse(tokens[2]);
     RangeSet consumedFailed = RangeSet.parse(tokens[3]);
-    return new Checkpoint(produced, consumedSuccessful, consumedFailed, complete);
+    // sync points were added later on, and are only present for seekable resources
+    NavigableMap<Long, Long> syncPoints = new TreeMap<>();
+    if (tokens.length > 4 && !tokens[4].isEmpty()) {
+      for (String syncPoint : SYNC_POINT_SEPARATOR.split(tokens[4])) {
+        int i = syncPoint.indexOf('@');
+        syncPoints.put(
+            Long.parseLong(syncPoint.substring(0, i)), Long.parseLong(syncPoint.substring(i + 1)));
+      }
+    }
+    return new Checkpoint(produced, consumedSuccessful, consumedFailed, complete, syncPoints);
   }
 
   private long produced;
   private final RangeSet consumedSuccessful;
   private final RangeSet consumedFailed;
   private boolean complete;
+  private final NavigableMap<Long, Long> syncPoints;
 
   public Checkpoint() {
     this(0, new RangeSet(), new RangeSet(), false);
@@ -51,10 +73,20 @@ public class Checkpoint {
       @NonNull RangeSet consumedSuccessful,
       @NonNull RangeSet consumedFailed,
       boolean complete) {
+    this(produced, consumedSuccessful, consumedFailed, complete, new TreeMap<>());
+  }
+
+  Checkpoint(
+      long produced,
+      @NonNull RangeSet consumedSuccessful,
+      @NonNull RangeSet consumedFailed,
+      boolean complete,
+      @NonNull NavigableMap<Long, Long> syncPoints) {
     this.produced = produced;
     this.consumedSuccessful = consumedSuccessful;
     this.consumedFailed = consumedFailed;
     this.complete = complete;
+    this.syncPoints = syncPoints;
   }
 
   public long getProduced() {
@@ -93,6 +125,25 @@ public class Checkpoint {
     this.complete = complete;
   }
 
+  /** @return the sync points of the resource, as a map of record positions to byte offsets. */
+  @NonNull
+  public NavigableMap<Long, Long> getSyncPoints() {
+    return syncPoints;
+  }
+
+  public void addSyncPoint(long position, long offset) {
+    syncPoints.put(position, offset);
+  }
+
+  /**
+   * Returns the last sync point at or before the given position, as an entry whose key is the
+   * record position and whose value is the byte offset; or null if there is no such sync point.
+   */
+  @Nullable
+  public Map.Entry<Long, Long> getSyncPoint(long position) {
+    return syncPoints.floorEntry(position);
+  }
+
   public void merge(Checkpoint other) {
     produced += other.produced;
     // Note: we don't need to care about duplicate positions appearing both in consumedSuccessful
@@ -101,6 +152,7 @@ public class Checkpoint {
     consumedSuccessful.merge(other.consumedSuccessful);
     consumedFailed.merge(other.consumedFailed);
     complete |= other.complete;
+    syncPoints.putAll(other.syncPoints);
   }
 
   @Override
@@ -123,7 +175,10 @@ public class Checkpoint {
     if (!consumedSuccessful.equals(that.consumedSuccessful)) {
       return false;
     }
-    return consumedFailed.equals(that.consumedFailed);
+    if (!consumedFailed.equals(that.consumedFailed)) {
+      return false;
+    }
+    return syncPoints.equals(that.syncPoints);
   }
 
   @Override
@@ -132,6 +187,7 @@ public class Checkpoint {
     result = 31 * result + consumedSuccessful.hashCode();
     result = 31 * result + consumedFailed.hashCode();
     result = 31 * result + (complete ? 1 : 0);
+    result = 31 * result + syncPoints.hashCode();
     return result;
   }
 
@@ -146,6 +202,8 @@ public class Checkpoint {
         + consumedFailed
         + ", complete="
         + complete
+        + ", syncPoints="
+        + syncPoints
         + '}';
   }
 
@@ -157,6 +215,13 @@ public class Checkpoint {
         + ";"
         + consumedSuccessful.asText()
         + ";"
-        + consumedFailed.asText();
+        + consumedFailed.asText()
+        + (syncPoints.isEmpty() ? "" : ";" + syncPointsAsText());
+  }
+
+  private String syncPointsAsText() {
+    return syncPoints.entrySet().stream()
+        .map(entry -> entry.getKey() + "@" + entry.getValue())
+        .collect(Collectors.joining(","));
   }
 }
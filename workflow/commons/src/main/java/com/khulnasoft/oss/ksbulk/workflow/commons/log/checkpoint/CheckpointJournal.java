@@ -0,0 +1,259 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.khulnasoft.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * An append-only journal of checkpoints, that allows an operation to be resumed even if it could
+ * not write its final checkpoint file, for example because it was killed.
+ *
+ * <p>The journal has the same format as checkpoint files, except that a resource may appear more
+ * than once: each line is a delta that must be {@linkplain Checkpoint#merge(Checkpoint) merged}
+ * with the previous ones. The journal starts with the checkpoints the operation was resumed from,
+ * if any; then each flow periodically appends the positions it consumed since its last append.
+ *
+ * <p>Appends are written to the file immediately, so that they survive the process being killed;
+ * they are also synced to the storage device, but at most once per interval, to bound the cost of
+ * syncing. When the journal grows too large compared to the checkpoints it contains, it is
+ * compacted, that is, atomically replaced with a file containing one line per resource.
+ */
+@ThreadSafe
+public class CheckpointJournal implements AutoCloseable {
+
+  /** The minimum size of the journal, in bytes, before it is compacted. */
+  private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+
+  /** The journal is compacted when it gets this many times larger than when last compacted. */
+  private static final int COMPACTION_RATIO = 4;
+
+  /**
+   * Replays the journal at the given path, and builds a (thread-safe) checkpoint manager containing
+   * the merged checkpoints for all resources listed in the journal.
+   *
+   * <p>A journal may end with a partially-written line if the operation was killed while appending
+   * to it; such a line is ignored.
+   */
+  @NonNull
+  public static CheckpointManager replay(@NonNull Path journal) throws IOException {
+    String contents = new String(Files.readAllBytes(journal), UTF_8);
+    // ignore the last line if it was not fully written
+    contents = contents.substring(0, contents.lastIndexOf('\n') + 1);
+    try (BufferedReader reader = new BufferedReader(new StringReader(contents))) {
+      return CheckpointManager.parse(reader);
+    }
+  }
+
+  private final Path file;
+  private final long intervalNanos;
+
+  // the state below is guarded by this
+  private final CheckpointManager checkpoints = new CheckpointManager(new TreeMap<>());
+  private FileChannel channel;
+  private long size;
+  private long compactedSize;
+  private long lastSync;
+
+  /**
+   * Creates a new journal.
+   *
+   * @param file the journal file; must not exist.
+   * @param interval the interval at which flows append their checkpoints to the journal; also the
+   *     minimum interval between two syncs of the journal to the storage device.
+   */
+  public CheckpointJournal(@NonNull Path file, @NonNull Duration interval) throws IOException {
+    this.file = file;
+    this.intervalNanos = interval.toNanos();
+    channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    syncDirectory(file);
+    lastSync = System.nanoTime();
+  }
+
+  /** @return the journal file. */
+  @NonNull
+  public Path getFile() {
+    return file;
+  }
+
+  /** @return a new writer, to record the checkpoints of a single flow. */
+  @NonNull
+  public CheckpointJournalWriter newWriter() {
+    return new CheckpointJournalWriter(this, intervalNanos);
+  }
+
+  /**
+   * Appends the checkpoints an operation is resumed from.
+   *
+   * <p>Resources that are complete according to the replay strategy are appended as is, since they
+   * won't be processed again. Other resources are appended with their consumed positions only: they
+   * are not complete yet, and the number of produced records will be appended upon completion, see
+   * {@link #appendCompleted(URI, long)}.
+   */
+  public void appendInitial(
+      @NonNull CheckpointManager initial, @NonNull ReplayStrategy replayStrategy)
+      throws IOException {
+    CheckpointManager copy = new CheckpointManager();
+    for (Entry<URI, Checkpoint> entry : initial.checkpoints.entrySet()) {
+      Checkpoint checkpoint = entry.getValue();
+      // copy the checkpoint, since the original will be modified by the replay
+      Checkpoint copied = Checkpoint.parse(checkpoint.asCsv());
+      if (!replayStrategy.isComplete(checkpoint)) {
+        copied.setProduced(0);
+        copied.setComplete(false);
+      }
+      copy.checkpoints.put(entry.getKey(), copied);
+    }
+    append(copy);
+  }
+
+  /**
+   * Appends the completion of a resource.
+   *
+   * @param resource the resource.
+   * @param produced the total number of records produced by the resource.
+   */
+  public void appendCompleted(@NonNull URI resource, long produced) throws IOException {
+    CheckpointManager delta = new CheckpointManager();
+    delta.checkpoints.put(resource, new Checkpoint(produced, new RangeSet(), new RangeSet(), true));
+    append(delta);
+  }
+
+  /**
+   * Appends a sync point of a resource.
+   *
+   * @param resource the resource.
+   * @param position the position of the record starting at the sync point.
+   * @param offset the byte offset at which the record starts.
+   */
+  public void appendSyncPoint(@NonNull URI resource, long position, long offset)
+      throws IOException {
+    Checkpoint checkpoint = new Checkpoint();
+    checkpoint.addSyncPoint(position, offset);
+    CheckpointManager delta = new CheckpointManager();
+    delta.checkpoints.put(resource, checkpoint);
+    append(delta);
+  }
+
+  /**
+   * Appends the given checkpoints.
+   *
+   * <p>The journal takes ownership of the given checkpoint manager, which must not be modified
+   * afterwards.
+   */
+  public void append(@NonNull CheckpointManager delta) throws IOException {
+    if (delta.isEmpty()) {
+      return;
+    }
+    StringWriter csv = new StringWriter();
+    try (PrintWriter writer = new PrintWriter(csv)) {
+      delta.printCsv(writer);
+    }
+    ByteBuffer bytes = UTF_8.encode(csv.toString());
+    synchronized (this) {
+      if (channel == null) {
+        throw new IllegalStateException("Checkpoint journal is closed");
+      }
+      size += writeFully(channel, bytes);
+      checkpoints.merge(delta);
+      long now = System.nanoTime();
+      if (now - lastSync >= intervalNanos) {
+        channel.force(false);
+        lastSync = now;
+      }
+      if (size >= Math.max(MIN_COMPACTION_SIZE, compactedSize * COMPACTION_RATIO)) {
+        compact();
+      }
+    }
+  }
+
+  @VisibleForTesting
+  synchronized void compact() throws IOException {
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    StringWriter csv = new StringWriter();
+    try (PrintWriter writer = new PrintWriter(csv)) {
+      checkpoints.printCsv(writer);
+    }
+    try (FileChannel compacted =
+        FileChannel.open(
+            tmp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      compactedSize = writeFully(compacted, UTF_8.encode(csv.toString()));
+      compacted.force(false);
+    }
+    channel.close();
+    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    // the rename itself is only durable once the directory is synced
+    syncDirectory(file);
+    channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    size = compactedSize;
+    lastSync = System.nanoTime();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (channel != null) {
+      try {
+        channel.force(false);
+      } finally {
+        channel.close();
+        channel = null;
+      }
+    }
+  }
+
+  private static void syncDirectory(@NonNull Path file) throws IOException {
+    Path dir = file.toAbsolutePath().getParent();
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(dir, StandardOpenOption.READ);
+    } catch (IOException e) {
+      // some platforms, such as Windows, cannot open directories; renames are durable there
+      return;
+    }
+    try (FileChannel ignored = channel) {
+      channel.force(true);
+    }
+  }
+
+  private static int writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+    int written = 0;
+    while (bytes.hasRemaining()) {
+      written += channel.write(bytes);
+    }
+    return written;
+  }
+}
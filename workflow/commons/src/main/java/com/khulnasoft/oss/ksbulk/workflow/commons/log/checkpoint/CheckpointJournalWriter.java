@@ -0,0 +1,85 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Records the checkpoints of a single flow, and periodically appends them to a {@link
+ * CheckpointJournal}.
+ *
+ * <p>Writers are not thread-safe; each flow should use its own writer.
+ */
+@NotThreadSafe
+public class CheckpointJournalWriter {
+
+  private final CheckpointJournal journal;
+  private final long intervalNanos;
+
+  private CheckpointManager delta = new CheckpointManager();
+  private int pending;
+
+  // flows usually consume one resource at a time: cache its checkpoint to avoid map lookups
+  private URI lastResource;
+  private Checkpoint lastCheckpoint;
+  private long lastFlush = System.nanoTime();
+
+  CheckpointJournalWriter(@NonNull CheckpointJournal journal, long intervalNanos) {
+    this.journal = journal;
+    this.intervalNanos = intervalNanos;
+  }
+
+  /**
+   * Records the consumption of a position, and appends all pending positions to the journal if the
+   * interval has elapsed since the last append.
+   */
+  public void update(@NonNull URI resource, long position, boolean success) {
+    if (position <= 0) {
+      return;
+    }
+    if (resource != lastResource) {
+      lastCheckpoint = delta.checkpoints.computeIfAbsent(resource, r -> new Checkpoint());
+      lastResource = resource;
+    }
+    lastCheckpoint.updateConsumed(position, success);
+    pending++;
+    // checked on every update, so that slow flows are flushed on time as well
+    if (System.nanoTime() - lastFlush >= intervalNanos) {
+      flush();
+    }
+  }
+
+  /** Appends all pending positions to the journal. */
+  public void flush() {
+    lastFlush = System.nanoTime();
+    if (pending > 0) {
+      try {
+        // the journal takes ownership of the delta
+        journal.append(delta);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      delta = new CheckpointManager();
+      pending = 0;
+      lastResource = null;
+      lastCheckpoint = null;
+    }
+  }
+}
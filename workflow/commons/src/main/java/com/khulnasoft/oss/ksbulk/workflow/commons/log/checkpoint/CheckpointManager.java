@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -93,6 +94,12 @@ public class CheckpointManager {
     return checkpoints.isEmpty();
   }
 
+  /** Returns the resources currently tracked by this manager. */
+  @NonNull
+  public Set<URI> getResources() {
+    return checkpoints.keySet();
+  }
+
   public boolean isComplete(@NonNull ReplayStrategy checkpointReplayStrategy) {
     return checkpoints.values().stream().allMatch(checkpointReplayStrategy::isComplete);
   }
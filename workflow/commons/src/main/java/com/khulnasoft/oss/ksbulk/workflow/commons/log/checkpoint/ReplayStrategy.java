@@ -16,6 +16,7 @@
 package com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Iterator;
 
 /** Defines the strategy to use when replaying a failed operation. */
 public enum ReplayStrategy {
@@ -137,6 +138,37 @@ public enum ReplayStrategy {
    */
   public abstract boolean shouldReplay(@NonNull Checkpoint checkpoint, long position);
 
+  /**
+   * Returns the position of the first record that should be replayed, that is, the first position
+   * for which {@link #shouldReplay(Checkpoint, long)} returns true. Records before that position
+   * need not be read again, if the resource can be read from a {@linkplain
+   * Checkpoint#getSyncPoint(long) sync point}.
+   */
+  public long getFirstPositionToReplay(@NonNull Checkpoint checkpoint) {
+    long position = 1;
+    while (!shouldReplay(checkpoint, position)) {
+      // the position is consumed: skip the range(s) that contain it
+      position =
+          Math.max(
+              nextPosition(checkpoint.getConsumedSuccessful(), position),
+              nextPosition(checkpoint.getConsumedFailed(), position));
+    }
+    return position;
+  }
+
+  private static long nextPosition(@NonNull RangeSet rangeSet, long position) {
+    for (Iterator<Range> it = rangeSet.iterator(); it.hasNext(); ) {
+      Range range = it.next();
+      if (range.getLower() > position) {
+        break;
+      }
+      if (range.getUpper() >= position) {
+        return range.getUpper() + 1;
+      }
+    }
+    return position;
+  }
+
   /**
    * Returns the number of records already processed and that won't be replayed. This total may
    * include successful, but also rejected records, if they won't be replayed according to the
@@ -29,6 +29,7 @@ import com.khulnasoft.oss.driver.api.core.ProtocolVersion;
 import com.khulnasoft.oss.driver.api.core.cql.BatchStatement;
 import com.khulnasoft.oss.driver.api.core.cql.BatchableStatement;
 import com.khulnasoft.oss.driver.api.core.cql.Statement;
+import com.khulnasoft.oss.driver.api.core.metadata.EndPoint;
 import com.khulnasoft.oss.driver.api.core.type.codec.registry.CodecRegistry;
 import com.khulnasoft.oss.driver.shaded.guava.common.util.concurrent.MoreExecutors;
 import com.khulnasoft.oss.ksbulk.connectors.api.ErrorRecord;
@@ -44,14 +45,17 @@ import com.khulnasoft.oss.ksbulk.workflow.commons.metrics.prometheus.PrometheusM
 import com.khulnasoft.oss.ksbulk.workflow.commons.settings.LogSettings.Verbosity;
 import com.khulnasoft.oss.ksbulk.workflow.commons.settings.RowType;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.UnmappableStatement;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
@@ -459,6 +463,20 @@ public class MetricsManager implements AutoCloseable {
     }
   }
 
+  /**
+   * Registers one gauge per node, named {@code reads.nodes.<node>.in_flight}, reporting the number
+   * of reads in flight against the node; node-level balance can then be observed through any of the
+   * configured reporters.
+   */
+  public void registerInFlightReadsGauges(
+      @NonNull Set<EndPoint> nodes, @NonNull ToIntFunction<EndPoint> inFlightReads) {
+    for (EndPoint node : nodes) {
+      registry.gauge(
+          "reads.nodes." + node.asMetricPrefix() + ".in_flight",
+          () -> () -> inFlightReads.applyAsInt(node));
+    }
+  }
+
   public <T> Function<Flux<T>, Flux<T>> newTotalItemsMonitor() {
     return upstream -> upstream.doOnNext(item -> totalItems.inc());
   }
@@ -31,6 +31,8 @@ import com.khulnasoft.oss.driver.api.core.metadata.token.TokenRange;
 import com.khulnasoft.oss.driver.api.core.type.DataType;
 import com.khulnasoft.oss.driver.api.core.type.codec.TypeCodec;
 import com.khulnasoft.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
+import com.khulnasoft.oss.driver.shaded.guava.common.hash.Hasher;
+import com.khulnasoft.oss.driver.shaded.guava.common.hash.Hashing;
 import com.khulnasoft.oss.ksbulk.codecs.api.ConvertingCodecFactory;
 import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
 import com.khulnasoft.oss.ksbulk.partitioner.utils.TokenUtils;
@@ -44,16 +46,22 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.function.BiFunction;
 
 public class DefaultReadResultCounter implements ReadResultCounter {
 
-  private static final BiFunction<Long, Long, Long> SUM = Long::sum;
+  /**
+   * When counting partitions approximately, the number of partitions tracked by the heavy hitters
+   * sketch, as a multiple of the number of partitions to report.
+   */
+  private static final int TRACKED_PARTITIONS_FACTOR = 10;
+
+  private static final int MIN_TRACKED_PARTITIONS = 100;
 
   private final int numPartitions;
   private final ProtocolVersion protocolVersion;
@@ -63,7 +71,9 @@ public class DefaultReadResultCounter implements ReadResultCounter {
   private final Set<TokenRange> allTokenRanges;
   private final Set<EndPoint> allAddresses;
   private final Token[] ring;
+  private final long[] murmur3Ring;
   private final ReplicaSet[] replicaSets;
+  private final EndPoint[] nodes;
 
   private final CopyOnWriteArrayList<DefaultCountingUnit> units = new CopyOnWriteArrayList<>();
 
@@ -71,18 +81,27 @@ public class DefaultReadResultCounter implements ReadResultCounter {
   private final boolean countNodes;
   private final boolean countRanges;
   private final boolean countPartitions;
+  private final boolean countApproxPartitions;
   private final boolean multiCount;
+  private final boolean pushdown;
+
+  // the sketches below are guarded by this; counting units merge their own sketches into them
+  private final HyperLogLog partitionsSketch;
+  private final SpaceSaving<PartitionKey> biggestPartitionsSketch;
 
   @VisibleForTesting long totalRows;
   @VisibleForTesting Map<TokenRange, Long> totalsByRange;
   @VisibleForTesting Map<EndPoint, Long> totalsByNode;
   @VisibleForTesting List<PartitionKeyCount> totalsByPartitionKey;
+  @VisibleForTesting long approxTotalPartitions;
+  @VisibleForTesting List<SpaceSaving.Counter<PartitionKey>> approxTotalsByPartitionKey;
 
   public DefaultReadResultCounter(
       CqlIdentifier keyspace,
       Metadata metadata,
       EnumSet<StatisticsMode> modes,
       int numPartitions,
+      boolean pushdown,
       ProtocolVersion protocolVersion,
       ConvertingCodecFactory codecFactory) {
     this.tokenMap =
@@ -90,13 +109,22 @@ public class DefaultReadResultCounter implements ReadResultCounter {
             .getTokenMap()
             .orElseThrow(() -> new IllegalStateException("Token metadata not present"));
     this.numPartitions = numPartitions;
+    this.pushdown = pushdown;
     this.protocolVersion = protocolVersion;
     this.codecFactory = codecFactory;
     countGlobal = modes.contains(StatisticsMode.global);
     countNodes = modes.contains(StatisticsMode.hosts);
     countRanges = modes.contains(StatisticsMode.ranges);
     countPartitions = modes.contains(StatisticsMode.partitions);
+    countApproxPartitions = modes.contains(StatisticsMode.approxPartitions);
     multiCount = modes.size() > 1;
+    if (countApproxPartitions) {
+      partitionsSketch = new HyperLogLog();
+      biggestPartitionsSketch = newBiggestPartitionsSketch();
+    } else {
+      partitionsSketch = null;
+      biggestPartitionsSketch = null;
+    }
     if (countNodes || countRanges) {
       // Store required metadata in two data structures that will speed up lookups by token:
       // 1) 'ring' stores the range start tokens of all ranges, contents are identical to
@@ -105,19 +133,26 @@ public class DefaultReadResultCounter implements ReadResultCounter {
       // contents are identical to metadata.tokenMap.tokenToNodesByKeyspace.
       // Both arrays are filled so that ring[i] == replicaSets[i].range.end,
       // thus allowing to easily locate the range and replicas of a given token.
+      // Counting units then count rows per ring index, and per node index, in primitive arrays;
+      // 'murmur3Ring' holds the same tokens as 'ring' as primitive longs, when possible, to also
+      // avoid comparing Token objects.
       Set<TokenRange> ranges =
-          metadata.getTokenMap().map(TokenMap::getTokenRanges).orElse(Collections.emptySet());
+          new TreeSet<>(
+              metadata.getTokenMap().map(TokenMap::getTokenRanges).orElse(Collections.emptySet()));
       ring = new Token[ranges.size()];
       replicaSets = new ReplicaSet[ranges.size()];
+      Map<EndPoint, Integer> nodeIndexes = new LinkedHashMap<>();
       int i = 0;
       Map<Token, TokenRange> rangesByEndingToken =
           ranges.stream().collect(toMap(TokenRange::getEnd, identity()));
       for (TokenRange r1 : ranges) {
         ring[i] = r1.getStart();
         TokenRange r2 = rangesByEndingToken.get(r1.getStart());
-        replicaSets[i] = new ReplicaSet(r2, tokenMap.getReplicas(keyspace, r2));
+        replicaSets[i] = new ReplicaSet(r2, tokenMap.getReplicas(keyspace, r2), nodeIndexes);
         i++;
       }
+      nodes = nodeIndexes.keySet().toArray(new EndPoint[0]);
+      murmur3Ring = toMurmur3Ring(ring);
       // 'allTokenRanges' and 'allAddresses' are sorted structures that will only serve when
       // printing final totals.
       if (countRanges) {
@@ -133,12 +168,37 @@ public class DefaultReadResultCounter implements ReadResultCounter {
       }
     } else {
       ring = null;
+      murmur3Ring = null;
       replicaSets = null;
+      nodes = null;
       allTokenRanges = null;
       allAddresses = null;
     }
   }
 
+  private static long[] toMurmur3Ring(Token[] ring) {
+    long[] murmur3Ring = new long[ring.length];
+    for (int i = 0; i < ring.length; i++) {
+      if (!TokenUtils.isMurmur3Token(ring[i])) {
+        return null;
+      }
+      murmur3Ring[i] = TokenUtils.getMurmur3TokenValue(ring[i]);
+    }
+    return murmur3Ring;
+  }
+
+  private SpaceSaving<PartitionKey> newBiggestPartitionsSketch() {
+    return new SpaceSaving<>(
+        Math.max(numPartitions * TRACKED_PARTITIONS_FACTOR, MIN_TRACKED_PARTITIONS),
+        PartitionKey::copy);
+  }
+
+  private synchronized void mergeSketches(
+      HyperLogLog partitions, SpaceSaving<PartitionKey> biggestPartitions) {
+    partitionsSketch.merge(partitions);
+    biggestPartitionsSketch.merge(biggestPartitions);
+  }
+
   @Override
   public DefaultCountingUnit newCountingUnit(long initial) {
     DefaultCountingUnit unit = new DefaultCountingUnit(initial);
@@ -157,13 +217,43 @@ public class DefaultReadResultCounter implements ReadResultCounter {
     totalsByRange = new HashMap<>();
     totalsByNode = new HashMap<>();
     totalsByPartitionKey = new ArrayList<>();
+    long[] rangeTotals = countRanges ? new long[ring.length] : null;
+    long[] nodeTotals = countNodes ? new long[nodes.length] : null;
     for (DefaultCountingUnit unit : units) {
       unit.close();
       totalRows += unit.total;
-      unit.totalsByNode.forEach((key, value) -> totalsByNode.merge(key, value, SUM));
-      unit.totalsByRange.forEach((key, value) -> totalsByRange.merge(key, value, SUM));
+      if (countRanges) {
+        for (int i = 0; i < rangeTotals.length; i++) {
+          rangeTotals[i] += unit.totalsByRange[i];
+        }
+      }
+      if (countNodes) {
+        for (int i = 0; i < nodeTotals.length; i++) {
+          nodeTotals[i] += unit.totalsByNode[i];
+        }
+      }
       totalsByPartitionKey.addAll(unit.totalsByPartitionKey);
     }
+    if (countRanges) {
+      for (int i = 0; i < rangeTotals.length; i++) {
+        if (rangeTotals[i] > 0) {
+          totalsByRange.put(replicaSets[i].range, rangeTotals[i]);
+        }
+      }
+    }
+    if (countNodes) {
+      for (int i = 0; i < nodeTotals.length; i++) {
+        if (nodeTotals[i] > 0) {
+          totalsByNode.put(nodes[i], nodeTotals[i]);
+        }
+      }
+    }
+    if (countApproxPartitions) {
+      synchronized (this) {
+        approxTotalPartitions = partitionsSketch.estimate();
+        approxTotalsByPartitionKey = biggestPartitionsSketch.top(numPartitions);
+      }
+    }
     totalsByPartitionKey.sort(Collections.reverseOrder());
     totalsByPartitionKey =
         totalsByPartitionKey.size() > numPartitions
@@ -217,6 +307,20 @@ public class DefaultReadResultCounter implements ReadResultCounter {
             out.printf("%s %d %.2f%n", count.pk, count.count, percentage);
           });
     }
+    if (countApproxPartitions) {
+      // this mode always prints two results
+      out.println("Approximate total partitions:");
+      out.println(approxTotalPartitions);
+      out.println("Approximate rows per partition:");
+      approxTotalsByPartitionKey.forEach(
+          count -> {
+            // report counts that are never overestimated: a partition is usually counted by one
+            // single unit, in which case its guaranteed count is exact
+            long rows = count.getGuaranteedCount();
+            float percentage = (float) rows / (float) totalRows * 100f;
+            out.printf("%s %d %.2f%n", count.getElement(), rows, percentage);
+          });
+    }
   }
 
   /**
@@ -226,17 +330,26 @@ public class DefaultReadResultCounter implements ReadResultCounter {
    * internals do not require synchronization or concurrent structures.
    *
    * <p>Each thread/counting unit counts its own portion of the result set, then at the end, their
-   * results are consolidated.
+   * results are consolidated. Rows per range and per node are counted in arrays indexed by ring
+   * index and node index respectively, so that counting does not allocate.
+   *
+   * <p>When counting partitions approximately, the unit feeds its own sketches, then merges them
+   * into the counter's sketches when it is closed, which should happen as soon as the unit is done
+   * counting, to bound memory usage.
    */
   @VisibleForTesting
   class DefaultCountingUnit implements CountingUnit {
 
     long total = 0;
-    final Map<TokenRange, Long> totalsByRange = new HashMap<>();
-    final Map<EndPoint, Long> totalsByNode = new HashMap<>();
+    final long[] totalsByRange = countRanges ? new long[ring.length] : null;
+    final long[] totalsByNode = countNodes ? new long[nodes.length] : null;
     final List<PartitionKeyCount> totalsByPartitionKey = new ArrayList<>(numPartitions + 1);
     long currentPkCount = 0;
     PartitionKey currentPk;
+    HyperLogLog partitions;
+    SpaceSaving<PartitionKey> biggestPartitions;
+    long currentApproxPkCount = 0;
+    PartitionKey currentApproxPk;
 
     DefaultCountingUnit(long initial) {
       total = initial;
@@ -245,10 +358,17 @@ public class DefaultReadResultCounter implements ReadResultCounter {
     @Override
     public void update(ReadResult result) {
       Row row = result.getRow().orElseThrow(IllegalStateException::new);
+      if (pushdown) {
+        // When counting server-side, the result set contains one single row per token range, with
+        // one single column containing the number of rows in that range; other counting modes are
+        // not allowed.
+        total += row.getLong(0);
+        return;
+      }
       // First compute the partition key and the token for this row.
       Token token = null;
       PartitionKey pk = null;
-      if (countPartitions) {
+      if (countPartitions || countApproxPartitions) {
         // When counting partitions, the result set is expected to contain
         // the row's partition key, in proper order
         int size = row.getColumnDefinitions().size();
@@ -272,13 +392,13 @@ public class DefaultReadResultCounter implements ReadResultCounter {
       // percentages for other stats.
       total++;
       if (countRanges || countNodes) {
-        ReplicaSet replicaSet = getReplicaSet(token);
+        int index = getRingIndex(token);
         if (countRanges) {
-          totalsByRange.merge(replicaSet.range, 1L, SUM);
+          totalsByRange[index]++;
         }
         if (countNodes) {
-          for (EndPoint address : replicaSet.addresses) {
-            totalsByNode.merge(address, 1L, SUM);
+          for (int node : replicaSets[index].nodes) {
+            totalsByNode[node]++;
           }
         }
       }
@@ -298,30 +418,60 @@ public class DefaultReadResultCounter implements ReadResultCounter {
           currentPkCount++;
         }
       }
+      if (countApproxPartitions) {
+        if (partitions == null) {
+          partitions = new HyperLogLog();
+          biggestPartitions = newBiggestPartitionsSketch();
+        }
+        // Partitions are usually returned in order, but this is not required here: consecutive
+        // rows of the same partition are only coalesced to reduce the number of sketch updates.
+        if (!pk.equals(currentApproxPk)) {
+          rotateApproxPk();
+          currentApproxPk = pk;
+          partitions.add(pk.hash64());
+        }
+        currentApproxPkCount++;
+      }
     }
 
     @Override
     public void close() {
       rotatePk();
+      if (partitions != null) {
+        rotateApproxPk();
+        mergeSketches(partitions, biggestPartitions);
+        partitions = null;
+        biggestPartitions = null;
+      }
+    }
+
+    private void rotateApproxPk() {
+      if (currentApproxPk != null) {
+        biggestPartitions.add(currentApproxPk, currentApproxPkCount);
+        currentApproxPk = null;
+        currentApproxPkCount = 0;
+      }
     }
 
     /**
-     * Locate the end token of the range containing the given token then use it to lookup the entire
-     * range and its replicas. This search is identical to the search performed by
-     * Metadata.TokenMap.getReplicas(String keyspace, Token token). Only used when counting ranges
-     * or nodes.
+     * Locate the end token of the range containing the given token and return its index in the
+     * ring, which is also the index of the entire range and its replicas in 'replicaSets'. This
+     * search is identical to the search performed by Metadata.TokenMap.getReplicas(String keyspace,
+     * Token token). Only used when counting ranges or nodes.
      */
-    private ReplicaSet getReplicaSet(Token token) {
+    private int getRingIndex(Token token) {
       assert ring != null;
-      assert replicaSets != null;
-      int i = Arrays.binarySearch(ring, token);
+      int i =
+          murmur3Ring != null && TokenUtils.isMurmur3Token(token)
+              ? Arrays.binarySearch(murmur3Ring, TokenUtils.getMurmur3TokenValue(token))
+              : Arrays.binarySearch(ring, token);
       if (i < 0) {
         i = -i - 1;
         if (i >= ring.length) {
           i = 0;
         }
       }
-      return replicaSets[i];
+      return i;
     }
 
     /**
@@ -367,6 +517,41 @@ public class DefaultReadResultCounter implements ReadResultCounter {
       }
     }
 
+    private PartitionKey(PartitionKey toCopy) {
+      components = new ByteBuffer[toCopy.components.length];
+      for (int i = 0; i < components.length; i++) {
+        ByteBuffer component = toCopy.components[i];
+        if (component != null) {
+          components[i] = ByteBuffer.allocate(component.remaining());
+          components[i].put(component.duplicate());
+          components[i].flip();
+        }
+      }
+      types = toCopy.types;
+      hashCode = toCopy.hashCode;
+    }
+
+    /**
+     * Returns a copy of this key that does not share its components with the row it was read from,
+     * since they are usually slices of much larger buffers.
+     */
+    PartitionKey copy() {
+      return new PartitionKey(this);
+    }
+
+    /** @return a 64-bit hash of this key, suitable for sketches. */
+    long hash64() {
+      Hasher hasher = Hashing.murmur3_128().newHasher();
+      for (ByteBuffer component : components) {
+        if (component == null) {
+          hasher.putInt(-1);
+        } else {
+          hasher.putInt(component.remaining()).putBytes(component.duplicate());
+        }
+      }
+      return hasher.hash().asLong();
+    }
+
     @Override
     public boolean equals(Object o) {
       if (this == o) {
@@ -423,11 +608,15 @@ public class DefaultReadResultCounter implements ReadResultCounter {
   private static class ReplicaSet {
 
     final TokenRange range;
-    final EndPoint[] addresses;
+    final int[] nodes;
 
-    ReplicaSet(TokenRange range, Set<Node> addresses) {
+    ReplicaSet(TokenRange range, Set<Node> replicas, Map<EndPoint, Integer> nodeIndexes) {
       this.range = range;
-      this.addresses = addresses.stream().map(Node::getEndPoint).toArray(EndPoint[]::new);
+      this.nodes =
+          replicas.stream()
+              .map(Node::getEndPoint)
+              .mapToInt(address -> nodeIndexes.computeIfAbsent(address, k -> nodeIndexes.size()))
+              .toArray();
     }
   }
 }
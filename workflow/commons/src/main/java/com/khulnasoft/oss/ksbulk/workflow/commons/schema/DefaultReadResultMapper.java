@@ -15,7 +15,6 @@
  */
 package com.khulnasoft.oss.ksbulk.workflow.commons.schema;
 
-import com.khulnasoft.oss.driver.api.core.CqlIdentifier;
 import com.khulnasoft.oss.driver.api.core.cql.ColumnDefinition;
 import com.khulnasoft.oss.driver.api.core.cql.ColumnDefinitions;
 import com.khulnasoft.oss.driver.api.core.cql.Row;
@@ -31,9 +30,13 @@ import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
 import com.khulnasoft.oss.ksbulk.mapping.CQLWord;
 import com.khulnasoft.oss.ksbulk.mapping.Mapping;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.RangeReadStatement;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.net.URI;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DefaultReadResultMapper implements ReadResultMapper {
 
@@ -41,6 +44,11 @@ public class DefaultReadResultMapper implements ReadResultMapper {
   private final RecordMetadata recordMetadata;
   private final boolean retainRecordSources;
 
+  // Result set metadata does not change for a given statement, so plans are cached per column
+  // definitions instance (weak keys are compared by identity).
+  private final Cache<ColumnDefinitions, Projection[]> projections =
+      Caffeine.newBuilder().weakKeys().build();
+
   public DefaultReadResultMapper(
       Mapping mapping, RecordMetadata recordMetadata, boolean retainRecordSources) {
     this.mapping = mapping;
@@ -55,27 +63,25 @@ public class DefaultReadResultMapper implements ReadResultMapper {
     URI resource = ((RangeReadStatement) result.getStatement()).getResource();
     try {
       Row row = result.getRow().orElseThrow(IllegalStateException::new);
-      ColumnDefinitions columnDefinitions = row.getColumnDefinitions();
+      Projection[] plan = projections.get(row.getColumnDefinitions(), this::compile);
       DefaultRecord record = new DefaultRecord(source, resource, result.getPosition());
-      for (ColumnDefinition def : columnDefinitions) {
-        CQLWord variable = CQLWord.fromInternal(def.getName().asInternal());
-        CqlIdentifier name = variable.asIdentifier();
-        DataType cqlType = def.getType();
-        Set<Field> fields = mapping.variableToFields(variable);
-        for (Field field : fields) {
-          GenericType<?> fieldType = null;
-          try {
-            fieldType = recordMetadata.getFieldType(field, cqlType);
-            TypeCodec<?> codec = mapping.codec(variable, cqlType, fieldType);
-            Object value = row.get(name, codec);
-            record.setFieldValue(field, value);
-          } catch (Exception e) {
-            String msg =
-                String.format(
-                    "Could not deserialize column %s of type %s as %s",
-                    name.asCql(true), cqlType, fieldType);
-            throw new IllegalArgumentException(msg, e);
+      for (Projection projection : plan) {
+        GenericType<?> fieldType = projection.fieldType;
+        try {
+          TypeCodec<?> codec = projection.codec;
+          if (codec == null) {
+            // resolution failed when the plan was compiled: try again, this will likely throw
+            fieldType = recordMetadata.getFieldType(projection.field, projection.cqlType);
+            codec = mapping.codec(projection.variable, projection.cqlType, fieldType);
           }
+          Object value = row.get(projection.index, codec);
+          record.setFieldValue(projection.field, value);
+        } catch (Exception e) {
+          String msg =
+              String.format(
+                  "Could not deserialize column %s of type %s as %s",
+                  projection.variable.asIdentifier().asCql(true), projection.cqlType, fieldType);
+          throw new IllegalArgumentException(msg, e);
         }
       }
       return record;
@@ -83,4 +89,46 @@ public class DefaultReadResultMapper implements ReadResultMapper {
       return new DefaultErrorRecord(source, resource, -1, e);
     }
   }
+
+  private Projection[] compile(ColumnDefinitions columnDefinitions) {
+    List<Projection> plan = new ArrayList<>();
+    for (int i = 0; i < columnDefinitions.size(); i++) {
+      ColumnDefinition def = columnDefinitions.get(i);
+      CQLWord variable = CQLWord.fromInternal(def.getName().asInternal());
+      DataType cqlType = def.getType();
+      for (Field field : mapping.variableToFields(variable)) {
+        plan.add(new Projection(i, variable, cqlType, field));
+      }
+    }
+    return plan.toArray(new Projection[0]);
+  }
+
+  /** How to decode one column of a row into one field of a record. */
+  private class Projection {
+
+    private final int index;
+    private final CQLWord variable;
+    private final DataType cqlType;
+    private final Field field;
+    // null if they could not be resolved when the plan was compiled
+    @Nullable private final GenericType<?> fieldType;
+    @Nullable private final TypeCodec<?> codec;
+
+    private Projection(int index, CQLWord variable, DataType cqlType, Field field) {
+      this.index = index;
+      this.variable = variable;
+      this.cqlType = cqlType;
+      this.field = field;
+      GenericType<?> fieldType = null;
+      TypeCodec<?> codec = null;
+      try {
+        fieldType = recordMetadata.getFieldType(field, cqlType);
+        codec = mapping.codec(variable, cqlType, fieldType);
+      } catch (RuntimeException e) {
+        // will be thrown again when mapping rows
+      }
+      this.fieldType = fieldType;
+      this.codec = codec;
+    }
+  }
 }
@@ -33,16 +33,22 @@ import com.khulnasoft.oss.driver.api.core.type.reflect.GenericType;
 import com.khulnasoft.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
 import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableList;
 import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableSet;
+import com.khulnasoft.oss.driver.shaded.guava.common.primitives.Ints;
+import com.khulnasoft.oss.ksbulk.connectors.api.ArrayBackedRecord;
 import com.khulnasoft.oss.ksbulk.connectors.api.Field;
 import com.khulnasoft.oss.ksbulk.connectors.api.Record;
 import com.khulnasoft.oss.ksbulk.connectors.api.RecordMetadata;
+import com.khulnasoft.oss.ksbulk.connectors.api.RecordSchema;
 import com.khulnasoft.oss.ksbulk.mapping.CQLWord;
 import com.khulnasoft.oss.ksbulk.mapping.Mapping;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.MappedBoundStatement;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.UnmappableStatement;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
@@ -61,6 +67,18 @@ public class DefaultRecordMapper implements RecordMapper {
   private final Function<PreparedStatement, BoundStatementBuilder> boundStatementBuilderFactory;
   private final int size;
 
+  /**
+   * The maximum number of distinct field sets whose plans are kept for records without a schema.
+   * Such records usually all have the same fields, but some sources mix a few shapes of records,
+   * e.g. Json documents with optional fields.
+   */
+  private static final int MAX_FIELD_SET_PLANS = 64;
+
+  private final Cache<RecordSchema, RecordPlan> schemaPlans =
+      Caffeine.newBuilder().weakKeys().build();
+  private final Cache<Set<Field>, RecordPlan> fieldSetPlans =
+      Caffeine.newBuilder().maximumSize(MAX_FIELD_SET_PLANS).build();
+
   public DefaultRecordMapper(
       List<PreparedStatement> insertStatements,
       Set<CQLWord> partitionKeyVariables,
@@ -116,19 +134,23 @@ public class DefaultRecordMapper implements RecordMapper {
   @Override
   public Flux<BatchableStatement<?>> map(@NonNull Record record) {
     try {
-      Set<Field> recordFields = record.fields();
-      if (!allowMissingFields) {
-        ensureAllFieldsPresent(recordFields);
-      }
-      if (!allowExtraFields) {
-        ensureNoExtraFields(recordFields);
+      RecordPlan plan = getPlan(record);
+      if (!plan.fieldsValid) {
+        // will throw
+        Set<Field> recordFields = record.fields();
+        if (!allowMissingFields) {
+          ensureAllFieldsPresent(recordFields);
+        }
+        if (!allowExtraFields) {
+          ensureNoExtraFields(recordFields);
+        }
       }
       if (size == 1) {
-        return Flux.just(bindStatement(record, insertStatements.get(0)));
+        return Flux.just(bindStatement(record, plan, plan.statements[0]));
       } else {
         BatchableStatement<?>[] statements = new BatchableStatement<?>[size];
         for (int i = 0; i < size; i++) {
-          statements[i] = bindStatement(record, insertStatements.get(i));
+          statements[i] = bindStatement(record, plan, plan.statements[i]);
         }
         // Note: we only emit the generated bound statements if all of them were successfully
         // created; if any fails, we return one single UnmappableStatement instead.
@@ -144,67 +166,92 @@ public class DefaultRecordMapper implements RecordMapper {
     }
   }
 
-  private MappedBoundStatement bindStatement(Record record, PreparedStatement insertStatement) {
-    BoundStatementBuilder builder = boundStatementBuilderFactory.apply(insertStatement);
-    ColumnDefinitions variableDefinitions = insertStatement.getVariableDefinitions();
-    for (Field field : record.fields()) {
-      Set<CQLWord> variables = mapping.fieldToVariables(field);
-      for (CQLWord variable : variables) {
-        CqlIdentifier name = variable.asIdentifier();
-        if (size == 1 || variableDefinitions.contains(name)) {
-          DataType cqlType = variableDefinitions.get(name).getType();
-          GenericType<?> fieldType = recordMetadata.getFieldType(field, cqlType);
-          Object raw = record.getFieldValue(field);
-          builder = bindColumn(builder, field, variable, raw, cqlType, fieldType);
-        }
-      }
+  /**
+   * Returns the binding plan for the given record. Plans for array-backed records are cached by
+   * schema; plans for other records are cached by field set, for a bounded number of field sets.
+   */
+  private RecordPlan getPlan(Record record) {
+    if (record instanceof ArrayBackedRecord) {
+      RecordSchema schema = ((ArrayBackedRecord) record).getSchema();
+      return schemaPlans.get(schema, s -> new RecordPlan(s.fields(), s));
+    }
+    Set<Field> fields = record.fields();
+    RecordPlan plan = fieldSetPlans.getIfPresent(fields);
+    if (plan == null) {
+      // the record's field set may be a view of its contents, it must not be used as a key
+      ImmutableSet<Field> key = ImmutableSet.copyOf(fields);
+      plan = fieldSetPlans.get(key, k -> new RecordPlan(key, null));
     }
-    ensurePrimaryKeySet(builder);
+    return plan;
+  }
+
+  private MappedBoundStatement bindStatement(
+      Record record, RecordPlan plan, StatementPlan statementPlan) {
+    BoundStatementBuilder builder = boundStatementBuilderFactory.apply(statementPlan.statement);
+    boolean useSlots = plan.schema != null;
+    for (Binding binding : statementPlan.bindings) {
+      Object raw =
+          useSlots
+              ? ((ArrayBackedRecord) record).getValue(binding.slot)
+              : record.getFieldValue(binding.field);
+      builder = bindColumn(builder, binding, raw);
+    }
+    ensurePrimaryKeySet(builder, statementPlan);
     if (protocolVersion.getCode() < DefaultProtocolVersion.V4.getCode()) {
-      ensureAllVariablesSet(builder, insertStatement);
+      ensureAllVariablesSet(builder, statementPlan.statement);
     }
     BoundStatement bs = builder.build();
     return new MappedBoundStatement(record, bs);
   }
 
-  private <T> BoundStatementBuilder bindColumn(
-      BoundStatementBuilder builder,
-      Field field,
-      CQLWord variable,
-      @Nullable T raw,
-      DataType cqlType,
-      GenericType<? extends T> javaType) {
-    TypeCodec<T> codec = mapping.codec(variable, cqlType, javaType);
+  private BoundStatementBuilder bindColumn(
+      BoundStatementBuilder builder, Binding binding, @Nullable Object raw) {
+    GenericType<?> javaType = binding.javaType;
+    TypeCodec<Object> codec = binding.codec;
+    if (codec == null) {
+      // resolution failed when the plan was compiled: try again, this will likely throw
+      javaType = recordMetadata.getFieldType(binding.field, binding.cqlType);
+      codec = resolveCodec(binding.variable, binding.cqlType, javaType);
+    }
     ByteBuffer bb;
     try {
       bb = codec.encode(raw, builder.protocolVersion());
     } catch (Exception e) {
-      throw InvalidMappingException.encodeFailed(field, variable, javaType, cqlType, raw, e);
+      throw InvalidMappingException.encodeFailed(
+          binding.field, binding.variable, javaType, binding.cqlType, raw, e);
     }
-    if (isNull(bb, cqlType)) {
-      if (primaryKeyVariables.contains(variable)) {
-        throw InvalidMappingException.nullPrimaryKey(variable);
+    if (bb == null || (binding.emptyIsNull && !bb.hasRemaining())) {
+      if (binding.primaryKey) {
+        throw InvalidMappingException.nullPrimaryKey(binding.variable);
       }
       if (nullToUnset) {
         return builder;
       }
     }
-    return builder.setBytesUnsafe(variable.asIdentifier(), bb);
+    for (int index : binding.indices) {
+      builder = builder.setBytesUnsafe(index, bb);
+    }
+    return builder;
   }
 
-  private boolean isNull(ByteBuffer bb, DataType cqlType) {
-    if (bb == null) {
-      return true;
-    }
+  @SuppressWarnings("unchecked")
+  private TypeCodec<Object> resolveCodec(
+      CQLWord variable, DataType cqlType, GenericType<?> javaType) {
+    return (TypeCodec<Object>) mapping.codec(variable, cqlType, javaType);
+  }
+
+  /**
+   * Whether a zero-length buffer should be considered as null for the given type. This is not the
+   * case for textual and blob types.
+   */
+  private static boolean isEmptyNull(DataType cqlType) {
     switch (cqlType.getProtocolCode()) {
       case VARCHAR:
       case ASCII:
       case BLOB:
-        // zero-length buffers should not be considered as nulls for
-        // these CQL types.
         return false;
       default:
-        return !bb.hasRemaining();
+        return true;
     }
   }
 
@@ -225,12 +272,11 @@ public class DefaultRecordMapper implements RecordMapper {
     }
   }
 
-  private void ensurePrimaryKeySet(BoundStatementBuilder bs) {
-    for (CQLWord variable : primaryKeyVariables) {
-      for (int index : bs.allIndicesOf(variable.asIdentifier())) {
-        if (!bs.isSet(index)) {
-          throw InvalidMappingException.unsetPrimaryKey(variable);
-        }
+  private void ensurePrimaryKeySet(BoundStatementBuilder bs, StatementPlan statementPlan) {
+    int[] indices = statementPlan.primaryKeyIndices;
+    for (int i = 0; i < indices.length; i++) {
+      if (!bs.isSet(indices[i])) {
+        throw InvalidMappingException.unsetPrimaryKey(statementPlan.primaryKeyVariables[i]);
       }
     }
   }
@@ -243,4 +289,100 @@ public class DefaultRecordMapper implements RecordMapper {
       }
     }
   }
+
+  /**
+   * A precompiled plan to bind records having the same fields. Field-to-variable resolution, codec
+   * resolution and field validation are performed once, when the plan is created.
+   */
+  private class RecordPlan {
+
+    private final Set<Field> fields;
+    @Nullable private final RecordSchema schema;
+    private final boolean fieldsValid;
+    private final StatementPlan[] statements;
+
+    private RecordPlan(Set<Field> fields, @Nullable RecordSchema schema) {
+      this.fields = fields;
+      this.schema = schema;
+      fieldsValid =
+          (allowMissingFields || fields.containsAll(mapping.fields()))
+              && (allowExtraFields || mapping.fields().containsAll(fields));
+      statements = new StatementPlan[size];
+      for (int i = 0; i < size; i++) {
+        statements[i] = new StatementPlan(insertStatements.get(i), this);
+      }
+    }
+  }
+
+  /** The part of a {@link RecordPlan} that applies to one of the insert statements. */
+  private class StatementPlan {
+
+    private final PreparedStatement statement;
+    private final Binding[] bindings;
+    private final int[] primaryKeyIndices;
+    private final CQLWord[] primaryKeyVariables;
+
+    private StatementPlan(PreparedStatement statement, RecordPlan plan) {
+      this.statement = statement;
+      ColumnDefinitions variableDefinitions = statement.getVariableDefinitions();
+      List<Binding> bindings = new ArrayList<>();
+      for (Field field : plan.fields) {
+        int slot = plan.schema == null ? -1 : plan.schema.slotOf(field);
+        for (CQLWord variable : mapping.fieldToVariables(field)) {
+          CqlIdentifier name = variable.asIdentifier();
+          if (size == 1 || variableDefinitions.contains(name)) {
+            DataType cqlType = variableDefinitions.get(name).getType();
+            int[] indices = Ints.toArray(variableDefinitions.allIndicesOf(name));
+            bindings.add(new Binding(field, slot, variable, indices, cqlType));
+          }
+        }
+      }
+      this.bindings = bindings.toArray(new Binding[0]);
+      List<Integer> pkIndices = new ArrayList<>();
+      List<CQLWord> pkVariables = new ArrayList<>();
+      for (CQLWord variable : DefaultRecordMapper.this.primaryKeyVariables) {
+        for (int index : variableDefinitions.allIndicesOf(variable.asIdentifier())) {
+          pkIndices.add(index);
+          pkVariables.add(variable);
+        }
+      }
+      this.primaryKeyIndices = Ints.toArray(pkIndices);
+      this.primaryKeyVariables = pkVariables.toArray(new CQLWord[0]);
+    }
+  }
+
+  /** How to bind one field to one variable. */
+  private class Binding {
+
+    private final Field field;
+    private final int slot;
+    private final CQLWord variable;
+    private final int[] indices;
+    private final DataType cqlType;
+    private final boolean primaryKey;
+    private final boolean emptyIsNull;
+    // null if they could not be resolved when the plan was created
+    @Nullable private final GenericType<?> javaType;
+    @Nullable private final TypeCodec<Object> codec;
+
+    private Binding(Field field, int slot, CQLWord variable, int[] indices, DataType cqlType) {
+      this.field = field;
+      this.slot = slot;
+      this.variable = variable;
+      this.indices = indices;
+      this.cqlType = cqlType;
+      primaryKey = DefaultRecordMapper.this.primaryKeyVariables.contains(variable);
+      emptyIsNull = isEmptyNull(cqlType);
+      GenericType<?> javaType = null;
+      TypeCodec<Object> codec = null;
+      try {
+        javaType = recordMetadata.getFieldType(field, cqlType);
+        codec = resolveCodec(variable, cqlType, javaType);
+      } catch (RuntimeException e) {
+        // will be thrown again when binding records
+      }
+      this.javaType = javaType;
+      this.codec = codec;
+    }
+  }
 }
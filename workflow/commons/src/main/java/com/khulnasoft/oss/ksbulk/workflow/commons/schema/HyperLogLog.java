@@ -0,0 +1,110 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.schema;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * A HyperLogLog sketch, that estimates the number of distinct elements in a stream using a fixed
+ * amount of memory, see <a href="http://algo.inria.fr/flajolet/Publications/FlFuGaMe07.pdf">the
+ * original paper</a>.
+ *
+ * <p>Elements are added by their 64-bit hash, which must be uniformly distributed. With a precision
+ * of {@code p}, the sketch uses {@code 2^p} bytes and its relative standard error is {@code 1.04 /
+ * sqrt(2^p)}, that is, about 0.81% for the default precision of 14. Since hashes are 64 bits long,
+ * no large range correction is needed.
+ *
+ * <p>Sketches with the same precision can be {@linkplain #merge(HyperLogLog) merged}; the merged
+ * sketch is identical to a sketch that would have been fed with the union of both streams.
+ */
+@NotThreadSafe
+class HyperLogLog {
+
+  static final int DEFAULT_PRECISION = 14;
+
+  private final int precision;
+  private final byte[] registers;
+
+  HyperLogLog() {
+    this(DEFAULT_PRECISION);
+  }
+
+  HyperLogLog(int precision) {
+    if (precision < 4 || precision > 18) {
+      throw new IllegalArgumentException("Precision must be between 4 and 18, got: " + precision);
+    }
+    this.precision = precision;
+    registers = new byte[1 << precision];
+  }
+
+  /** Adds an element, given its 64-bit hash. */
+  void add(long hash) {
+    int index = (int) (hash >>> (64 - precision));
+    // the sentinel bit bounds the rank to 64 - precision + 1
+    long remaining = (hash << precision) | (1L << (precision - 1));
+    byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+    if (rank > registers[index]) {
+      registers[index] = rank;
+    }
+  }
+
+  /** Merges the given sketch into this one. */
+  void merge(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Cannot merge sketches with different precisions: %d and %d",
+              precision, other.precision));
+    }
+    for (int i = 0; i < registers.length; i++) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  /** @return the estimated number of distinct elements added so far. */
+  long estimate() {
+    int m = registers.length;
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += 1d / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double estimate = alpha(m) * m * m / sum;
+    if (estimate <= 2.5 * m && zeros > 0) {
+      // small range correction: linear counting
+      estimate = m * Math.log((double) m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  private static double alpha(int m) {
+    switch (m) {
+      case 16:
+        return 0.673;
+      case 32:
+        return 0.697;
+      case 64:
+        return 0.709;
+      default:
+        return 0.7213 / (1 + 1.079 / m);
+    }
+  }
+}
@@ -27,5 +27,8 @@ public interface ReadResultCounter extends AutoCloseable {
   interface CountingUnit extends AutoCloseable {
 
     void update(ReadResult result);
+
+    @Override
+    void close();
   }
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.schema;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * A Space-Saving sketch, that tracks the most frequent elements of a stream, and their approximate
+ * counts, using a fixed number of counters, see <a
+ * href="https://www.cs.ucsb.edu/sites/default/files/documents/2005-23.pdf">the original paper</a>.
+ *
+ * <p>When all counters are in use, a new element replaces the element with the lowest count, and
+ * inherits its count, which becomes the new element's maximum error. Therefore counts are never
+ * underestimated, and any element whose true count is greater than {@code total / capacity} is
+ * guaranteed to be tracked.
+ *
+ * <p>Counters are kept in a min-heap, so that updating a counter or replacing the lowest counter
+ * costs {@code O(log capacity)}.
+ *
+ * <p>Sketches can be {@linkplain #merge(SpaceSaving) merged}, following <a
+ * href="https://arxiv.org/abs/1206.4582">Agarwal et al.</a>: the counts of the merged sketch remain
+ * upper bounds of the true counts, and its errors remain bounded by {@code total / capacity}.
+ *
+ * @param <K> the element type; must implement equals and hashCode.
+ */
+@NotThreadSafe
+class SpaceSaving<K> {
+
+  private final int capacity;
+  private final UnaryOperator<K> copier;
+  private final Map<K, Counter<K>> counters;
+  private final List<Counter<K>> heap;
+
+  /**
+   * Creates a new sketch.
+   *
+   * @param capacity the number of counters.
+   * @param copier a function invoked when an element starts being tracked, that may return a
+   *     compact copy of it, if it holds references to large objects.
+   */
+  SpaceSaving(int capacity, UnaryOperator<K> copier) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be strictly positive, got: " + capacity);
+    }
+    this.capacity = capacity;
+    this.copier = copier;
+    counters = new HashMap<>(capacity * 2);
+    heap = new ArrayList<>(capacity);
+  }
+
+  /** Adds the given number of occurrences of an element. */
+  void add(K element, long count) {
+    Counter<K> counter = counters.get(element);
+    if (counter != null) {
+      counter.count += count;
+      siftDown(counter.index);
+    } else if (heap.size() < capacity) {
+      counter = new Counter<>(copier.apply(element), count, 0);
+      counters.put(counter.element, counter);
+      counter.index = heap.size();
+      heap.add(counter);
+      siftUp(counter.index);
+    } else {
+      // replace the element with the lowest count
+      counter = heap.get(0);
+      counters.remove(counter.element);
+      counter.element = copier.apply(element);
+      counter.error = counter.count;
+      counter.count += count;
+      counters.put(counter.element, counter);
+      siftDown(0);
+    }
+  }
+
+  /** Merges the given sketch into this one. */
+  void merge(SpaceSaving<K> other) {
+    // an element that is not tracked by a full sketch may have occurred up to its lowest count
+    long min = minCount();
+    long otherMin = other.minCount();
+    Map<K, Counter<K>> merged = new HashMap<>(counters.size() + other.counters.size());
+    for (Counter<K> counter : heap) {
+      Counter<K> otherCounter = other.counters.get(counter.element);
+      long count = counter.count + (otherCounter == null ? otherMin : otherCounter.count);
+      long error = counter.error + (otherCounter == null ? otherMin : otherCounter.error);
+      merged.put(counter.element, new Counter<>(counter.element, count, error));
+    }
+    for (Counter<K> otherCounter : other.heap) {
+      if (!counters.containsKey(otherCounter.element)) {
+        merged.put(
+            otherCounter.element,
+            new Counter<>(
+                otherCounter.element, otherCounter.count + min, otherCounter.error + min));
+      }
+    }
+    List<Counter<K>> sorted = new ArrayList<>(merged.values());
+    sorted.sort(Comparator.comparingLong((Counter<K> c) -> c.count).reversed());
+    counters.clear();
+    heap.clear();
+    for (Counter<K> counter : sorted.subList(0, Math.min(capacity, sorted.size()))) {
+      counters.put(counter.element, counter);
+      counter.index = heap.size();
+      heap.add(counter);
+      siftUp(counter.index);
+    }
+  }
+
+  /**
+   * @return the tracked elements with the highest {@linkplain Counter#getGuaranteedCount()
+   *     guaranteed counts}, in descending order, at most {@code n} of them.
+   */
+  List<Counter<K>> top(int n) {
+    List<Counter<K>> sorted = new ArrayList<>(heap);
+    sorted.sort(Comparator.comparingLong(Counter<K>::getGuaranteedCount).reversed());
+    return sorted.subList(0, Math.min(n, sorted.size()));
+  }
+
+  private long minCount() {
+    return heap.size() < capacity ? 0 : heap.get(0).count;
+  }
+
+  private void siftUp(int index) {
+    Counter<K> counter = heap.get(index);
+    while (index > 0) {
+      int parentIndex = (index - 1) >>> 1;
+      Counter<K> parent = heap.get(parentIndex);
+      if (parent.count <= counter.count) {
+        break;
+      }
+      place(parent, index);
+      index = parentIndex;
+    }
+    place(counter, index);
+  }
+
+  private void siftDown(int index) {
+    Counter<K> counter = heap.get(index);
+    int size = heap.size();
+    while (true) {
+      int childIndex = 2 * index + 1;
+      if (childIndex >= size) {
+        break;
+      }
+      Counter<K> child = heap.get(childIndex);
+      if (childIndex + 1 < size && heap.get(childIndex + 1).count < child.count) {
+        childIndex++;
+        child = heap.get(childIndex);
+      }
+      if (counter.count <= child.count) {
+        break;
+      }
+      place(child, index);
+      index = childIndex;
+    }
+    place(counter, index);
+  }
+
+  private void place(Counter<K> counter, int index) {
+    heap.set(index, counter);
+    counter.index = index;
+  }
+
+  /** A counter for a tracked element. */
+  static class Counter<K> {
+
+    private K element;
+    private long count;
+    private long error;
+    private int index;
+
+    private Counter(K element, long count, long error) {
+      this.element = element;
+      this.count = count;
+      this.error = error;
+    }
+
+    /** @return the element. */
+    K getElement() {
+      return element;
+    }
+
+    /** @return the approximate count of the element; never lower than its true count. */
+    long getCount() {
+      return count;
+    }
+
+    /** @return the maximum overestimation of the count. */
+    long getError() {
+      return error;
+    }
+
+    /** @return the count minus its error; never greater than the true count of the element. */
+    long getGuaranteedCount() {
+      return count - error;
+    }
+  }
+}
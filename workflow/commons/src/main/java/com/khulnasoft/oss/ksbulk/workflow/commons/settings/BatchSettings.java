@@ -49,6 +49,12 @@ public class BatchSettings {
       BatchMode asStatementBatcherMode() {
         return BatchMode.REPLICA_SET;
       }
+    },
+    PARTITION_RUN {
+      @Override
+      BatchMode asStatementBatcherMode() {
+        return BatchMode.PARTITION_RUN;
+      }
     };
 
     abstract BatchMode asStatementBatcherMode();
@@ -132,6 +138,10 @@ public class BatchSettings {
     return mode != WorkloadBatchMode.DISABLED;
   }
 
+  public boolean isBufferingEnabled() {
+    return mode != WorkloadBatchMode.PARTITION_RUN;
+  }
+
   public int getBufferSize() {
     return bufferSize;
   }
@@ -18,6 +18,7 @@ package com.khulnasoft.oss.ksbulk.workflow.commons.settings;
 import com.khulnasoft.oss.ksbulk.config.ConfigUtils;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.OptionalInt;
 
@@ -26,14 +27,21 @@ public class EngineSettings {
   private static final String DRY_RUN = "dryRun";
   private static final String EXECUTION_ID = "executionId";
   private static final String MAX_CONCURRENT_QUERIES = "maxConcurrentQueries";
+  private static final String MAX_CONCURRENT_QUERIES_PER_REPLICA_SET =
+      "maxConcurrentQueriesPerReplicaSet";
   private static final String DATA_SIZE_SAMPLING_ENABLED = "dataSizeSamplingEnabled";
+  private static final String WRITE_LANES = "writeLanes";
+  private static final String STRAGGLER_THRESHOLD = "stragglerThreshold";
 
   private final Config config;
 
   private boolean dryRun;
   private String executionId;
   private int maxConcurrentQueries;
+  private int maxConcurrentQueriesPerReplicaSet;
   private boolean dataSizeSamplingEnabled;
+  private boolean writeLanes;
+  private Duration stragglerThreshold;
 
   EngineSettings(Config config) {
     this.config = config;
@@ -47,7 +55,19 @@ public class EngineSettings {
           config.getString(MAX_CONCURRENT_QUERIES).equalsIgnoreCase("AUTO")
               ? -1
               : ConfigUtils.getThreads(config, MAX_CONCURRENT_QUERIES);
+      maxConcurrentQueriesPerReplicaSet =
+          config.getString(MAX_CONCURRENT_QUERIES_PER_REPLICA_SET).equalsIgnoreCase("AUTO")
+              ? -1
+              : ConfigUtils.getThreads(config, MAX_CONCURRENT_QUERIES_PER_REPLICA_SET);
       dataSizeSamplingEnabled = config.getBoolean(DATA_SIZE_SAMPLING_ENABLED);
+      writeLanes = config.getBoolean(WRITE_LANES);
+      stragglerThreshold = config.getDuration(STRAGGLER_THRESHOLD);
+      if (stragglerThreshold.isNegative()) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Invalid value for ksbulk.engine.%s, expecting positive duration or zero, got '%s'",
+                STRAGGLER_THRESHOLD, config.getString(STRAGGLER_THRESHOLD)));
+      }
     } catch (ConfigException e) {
       throw ConfigUtils.convertConfigException(e, "ksbulk.engine");
     }
@@ -65,7 +85,21 @@ public class EngineSettings {
     return maxConcurrentQueries == -1 ? OptionalInt.empty() : OptionalInt.of(maxConcurrentQueries);
   }
 
+  public OptionalInt getMaxConcurrentQueriesPerReplicaSet() {
+    return maxConcurrentQueriesPerReplicaSet == -1
+        ? OptionalInt.empty()
+        : OptionalInt.of(maxConcurrentQueriesPerReplicaSet);
+  }
+
   public boolean isDataSizeSamplingEnabled() {
     return dataSizeSamplingEnabled;
   }
+
+  public boolean isWriteLanes() {
+    return writeLanes;
+  }
+
+  public Duration getStragglerThreshold() {
+    return stragglerThreshold;
+  }
 }
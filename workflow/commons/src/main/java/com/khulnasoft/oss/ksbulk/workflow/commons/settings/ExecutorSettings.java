@@ -32,6 +32,7 @@ import com.khulnasoft.oss.ksbulk.executor.api.writer.BulkWriter;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.OptionalInt;
 import java.util.ServiceLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +49,7 @@ public class ExecutorSettings {
   private int maxPerSecond;
   private long maxBytesPerSecond;
   private int maxInFlight;
+  private boolean adaptiveInFlight;
   private boolean continuousPagingEnabled;
 
   ExecutorSettings(Config config) {
@@ -59,6 +61,7 @@ public class ExecutorSettings {
       maxPerSecond = config.getInt("maxPerSecond");
       maxBytesPerSecond = ConfigUtils.getBytes(config, "maxBytesPerSecond");
       maxInFlight = config.getInt("maxInFlight");
+      adaptiveInFlight = config.getBoolean("adaptiveInFlight");
     } catch (ConfigException e) {
       throw ConfigUtils.convertConfigException(e, "ksbulk.executor");
     }
@@ -94,6 +97,14 @@ public class ExecutorSettings {
     }
   }
 
+  public boolean isAdaptiveInFlight() {
+    return adaptiveInFlight;
+  }
+
+  public OptionalInt getMaxInFlight() {
+    return maxInFlight > 0 ? OptionalInt.of(maxInFlight) : OptionalInt.empty();
+  }
+
   public boolean isTrackingBytes() {
     return maxBytesPerSecond > 0;
   }
@@ -126,6 +137,7 @@ public class ExecutorSettings {
     builder
         .withExecutionListener(executionListener)
         .withMaxInFlightRequests(maxInFlight)
+        .withAdaptiveInFlightRequests(adaptiveInFlight)
         .withMaxRequestsPerSecond(maxPerSecond)
         .withMaxBytesPerSecond(maxBytesPerSecond)
         .failSafe();
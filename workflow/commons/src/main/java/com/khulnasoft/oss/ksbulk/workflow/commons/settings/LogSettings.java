@@ -39,6 +39,7 @@ import com.khulnasoft.oss.ksbulk.workflow.api.log.OperationDirectory;
 import com.khulnasoft.oss.ksbulk.workflow.api.log.OperationDirectoryResolver;
 import com.khulnasoft.oss.ksbulk.workflow.api.utils.WorkflowUtils;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.LogManager;
+import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.CheckpointJournal;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.CheckpointManager;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.ReplayStrategy;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.MappedBoundStatementPrinter;
@@ -52,6 +53,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map.Entry;
@@ -151,8 +153,10 @@ public class LogSettings {
   private Verbosity verbosity;
   private boolean sources;
   private boolean checkpointEnabled;
+  private Duration checkpointJournalInterval;
   private ReplayStrategy checkpointReplayStrategy;
   private CheckpointManager checkpointManager;
+  private boolean replayingCheckpoint;
 
   public LogSettings(Config config, String executionId) {
     this.config = config;
@@ -214,11 +218,22 @@ public class LogSettings {
       }
       sources = config.getBoolean(SOURCES);
       checkpointEnabled = config.getBoolean("checkpoint.enabled");
+      checkpointJournalInterval = config.getDuration("checkpoint.journalInterval");
+      if (checkpointJournalInterval.isNegative()) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Invalid value for ksbulk.log.checkpoint.journalInterval, expecting positive duration or zero, got '%s'",
+                config.getString("checkpoint.journalInterval")));
+      }
       checkpointReplayStrategy = config.getEnum(ReplayStrategy.class, "checkpoint.replayStrategy");
       if (config.hasPath("checkpoint.file")) {
-        Path path = ConfigUtils.getPath(config, "checkpoint.file");
-        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-          checkpointManager = CheckpointManager.parse(reader);
+        Path path = resolveCheckpointFile(ConfigUtils.getPath(config, "checkpoint.file"));
+        if (path.getFileName().toString().endsWith(".journal")) {
+          checkpointManager = CheckpointJournal.replay(path);
+        } else {
+          try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            checkpointManager = CheckpointManager.parse(reader);
+          }
         }
         if (checkpointManager.isComplete(checkpointReplayStrategy)) {
           throw new IllegalArgumentException(
@@ -226,6 +241,7 @@ public class LogSettings {
                   "Nothing to replay using replay strategy %s in checkpoint file: %s.",
                   checkpointReplayStrategy, path));
         }
+        replayingCheckpoint = true;
         LOGGER.warn("Replaying from checkpoint file: {}.", path);
         LOGGER.warn(
             "Record metrics will reflect totals from the previous operation; other metrics won't be affected.");
@@ -239,6 +255,30 @@ public class LogSettings {
     }
   }
 
+  /**
+   * Resolves the checkpoint file to replay. The given path is either a checkpoint file, a
+   * checkpoint journal, or the directory of a previous operation, in which case its checkpoint file
+   * is replayed. If that operation was killed before writing its checkpoint file, its checkpoint
+   * journal is replayed instead.
+   */
+  @VisibleForTesting
+  @NonNull
+  static Path resolveCheckpointFile(@NonNull Path path) {
+    Path checkpointFile = Files.isDirectory(path) ? path.resolve(LogManager.CHECKPOINT_CSV) : path;
+    if (Files.notExists(checkpointFile)
+        && checkpointFile.getFileName().toString().equals(LogManager.CHECKPOINT_CSV)) {
+      Path journal = checkpointFile.resolveSibling(LogManager.CHECKPOINT_JOURNAL);
+      if (Files.exists(journal)) {
+        LOGGER.warn(
+            "Checkpoint file {} does not exist, replaying checkpoint journal {} instead.",
+            checkpointFile,
+            journal);
+        return journal;
+      }
+    }
+    return checkpointFile;
+  }
+
   public void logEffectiveSettings(Config ksbulkConfig, Config driverConfig) {
     LOGGER.debug("{} starting.", WorkflowUtils.getBulkLoaderNameAndVersion());
     // Initialize the following static fields: their initialization will print the driver
@@ -288,6 +328,7 @@ public class LogSettings {
         level,
         rowFormatter,
         checkpointEnabled,
+        checkpointJournalInterval,
         checkpointManager,
         checkpointReplayStrategy);
   }
@@ -297,6 +338,11 @@ public class LogSettings {
     return verbosity;
   }
 
+  /** Whether the operation replays a previous operation from a checkpoint file. */
+  public boolean isReplayingCheckpoint() {
+    return replayingCheckpoint;
+  }
+
   /**
    * Whether {@linkplain Record#getSource() record sources} should be retained in memory. When
    * sources are retained, KSBulk is able to print record sources in debug files, for easier error
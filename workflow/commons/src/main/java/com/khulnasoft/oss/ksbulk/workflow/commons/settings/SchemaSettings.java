@@ -43,13 +43,17 @@ import com.khulnasoft.oss.driver.api.core.cql.BatchType;
 import com.khulnasoft.oss.driver.api.core.cql.BoundStatement;
 import com.khulnasoft.oss.driver.api.core.cql.ColumnDefinitions;
 import com.khulnasoft.oss.driver.api.core.cql.PreparedStatement;
+import com.khulnasoft.oss.driver.api.core.cql.Row;
+import com.khulnasoft.oss.driver.api.core.metadata.EndPoint;
 import com.khulnasoft.oss.driver.api.core.metadata.Metadata;
+import com.khulnasoft.oss.driver.api.core.metadata.TokenMap;
 import com.khulnasoft.oss.driver.api.core.metadata.schema.ColumnMetadata;
 import com.khulnasoft.oss.driver.api.core.metadata.schema.IndexMetadata;
 import com.khulnasoft.oss.driver.api.core.metadata.schema.KeyspaceMetadata;
 import com.khulnasoft.oss.driver.api.core.metadata.schema.RelationMetadata;
 import com.khulnasoft.oss.driver.api.core.metadata.schema.TableMetadata;
 import com.khulnasoft.oss.driver.api.core.metadata.schema.ViewMetadata;
+import com.khulnasoft.oss.driver.api.core.metadata.token.Token;
 import com.khulnasoft.oss.driver.api.core.metadata.token.TokenRange;
 import com.khulnasoft.oss.driver.api.core.type.DataType;
 import com.khulnasoft.oss.driver.api.core.type.DataTypes;
@@ -71,6 +75,7 @@ import com.khulnasoft.oss.ksbulk.codecs.api.ConvertingCodecFactory;
 import com.khulnasoft.oss.ksbulk.config.ConfigUtils;
 import com.khulnasoft.oss.ksbulk.connectors.api.Field;
 import com.khulnasoft.oss.ksbulk.connectors.api.RecordMetadata;
+import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
 import com.khulnasoft.oss.ksbulk.mapping.CQLFragment;
 import com.khulnasoft.oss.ksbulk.mapping.CQLLiteral;
 import com.khulnasoft.oss.ksbulk.mapping.CQLRenderMode;
@@ -84,7 +89,10 @@ import com.khulnasoft.oss.ksbulk.mapping.MappingField;
 import com.khulnasoft.oss.ksbulk.mapping.MappingInspector;
 import com.khulnasoft.oss.ksbulk.mapping.MappingPreference;
 import com.khulnasoft.oss.ksbulk.mapping.TypedCQLLiteral;
+import com.khulnasoft.oss.ksbulk.partitioner.BulkTokenFactory;
+import com.khulnasoft.oss.ksbulk.partitioner.BulkTokenRange;
 import com.khulnasoft.oss.ksbulk.partitioner.TokenRangeReadStatementGenerator;
+import com.khulnasoft.oss.ksbulk.workflow.commons.log.RangeReadSplitter;
 import com.khulnasoft.oss.ksbulk.workflow.commons.schema.DefaultReadResultCounter;
 import com.khulnasoft.oss.ksbulk.workflow.commons.schema.DefaultReadResultMapper;
 import com.khulnasoft.oss.ksbulk.workflow.commons.schema.DefaultRecordMapper;
@@ -102,8 +110,10 @@ import com.typesafe.config.ConfigException;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -117,6 +127,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -148,6 +159,10 @@ public class SchemaSettings {
   private static final String CORE = "Core";
   private static final String SPLITS = "splits";
 
+  private static final String COUNT_SELECTOR = "count(*)";
+
+  private static final CQLWord TOKEN = CQLWord.fromInternal("token");
+
   private static final Predicate<FunctionCall> WRITETIME_OR_TTL =
       fc -> fc.getFunctionName().equals(WRITETIME) || fc.getFunctionName().equals(TTL);
 
@@ -172,6 +187,7 @@ public class SchemaSettings {
   private List<PreparedStatement> preparedStatements;
   private MappingPreference mappingPreference;
   private ConvertingCodecFactory codecFactory;
+  private BulkTokenFactory tokenFactory;
 
   public SchemaSettings(Config config, SchemaGenerationStrategy schemaGenerationStrategy) {
     this.config = config;
@@ -527,7 +543,7 @@ public class SchemaSettings {
     }
     Mapping mapping =
         prepareStatementAndCreateMapping(
-            session, batchingEnabled, EnumSet.noneOf(StatisticsMode.class));
+            session, batchingEnabled, EnumSet.noneOf(StatisticsMode.class), false);
     ProtocolVersion protocolVersion = session.getContext().getProtocolVersion();
     if (protocolVersion.getCode() < DefaultProtocolVersion.V4.getCode() && nullToUnset) {
       LOGGER.warn(
@@ -567,7 +583,8 @@ public class SchemaSettings {
     // we don't check that mapping records are supported when unloading, the only thing that matters
     // is the order in which fields appear in the record.
     Mapping mapping =
-        prepareStatementAndCreateMapping(session, false, EnumSet.noneOf(StatisticsMode.class));
+        prepareStatementAndCreateMapping(
+            session, false, EnumSet.noneOf(StatisticsMode.class), false);
     return new DefaultReadResultMapper(mapping, recordMetadata, retainRecordSources);
   }
 
@@ -575,13 +592,14 @@ public class SchemaSettings {
       CqlSession session,
       ConvertingCodecFactory codecFactory,
       EnumSet<StatsSettings.StatisticsMode> modes,
-      int numPartitions) {
+      int numPartitions,
+      boolean pushdown) {
     if (!schemaGenerationStrategy.isReading() || !schemaGenerationStrategy.isCounting()) {
       throw new IllegalStateException(
           "Cannot create read result counter when schema generation strategy is "
               + schemaGenerationStrategy);
     }
-    prepareStatementAndCreateMapping(session, false, modes);
+    prepareStatementAndCreateMapping(session, false, modes, pushdown);
     if (modes.contains(StatisticsMode.partitions) && table.getClusteringColumns().isEmpty()) {
       throw new IllegalArgumentException(
           String.format(
@@ -593,6 +611,7 @@ public class SchemaSettings {
         session.getMetadata(),
         modes,
         numPartitions,
+        pushdown,
         session.getContext().getProtocolVersion(),
         codecFactory);
   }
@@ -603,6 +622,12 @@ public class SchemaSettings {
     Metadata metadata = session.getMetadata();
     TokenRangeReadStatementGenerator generator =
         new TokenRangeReadStatementGenerator(table, metadata);
+    tokenFactory =
+        BulkTokenFactory.forPartitioner(
+            metadata
+                .getTokenMap()
+                .orElseThrow(() -> new IllegalStateException("Token metadata not present"))
+                .getPartitionerName());
     Map<TokenRange, BoundStatement> statements;
     if (variables.size() == 0) {
       statements = generator.generate(1, range -> preparedStatement.bind());
@@ -628,18 +653,7 @@ public class SchemaSettings {
                 + "the WHERE clause is only allowed to contain one token range restriction "
                 + "of the form: WHERE token(...) > ? AND token(...) <= ?");
       }
-      statements =
-          generator.generate(
-              splits,
-              range ->
-                  preparedStatement
-                      .bind()
-                      .setToken(
-                          queryInspector.getTokenRangeRestrictionStartVariableIndex(),
-                          range.getStart())
-                      .setToken(
-                          queryInspector.getTokenRangeRestrictionEndVariableIndex(),
-                          range.getEnd()));
+      statements = generator.generate(splits, range -> bindTokenRange(preparedStatement, range));
     }
 
     LOGGER.debug("Generated {} token range read statements", statements.size());
@@ -658,6 +672,213 @@ public class SchemaSettings {
     return statementsList;
   }
 
+  /**
+   * Splits the given read statement into statements reading sub-ranges of its token range.
+   *
+   * <p>The split is deterministic: splitting the same statement again yields the same sub-ranges.
+   *
+   * @param statement the statement to split.
+   * @param splits the desired number of sub-ranges.
+   * @param shareResource whether the returned statements should share the resource of the given
+   *     statement, or have their own resource, identifying their own sub-range.
+   * @return the statements for each sub-range, or an empty list if the statement cannot be split,
+   *     either because the query has no token range restriction, or because the range is too small.
+   */
+  @NonNull
+  public List<RangeReadBoundStatement> splitReadStatement(
+      @NonNull RangeReadBoundStatement statement, int splits, boolean shareResource) {
+    PreparedStatement preparedStatement = preparedStatements.get(0);
+    if (preparedStatement.getVariableDefinitions().size() == 0) {
+      return Collections.emptyList();
+    }
+    TokenRange range = statement.getTokenRange();
+    // prefer the token factory's splitter, which preserves the replicas of the range
+    List<? extends TokenRange> ranges =
+        range instanceof BulkTokenRange && tokenFactory != null
+            ? tokenFactory.splitter().split((BulkTokenRange) range, splits)
+            : range.splitEvenly(splits);
+    ranges =
+        ranges.stream()
+            .filter(subRange -> !subRange.isEmpty())
+            .distinct()
+            .collect(Collectors.toList());
+    if (ranges.size() < 2) {
+      return Collections.emptyList();
+    }
+    List<RangeReadBoundStatement> statementsList = new ArrayList<>(ranges.size());
+    for (TokenRange subRange : ranges) {
+      URI resource =
+          shareResource
+              ? statement.getResource()
+              : RangeReadStatement.rangeReadResource(keyspace.getName(), table.getName(), subRange);
+      statementsList.add(newReadStatement(subRange, resource));
+    }
+    return statementsList;
+  }
+
+  /**
+   * Returns a splitter for the read statements created by {@link
+   * #createReadStatements(CqlSession)}, which must be called first.
+   *
+   * <p>The splitter can only split ranges while they are being read if the rows read contain the
+   * entire partition key, or its token.
+   */
+  @NonNull
+  public RangeReadSplitter createReadSplitter(@NonNull CqlSession session) {
+    TokenMap tokenMap =
+        session
+            .getMetadata()
+            .getTokenMap()
+            .orElseThrow(() -> new IllegalStateException("Token metadata not present"));
+    Function<Row, Token> tokenExtractor = createTokenExtractor(tokenMap);
+    return new RangeReadSplitter() {
+
+      @NonNull
+      @Override
+      public List<RangeReadBoundStatement> split(@NonNull RangeReadBoundStatement statement) {
+        return splitReadStatement(statement, 2, false);
+      }
+
+      @NonNull
+      @Override
+      public List<RangeReadBoundStatement> splitAfter(
+          @NonNull RangeReadBoundStatement statement, @NonNull Token token) {
+        return splitReadStatementAfter(statement, token);
+      }
+
+      @Nullable
+      @Override
+      public Token token(@NonNull ReadResult result) {
+        return tokenExtractor == null ? null : result.getRow().map(tokenExtractor).orElse(null);
+      }
+
+      @Nullable
+      @Override
+      public TokenRange range(@NonNull URI resource) {
+        return parseRangeReadResource(resource);
+      }
+    };
+  }
+
+  @NonNull
+  private List<RangeReadBoundStatement> splitReadStatementAfter(
+      @NonNull RangeReadBoundStatement statement, @NonNull Token token) {
+    TokenRange range = statement.getTokenRange();
+    if (preparedStatements.get(0).getVariableDefinitions().size() == 0
+        || tokenFactory == null
+        || !(range instanceof BulkTokenRange)
+        || !range.contains(token)
+        || token.equals(range.getEnd())) {
+      return Collections.emptyList();
+    }
+    Set<EndPoint> replicas = ((BulkTokenRange) range).replicas();
+    BulkTokenRange head = tokenFactory.range(range.getStart(), token, replicas);
+    BulkTokenRange rest = tokenFactory.range(token, range.getEnd(), replicas);
+    return Arrays.asList(
+        newReadStatement(head, statement.getResource()),
+        newReadStatement(
+            rest, RangeReadStatement.rangeReadResource(keyspace.getName(), table.getName(), rest)));
+  }
+
+  /**
+   * Parses a resource created by {@link RangeReadStatement#rangeReadResource(CqlIdentifier,
+   * CqlIdentifier, TokenRange)}; returns null if the resource does not identify a token range of
+   * the table being read.
+   */
+  @Nullable
+  private TokenRange parseRangeReadResource(@NonNull URI resource) {
+    String query = resource.getQuery();
+    if (tokenFactory == null || query == null) {
+      return null;
+    }
+    Token start = null;
+    Token end = null;
+    try {
+      for (String param : query.split("&")) {
+        if (param.startsWith("start=")) {
+          start = tokenFactory.parse(param.substring("start=".length()));
+        } else if (param.startsWith("end=")) {
+          end = tokenFactory.parse(param.substring("end=".length()));
+        }
+      }
+    } catch (RuntimeException e) {
+      return null;
+    }
+    if (start == null || end == null) {
+      return null;
+    }
+    BulkTokenRange range = tokenFactory.range(start, end, Collections.emptySet());
+    URI expected = RangeReadStatement.rangeReadResource(keyspace.getName(), table.getName(), range);
+    return expected.equals(resource) ? range : null;
+  }
+
+  /**
+   * Returns a function computing the token of the partition that a row read by the read statement
+   * belongs to, or null if the rows do not contain the entire partition key, nor its token.
+   */
+  @Nullable
+  private Function<Row, Token> createTokenExtractor(@NonNull TokenMap tokenMap) {
+    ColumnDefinitions columns = preparedStatements.get(0).getResultSetDefinitions();
+    List<CQLFragment> selectors;
+    if (queryInspector.isSelectStar()) {
+      selectors =
+          StreamSupport.stream(columns.spliterator(), false)
+              .map(column -> CQLWord.fromCqlIdentifier(column.getName()))
+              .collect(Collectors.toList());
+    } else if (!queryInspector.hasUnsupportedSelectors()
+        && queryInspector.getResultSetVariables().size() == columns.size()) {
+      // selectors are in the same order as the columns of the result set
+      selectors = queryInspector.getResultSetVariables().keySet().asList();
+    } else {
+      return null;
+    }
+    List<CQLFragment> partitionKey =
+        table.getPartitionKey().stream()
+            .map(column -> CQLWord.fromCqlIdentifier(column.getName()))
+            .collect(Collectors.toList());
+    int tokenIndex = selectors.indexOf(new FunctionCall(null, TOKEN, partitionKey));
+    if (tokenIndex != -1) {
+      return row -> row.getToken(tokenIndex);
+    }
+    int[] indices = new int[partitionKey.size()];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = selectors.indexOf(partitionKey.get(i));
+      if (indices[i] == -1) {
+        return null;
+      }
+    }
+    return row -> {
+      ByteBuffer[] values = new ByteBuffer[indices.length];
+      for (int i = 0; i < indices.length; i++) {
+        values[i] = row.getBytesUnsafe(indices[i]);
+      }
+      return tokenMap.newToken(values);
+    };
+  }
+
+  @NonNull
+  private RangeReadBoundStatement newReadStatement(
+      @NonNull TokenRange range, @NonNull URI resource) {
+    BoundStatement bs =
+        bindTokenRange(preparedStatements.get(0), range).setRoutingToken(range.getEnd());
+    return new RangeReadBoundStatement(bs, range, resource);
+  }
+
+  @NonNull
+  private BoundStatement bindTokenRange(
+      @NonNull PreparedStatement preparedStatement, @NonNull TokenRange range) {
+    return preparedStatement
+        .bind()
+        .setToken(queryInspector.getTokenRangeRestrictionStartVariableIndex(), range.getStart())
+        .setToken(queryInspector.getTokenRangeRestrictionEndVariableIndex(), range.getEnd());
+  }
+
+  /** The name of the keyspace targeted by the operation. */
+  @NonNull
+  public CqlIdentifier getKeyspaceName() {
+    return keyspace.getName();
+  }
+
   @NonNull
   public RowType getRowType() {
     boolean isTable = table instanceof DseTableMetadata;
@@ -685,7 +906,10 @@ public class SchemaSettings {
 
   @NonNull
   private Mapping prepareStatementAndCreateMapping(
-      CqlSession session, boolean batchingEnabled, EnumSet<StatisticsMode> modes) {
+      CqlSession session,
+      boolean batchingEnabled,
+      EnumSet<StatisticsMode> modes,
+      boolean pushdown) {
     ImmutableMultimap<MappingField, CQLFragment> fieldsToVariables = null;
     if (!config.hasPath(QUERY)) {
       // in the absence of user-provided queries, create the mapping *before* query generation and
@@ -721,7 +945,7 @@ public class SchemaSettings {
       } else if (schemaGenerationStrategy.isReading() && schemaGenerationStrategy.isMapping()) {
         query = inferReadQuery(fieldsToVariables);
       } else if (schemaGenerationStrategy.isReading() && schemaGenerationStrategy.isCounting()) {
-        query = inferCountQuery(modes);
+        query = inferCountQuery(modes, pushdown);
       } else {
         throw new IllegalStateException(
             "Unsupported schema generation strategy: " + schemaGenerationStrategy);
@@ -748,6 +972,7 @@ public class SchemaSettings {
       }
       if (schemaGenerationStrategy.isCounting()) {
         if (modes.contains(StatisticsMode.partitions)
+            || modes.contains(StatisticsMode.approxPartitions)
             || modes.contains(StatisticsMode.ranges)
             || modes.contains(StatisticsMode.hosts)) {
           throw new IllegalArgumentException(
@@ -756,9 +981,9 @@ public class SchemaSettings {
                       + "only stats.modes = [global] is allowed",
                   modes));
         }
-        // reduce row size by only selecting one column
+        // reduce row size by only selecting one column, or let the server count rows
         StringBuilder sb = new StringBuilder("SELECT ");
-        sb.append(getGlobalCountSelector());
+        sb.append(pushdown ? COUNT_SELECTOR : getGlobalCountSelector());
         query =
             sb.append(' ')
                 .append(query.substring(queryInspector.getFromClauseStartIndex()))
@@ -1580,13 +1805,18 @@ public class SchemaSettings {
     sb.append(":end");
   }
 
-  private String inferCountQuery(EnumSet<StatisticsMode> modes) {
+  private String inferCountQuery(EnumSet<StatisticsMode> modes, boolean pushdown) {
     StringBuilder sb = new StringBuilder("SELECT ");
     List<ColumnMetadata> partitionKey = table.getPartitionKey();
-    if (modes.contains(StatisticsMode.ranges)
+    if (pushdown) {
+      // the server counts the rows in each token range, only one row per range is returned
+      sb.append(COUNT_SELECTOR);
+    } else if (modes.contains(StatisticsMode.ranges)
         || modes.contains(StatisticsMode.hosts)
-        || modes.contains(StatisticsMode.partitions)) {
-      if (modes.contains(StatisticsMode.partitions)) {
+        || modes.contains(StatisticsMode.partitions)
+        || modes.contains(StatisticsMode.approxPartitions)) {
+      if (modes.contains(StatisticsMode.partitions)
+          || modes.contains(StatisticsMode.approxPartitions)) {
         // we need to select the entire partition key, column by column
         Iterator<ColumnMetadata> it = partitionKey.iterator();
         while (it.hasNext()) {
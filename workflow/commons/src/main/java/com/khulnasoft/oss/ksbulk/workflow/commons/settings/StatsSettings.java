@@ -27,16 +27,19 @@ public class StatsSettings {
     global,
     ranges,
     hosts,
-    partitions
+    partitions,
+    approxPartitions
   }
 
   private static final String MODES = "modes";
   private static final String NUM_PARTITIONS = "numPartitions";
+  private static final String PUSHDOWN = "pushdown";
 
   private final Config config;
 
   private List<StatisticsMode> statisticsModes;
   private int numPartitions;
+  private boolean pushdown;
 
   public StatsSettings(Config config) {
     this.config = config;
@@ -46,6 +49,14 @@ public class StatsSettings {
     try {
       statisticsModes = config.getEnumList(StatisticsMode.class, MODES);
       numPartitions = config.getInt(NUM_PARTITIONS);
+      pushdown = config.getBoolean(PUSHDOWN);
+      if (pushdown && statisticsModes.stream().anyMatch(mode -> mode != StatisticsMode.global)) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Cannot count with stats.modes = %s when stats.pushdown is true; "
+                    + "only stats.modes = [global] is allowed",
+                statisticsModes));
+      }
     } catch (ConfigException e) {
       throw ConfigUtils.convertConfigException(e, "ksbulk.stats");
     }
@@ -58,4 +69,8 @@ public class StatsSettings {
   public int getNumPartitions() {
     return numPartitions;
   }
+
+  public boolean isPushdown() {
+    return pushdown;
+  }
 }
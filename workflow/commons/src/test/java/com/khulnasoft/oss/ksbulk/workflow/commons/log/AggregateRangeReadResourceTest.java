@@ -0,0 +1,174 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.log;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.khulnasoft.oss.driver.api.core.DriverTimeoutException;
+import com.khulnasoft.oss.driver.api.core.cql.BoundStatement;
+import com.khulnasoft.oss.driver.api.core.cql.ExecutionInfo;
+import com.khulnasoft.oss.driver.api.core.cql.Row;
+import com.khulnasoft.oss.driver.api.core.servererrors.SyntaxError;
+import com.khulnasoft.oss.driver.internal.core.metadata.token.Murmur3Token;
+import com.khulnasoft.oss.driver.internal.core.metadata.token.Murmur3TokenRange;
+import com.khulnasoft.oss.ksbulk.executor.api.exception.BulkExecutionException;
+import com.khulnasoft.oss.ksbulk.executor.api.reader.BulkReader;
+import com.khulnasoft.oss.ksbulk.executor.api.result.DefaultReadResult;
+import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
+import com.khulnasoft.oss.ksbulk.workflow.commons.statement.RangeReadBoundStatement;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+class AggregateRangeReadResourceTest {
+
+  private final URI uri = URI.create("cql://ks/t1?start=0&end=400");
+
+  private final RangeReadBoundStatement statement = newStatement(0, 400);
+  private final RangeReadBoundStatement sub1 = newStatement(0, 100);
+  private final RangeReadBoundStatement sub2 = newStatement(100, 200);
+  private final RangeReadBoundStatement sub3 = newStatement(200, 300);
+  private final RangeReadBoundStatement sub4 = newStatement(300, 400);
+  private final RangeReadBoundStatement sub2a = newStatement(100, 150);
+  private final RangeReadBoundStatement sub2b = newStatement(150, 200);
+
+  private final BulkReader executor = mock(BulkReader.class);
+
+  @SuppressWarnings("unchecked")
+  private final BiFunction<RangeReadBoundStatement, Integer, List<RangeReadBoundStatement>>
+      splitter = mock(BiFunction.class);
+
+  @Test
+  void should_read_range_without_splitting() {
+    ReadResult result = success(statement, 1);
+    when(executor.readReactive(statement)).thenReturn(Flux.just(result));
+    AggregateRangeReadResource resource =
+        new AggregateRangeReadResource(statement, executor, splitter);
+    assertThat(resource.getURI()).isEqualTo(uri);
+    assertThat(Flux.from(resource.read()).collectList().block()).containsExactly(result);
+    verify(splitter, never()).apply(any(), anyInt());
+  }
+
+  @Test
+  void should_split_range_when_read_times_out() {
+    when(executor.readReactive(statement)).thenReturn(Flux.just(timeout(statement)));
+    when(splitter.apply(statement, 4)).thenReturn(Arrays.asList(sub1, sub2, sub3, sub4));
+    when(executor.readReactive(sub1)).thenReturn(Flux.just(success(sub1, 1)));
+    // sub-range 2 times out again and needs to be split further
+    when(executor.readReactive(sub2)).thenReturn(Flux.just(timeout(sub2)));
+    when(splitter.apply(sub2, 4)).thenReturn(Arrays.asList(sub2a, sub2b));
+    when(executor.readReactive(sub2a)).thenReturn(Flux.just(success(sub2a, 1)));
+    when(executor.readReactive(sub2b)).thenReturn(Flux.just(success(sub2b, 1)));
+    when(executor.readReactive(sub3)).thenReturn(Flux.just(success(sub3, 1)));
+    when(executor.readReactive(sub4)).thenReturn(Flux.just(success(sub4, 1)));
+    AggregateRangeReadResource resource =
+        new AggregateRangeReadResource(statement, executor, splitter);
+    List<ReadResult> results = Flux.from(resource.read()).collectList().block();
+    assertThat(results)
+        .extracting(ReadResult::getStatement)
+        .containsExactly(sub1, sub2a, sub2b, sub3, sub4);
+    assertThat(results).extracting(ReadResult::getPosition).containsExactly(1L, 2L, 3L, 4L, 5L);
+    assertThat(results).allMatch(ReadResult::isSuccess);
+  }
+
+  @Test
+  void should_number_failures_and_successes_alike_after_split() {
+    when(executor.readReactive(statement)).thenReturn(Flux.just(timeout(statement)));
+    when(splitter.apply(statement, 4)).thenReturn(Arrays.asList(sub1, sub2, sub3, sub4));
+    when(executor.readReactive(sub1)).thenReturn(Flux.just(success(sub1, 1)));
+    when(executor.readReactive(sub2)).thenReturn(Flux.just(syntaxError(sub2)));
+    when(executor.readReactive(sub3)).thenReturn(Flux.just(success(sub3, 1)));
+    when(executor.readReactive(sub4)).thenReturn(Flux.just(syntaxError(sub4)));
+    AggregateRangeReadResource resource =
+        new AggregateRangeReadResource(statement, executor, splitter);
+    List<ReadResult> results = Flux.from(resource.read()).collectList().block();
+    assertThat(results)
+        .extracting(ReadResult::getStatement)
+        .containsExactly(sub1, sub2, sub3, sub4);
+    assertThat(results).extracting(ReadResult::getPosition).containsExactly(1L, 2L, 3L, 4L);
+    assertThat(results).extracting(ReadResult::isSuccess).containsExactly(true, false, true, false);
+  }
+
+  @Test
+  void should_emit_failure_when_range_cannot_be_split() {
+    ReadResult failure = timeout(statement);
+    when(executor.readReactive(statement)).thenReturn(Flux.just(failure));
+    when(splitter.apply(statement, 4)).thenReturn(Collections.emptyList());
+    AggregateRangeReadResource resource =
+        new AggregateRangeReadResource(statement, executor, splitter);
+    List<ReadResult> results = Flux.from(resource.read()).collectList().block();
+    assertThat(results).containsExactly(failure);
+    assertThat(results.get(0).getPosition()).isEqualTo(1L);
+  }
+
+  @Test
+  void should_not_split_range_when_read_fails_for_other_reasons() {
+    ReadResult failure = syntaxError(statement);
+    when(executor.readReactive(statement)).thenReturn(Flux.just(failure));
+    AggregateRangeReadResource resource =
+        new AggregateRangeReadResource(statement, executor, splitter);
+    assertThat(Flux.from(resource.read()).collectList().block()).containsExactly(failure);
+    verify(splitter, never()).apply(any(), anyInt());
+  }
+
+  @Test
+  void should_stop_splitting_after_max_depth() {
+    // every sub-range times out: the range is split 4 times, then failures are emitted
+    when(executor.readReactive(any(RangeReadBoundStatement.class)))
+        .thenAnswer(
+            invocation ->
+                Flux.just(timeout(invocation.getArgument(0, RangeReadBoundStatement.class))));
+    when(splitter.apply(any(), anyInt()))
+        .thenAnswer(invocation -> Collections.singletonList(newStatement(0, 100)));
+    AggregateRangeReadResource resource =
+        new AggregateRangeReadResource(statement, executor, splitter);
+    List<ReadResult> results = Flux.from(resource.read()).collectList().block();
+    assertThat(results).hasSize(1).noneMatch(ReadResult::isSuccess);
+    verify(splitter, times(4)).apply(any(), anyInt());
+  }
+
+  private RangeReadBoundStatement newStatement(long start, long end) {
+    return new RangeReadBoundStatement(
+        mock(BoundStatement.class),
+        new Murmur3TokenRange(new Murmur3Token(start), new Murmur3Token(end)),
+        uri);
+  }
+
+  private static ReadResult success(RangeReadBoundStatement statement, long position) {
+    return new DefaultReadResult(statement, mock(ExecutionInfo.class), mock(Row.class), position);
+  }
+
+  private static ReadResult syntaxError(RangeReadBoundStatement statement) {
+    return new DefaultReadResult(
+        new BulkExecutionException(new SyntaxError(null, "Invalid query"), statement));
+  }
+
+  private static ReadResult timeout(RangeReadBoundStatement statement) {
+    return new DefaultReadResult(
+        new BulkExecutionException(new DriverTimeoutException("Query timed out"), statement));
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.log;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.khulnasoft.oss.ksbulk.tests.utils.FileUtils;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncLogWriterTest {
+
+  private Path dir;
+  private Path file1;
+  private Path file2;
+
+  @BeforeEach
+  void createDirectory() throws IOException {
+    dir = Files.createTempDirectory("logs");
+    file1 = dir.resolve("file1.log");
+    file2 = dir.resolve("file2.log");
+  }
+
+  @AfterEach
+  void deleteDirectory() {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  void should_write_all_entries_when_closed() throws IOException {
+    List<String> expected = new ArrayList<>();
+    try (AsyncLogWriter writer = new AsyncLogWriter(16, 1000, Duration.ofDays(1))) {
+      for (int i = 0; i < 100; i++) {
+        String line = "line " + i;
+        writer.append(i % 2 == 0 ? file1 : file2, pw -> pw.println(line));
+        if (i % 2 == 0) {
+          expected.add(line);
+        }
+      }
+      assertThat(writer.getFiles()).containsOnly(file1, file2);
+    }
+    assertThat(Files.readAllLines(file1, UTF_8)).containsExactlyElementsOf(expected);
+    assertThat(Files.readAllLines(file2, UTF_8)).hasSize(50);
+  }
+
+  @Test
+  void should_flush_when_batch_is_full() throws IOException {
+    try (AsyncLogWriter writer = new AsyncLogWriter(16, 2, Duration.ofDays(1))) {
+      writer.append(file1, pw -> pw.println("line 1"));
+      writer.append(file1, pw -> pw.println("line 2"));
+      await()
+          .atMost(5, TimeUnit.SECONDS)
+          .until(() -> Files.exists(file1) && Files.readAllLines(file1, UTF_8).size() == 2);
+    }
+  }
+
+  @Test
+  void should_flush_when_interval_elapsed() throws IOException {
+    try (AsyncLogWriter writer = new AsyncLogWriter(16, 1000, Duration.ofMillis(10))) {
+      writer.append(file1, pw -> pw.println("line 1"));
+      await()
+          .atMost(5, TimeUnit.SECONDS)
+          .until(() -> Files.exists(file1) && Files.readAllLines(file1, UTF_8).size() == 1);
+    }
+  }
+
+  @Test
+  void should_fail_when_file_cannot_be_written() throws IOException {
+    Files.createFile(file1);
+    AsyncLogWriter writer = new AsyncLogWriter(16, 1000, Duration.ofDays(1));
+    writer.append(file1, pw -> pw.println("line 1"));
+    assertThatThrownBy(writer::close)
+        .isInstanceOf(IOException.class)
+        .hasMessage("Could not write to log files")
+        .hasRootCauseInstanceOf(FileAlreadyExistsException.class);
+  }
+
+  @Test
+  void should_fail_when_formatter_fails() throws IOException {
+    AsyncLogWriter writer = new AsyncLogWriter(16, 1000, Duration.ofDays(1));
+    writer.append(
+        file1,
+        pw -> {
+          throw new IllegalArgumentException("boom");
+        });
+    await()
+        .atMost(5, TimeUnit.SECONDS)
+        .untilAsserted(
+            () ->
+                assertThatThrownBy(() -> writer.append(file1, pw -> pw.println("line 1")))
+                    .isInstanceOf(IOException.class)
+                    .hasRootCauseMessage("boom"));
+    assertThatThrownBy(writer::close).isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void should_reject_appends_when_closed() throws IOException {
+    AsyncLogWriter writer = new AsyncLogWriter(16, 1000, Duration.ofDays(1));
+    writer.close();
+    assertThatThrownBy(() -> writer.append(file1, pw -> pw.println("line 1")))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Log writer is closed");
+  }
+
+  @Test
+  void should_write_or_reject_appends_racing_with_close() throws Exception {
+    AsyncLogWriter writer = new AsyncLogWriter(4, 1000, Duration.ofDays(1));
+    AtomicInteger accepted = new AtomicInteger();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  while (true) {
+                    writer.append(file1, pw -> pw.println("line"));
+                    accepted.incrementAndGet();
+                  }
+                } catch (IllegalStateException | IOException ignored) {
+                  // closed
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    await().atMost(5, TimeUnit.SECONDS).until(() -> accepted.get() >= 1000);
+    writer.close();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(Files.readAllLines(file1, UTF_8)).hasSize(accepted.get());
+  }
+}
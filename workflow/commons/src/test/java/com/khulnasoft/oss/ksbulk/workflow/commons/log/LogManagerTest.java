@@ -49,6 +49,7 @@ import com.khulnasoft.oss.ksbulk.connectors.api.DefaultRecord;
 import com.khulnasoft.oss.ksbulk.connectors.api.DefaultResource;
 import com.khulnasoft.oss.ksbulk.connectors.api.Record;
 import com.khulnasoft.oss.ksbulk.connectors.api.Resource;
+import com.khulnasoft.oss.ksbulk.connectors.api.SeekableResource;
 import com.khulnasoft.oss.ksbulk.executor.api.exception.BulkExecutionException;
 import com.khulnasoft.oss.ksbulk.executor.api.result.DefaultReadResult;
 import com.khulnasoft.oss.ksbulk.executor.api.result.DefaultWriteResult;
@@ -68,6 +69,7 @@ import com.khulnasoft.oss.ksbulk.workflow.api.error.ErrorThreshold;
 import com.khulnasoft.oss.ksbulk.workflow.api.error.RatioErrorThreshold;
 import com.khulnasoft.oss.ksbulk.workflow.api.error.TooManyErrorsException;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.Checkpoint;
+import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.CheckpointJournal;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.CheckpointManager;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.Range;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.ReplayStrategy;
@@ -76,10 +78,16 @@ import com.khulnasoft.oss.ksbulk.workflow.commons.statement.MappedBoundStatement
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.RangeReadBoundStatement;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.RangeReadStatement;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.UnmappableStatement;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.assertj.core.api.Assertions;
@@ -89,6 +97,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 
 @ExtendWith(LogInterceptingExtension.class)
@@ -1518,6 +1527,153 @@ class LogManagerTest {
         .containsOnly(checkpointFile);
   }
 
+  @Test
+  void should_journal_checkpoints_when_loading() throws Exception {
+    Path outputDir = Files.createTempDirectory("test");
+    LogManager logManager =
+        new LogManager(
+            session,
+            outputDir,
+            ErrorThreshold.forAbsoluteValue(3),
+            ErrorThreshold.forAbsoluteValue(0),
+            statementFormatter,
+            EXTENDED,
+            rowFormatter,
+            true,
+            Duration.ofDays(1),
+            new CheckpointManager(),
+            resume);
+    logManager.init();
+    Path journal = logManager.getOperationDirectory().resolve("checkpoint.journal");
+    assertThat(journal).exists();
+
+    Record record1_1 = DefaultRecord.indexed("line1", resource1, 1, "line1");
+    Record record1_2 = DefaultRecord.indexed("line2", resource1, 2, "line2");
+    Record record2_1 = DefaultRecord.indexed("line1", resource2, 1, "line1");
+    Record record2_2 = DefaultRecord.indexed("line2", resource2, 2, "line2");
+
+    Resource res1 = new DefaultResource(resource1, Flux.just(record1_1, record1_2));
+    Resource res2 = new DefaultResource(resource2, Flux.just(record2_1, record2_2));
+
+    MappedBoundStatement stmt1_1 = mockMappedBoundStatement(1, "line1", resource1);
+    MappedBoundStatement stmt1_2 = mockMappedBoundStatement(2, "line2", resource1);
+    MappedBoundStatement stmt2_1 = mockMappedBoundStatement(1, "line1", resource2);
+
+    MockAsyncResultSet rs = new MockAsyncResultSet(0, null, null);
+
+    Flux.just(res1, res2)
+        .transform(logManager.newConnectorCheckpointHandler())
+        .concatMap(r -> r)
+        // Emulate an unfinished resource
+        .filter(r -> !r.equals(record2_2))
+        .<BatchableStatement<?>>map(
+            record -> {
+              if (record.equals(record1_1)) {
+                return stmt1_1;
+              } else if (record.equals(record1_2)) {
+                return stmt1_2;
+              } else if (record.equals(record2_1)) {
+                return stmt2_1;
+              }
+              throw new AssertionError();
+            })
+        .<WriteResult>map(stmt -> new DefaultWriteResult(stmt, rs))
+        .transform(logManager.newSuccessfulWritesHandler())
+        .blockLast();
+
+    // Emulate a crash: the checkpoint file is not written, but the journal can be replayed
+    Map<URI, Checkpoint> journaled = getCheckpoints(CheckpointJournal.replay(journal));
+    Map<URI, Checkpoint> merged = getCheckpoints(logManager.mergeCheckpointManagers());
+    assertThat(journaled).isEqualTo(merged).containsOnlyKeys(resource1, resource2);
+    assertThat(resume.isComplete(journaled.get(resource1))).isTrue();
+    assertThat(resume.isComplete(journaled.get(resource2))).isFalse();
+
+    // Upon normal termination, the journal is replaced by the checkpoint file
+    logManager.close();
+    logManager.reportAvailableFiles();
+    assertThat(journal).doesNotExist();
+    assertThat(logManager.getOperationDirectory().resolve("checkpoint.csv")).exists();
+  }
+
+  @Test
+  void should_resume_seekable_resource_from_sync_point() throws Exception {
+    // records 1 to 5 were consumed, sync points were found before records 2, 4 and 7
+    Checkpoint initial = new Checkpoint();
+    for (long position = 1; position <= 5; position++) {
+      initial.updateConsumed(position, true);
+    }
+    initial.addSyncPoint(2, 20);
+    initial.addSyncPoint(4, 40);
+    initial.addSyncPoint(7, 70);
+    Path outputDir = Files.createTempDirectory("test");
+    LogManager logManager =
+        new LogManager(
+            session,
+            outputDir,
+            ErrorThreshold.forAbsoluteValue(3),
+            ErrorThreshold.forAbsoluteValue(0),
+            statementFormatter,
+            EXTENDED,
+            rowFormatter,
+            true,
+            Duration.ofDays(1),
+            new CheckpointManager(new HashMap<>(Collections.singletonMap(resource1, initial))),
+            resume);
+    logManager.init();
+    Path journal = logManager.getOperationDirectory().resolve("checkpoint.journal");
+
+    List<Long> seeks = new ArrayList<>();
+    SeekableResource res1 =
+        new SeekableResource() {
+
+          @NonNull
+          @Override
+          public URI getURI() {
+            return resource1;
+          }
+
+          @NonNull
+          @Override
+          public Publisher<Record> read() {
+            return Flux.error(new AssertionError("resource should have been read with seeking"));
+          }
+
+          @NonNull
+          @Override
+          public Publisher<Record> read(@NonNull SyncPointListener listener) {
+            return read();
+          }
+
+          @NonNull
+          @Override
+          public Publisher<Record> read(
+              long position, long offset, @Nullable SyncPointListener listener) {
+            seeks.add(position);
+            seeks.add(offset);
+            assertThat(listener).isNotNull();
+            listener.onSyncPoint(9, 90);
+            return Flux.range((int) position, 10 - (int) position)
+                .map(i -> DefaultRecord.indexed("line" + i, resource1, i, "line" + i));
+          }
+        };
+
+    List<Record> records =
+        Flux.<Resource>just(res1)
+            .transform(logManager.newConnectorCheckpointHandler())
+            .concatMap(r -> r)
+            .collectList()
+            .block();
+
+    // the resource is read from the last sync point before record 6: records 4 and 5 are read
+    // again, but skipped
+    assertThat(seeks).containsExactly(4L, 40L);
+    assertThat(records).extracting(Record::getPosition).containsExactly(6L, 7L, 8L, 9L);
+    assertThat(initial.getSyncPoints()).containsEntry(9L, 90L);
+    logManager.close();
+    Map<URI, Checkpoint> journaled = getCheckpoints(CheckpointJournal.replay(journal));
+    assertThat(journaled.get(resource1).getSyncPoints()).containsEntry(9L, 90L);
+  }
+
   @ParameterizedTest
   @EnumSource(ReplayStrategy.class)
   void should_resume_operation_when_unloading(ReplayStrategy strategy) throws Exception {
@@ -0,0 +1,533 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.log;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.khulnasoft.oss.driver.api.core.CqlIdentifier;
+import com.khulnasoft.oss.driver.api.core.cql.BoundStatement;
+import com.khulnasoft.oss.driver.api.core.cql.Row;
+import com.khulnasoft.oss.driver.api.core.metadata.EndPoint;
+import com.khulnasoft.oss.driver.api.core.metadata.token.Token;
+import com.khulnasoft.oss.driver.api.core.metadata.token.TokenRange;
+import com.khulnasoft.oss.driver.internal.core.metadata.DefaultEndPoint;
+import com.khulnasoft.oss.driver.internal.core.metadata.token.Murmur3Token;
+import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
+import com.khulnasoft.oss.ksbulk.partitioner.BulkTokenRange;
+import com.khulnasoft.oss.ksbulk.partitioner.murmur3.Murmur3BulkTokenFactory;
+import com.khulnasoft.oss.ksbulk.workflow.commons.statement.RangeReadBoundStatement;
+import com.khulnasoft.oss.ksbulk.workflow.commons.statement.RangeReadStatement;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+class RangeReadSchedulerTest {
+
+  private static final Murmur3BulkTokenFactory TOKEN_FACTORY = new Murmur3BulkTokenFactory();
+
+  /** Also splits ranges after a token, and reads the token of a row from its first column. */
+  private static final RangeReadSplitter SPLITTER =
+      new RangeReadSplitter() {
+
+        @Override
+        public List<RangeReadBoundStatement> split(RangeReadBoundStatement statement) {
+          return RangeReadSchedulerTest.split(statement);
+        }
+
+        @Override
+        public List<RangeReadBoundStatement> splitAfter(
+            RangeReadBoundStatement statement, Token token) {
+          BulkTokenRange range = (BulkTokenRange) statement.getTokenRange();
+          BulkTokenRange head = TOKEN_FACTORY.range(range.getStart(), token, range.replicas());
+          BulkTokenRange rest = TOKEN_FACTORY.range(token, range.getEnd(), range.replicas());
+          return Arrays.asList(
+              new RangeReadBoundStatement(
+                  mock(BoundStatement.class), head, statement.getResource()),
+              newStatement(rest));
+        }
+
+        @Override
+        public Token token(ReadResult result) {
+          return result.getRow().map(row -> row.getToken(0)).orElse(null);
+        }
+
+        @Override
+        public TokenRange range(URI resource) {
+          // cql://ks/t1?start=<start>&end=<end>
+          String[] params = resource.getQuery().split("&");
+          return RangeReadSchedulerTest.range(
+              Long.parseLong(params[0].substring("start=".length())),
+              Long.parseLong(params[1].substring("end=".length())));
+        }
+      };
+
+  private final EndPoint node1 = new DefaultEndPoint(new InetSocketAddress("127.0.0.1", 9042));
+  private final EndPoint node2 = new DefaultEndPoint(new InetSocketAddress("127.0.0.2", 9042));
+
+  private final Set<EndPoint> replicas1 = Collections.singleton(node1);
+  private final Set<EndPoint> replicas2 = Collections.singleton(node2);
+
+  @Test
+  void should_hand_out_reads_round_robin_across_replica_sets() {
+    RangeReadBoundStatement stmt1 = newStatement(0, 100, replicas1);
+    RangeReadBoundStatement stmt2 = newStatement(100, 200, replicas1);
+    RangeReadBoundStatement stmt3 = newStatement(200, 300, replicas2);
+    RangeReadBoundStatement stmt4 = newStatement(300, 400, replicas2);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Arrays.asList(stmt1, stmt2, stmt3, stmt4),
+            RangeReadSchedulerTest::split,
+            1,
+            -1,
+            Duration.ZERO,
+            Collections.emptySet());
+    assertThat(schedule(scheduler)).containsExactly(stmt1, stmt3, stmt2, stmt4);
+  }
+
+  @Test
+  void should_split_largest_pending_ranges_at_the_tail() {
+    RangeReadBoundStatement large = newStatement(0, 1000, replicas1);
+    RangeReadBoundStatement small = newStatement(1000, 1100, replicas2);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Arrays.asList(large, small),
+            RangeReadSchedulerTest::split,
+            3,
+            -1,
+            Duration.ZERO,
+            Collections.emptySet());
+    List<RangeReadBoundStatement> statements = schedule(scheduler, 2);
+    assertThat(ranges(statements)).containsExactly(range(0, 500), range(1000, 1100));
+    assertThat(statements.get(0).getResource()).isEqualTo(resource(range(0, 500)));
+    assertThat(statements.get(1)).isSameAs(small);
+  }
+
+  @Test
+  void should_cover_all_ranges_exactly_once() {
+    RangeReadBoundStatement large = newStatement(0, 1000, replicas1);
+    RangeReadBoundStatement small = newStatement(1000, 1100, replicas2);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Arrays.asList(large, small),
+            RangeReadSchedulerTest::split,
+            3,
+            -1,
+            Duration.ZERO,
+            Collections.emptySet());
+    List<TokenRange> ranges = ranges(schedule(scheduler, Long.MAX_VALUE));
+    ranges.sort(Comparator.comparing(TokenRange::getStart));
+    assertThat(ranges.get(0).getStart()).isEqualTo(new Murmur3Token(0));
+    assertThat(ranges.get(ranges.size() - 1).getEnd()).isEqualTo(new Murmur3Token(1100));
+    for (int i = 1; i < ranges.size(); i++) {
+      assertThat(ranges.get(i).getStart()).isEqualTo(ranges.get(i - 1).getEnd());
+    }
+  }
+
+  @Test
+  void should_not_split_ranges_more_than_four_times() {
+    RangeReadBoundStatement stmt = newStatement(0, 1600, replicas1);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Collections.singletonList(stmt),
+            RangeReadSchedulerTest::split,
+            100,
+            -1,
+            Duration.ZERO,
+            Collections.emptySet());
+    List<RangeReadBoundStatement> statements = schedule(scheduler);
+    assertThat(statements).hasSize(16);
+    assertThat(ranges(statements))
+        .allMatch(range -> ((BulkTokenRange) range).size().intValue() == 100);
+  }
+
+  @Test
+  void should_resolve_sub_ranges_of_replayed_checkpoint() {
+    RangeReadBoundStatement stmt = newStatement(0, 1000, replicas1);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Collections.singletonList(stmt),
+            RangeReadSchedulerTest::split,
+            1,
+            -1,
+            Duration.ZERO,
+            Collections.singleton(resource(range(500, 750))));
+    assertThat(ranges(schedule(scheduler)))
+        .containsExactlyInAnyOrder(range(0, 500), range(500, 750), range(750, 1000));
+  }
+
+  @Test
+  void should_not_split_replayed_ranges() {
+    RangeReadBoundStatement stmt = newStatement(0, 1000, replicas1);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Collections.singletonList(stmt),
+            RangeReadSchedulerTest::split,
+            4,
+            -1,
+            Duration.ZERO,
+            Collections.singleton(stmt.getResource()));
+    assertThat(schedule(scheduler)).containsExactly(stmt);
+  }
+
+  @Test
+  void should_pick_least_loaded_replica_set() {
+    RangeReadBoundStatement a1 = newStatement(0, 100, replicas1);
+    RangeReadBoundStatement a2 = newStatement(100, 200, replicas1);
+    RangeReadBoundStatement b1 = newStatement(200, 300, replicas2);
+    RangeReadBoundStatement b2 = newStatement(300, 400, replicas2);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Arrays.asList(a1, a2, b1, b2),
+            statement -> Collections.emptyList(),
+            4,
+            -1,
+            Duration.ZERO,
+            Collections.emptySet());
+    Sinks.Empty<ReadResult> a1Read = Sinks.empty();
+    List<RangeReadBoundStatement> statements = new ArrayList<>();
+    scheduler
+        .schedule(
+            statement -> {
+              statements.add(statement);
+              return newResource(statement, statement == a1 ? a1Read.asMono() : Flux.empty());
+            })
+        .flatMap(RangeReadResource::read)
+        .subscribe();
+    // a1 is still in flight, so b2 is picked before a2
+    assertThat(statements).containsExactly(a1, b1, b2, a2);
+    assertThat(scheduler.getNodes()).containsExactlyInAnyOrder(node1, node2);
+    assertThat(scheduler.getInFlightReads(node1)).isOne();
+    assertThat(scheduler.getInFlightReads(node2)).isZero();
+    a1Read.tryEmitEmpty();
+    assertThat(scheduler.getInFlightReads(node1)).isZero();
+  }
+
+  @Test
+  void should_wait_when_replica_set_reached_its_limit() {
+    RangeReadBoundStatement a1 = newStatement(0, 100, replicas1);
+    RangeReadBoundStatement a2 = newStatement(100, 200, replicas1);
+    RangeReadBoundStatement b1 = newStatement(200, 300, replicas2);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Arrays.asList(a1, a2, b1),
+            statement -> Collections.emptyList(),
+            4,
+            1,
+            Duration.ZERO,
+            Collections.emptySet());
+    Sinks.Empty<ReadResult> a1Read = Sinks.empty();
+    List<RangeReadBoundStatement> statements = new ArrayList<>();
+    AtomicBoolean completed = new AtomicBoolean();
+    scheduler
+        .schedule(
+            statement -> {
+              statements.add(statement);
+              return newResource(statement, statement == a1 ? a1Read.asMono() : Flux.empty());
+            })
+        .flatMap(RangeReadResource::read)
+        .doOnComplete(() -> completed.set(true))
+        .subscribe();
+    assertThat(statements).containsExactly(a1, b1);
+    assertThat(completed).isFalse();
+    a1Read.tryEmitEmpty();
+    assertThat(statements).containsExactly(a1, b1, a2);
+    assertThat(completed).isTrue();
+  }
+
+  @Test
+  void should_count_reads_against_limit_when_handed_out() {
+    List<RangeReadBoundStatement> all = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      all.add(newStatement(i * 100, (i + 1) * 100, replicas1));
+    }
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            all,
+            statement -> Collections.emptyList(),
+            10,
+            2,
+            Duration.ZERO,
+            Collections.emptySet());
+    List<RangeReadBoundStatement> statements = new ArrayList<>();
+    List<RangeReadResource> resources = new ArrayList<>();
+    // request all reads at once, but do not subscribe to them yet
+    scheduler
+        .schedule(
+            statement -> {
+              statements.add(statement);
+              return newResource(statement, Flux.empty());
+            })
+        .subscribe(resources::add);
+    assertThat(statements).hasSize(2);
+    assertThat(scheduler.getInFlightReads(node1)).isEqualTo(2);
+    Flux.from(resources.get(0).read()).blockLast();
+    assertThat(statements).hasSize(3);
+    assertThat(scheduler.getInFlightReads(node1)).isEqualTo(2);
+    resources.get(1).discard();
+    assertThat(statements).hasSize(4);
+    assertThat(scheduler.getInFlightReads(node1)).isEqualTo(2);
+  }
+
+  @Test
+  void should_release_permit_when_read_cancelled() {
+    RangeReadBoundStatement a1 = newStatement(0, 100, replicas1);
+    RangeReadBoundStatement a2 = newStatement(100, 200, replicas1);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Arrays.asList(a1, a2),
+            statement -> Collections.emptyList(),
+            2,
+            1,
+            Duration.ZERO,
+            Collections.emptySet());
+    List<RangeReadBoundStatement> statements = new ArrayList<>();
+    List<RangeReadResource> resources = new ArrayList<>();
+    scheduler
+        .schedule(
+            statement -> {
+              statements.add(statement);
+              return newResource(statement, Flux.never());
+            })
+        .subscribe(resources::add);
+    assertThat(statements).containsExactly(a1);
+    Flux.from(resources.get(0).read()).subscribe().dispose();
+    assertThat(statements).containsExactly(a1, a2);
+    assertThat(scheduler.getInFlightReads(node1)).isOne();
+  }
+
+  @Test
+  void should_split_straggling_read_after_last_partition_read() throws InterruptedException {
+    RangeReadBoundStatement slow = newStatement(0, 1000, replicas1);
+    RangeReadBoundStatement fast = newStatement(1000, 1100, replicas2);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Arrays.asList(slow, fast),
+            SPLITTER,
+            2,
+            -1,
+            Duration.ofNanos(1),
+            Collections.emptySet());
+    Sinks.Many<ReadResult> slowRead = Sinks.many().unicast().onBackpressureBuffer();
+    List<RangeReadBoundStatement> statements = new ArrayList<>();
+    List<RangeReadResource> resources = new ArrayList<>();
+    List<ReadResult> slowResults = new ArrayList<>();
+    AtomicBoolean completed = new AtomicBoolean();
+    scheduler
+        .schedule(
+            statement -> {
+              statements.add(statement);
+              return newResource(statement, statement == slow ? slowRead.asFlux() : Flux.empty());
+            })
+        .doOnNext(resources::add)
+        .flatMap(RangeReadResource::read, 2)
+        .doOnComplete(() -> completed.set(true))
+        .subscribe(slowResults::add);
+    // the fast read completed, a reader is idle
+    assertThat(statements.get(0)).isSameAs(slow);
+    assertThat(completed).isFalse();
+    int handedOut = statements.size();
+    ReadResult result1 = newResult(100);
+    ReadResult result2 = newResult(100);
+    slowRead.tryEmitNext(result1);
+    slowRead.tryEmitNext(result2);
+    Thread.sleep(10);
+    // the first partition was read entirely, the read is cut after it
+    slowRead.tryEmitNext(newResult(200));
+    assertThat(slowResults).containsExactly(result1, result2);
+    assertThat(resources.get(0).isTruncated()).isTrue();
+    // the rest was handed out, possibly split further, each sub-range with its own resource
+    List<RangeReadBoundStatement> rest = statements.subList(handedOut, statements.size());
+    assertThat(ranges(rest)).first().isEqualTo(range(100, 550));
+    List<TokenRange> restRanges = ranges(rest);
+    restRanges.sort(Comparator.comparing(TokenRange::getStart));
+    long start = 100;
+    for (TokenRange range : restRanges) {
+      assertThat(range.getStart()).isEqualTo(new Murmur3Token(start));
+      start = ((Murmur3Token) range.getEnd()).getValue();
+    }
+    assertThat(start).isEqualTo(1000);
+    assertThat(rest)
+        .allSatisfy(
+            statement ->
+                assertThat(statement.getResource()).isEqualTo(resource(statement.getTokenRange())));
+    assertThat(completed).isTrue();
+  }
+
+  @Test
+  void should_not_split_read_that_is_not_straggling() {
+    RangeReadBoundStatement slow = newStatement(0, 1000, replicas1);
+    RangeReadBoundStatement fast = newStatement(1000, 1100, replicas2);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Arrays.asList(slow, fast),
+            SPLITTER,
+            2,
+            -1,
+            Duration.ofHours(1),
+            Collections.emptySet());
+    Sinks.Many<ReadResult> slowRead = Sinks.many().unicast().onBackpressureBuffer();
+    List<RangeReadBoundStatement> statements = new ArrayList<>();
+    List<RangeReadResource> resources = new ArrayList<>();
+    List<ReadResult> slowResults = new ArrayList<>();
+    AtomicBoolean completed = new AtomicBoolean();
+    scheduler
+        .schedule(
+            statement -> {
+              statements.add(statement);
+              return newResource(statement, statement == slow ? slowRead.asFlux() : Flux.empty());
+            })
+        .doOnNext(resources::add)
+        .flatMap(RangeReadResource::read, 2)
+        .doOnComplete(() -> completed.set(true))
+        .subscribe(slowResults::add);
+    ReadResult result1 = newResult(100);
+    ReadResult result2 = newResult(200);
+    slowRead.tryEmitNext(result1);
+    slowRead.tryEmitNext(result2);
+    assertThat(completed).isFalse();
+    slowRead.tryEmitComplete();
+    assertThat(slowResults).containsExactly(result1, result2);
+    assertThat(resources.get(0).isTruncated()).isFalse();
+    // only the pending fast read may have been split
+    assertThat(statements.get(0)).isSameAs(slow);
+    assertThat(ranges(statements.subList(1, statements.size())))
+        .allSatisfy(range -> assertThat(range.intersects(fast.getTokenRange())).isTrue());
+    assertThat(completed).isTrue();
+  }
+
+  @Test
+  void should_resume_replayed_read_that_was_split_while_being_read() {
+    RangeReadBoundStatement stmt = newStatement(0, 1000, replicas1);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Collections.singletonList(stmt),
+            SPLITTER,
+            1,
+            -1,
+            Duration.ZERO,
+            new HashSet<>(Arrays.asList(stmt.getResource(), resource(range(100, 550)))));
+    List<RangeReadBoundStatement> statements = schedule(scheduler);
+    assertThat(ranges(statements))
+        .containsExactlyInAnyOrder(range(0, 100), range(100, 550), range(550, 1000));
+    assertThat(statements)
+        .filteredOn(statement -> statement.getTokenRange().equals(range(0, 100)))
+        .extracting(RangeReadBoundStatement::getResource)
+        .containsExactly(stmt.getResource());
+  }
+
+  @Test
+  void should_read_rest_of_replayed_read_up_to_first_recorded_sub_range() {
+    RangeReadBoundStatement stmt = newStatement(0, 1000, replicas1);
+    RangeReadScheduler scheduler =
+        new RangeReadScheduler(
+            Collections.singletonList(stmt),
+            SPLITTER,
+            1,
+            -1,
+            Duration.ZERO,
+            new HashSet<>(Arrays.asList(stmt.getResource(), resource(range(550, 1000)))));
+    List<RangeReadBoundStatement> statements = schedule(scheduler);
+    assertThat(ranges(statements)).containsExactlyInAnyOrder(range(0, 550), range(550, 1000));
+    assertThat(statements)
+        .filteredOn(statement -> statement.getTokenRange().equals(range(0, 550)))
+        .extracting(RangeReadBoundStatement::getResource)
+        .containsExactly(stmt.getResource());
+  }
+
+  private static ReadResult newResult(long token) {
+    Row row = mock(Row.class);
+    when(row.getToken(0)).thenReturn(new Murmur3Token(token));
+    ReadResult result = mock(ReadResult.class);
+    when(result.getRow()).thenReturn(Optional.of(row));
+    return result;
+  }
+
+  private static RangeReadResource newResource(
+      RangeReadBoundStatement statement, Publisher<ReadResult> results) {
+    RangeReadResource resource = mock(RangeReadResource.class);
+    when(resource.getURI()).thenReturn(statement.getResource());
+    when(resource.read()).thenAnswer(invocation -> results);
+    return resource;
+  }
+
+  private static List<RangeReadBoundStatement> schedule(RangeReadScheduler scheduler) {
+    return schedule(scheduler, Long.MAX_VALUE);
+  }
+
+  private static List<RangeReadBoundStatement> schedule(
+      RangeReadScheduler scheduler, long requested) {
+    List<RangeReadBoundStatement> statements = new ArrayList<>();
+    scheduler
+        .schedule(
+            statement -> {
+              statements.add(statement);
+              return mock(RangeReadResource.class);
+            })
+        .limitRequest(requested)
+        .doOnNext(RangeReadResource::discard)
+        .blockLast();
+    return statements;
+  }
+
+  private static List<RangeReadBoundStatement> split(RangeReadBoundStatement statement) {
+    BulkTokenRange range = (BulkTokenRange) statement.getTokenRange();
+    return TOKEN_FACTORY.splitter().split(range, 2).stream()
+        .map(RangeReadSchedulerTest::newStatement)
+        .collect(Collectors.toList());
+  }
+
+  private static List<TokenRange> ranges(List<RangeReadBoundStatement> statements) {
+    return statements.stream()
+        .map(RangeReadBoundStatement::getTokenRange)
+        .collect(Collectors.toList());
+  }
+
+  private static BulkTokenRange range(long start, long end) {
+    return TOKEN_FACTORY.range(
+        new Murmur3Token(start), new Murmur3Token(end), Collections.emptySet());
+  }
+
+  private static URI resource(TokenRange range) {
+    return RangeReadStatement.rangeReadResource(
+        CqlIdentifier.fromInternal("ks"), CqlIdentifier.fromInternal("t1"), range);
+  }
+
+  private static RangeReadBoundStatement newStatement(
+      long start, long end, Set<EndPoint> replicas) {
+    return newStatement(
+        TOKEN_FACTORY.range(new Murmur3Token(start), new Murmur3Token(end), replicas));
+  }
+
+  private static RangeReadBoundStatement newStatement(BulkTokenRange range) {
+    return new RangeReadBoundStatement(mock(BoundStatement.class), range, resource(range));
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CheckpointJournalTest {
+
+  private static final URI RESOURCE1 = URI.create("file://data1.csv");
+  private static final URI RESOURCE2 = URI.create("file://data2.csv");
+
+  private Path dir;
+  private Path file;
+
+  @BeforeEach
+  void createJournalFile() throws IOException {
+    dir = Files.createTempDirectory("journal");
+    file = dir.resolve("checkpoint.journal");
+  }
+
+  @AfterEach
+  void deleteJournalFile() throws IOException {
+    Files.deleteIfExists(file);
+    Files.deleteIfExists(dir);
+  }
+
+  @Test
+  void should_replay_appended_deltas() throws IOException {
+    try (CheckpointJournal journal = new CheckpointJournal(file, Duration.ofDays(1))) {
+      CheckpointJournalWriter writer1 = journal.newWriter();
+      CheckpointJournalWriter writer2 = journal.newWriter();
+      writer1.update(RESOURCE1, 1, true);
+      writer1.update(RESOURCE1, 2, true);
+      writer2.update(RESOURCE2, 1, false);
+      writer1.flush();
+      writer2.flush();
+      writer1.update(RESOURCE1, 3, false);
+      writer1.update(RESOURCE1, 4, true);
+      writer1.flush();
+      journal.appendCompleted(RESOURCE1, 4);
+    }
+    assertThat(Files.readAllLines(file, UTF_8)).hasSize(4);
+    CheckpointManager replayed = CheckpointJournal.replay(file);
+    assertThat(replayed.checkpoints)
+        .containsOnlyKeys(RESOURCE1, RESOURCE2)
+        .containsEntry(
+            RESOURCE1,
+            new Checkpoint(
+                4, RangeSet.of(new Range(1, 2), new Range(4)), RangeSet.of(new Range(3)), true))
+        .containsEntry(
+            RESOURCE2, new Checkpoint(0, new RangeSet(), RangeSet.of(new Range(1)), false));
+  }
+
+  @Test
+  void should_flush_slow_flow_once_interval_elapsed() throws Exception {
+    try (CheckpointJournal journal = new CheckpointJournal(file, Duration.ofMillis(10))) {
+      CheckpointJournalWriter writer = journal.newWriter();
+      writer.update(RESOURCE1, 1, true);
+      Thread.sleep(20);
+      writer.update(RESOURCE1, 2, true);
+      // flushed by the update itself, without waiting for more updates
+      assertThat(Files.readAllLines(file, UTF_8)).hasSize(1);
+    }
+  }
+
+  @Test
+  void should_not_append_when_nothing_to_flush() throws IOException {
+    try (CheckpointJournal journal = new CheckpointJournal(file, Duration.ofDays(1))) {
+      journal.newWriter().flush();
+    }
+    assertThat(file).hasContent("");
+  }
+
+  @Test
+  void should_ignore_partially_written_last_line() throws IOException {
+    try (CheckpointJournal journal = new CheckpointJournal(file, Duration.ofDays(1))) {
+      CheckpointJournalWriter writer = journal.newWriter();
+      writer.update(RESOURCE1, 1, true);
+      writer.flush();
+    }
+    Files.write(file, "file://data2.csv;0;1:".getBytes(UTF_8), StandardOpenOption.APPEND);
+    CheckpointManager replayed = CheckpointJournal.replay(file);
+    assertThat(replayed.checkpoints)
+        .containsOnlyKeys(RESOURCE1)
+        .containsEntry(
+            RESOURCE1, new Checkpoint(0, RangeSet.of(new Range(1)), new RangeSet(), false));
+  }
+
+  @Test
+  void should_compact_journal() throws IOException {
+    try (CheckpointJournal journal = new CheckpointJournal(file, Duration.ofDays(1))) {
+      CheckpointJournalWriter writer = journal.newWriter();
+      for (int i = 1; i <= 100; i++) {
+        writer.update(i % 2 == 0 ? RESOURCE1 : RESOURCE2, i, true);
+        writer.flush();
+      }
+      assertThat(Files.readAllLines(file, UTF_8)).hasSize(100);
+      journal.compact();
+      assertThat(Files.readAllLines(file, UTF_8)).hasSize(2);
+      // appends after compaction go to the compacted file
+      writer.update(RESOURCE1, 101, false);
+      writer.flush();
+      assertThat(Files.readAllLines(file, UTF_8)).hasSize(3);
+    }
+    assertThat(Files.exists(file.resolveSibling("checkpoint.journal.tmp"))).isFalse();
+    CheckpointManager replayed = CheckpointJournal.replay(file);
+    assertThat(replayed.checkpoints.get(RESOURCE1).getConsumedSuccessful().sum()).isEqualTo(50);
+    assertThat(replayed.checkpoints.get(RESOURCE1).getConsumedFailed().stream())
+        .containsExactly(new Range(101));
+    assertThat(replayed.checkpoints.get(RESOURCE2).getConsumedSuccessful().sum()).isEqualTo(50);
+  }
+
+  @Test
+  void should_append_initial_checkpoints() throws IOException {
+    CheckpointManager initial = new CheckpointManager();
+    initial.checkpoints.put(
+        RESOURCE1, new Checkpoint(10, RangeSet.of(new Range(1, 10)), new RangeSet(), true));
+    initial.checkpoints.put(
+        RESOURCE2,
+        new Checkpoint(10, RangeSet.of(new Range(1, 5)), RangeSet.of(new Range(6)), false));
+    try (CheckpointJournal journal = new CheckpointJournal(file, Duration.ofDays(1))) {
+      journal.appendInitial(initial, ReplayStrategy.retry);
+      // the second resource is replayed and completes with 5 new records
+      journal.appendCompleted(RESOURCE2, 10);
+    }
+    CheckpointManager replayed = CheckpointJournal.replay(file);
+    assertThat(replayed.checkpoints)
+        .containsEntry(
+            RESOURCE1, new Checkpoint(10, RangeSet.of(new Range(1, 10)), new RangeSet(), true))
+        .containsEntry(
+            RESOURCE2,
+            new Checkpoint(10, RangeSet.of(new Range(1, 5)), RangeSet.of(new Range(6)), true));
+    // the initial checkpoints were not modified
+    assertThat(initial.checkpoints.get(RESOURCE2).getProduced()).isEqualTo(10);
+  }
+}
@@ -18,6 +18,9 @@ package com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint;
 import static com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.RangeUtilsTest.r;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.AbstractMap.SimpleEntry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -58,7 +61,17 @@ class CheckpointTest {
                 RangeSet.of(new Range(1, 10), new Range(12, 20), new Range(30)),
                 false)),
         Arguments.of("0;0;;", new Checkpoint(0, RangeSet.of(), RangeSet.of(), false)),
-        Arguments.of("1;10;;", new Checkpoint(10, RangeSet.of(), RangeSet.of(), true)));
+        Arguments.of("1;10;;", new Checkpoint(10, RangeSet.of(), RangeSet.of(), true)),
+        Arguments.of(
+            "0;10;1:10;;1@4,8@1024",
+            new Checkpoint(
+                10,
+                RangeSet.of(new Range(1, 10)),
+                RangeSet.of(),
+                false,
+                syncPoints(1, 4, 8, 1024))),
+        Arguments.of(
+            "0;10;1:10;;", new Checkpoint(10, RangeSet.of(r(1, 10)), RangeSet.of(), false)));
   }
 
   @ParameterizedTest
@@ -88,7 +101,11 @@ class CheckpointTest {
                 false),
             "0;30;;1:10,12:20,30"),
         Arguments.of(
-            new Checkpoint(10, RangeSet.of(), RangeSet.of(new Range(1, 10)), true), "1;10;;1:10"));
+            new Checkpoint(10, RangeSet.of(), RangeSet.of(new Range(1, 10)), true), "1;10;;1:10"),
+        Arguments.of(
+            new Checkpoint(
+                10, RangeSet.of(new Range(1, 10)), RangeSet.of(), false, syncPoints(1, 4, 8, 1024)),
+            "0;10;1:10;;1@4,8@1024"));
   }
 
   @ParameterizedTest
@@ -140,7 +157,24 @@ class CheckpointTest {
         Arguments.of(
             new Checkpoint(2, RangeSet.of(), RangeSet.of(r(1, 2)), false),
             new Checkpoint(2, RangeSet.of(), RangeSet.of(r(1, 2)), true),
-            new Checkpoint(4, RangeSet.of(), RangeSet.of(r(1, 2)), true)));
+            new Checkpoint(4, RangeSet.of(), RangeSet.of(r(1, 2)), true)),
+        Arguments.of(
+            new Checkpoint(2, RangeSet.of(r(1, 2)), RangeSet.of(), false, syncPoints(1, 4)),
+            new Checkpoint(2, RangeSet.of(r(3, 4)), RangeSet.of(), false, syncPoints(3, 20)),
+            new Checkpoint(
+                4, RangeSet.of(r(1, 4)), RangeSet.of(), false, syncPoints(1, 4, 3, 20))));
+  }
+
+  @Test
+  void should_get_sync_point() {
+    Checkpoint cp = new Checkpoint();
+    assertThat(cp.getSyncPoint(1)).isNull();
+    cp.addSyncPoint(10, 100);
+    cp.addSyncPoint(20, 200);
+    assertThat(cp.getSyncPoint(9)).isNull();
+    assertThat(cp.getSyncPoint(10)).isEqualTo(new SimpleEntry<>(10L, 100L));
+    assertThat(cp.getSyncPoint(19)).isEqualTo(new SimpleEntry<>(10L, 100L));
+    assertThat(cp.getSyncPoint(Long.MAX_VALUE)).isEqualTo(new SimpleEntry<>(20L, 200L));
   }
 
   @Test
@@ -188,4 +222,12 @@ class CheckpointTest {
     assertThat(cp.getConsumedSuccessful().stream()).containsExactly(r(1, 5));
     assertThat(cp.getConsumedFailed().stream()).containsExactly(r(1, 5));
   }
+
+  private static NavigableMap<Long, Long> syncPoints(long... positionsAndOffsets) {
+    NavigableMap<Long, Long> syncPoints = new TreeMap<>();
+    for (int i = 0; i < positionsAndOffsets.length; i += 2) {
+      syncPoints.put(positionsAndOffsets[i], positionsAndOffsets[i + 1]);
+    }
+    return syncPoints;
+  }
 }
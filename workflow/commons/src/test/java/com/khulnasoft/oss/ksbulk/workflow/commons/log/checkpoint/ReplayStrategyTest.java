@@ -133,6 +133,30 @@ class ReplayStrategyTest {
             true));
   }
 
+  @ParameterizedTest
+  @MethodSource
+  void getFirstPositionToReplay(ReplayStrategy strategy, Checkpoint cp, long expected) {
+    assertThat(strategy.getFirstPositionToReplay(cp)).isEqualTo(expected);
+  }
+
+  static Stream<Arguments> getFirstPositionToReplay() {
+    return Stream.of(
+        Arguments.of(resume, new Checkpoint(), 1),
+        Arguments.of(retry, new Checkpoint(), 1),
+        Arguments.of(retryAll, new Checkpoint(), 1),
+        Arguments.of(
+            resume, new Checkpoint(20, RangeSet.of(r(1, 10)), RangeSet.of(r(11, 20)), false), 21),
+        Arguments.of(
+            retry, new Checkpoint(20, RangeSet.of(r(1, 10)), RangeSet.of(r(11, 20)), false), 11),
+        Arguments.of(
+            retryAll, new Checkpoint(20, RangeSet.of(r(1, 10)), RangeSet.of(r(11, 20)), false), 11),
+        Arguments.of(
+            resume,
+            new Checkpoint(20, RangeSet.of(r(1, 10), r(15, 20)), RangeSet.of(r(11, 12)), false),
+            13),
+        Arguments.of(resume, new Checkpoint(10, RangeSet.of(r(2, 10)), RangeSet.of(), false), 1));
+  }
+
   @ParameterizedTest
   @MethodSource
   void getTotalItems(ReplayStrategy strategy, Checkpoint cp, long expected) {
@@ -60,4 +60,16 @@ class BulkLoaderSampleBuilderTest {
     assertThat(labelNames).containsOnly("node");
     assertThat(labelValues).containsOnly("host.com:9042");
   }
+
+  @Test
+  void should_transform_in_flight_reads_metric() {
+    BulkLoaderSampleBuilder builder = new BulkLoaderSampleBuilder(ImmutableMap.of());
+    Sample actual =
+        builder.createSample(
+            "reads.nodes.host_com:9042.in_flight", "", new ArrayList<>(), new ArrayList<>(), 3.0);
+    assertThat(actual.name).isEqualTo("ksbulk_reads_nodes_in_flight");
+    assertThat(actual.labelNames).containsExactly("node");
+    assertThat(actual.labelValues).containsExactly("host.com:9042");
+    assertThat(actual.value).isEqualTo(3.0);
+  }
 }
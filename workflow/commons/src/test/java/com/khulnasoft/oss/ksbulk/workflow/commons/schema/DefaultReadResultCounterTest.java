@@ -20,6 +20,7 @@ import static com.khulnasoft.oss.driver.api.core.type.DataTypes.INT;
 import static com.khulnasoft.oss.ksbulk.partitioner.utils.TokenUtils.getTokenValue;
 import static com.khulnasoft.oss.ksbulk.tests.driver.DriverUtils.newToken;
 import static com.khulnasoft.oss.ksbulk.tests.driver.DriverUtils.newTokenRange;
+import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.StatsSettings.StatisticsMode.approxPartitions;
 import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.StatsSettings.StatisticsMode.global;
 import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.StatsSettings.StatisticsMode.hosts;
 import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.StatsSettings.StatisticsMode.partitions;
@@ -27,6 +28,8 @@ import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.StatsSettings.
 import static java.net.InetSocketAddress.createUnresolved;
 import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.when;
 
 import com.khulnasoft.oss.driver.api.core.CqlIdentifier;
@@ -208,7 +211,7 @@ class DefaultReadResultCounterTest {
   @Test
   void should_count_total_rows(StreamInterceptor stdout) {
     DefaultReadResultCounter counter =
-        new DefaultReadResultCounter(ks, metadata, EnumSet.of(global), 10, V4, codecFactory);
+        new DefaultReadResultCounter(ks, metadata, EnumSet.of(global), 10, false, V4, codecFactory);
 
     counter.newCountingUnit(0L).update(result1);
     counter.consolidateUnitCounts();
@@ -222,10 +225,27 @@ class DefaultReadResultCounterTest {
     assertThat(stdout.getStreamLines()).contains("102");
   }
 
+  @Test
+  void should_count_total_rows_server_side(StreamInterceptor stdout) {
+    when(row1.getLong(0)).thenReturn(1234L);
+    when(row2.getLong(0)).thenReturn(5678L);
+    DefaultReadResultCounter counter =
+        new DefaultReadResultCounter(ks, metadata, EnumSet.of(global), 10, true, V4, codecFactory);
+
+    ReadResultCounter.CountingUnit unit = counter.newCountingUnit(0L);
+    unit.update(result1);
+    unit.update(result2);
+    counter.consolidateUnitCounts();
+    assertThat(counter.totalRows).isEqualTo(6912);
+
+    counter.reportTotals();
+    assertThat(stdout.getStreamLines()).contains("6912");
+  }
+
   @Test
   void should_count_nodes(StreamInterceptor stdout) {
     DefaultReadResultCounter counter =
-        new DefaultReadResultCounter(ks, metadata, EnumSet.of(hosts), 10, V4, codecFactory);
+        new DefaultReadResultCounter(ks, metadata, EnumSet.of(hosts), 10, false, V4, codecFactory);
 
     ReadResultCounter.CountingUnit unit = counter.newCountingUnit(0L);
 
@@ -268,7 +288,7 @@ class DefaultReadResultCounterTest {
   @Test
   void should_count_ranges(StreamInterceptor stdout) {
     DefaultReadResultCounter counter =
-        new DefaultReadResultCounter(ks, metadata, EnumSet.of(ranges), 10, V4, codecFactory);
+        new DefaultReadResultCounter(ks, metadata, EnumSet.of(ranges), 10, false, V4, codecFactory);
 
     ReadResultCounter.CountingUnit unit = counter.newCountingUnit(0L);
 
@@ -312,10 +332,40 @@ class DefaultReadResultCounterTest {
                 "%s %s 0 0.00", getTokenValue(range3.getStart()), getTokenValue(range3.getEnd())));
   }
 
+  @Test
+  void should_count_ranges_and_nodes_across_units() {
+    when(tokenMap.getReplicas(ks, range1)).thenReturn(Sets.newHashSet(node1, node2));
+    when(tokenMap.getReplicas(ks, range2)).thenReturn(Sets.newHashSet(node2, node3));
+    DefaultReadResultCounter counter =
+        new DefaultReadResultCounter(
+            ks, metadata, EnumSet.of(ranges, hosts), 10, false, V4, codecFactory);
+
+    DefaultReadResultCounter.DefaultCountingUnit unit1 = counter.newCountingUnit(0L);
+    DefaultReadResultCounter.DefaultCountingUnit unit2 = counter.newCountingUnit(0L);
+
+    // token1a, belongs to range1/node1,node2
+    unit1.update(result1);
+    unit2.update(result4);
+    // token2a, belongs to range2/node2,node3
+    unit1.update(result2);
+    // token3, belongs to range2/node2,node3
+    unit2.update(result3);
+    counter.consolidateUnitCounts();
+
+    assertThat(counter.totalRows).isEqualTo(4);
+    assertThat(counter.totalsByRange).containsOnly(entry(range1, 2L), entry(range2, 2L));
+    assertThat(counter.totalsByNode)
+        .containsOnly(
+            entry(node1.getEndPoint(), 2L),
+            entry(node2.getEndPoint(), 4L),
+            entry(node3.getEndPoint(), 2L));
+  }
+
   @Test
   void should_count_biggest_partitions(StreamInterceptor stdout) {
     DefaultReadResultCounter counter =
-        new DefaultReadResultCounter(ks, metadata, EnumSet.of(partitions), 3, V4, codecFactory);
+        new DefaultReadResultCounter(
+            ks, metadata, EnumSet.of(partitions), 3, false, V4, codecFactory);
 
     DefaultReadResultCounter.DefaultCountingUnit unit = counter.newCountingUnit(0L);
 
@@ -540,11 +590,51 @@ class DefaultReadResultCounterTest {
     assertThat(stdout.getStreamLines()).contains("8 4 15.38", "9 5 19.23", "10 4 15.38");
   }
 
+  @Test
+  void should_count_partitions_approximately(StreamInterceptor stdout) {
+    DefaultReadResultCounter counter =
+        new DefaultReadResultCounter(
+            ks, metadata, EnumSet.of(approxPartitions), 10, false, V4, codecFactory);
+
+    DefaultReadResultCounter.DefaultCountingUnit unit1 = counter.newCountingUnit(0L);
+    DefaultReadResultCounter.DefaultCountingUnit unit2 = counter.newCountingUnit(0L);
+
+    // partitions need not be contiguous, nor be counted by one single unit
+    for (ReadResult result : Arrays.asList(result1, result1, result1, result2, result1, result1)) {
+      unit1.update(result);
+    }
+    for (ReadResult result : Arrays.asList(result3, result3, result3, result3, result2, result2)) {
+      unit2.update(result);
+    }
+    unit1.close();
+    // sketches are released when closed
+    assertThat(unit1.partitions).isNull();
+    assertThat(unit1.biggestPartitions).isNull();
+
+    counter.consolidateUnitCounts();
+    assertThat(counter.totalRows).isEqualTo(12);
+    assertThat(counter.approxTotalPartitions).isEqualTo(3);
+    assertThat(counter.approxTotalsByPartitionKey)
+        .extracting(count -> count.getElement().components[0], SpaceSaving.Counter::getCount)
+        .containsExactly(tuple(bb1, 5L), tuple(bb3, 4L), tuple(bb2, 3L));
+
+    counter.reportTotals();
+    assertThat(stdout.getStreamLines())
+        .containsExactly(
+            "Approximate total partitions:",
+            "3",
+            "Approximate rows per partition:",
+            "1 5 41.67",
+            "3 4 33.33",
+            "2 3 25.00");
+  }
+
   @Test
   void should_count_biggest_partitions_multi_threaded(StreamInterceptor stdout)
       throws InterruptedException {
     DefaultReadResultCounter counter =
-        new DefaultReadResultCounter(ks, metadata, EnumSet.of(partitions), 3, V4, codecFactory);
+        new DefaultReadResultCounter(
+            ks, metadata, EnumSet.of(partitions), 3, false, V4, codecFactory);
 
     DefaultReadResultCounter.DefaultCountingUnit unit1 = counter.newCountingUnit(0L);
     DefaultReadResultCounter.DefaultCountingUnit unit2 = counter.newCountingUnit(0L);
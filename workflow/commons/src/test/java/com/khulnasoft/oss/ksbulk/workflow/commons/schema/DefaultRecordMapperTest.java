@@ -29,6 +29,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -36,7 +37,6 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import com.khulnasoft.oss.driver.api.core.CqlIdentifier;
 import com.khulnasoft.oss.driver.api.core.ProtocolVersion;
 import com.khulnasoft.oss.driver.api.core.cql.BatchableStatement;
 import com.khulnasoft.oss.driver.api.core.cql.BoundStatement;
@@ -59,16 +59,19 @@ import com.khulnasoft.oss.ksbulk.codecs.api.util.OverflowStrategy;
 import com.khulnasoft.oss.ksbulk.codecs.text.string.StringToIntegerCodec;
 import com.khulnasoft.oss.ksbulk.codecs.text.string.StringToLongCodec;
 import com.khulnasoft.oss.ksbulk.codecs.text.string.StringToStringCodec;
+import com.khulnasoft.oss.ksbulk.connectors.api.ArrayBackedRecord;
 import com.khulnasoft.oss.ksbulk.connectors.api.DefaultMappedField;
 import com.khulnasoft.oss.ksbulk.connectors.api.Field;
 import com.khulnasoft.oss.ksbulk.connectors.api.Record;
 import com.khulnasoft.oss.ksbulk.connectors.api.RecordMetadata;
+import com.khulnasoft.oss.ksbulk.connectors.api.RecordSchema;
 import com.khulnasoft.oss.ksbulk.mapping.CQLWord;
 import com.khulnasoft.oss.ksbulk.mapping.Mapping;
 import com.khulnasoft.oss.ksbulk.tests.utils.ReflectionUtils;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.MappedBoundStatement;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.UnmappableStatement;
 import io.netty.util.concurrent.FastThreadLocal;
+import java.net.URI;
 import java.nio.ByteBuffer;
 import java.text.NumberFormat;
 import java.time.Instant;
@@ -117,14 +120,14 @@ class DefaultRecordMapperTest {
   @Mock private StringToLongCodec codec2;
   @Mock private StringToStringCodec codec3;
 
-  private ArgumentCaptor<CqlIdentifier> variableCaptor;
+  private ArgumentCaptor<Integer> variableCaptor;
   private ArgumentCaptor<ByteBuffer> valueCaptor;
 
   private RecordMetadata recordMetadata;
 
   @BeforeEach
   void setUp() {
-    variableCaptor = ArgumentCaptor.forClass(CqlIdentifier.class);
+    variableCaptor = ArgumentCaptor.forClass(Integer.class);
     valueCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
     recordMetadata =
         new TestRecordMetadata(
@@ -138,9 +141,9 @@ class DefaultRecordMapperTest {
     when(boundStatementBuilder.isSet(1)).thenReturn(true);
     when(boundStatementBuilder.isSet(2)).thenReturn(true);
 
-    when(boundStatementBuilder.setBytesUnsafe(any(CqlIdentifier.class), any(ByteBuffer.class)))
+    when(boundStatementBuilder.setBytesUnsafe(anyInt(), any(ByteBuffer.class)))
         .thenReturn(boundStatementBuilder);
-    when(boundStatementBuilder.setBytesUnsafe(any(CqlIdentifier.class), eq(null)))
+    when(boundStatementBuilder.setBytesUnsafe(anyInt(), eq(null)))
         .thenReturn(boundStatementBuilder);
 
     when(insertStatement.getVariableDefinitions()).thenReturn(variables);
@@ -167,6 +170,10 @@ class DefaultRecordMapperTest {
     when(variables.firstIndexOf(C2.asIdentifier())).thenReturn(1);
     when(variables.firstIndexOf(C3.asIdentifier())).thenReturn(2);
 
+    when(variables.allIndicesOf(C1.asIdentifier())).thenReturn(Collections.singletonList(0));
+    when(variables.allIndicesOf(C2.asIdentifier())).thenReturn(Collections.singletonList(1));
+    when(variables.allIndicesOf(C3.asIdentifier())).thenReturn(Collections.singletonList(2));
+
     when(record.getFieldValue(F1)).thenReturn("42");
     when(record.getFieldValue(F2)).thenReturn("4242");
     when(record.getFieldValue(F3)).thenReturn("foo");
@@ -243,6 +250,37 @@ class DefaultRecordMapperTest {
     assertParameter(2, C3, TypeCodecs.TEXT.encode("foo", V4));
   }
 
+  @Test
+  void should_reuse_plans_of_records_with_alternating_fields() {
+    when(record.fields()).thenReturn(set(F1, F2, F3));
+    Record other = mock(Record.class);
+    when(other.fields()).thenReturn(set(F1, F2));
+    when(other.getFieldValue(F1)).thenReturn("43");
+    when(other.getFieldValue(F2)).thenReturn("4343");
+    RecordMapper mapper =
+        new DefaultRecordMapper(
+            Collections.singletonList(insertStatement),
+            set(C1),
+            set(C2),
+            V4,
+            mapping,
+            recordMetadata,
+            true,
+            true,
+            true,
+            statement -> boundStatementBuilder);
+    for (int i = 0; i < 5; i++) {
+      assertThat(mapper.map(record).single().block()).isInstanceOf(MappedBoundStatement.class);
+      assertThat(mapper.map(other).single().block()).isInstanceOf(MappedBoundStatement.class);
+    }
+    // one plan per field set
+    verify(mapping, times(2)).fieldToVariables(F1);
+    verify(boundStatementBuilder, times(5 * 3 + 5 * 2))
+        .setBytesUnsafe(variableCaptor.capture(), valueCaptor.capture());
+    assertThat(valueCaptor.getAllValues().subList(3, 5))
+        .containsExactly(TypeCodecs.INT.encode(43, V4), TypeCodecs.BIGINT.encode(4343L, V4));
+  }
+
   @Test
   void should_bind_mapped_numeric_timestamp() {
     when(record.fields()).thenReturn(set(F1));
@@ -279,8 +317,7 @@ class DefaultRecordMapperTest {
     Statement<?> result = mapper.map(record).single().block();
     assertThat(result).isInstanceOf(MappedBoundStatement.class);
     assertThat(ReflectionUtils.getInternalState(result, "delegate")).isSameAs(boundStatement);
-    verify(boundStatementBuilder)
-        .setBytesUnsafe(C1.asIdentifier(), TypeCodecs.BIGINT.encode(-123456L, V4));
+    verify(boundStatementBuilder).setBytesUnsafe(0, TypeCodecs.BIGINT.encode(-123456L, V4));
   }
 
   @Test
@@ -320,8 +357,7 @@ class DefaultRecordMapperTest {
     Statement<?> result = mapper.map(record).single().block();
     assertThat(result).isInstanceOf(MappedBoundStatement.class);
     assertThat(ReflectionUtils.getInternalState(result, "delegate")).isSameAs(boundStatement);
-    verify(boundStatementBuilder)
-        .setBytesUnsafe(C1.asIdentifier(), TypeCodecs.BIGINT.encode(-1L, V4));
+    verify(boundStatementBuilder).setBytesUnsafe(0, TypeCodecs.BIGINT.encode(-1L, V4));
   }
 
   @Test
@@ -361,8 +397,7 @@ class DefaultRecordMapperTest {
     assertThat(ReflectionUtils.getInternalState(result, "delegate")).isSameAs(boundStatement);
     verify(boundStatementBuilder)
         .setBytesUnsafe(
-            C1.asIdentifier(),
-            TypeCodecs.BIGINT.encode(Instant.parse("2017-01-02T00:00:02Z").toEpochMilli(), V4));
+            0, TypeCodecs.BIGINT.encode(Instant.parse("2017-01-02T00:00:02Z").toEpochMilli(), V4));
   }
 
   @Test
@@ -404,8 +439,45 @@ class DefaultRecordMapperTest {
     assertThat(ReflectionUtils.getInternalState(result, "delegate")).isSameAs(boundStatement);
     verify(boundStatementBuilder)
         .setBytesUnsafe(
-            C1.asIdentifier(),
-            TypeCodecs.BIGINT.encode(Instant.parse("2017-11-23T12:34:56Z").toEpochMilli(), V4));
+            0, TypeCodecs.BIGINT.encode(Instant.parse("2017-11-23T12:34:56Z").toEpochMilli(), V4));
+  }
+
+  @Test
+  void should_map_array_backed_records() {
+    RecordSchema schema = RecordSchema.mapped(F1, F2, F3);
+    RecordMapper mapper =
+        new DefaultRecordMapper(
+            Collections.singletonList(insertStatement),
+            set(C1),
+            set(C2, C3),
+            V4,
+            mapping,
+            recordMetadata,
+            true,
+            true,
+            false,
+            statement -> boundStatementBuilder);
+    for (int i = 0; i < 2; i++) {
+      Record arrayRecord =
+          new ArrayBackedRecord(
+              schema,
+              "source",
+              URI.create("file://file1"),
+              i + 1,
+              new Object[] {"42", "4242", "foo"});
+      Statement<?> result = mapper.map(arrayRecord).single().block();
+      assertThat(result).isInstanceOf(MappedBoundStatement.class);
+      assertThat(ReflectionUtils.getInternalState(result, "delegate")).isSameAs(boundStatement);
+    }
+    verify(boundStatementBuilder, times(6))
+        .setBytesUnsafe(variableCaptor.capture(), valueCaptor.capture());
+    for (int i = 0; i < 6; i += 3) {
+      assertParameter(i, C1, TypeCodecs.INT.encode(42, V4));
+      assertParameter(i + 1, C2, TypeCodecs.BIGINT.encode(4242L, V4));
+      assertParameter(i + 2, C3, TypeCodecs.TEXT.encode("foo", V4));
+    }
+    // codecs are resolved only once per schema
+    verify(mapping, times(1)).codec(C1, DataTypes.INT, GenericType.STRING);
   }
 
   @Test
@@ -535,8 +607,6 @@ class DefaultRecordMapperTest {
 
   @Test
   void should_return_unmappable_statement_when_pk_column_unmapped() {
-    when(boundStatementBuilder.allIndicesOf(C1.asIdentifier()))
-        .thenReturn(Collections.singletonList(0));
     when(boundStatementBuilder.isSet(0)).thenReturn(false);
     RecordMapper mapper =
         new DefaultRecordMapper(
@@ -628,6 +698,10 @@ class DefaultRecordMapperTest {
     when(vars1.get(C2.asIdentifier())).thenReturn(c2Def);
     when(vars2.get(C1.asIdentifier())).thenReturn(c1Def);
     when(vars2.get(C3.asIdentifier())).thenReturn(c3Def);
+    when(vars1.allIndicesOf(C1.asIdentifier())).thenReturn(Collections.singletonList(0));
+    when(vars1.allIndicesOf(C2.asIdentifier())).thenReturn(Collections.singletonList(1));
+    when(vars2.allIndicesOf(C1.asIdentifier())).thenReturn(Collections.singletonList(0));
+    when(vars2.allIndicesOf(C3.asIdentifier())).thenReturn(Collections.singletonList(1));
     when(vars1.get(0)).thenReturn(c1Def);
     when(vars1.get(1)).thenReturn(c2Def);
     when(vars1.get(0)).thenReturn(c1Def);
@@ -639,14 +713,16 @@ class DefaultRecordMapperTest {
     BoundStatementBuilder bsb1 = mock(BoundStatementBuilder.class);
     when(bsb1.protocolVersion()).thenReturn(ProtocolVersion.DEFAULT);
     when(bsb1.build()).thenReturn(bs1);
-    when(bsb1.setBytesUnsafe(any(CqlIdentifier.class), any(ByteBuffer.class))).thenReturn(bsb1);
-    when(bsb1.setBytesUnsafe(any(CqlIdentifier.class), eq(null))).thenReturn(bsb1);
+    when(bsb1.setBytesUnsafe(anyInt(), any(ByteBuffer.class))).thenReturn(bsb1);
+    when(bsb1.setBytesUnsafe(anyInt(), eq(null))).thenReturn(bsb1);
+    when(bsb1.isSet(0)).thenReturn(true);
 
     BoundStatementBuilder bsb2 = mock(BoundStatementBuilder.class);
     when(bsb2.protocolVersion()).thenReturn(ProtocolVersion.DEFAULT);
     when(bsb2.build()).thenReturn(bs2);
-    when(bsb2.setBytesUnsafe(any(CqlIdentifier.class), any(ByteBuffer.class))).thenReturn(bsb2);
-    when(bsb2.setBytesUnsafe(any(CqlIdentifier.class), eq(null))).thenReturn(bsb2);
+    when(bsb2.setBytesUnsafe(anyInt(), any(ByteBuffer.class))).thenReturn(bsb2);
+    when(bsb2.setBytesUnsafe(anyInt(), eq(null))).thenReturn(bsb2);
+    when(bsb2.isSet(0)).thenReturn(true);
 
     RecordMapper mapper =
         new DefaultRecordMapper(
@@ -665,27 +741,27 @@ class DefaultRecordMapperTest {
         .hasSize(2)
         .allSatisfy(stmt -> assertThat(stmt).isInstanceOf(MappedBoundStatement.class));
 
-    ArgumentCaptor<CqlIdentifier> variableCaptor = ArgumentCaptor.forClass(CqlIdentifier.class);
+    ArgumentCaptor<Integer> variableCaptor = ArgumentCaptor.forClass(Integer.class);
     ArgumentCaptor<ByteBuffer> valueCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
     verify(bsb1, times(2)).setBytesUnsafe(variableCaptor.capture(), valueCaptor.capture());
-    assertThat(variableCaptor.getAllValues().get(0)).isEqualTo(C1.asIdentifier());
+    assertThat(variableCaptor.getAllValues().get(0)).isEqualTo(0);
     assertThat(valueCaptor.getAllValues().get(0)).isEqualTo(TypeCodecs.INT.encode(42, V4));
-    assertThat(variableCaptor.getAllValues().get(1)).isEqualTo(C2.asIdentifier());
+    assertThat(variableCaptor.getAllValues().get(1)).isEqualTo(1);
     assertThat(valueCaptor.getAllValues().get(1)).isEqualTo(TypeCodecs.BIGINT.encode(4242L, V4));
 
-    variableCaptor = ArgumentCaptor.forClass(CqlIdentifier.class);
+    variableCaptor = ArgumentCaptor.forClass(Integer.class);
     valueCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
     verify(bsb2, times(2)).setBytesUnsafe(variableCaptor.capture(), valueCaptor.capture());
-    assertThat(variableCaptor.getAllValues().get(0)).isEqualTo(C1.asIdentifier());
+    assertThat(variableCaptor.getAllValues().get(0)).isEqualTo(0);
     assertThat(valueCaptor.getAllValues().get(0)).isEqualTo(TypeCodecs.INT.encode(42, V4));
-    assertThat(variableCaptor.getAllValues().get(1)).isEqualTo(C3.asIdentifier());
+    assertThat(variableCaptor.getAllValues().get(1)).isEqualTo(1);
     assertThat(valueCaptor.getAllValues().get(1)).isEqualTo(TypeCodecs.TEXT.encode("foo", V4));
   }
 
   private void assertParameter(
       int invocationIndex, CQLWord expectedVariable, ByteBuffer expectedVariableValue) {
     assertThat(variableCaptor.getAllValues().get(invocationIndex))
-        .isEqualTo(expectedVariable.asIdentifier());
+        .isEqualTo(variables.firstIndexOf(expectedVariable.asIdentifier()));
     assertThat(valueCaptor.getAllValues().get(invocationIndex)).isEqualTo(expectedVariableValue);
   }
 
@@ -0,0 +1,77 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.schema;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.khulnasoft.oss.driver.shaded.guava.common.hash.Hashing;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class HyperLogLogTest {
+
+  @Test
+  void should_estimate_zero_when_empty() {
+    assertThat(new HyperLogLog().estimate()).isZero();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 10, 1_000, 100_000, 1_000_000})
+  void should_estimate_cardinality(int cardinality) {
+    HyperLogLog hll = new HyperLogLog();
+    for (int i = 0; i < cardinality; i++) {
+      long hash = hash(i);
+      // duplicates must not be counted
+      hll.add(hash);
+      hll.add(hash);
+    }
+    // 4 standard errors
+    assertThat((double) hll.estimate()).isCloseTo(cardinality, within(cardinality * 0.033 + 1));
+  }
+
+  @Test
+  void should_merge_sketches() {
+    HyperLogLog hll1 = new HyperLogLog();
+    HyperLogLog hll2 = new HyperLogLog();
+    HyperLogLog union = new HyperLogLog();
+    for (int i = 0; i < 100_000; i++) {
+      // 50% overlap
+      if (i < 75_000) {
+        hll1.add(hash(i));
+      }
+      if (i >= 25_000) {
+        hll2.add(hash(i));
+      }
+      union.add(hash(i));
+    }
+    hll1.merge(hll2);
+    assertThat(hll1.estimate()).isEqualTo(union.estimate());
+  }
+
+  @Test
+  void should_not_merge_sketches_with_different_precisions() {
+    assertThatThrownBy(() -> new HyperLogLog(12).merge(new HyperLogLog(14)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Cannot merge sketches with different precisions: 12 and 14");
+  }
+
+  private static long hash(int i) {
+    return Hashing.murmur3_128().hashInt(i).asLong();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.commons.schema;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.khulnasoft.oss.ksbulk.workflow.commons.schema.SpaceSaving.Counter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.Test;
+
+class SpaceSavingTest {
+
+  @Test
+  void should_count_exactly_when_under_capacity() {
+    SpaceSaving<String> sketch = new SpaceSaving<>(10, UnaryOperator.identity());
+    sketch.add("a", 1);
+    sketch.add("b", 5);
+    sketch.add("c", 3);
+    sketch.add("a", 10);
+    assertThat(sketch.top(2))
+        .extracting(Counter::getElement, Counter::getCount, Counter::getError)
+        .containsExactly(tuple("a", 11L, 0L), tuple("b", 5L, 0L));
+  }
+
+  @Test
+  void should_replace_lowest_counter_when_full() {
+    SpaceSaving<String> sketch = new SpaceSaving<>(2, UnaryOperator.identity());
+    sketch.add("a", 10);
+    sketch.add("b", 2);
+    sketch.add("c", 3);
+    // c replaced b, and inherited its count as error
+    assertThat(sketch.top(10))
+        .extracting(Counter::getElement, Counter::getCount, Counter::getError)
+        .containsExactly(tuple("a", 10L, 0L), tuple("c", 5L, 2L));
+    assertThat(sketch.top(10)).extracting(Counter::getGuaranteedCount).containsExactly(10L, 3L);
+  }
+
+  @Test
+  void should_copy_elements_when_tracked() {
+    SpaceSaving<StringBuilder> sketch = new SpaceSaving<>(2, sb -> new StringBuilder(sb));
+    StringBuilder element = new StringBuilder("a");
+    sketch.add(element, 1);
+    assertThat(sketch.top(1).get(0).getElement()).isNotSameAs(element);
+  }
+
+  @Test
+  void should_find_heavy_hitters() {
+    Random random = new Random(0);
+    Map<Integer, Long> counts = new HashMap<>();
+    SpaceSaving<Integer> sketch = new SpaceSaving<>(1000, UnaryOperator.identity());
+    for (int i = 0; i < 100_000; i++) {
+      // 10 heavy hitters, then a long tail
+      int element = random.nextInt(10) == 0 ? random.nextInt(10) : 10 + random.nextInt(100_000);
+      counts.merge(element, 1L, Long::sum);
+      sketch.add(element, 1);
+    }
+    assertThatTopIsCorrect(sketch.top(10), counts);
+  }
+
+  @Test
+  void should_merge_sketches() {
+    Random random = new Random(0);
+    Map<Integer, Long> counts = new HashMap<>();
+    SpaceSaving<Integer> sketch1 = new SpaceSaving<>(1000, UnaryOperator.identity());
+    SpaceSaving<Integer> sketch2 = new SpaceSaving<>(1000, UnaryOperator.identity());
+    for (int i = 0; i < 100_000; i++) {
+      int element = random.nextInt(10) == 0 ? random.nextInt(10) : 10 + random.nextInt(100_000);
+      counts.merge(element, 1L, Long::sum);
+      (i % 2 == 0 ? sketch1 : sketch2).add(element, 1);
+    }
+    // a heavy hitter only seen by one sketch
+    counts.put(-1, 5_000L);
+    sketch2.add(-1, 5_000);
+    sketch1.merge(sketch2);
+    List<Counter<Integer>> top = sketch1.top(11);
+    assertThatTopIsCorrect(top, counts);
+    assertThat(top.get(0).getElement()).isEqualTo(-1);
+    assertThat(top.get(0).getGuaranteedCount()).isEqualTo(5_000L);
+  }
+
+  private static void assertThatTopIsCorrect(
+      List<Counter<Integer>> top, Map<Integer, Long> counts) {
+    assertThat(top).extracting(Counter::getElement).doesNotContainNull();
+    for (Counter<Integer> counter : top) {
+      long actual = counts.get(counter.getElement());
+      assertThat(counter.getElement()).isLessThan(10);
+      assertThat(counter.getGuaranteedCount()).isLessThanOrEqualTo(actual);
+      assertThat(counter.getCount()).isGreaterThanOrEqualTo(actual);
+    }
+  }
+}
@@ -16,6 +16,7 @@
 package com.khulnasoft.oss.ksbulk.workflow.commons.settings;
 
 import static com.khulnasoft.oss.ksbulk.batcher.api.BatchMode.PARTITION_KEY;
+import static com.khulnasoft.oss.ksbulk.batcher.api.BatchMode.PARTITION_RUN;
 import static com.khulnasoft.oss.ksbulk.batcher.api.BatchMode.REPLICA_SET;
 import static com.khulnasoft.oss.ksbulk.tests.assertions.TestAssertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -124,6 +125,17 @@ class BatchSettingsTest {
     assertThat(ReflectionUtils.getInternalState(batcher, "maxBatchStatements")).isEqualTo(32);
   }
 
+  @Test
+  void should_create_unbuffered_batcher_when_batch_mode_is_partition_run() {
+    Config config = TestConfigUtils.createTestConfig("ksbulk.batch", "mode", "PARTITION_RUN");
+    BatchSettings settings = new BatchSettings(config);
+    settings.init();
+    assertThat(settings.isBatchingEnabled()).isTrue();
+    assertThat(settings.isBufferingEnabled()).isFalse();
+    ReactiveStatementBatcher batcher = settings.newStatementBatcher(session);
+    assertThat(ReflectionUtils.getInternalState(batcher, "batchMode")).isEqualTo(PARTITION_RUN);
+  }
+
   @Test
   void should_create_batcher_when_buffer_size_provided() {
     Config config = TestConfigUtils.createTestConfig("ksbulk.batch", "bufferSize", 5000);
@@ -237,7 +249,7 @@ class BatchSettingsTest {
     assertThatThrownBy(settings::init)
         .isInstanceOf(IllegalArgumentException.class)
         .hasMessageContaining(
-            "Invalid value for ksbulk.batch.mode, expecting one of DISABLED, PARTITION_KEY, REPLICA_SET, got: 'NotAMode'");
+            "Invalid value for ksbulk.batch.mode, expecting one of DISABLED, PARTITION_KEY, REPLICA_SET, PARTITION_RUN, got: 'NotAMode'");
   }
 
   @Test
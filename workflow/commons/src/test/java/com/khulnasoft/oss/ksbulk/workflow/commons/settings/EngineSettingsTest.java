@@ -20,6 +20,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.khulnasoft.oss.ksbulk.tests.utils.TestConfigUtils;
 import com.typesafe.config.Config;
+import java.time.Duration;
 import org.junit.jupiter.api.Test;
 
 class EngineSettingsTest {
@@ -76,6 +77,23 @@ class EngineSettingsTest {
     assertThat(settings.getMaxConcurrentQueries()).isEmpty();
   }
 
+  @Test
+  void should_report_max_concurrent_queries_per_replica_set() {
+    Config config =
+        TestConfigUtils.createTestConfig("ksbulk.engine", "maxConcurrentQueriesPerReplicaSet", "4");
+    EngineSettings settings = new EngineSettings(config);
+    settings.init();
+    assertThat(settings.getMaxConcurrentQueriesPerReplicaSet()).hasValue(4);
+  }
+
+  @Test
+  void should_report_empty_max_concurrent_queries_per_replica_set_when_AUTO() {
+    Config config = TestConfigUtils.createTestConfig("ksbulk.engine");
+    EngineSettings settings = new EngineSettings(config);
+    settings.init();
+    assertThat(settings.getMaxConcurrentQueriesPerReplicaSet()).isEmpty();
+  }
+
   @Test
   void should_create_data_size_sampling_enabled() {
     Config config =
@@ -84,4 +102,32 @@ class EngineSettingsTest {
     settings.init();
     assertThat(settings.isDataSizeSamplingEnabled()).isFalse();
   }
+
+  @Test
+  void should_create_write_lanes() {
+    Config config = TestConfigUtils.createTestConfig("ksbulk.engine", "writeLanes", true);
+    EngineSettings settings = new EngineSettings(config);
+    settings.init();
+    assertThat(settings.isWriteLanes()).isTrue();
+  }
+
+  @Test
+  void should_create_straggler_threshold() {
+    Config config =
+        TestConfigUtils.createTestConfig("ksbulk.engine", "stragglerThreshold", "1 minute");
+    EngineSettings settings = new EngineSettings(config);
+    settings.init();
+    assertThat(settings.getStragglerThreshold()).isEqualTo(Duration.ofMinutes(1));
+  }
+
+  @Test
+  void should_throw_when_straggler_threshold_negative() {
+    Config config =
+        TestConfigUtils.createTestConfig("ksbulk.engine", "stragglerThreshold", "-1 second");
+    EngineSettings settings = new EngineSettings(config);
+    assertThatThrownBy(settings::init)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining(
+            "Invalid value for ksbulk.engine.stragglerThreshold, expecting positive duration or zero, got '-1 second'");
+  }
 }
@@ -26,8 +26,11 @@ import com.khulnasoft.oss.driver.api.core.config.DefaultDriverOption;
 import com.khulnasoft.oss.driver.api.core.config.DriverExecutionProfile;
 import com.khulnasoft.oss.driver.api.core.metadata.Node;
 import com.khulnasoft.oss.driver.shaded.guava.common.collect.ImmutableMap;
-import com.khulnasoft.oss.driver.shaded.guava.common.util.concurrent.RateLimiter;
 import com.khulnasoft.oss.ksbulk.executor.api.reader.ReactiveBulkReader;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.AsyncRateLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.AdaptiveConcurrencyLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.ConcurrencyLimiter;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.FixedConcurrencyLimiter;
 import com.khulnasoft.oss.ksbulk.executor.api.writer.ReactiveBulkWriter;
 import com.khulnasoft.oss.ksbulk.executor.reactor.ContinuousReactorBulkExecutor;
 import com.khulnasoft.oss.ksbulk.executor.reactor.DefaultReactorBulkExecutor;
@@ -40,7 +43,6 @@ import com.typesafe.config.Config;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.concurrent.Semaphore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -144,7 +146,8 @@ class ExecutorSettingsTest {
     when(profile.getString(DefaultDriverOption.REQUEST_CONSISTENCY)).thenReturn("ONE");
     settings.init();
     ReactiveBulkReader executor = settings.newReadExecutor(session, null, false);
-    assertThat(((RateLimiter) getInternalState(executor, "rateLimiter")).getRate()).isEqualTo(100);
+    assertThat(((AsyncRateLimiter) getInternalState(executor, "rateLimiter")).getRate())
+        .isEqualTo(100);
   }
 
   @Test
@@ -178,7 +181,7 @@ class ExecutorSettingsTest {
     when(profile.getString(DefaultDriverOption.REQUEST_CONSISTENCY)).thenReturn("ONE");
     settings.init();
     ReactiveBulkReader executor = settings.newReadExecutor(session, null, false);
-    assertThat(((RateLimiter) getInternalState(executor, "bytesRateLimiter")).getRate())
+    assertThat(((AsyncRateLimiter) getInternalState(executor, "bytesRateLimiter")).getRate())
         .isEqualTo(1000);
   }
 
@@ -212,9 +215,27 @@ class ExecutorSettingsTest {
     when(profile.getString(DefaultDriverOption.REQUEST_CONSISTENCY)).thenReturn("ONE");
     settings.init();
     ReactiveBulkReader executor = settings.newReadExecutor(session, null, false);
-    Semaphore maxConcurrentRequests =
-        (Semaphore) getInternalState(executor, "maxConcurrentRequests");
-    assertThat(maxConcurrentRequests.availablePermits()).isEqualTo(100);
+    ConcurrencyLimiter maxConcurrentRequests =
+        (ConcurrencyLimiter) getInternalState(executor, "maxConcurrentRequests");
+    assertThat(maxConcurrentRequests).isInstanceOf(FixedConcurrencyLimiter.class);
+    assertThat(maxConcurrentRequests.getLimit()).isEqualTo(100);
+  }
+
+  @Test
+  void should_enable_adaptiveInFlight() {
+    Config config =
+        TestConfigUtils.createTestConfig(
+            "ksbulk.executor", "maxInFlight", 100, "adaptiveInFlight", true);
+    ExecutorSettings settings = new ExecutorSettings(config);
+    DriverExecutionProfile profile = session.getContext().getConfig().getDefaultProfile();
+    when(profile.getString(DefaultDriverOption.REQUEST_CONSISTENCY)).thenReturn("ONE");
+    settings.init();
+    assertThat(settings.isAdaptiveInFlight()).isTrue();
+    ReactiveBulkReader executor = settings.newReadExecutor(session, null, false);
+    ConcurrencyLimiter maxConcurrentRequests =
+        (ConcurrencyLimiter) getInternalState(executor, "maxConcurrentRequests");
+    assertThat(maxConcurrentRequests).isInstanceOf(AdaptiveConcurrencyLimiter.class);
+    assertThat(maxConcurrentRequests.getLimit()).isBetween(1, 100);
   }
 
   @Test
@@ -225,8 +246,8 @@ class ExecutorSettingsTest {
     when(profile.getString(DefaultDriverOption.REQUEST_CONSISTENCY)).thenReturn("ONE");
     settings.init();
     ReactiveBulkReader executor = settings.newReadExecutor(session, null, false);
-    Semaphore maxConcurrentRequests =
-        (Semaphore) getInternalState(executor, "maxConcurrentRequests");
+    ConcurrencyLimiter maxConcurrentRequests =
+        (ConcurrencyLimiter) getInternalState(executor, "maxConcurrentRequests");
     assertThat(maxConcurrentRequests).isNull();
   }
 
@@ -35,12 +35,15 @@ import com.khulnasoft.oss.ksbulk.workflow.api.error.ErrorThreshold;
 import com.khulnasoft.oss.ksbulk.workflow.api.error.RatioErrorThreshold;
 import com.khulnasoft.oss.ksbulk.workflow.api.error.UnlimitedErrorThreshold;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.LogManager;
+import com.khulnasoft.oss.ksbulk.workflow.commons.log.checkpoint.CheckpointJournal;
 import com.khulnasoft.oss.ksbulk.workflow.commons.settings.LogSettings.Verbosity;
 import com.typesafe.config.Config;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -99,6 +102,42 @@ class LogSettingsTest {
     }
   }
 
+  @Test
+  void should_replay_checkpoint_journal_when_checkpoint_file_missing() throws IOException {
+    Path previous = customLogsDirectory.resolve("previous");
+    Files.createDirectories(previous);
+    try (CheckpointJournal journal =
+        new CheckpointJournal(previous.resolve("checkpoint.journal"), Duration.ofSeconds(1))) {
+      journal.appendSyncPoint(URI.create("file://data.csv"), 10, 100);
+    }
+    for (Path path : new Path[] {previous, previous.resolve("checkpoint.csv")}) {
+      assertThat(LogSettings.resolveCheckpointFile(path))
+          .isEqualTo(previous.resolve("checkpoint.journal"));
+      Config config =
+          TestConfigUtils.createTestConfig(
+              "ksbulk.log",
+              "directory",
+              quoteJson(customLogsDirectory),
+              "checkpoint.file",
+              quoteJson(path));
+      LogSettings settings = new LogSettings(config, executionId + path.getFileName());
+      settings.init();
+      assertThat(settings.isReplayingCheckpoint()).isTrue();
+    }
+  }
+
+  @Test
+  void should_prefer_checkpoint_file_over_journal() throws IOException {
+    Path previous = customLogsDirectory.resolve("previous");
+    Files.createDirectories(previous);
+    Files.createFile(previous.resolve("checkpoint.csv"));
+    Files.createFile(previous.resolve("checkpoint.journal"));
+    assertThat(LogSettings.resolveCheckpointFile(previous))
+        .isEqualTo(previous.resolve("checkpoint.csv"));
+    assertThat(LogSettings.resolveCheckpointFile(previous.resolve("checkpoint.csv")))
+        .isEqualTo(previous.resolve("checkpoint.csv"));
+  }
+
   @Test()
   void should_accept_maxErrors_as_absolute_number() throws IOException {
     Config config = TestConfigUtils.createTestConfig("ksbulk.log", "maxErrors", 20);
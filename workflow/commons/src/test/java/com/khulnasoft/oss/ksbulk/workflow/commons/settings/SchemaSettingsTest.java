@@ -34,6 +34,7 @@ import static com.khulnasoft.oss.ksbulk.workflow.commons.schema.QueryInspector.I
 import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.SchemaGenerationStrategy.MAP_AND_WRITE;
 import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.SchemaGenerationStrategy.READ_AND_COUNT;
 import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.SchemaGenerationStrategy.READ_AND_MAP;
+import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.StatsSettings.StatisticsMode.approxPartitions;
 import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.StatsSettings.StatisticsMode.global;
 import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.StatsSettings.StatisticsMode.hosts;
 import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.StatsSettings.StatisticsMode.partitions;
@@ -43,6 +44,7 @@ import static java.util.Collections.singletonList;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -109,8 +111,10 @@ import com.khulnasoft.oss.ksbulk.workflow.commons.schema.ReadResultCounter;
 import com.khulnasoft.oss.ksbulk.workflow.commons.schema.ReadResultMapper;
 import com.khulnasoft.oss.ksbulk.workflow.commons.schema.RecordMapper;
 import com.khulnasoft.oss.ksbulk.workflow.commons.statement.RangeReadBoundStatement;
+import com.khulnasoft.oss.ksbulk.workflow.commons.statement.RangeReadStatement;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigValueFactory;
+import java.net.URI;
 import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.ZoneOffset;
@@ -1015,6 +1019,85 @@ class SchemaSettingsTest {
     assertThat(statements).extracting("delegate").hasSize(3).contains(bs1, bs2, bs3);
   }
 
+  @Test
+  void should_split_read_statement() {
+    ColumnDefinitions definitions =
+        mockColumnDefinitions(
+            mockColumnDefinition("start", BIGINT), mockColumnDefinition("end", BIGINT));
+    when(ps.getVariableDefinitions()).thenReturn(definitions);
+    BoundStatement bs = mock(BoundStatement.class);
+    when(bs.setToken(anyInt(), any(Token.class))).thenReturn(bs);
+    when(bs.setRoutingToken(any(Token.class))).thenReturn(bs);
+    when(ps.bind()).thenReturn(bs);
+    Config config =
+        TestConfigUtils.createTestConfig("ksbulk.schema", "keyspace", "ks", "table", "t1");
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
+    settings.init(session, codecFactory, false, true);
+    settings.createReadResultCounter(session, codecFactory, EnumSet.of(global), 10, true);
+    TokenRange range = newTokenRange(token1, token2);
+    URI resource = URI.create("cql://ks/t1");
+    List<RangeReadBoundStatement> statements =
+        settings.splitReadStatement(new RangeReadBoundStatement(bs, range, resource), 4, true);
+    assertThat(statements).hasSize(4);
+    assertThat(statements).extracting(RangeReadBoundStatement::getResource).containsOnly(resource);
+    assertThat(statements.get(0).getTokenRange().getStart()).isEqualTo(token1);
+    assertThat(statements.get(3).getTokenRange().getEnd()).isEqualTo(token2);
+    for (int i = 1; i < 4; i++) {
+      assertThat(statements.get(i).getTokenRange().getStart())
+          .isEqualTo(statements.get(i - 1).getTokenRange().getEnd());
+    }
+    verify(bs).setToken(0, token1);
+    verify(bs).setToken(1, token2);
+    verify(bs).setRoutingToken(token2);
+  }
+
+  @Test
+  void should_split_read_statement_into_own_resources() {
+    ColumnDefinitions definitions =
+        mockColumnDefinitions(
+            mockColumnDefinition("start", BIGINT), mockColumnDefinition("end", BIGINT));
+    when(ps.getVariableDefinitions()).thenReturn(definitions);
+    BoundStatement bs = mock(BoundStatement.class);
+    when(bs.setToken(anyInt(), any(Token.class))).thenReturn(bs);
+    when(bs.setRoutingToken(any(Token.class))).thenReturn(bs);
+    when(ps.bind()).thenReturn(bs);
+    Config config =
+        TestConfigUtils.createTestConfig("ksbulk.schema", "keyspace", "ks", "table", "t1");
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
+    settings.init(session, codecFactory, false, true);
+    settings.createReadResultCounter(session, codecFactory, EnumSet.of(global), 10, false);
+    TokenRange range = newTokenRange(token1, token2);
+    URI resource = URI.create("cql://ks/t1");
+    List<RangeReadBoundStatement> statements =
+        settings.splitReadStatement(new RangeReadBoundStatement(bs, range, resource), 2, false);
+    assertThat(statements).hasSize(2);
+    for (RangeReadBoundStatement statement : statements) {
+      assertThat(statement.getResource())
+          .isEqualTo(
+              RangeReadStatement.rangeReadResource(
+                  CqlIdentifier.fromInternal("ks"),
+                  CqlIdentifier.fromInternal("t1"),
+                  statement.getTokenRange()));
+    }
+  }
+
+  @Test
+  void should_not_split_read_statement_when_no_variables() {
+    when(ps.getVariableDefinitions()).thenReturn(mockColumnDefinitions());
+    BoundStatement bs = mock(BoundStatement.class);
+    Config config =
+        TestConfigUtils.createTestConfig(
+            "ksbulk.schema", "query", "\"SELECT c1 FROM ks.t1 WHERE c1 = 0\"");
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
+    settings.init(session, codecFactory, false, true);
+    settings.createReadResultCounter(session, codecFactory, EnumSet.of(global), 10, true);
+    TokenRange range = newTokenRange(token1, token2);
+    URI resource = URI.create("cql://ks/t1");
+    assertThat(
+            settings.splitReadStatement(new RangeReadBoundStatement(bs, range, resource), 4, true))
+        .isEmpty();
+  }
+
   @Test
   void should_create_multiple_read_statements_when_token_range_provided_in_query() {
     ColumnDefinitions definitions =
@@ -1132,7 +1215,7 @@ class SchemaSettingsTest {
     SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
     settings.init(session, codecFactory, false, true);
     ReadResultCounter counter =
-        settings.createReadResultCounter(session, codecFactory, EnumSet.of(global), 10);
+        settings.createReadResultCounter(session, codecFactory, EnumSet.of(global), 10, false);
     assertThat(counter).isNotNull();
     ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
     verify(session).prepare(argument.capture());
@@ -1140,6 +1223,21 @@ class SchemaSettingsTest {
         .isEqualTo("SELECT c1 FROM ks.t1 WHERE token(c1) > :start AND token(c1) <= :end");
   }
 
+  @Test
+  void should_create_row_counter_for_global_stats_server_side() {
+    Config config =
+        TestConfigUtils.createTestConfig("ksbulk.schema", "keyspace", "ks", "table", "t1");
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
+    settings.init(session, codecFactory, false, true);
+    ReadResultCounter counter =
+        settings.createReadResultCounter(session, codecFactory, EnumSet.of(global), 10, true);
+    assertThat(counter).isNotNull();
+    ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
+    verify(session).prepare(argument.capture());
+    assertThat(argument.getValue())
+        .isEqualTo("SELECT count(*) FROM ks.t1 WHERE token(c1) > :start AND token(c1) <= :end");
+  }
+
   @Test
   void should_create_row_counter_for_partition_stats() {
     when(table.getClusteringColumns()).thenReturn(ImmutableMap.of(col2, ClusteringOrder.ASC));
@@ -1148,7 +1246,24 @@ class SchemaSettingsTest {
     SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
     settings.init(session, codecFactory, false, true);
     ReadResultCounter counter =
-        settings.createReadResultCounter(session, codecFactory, EnumSet.of(partitions), 10);
+        settings.createReadResultCounter(session, codecFactory, EnumSet.of(partitions), 10, false);
+    assertThat(counter).isNotNull();
+    ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
+    verify(session).prepare(argument.capture());
+    assertThat(argument.getValue())
+        .isEqualTo("SELECT c1 FROM ks.t1 WHERE token(c1) > :start AND token(c1) <= :end");
+  }
+
+  @Test
+  void should_create_row_counter_for_approximate_partition_stats() {
+    // no clustering column required
+    Config config =
+        TestConfigUtils.createTestConfig("ksbulk.schema", "keyspace", "ks", "table", "t1");
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
+    settings.init(session, codecFactory, false, true);
+    ReadResultCounter counter =
+        settings.createReadResultCounter(
+            session, codecFactory, EnumSet.of(approxPartitions), 10, false);
     assertThat(counter).isNotNull();
     ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
     verify(session).prepare(argument.capture());
@@ -1163,7 +1278,7 @@ class SchemaSettingsTest {
     SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
     settings.init(session, codecFactory, false, true);
     ReadResultCounter counter =
-        settings.createReadResultCounter(session, codecFactory, EnumSet.of(hosts), 10);
+        settings.createReadResultCounter(session, codecFactory, EnumSet.of(hosts), 10, false);
     assertThat(counter).isNotNull();
     ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
     verify(session).prepare(argument.capture());
@@ -1178,7 +1293,7 @@ class SchemaSettingsTest {
     SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
     settings.init(session, codecFactory, false, true);
     ReadResultCounter counter =
-        settings.createReadResultCounter(session, codecFactory, EnumSet.of(ranges), 10);
+        settings.createReadResultCounter(session, codecFactory, EnumSet.of(ranges), 10, false);
     assertThat(counter).isNotNull();
     ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
     verify(session).prepare(argument.capture());
@@ -1194,7 +1309,8 @@ class SchemaSettingsTest {
     SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
     settings.init(session, codecFactory, false, true);
     ReadResultCounter counter =
-        settings.createReadResultCounter(session, codecFactory, EnumSet.of(partitions, ranges), 10);
+        settings.createReadResultCounter(
+            session, codecFactory, EnumSet.of(partitions, ranges), 10, false);
     assertThat(counter).isNotNull();
     ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
     verify(session).prepare(argument.capture());
@@ -1211,13 +1327,28 @@ class SchemaSettingsTest {
     SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
     settings.init(session, codecFactory, false, true);
     ReadResultCounter counter =
-        settings.createReadResultCounter(session, codecFactory, EnumSet.of(global), 10);
+        settings.createReadResultCounter(session, codecFactory, EnumSet.of(global), 10, false);
     assertThat(counter).isNotNull();
     ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
     verify(session).prepare(argument.capture());
     assertThat(argument.getValue()).isEqualTo("SELECT c1 FROM ks.t1 WHERE c1 = 0");
   }
 
+  @Test
+  void should_use_custom_query_when_mode_is_global_server_side() {
+    Config config =
+        TestConfigUtils.createTestConfig(
+            "ksbulk.schema", "query", "\"SELECT c1, c3 FROM ks.t1 WHERE c1 = 0\"");
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
+    settings.init(session, codecFactory, false, true);
+    ReadResultCounter counter =
+        settings.createReadResultCounter(session, codecFactory, EnumSet.of(global), 10, true);
+    assertThat(counter).isNotNull();
+    ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
+    verify(session).prepare(argument.capture());
+    assertThat(argument.getValue()).isEqualTo("SELECT count(*) FROM ks.t1 WHERE c1 = 0");
+  }
+
   @Test
   void should_throw_when_custom_query_and_mode_is_not_global() {
     Config config =
@@ -1228,7 +1359,7 @@ class SchemaSettingsTest {
     assertThatThrownBy(
             () ->
                 settings.createReadResultCounter(
-                    session, codecFactory, EnumSet.of(hosts, ranges, partitions), 10))
+                    session, codecFactory, EnumSet.of(hosts, ranges, partitions), 10, false))
         .isInstanceOf(IllegalArgumentException.class)
         .hasMessageContaining(
             "Cannot count with stats.modes = [ranges, hosts, partitions] when schema.query is provided; only stats.modes = [global] is allowed");
@@ -1794,7 +1925,8 @@ class SchemaSettingsTest {
     settings.init(session, codecFactory, false, true);
     assertThatThrownBy(
             () ->
-                settings.createReadResultCounter(session, codecFactory, EnumSet.of(partitions), 10))
+                settings.createReadResultCounter(
+                    session, codecFactory, EnumSet.of(partitions), 10, false))
         .isInstanceOf(IllegalArgumentException.class)
         .hasMessage("Cannot count partitions for table t1: it has no clustering column.");
   }
@@ -20,6 +20,7 @@ import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.StatsSettings.
 import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.StatsSettings.StatisticsMode.partitions;
 import static com.khulnasoft.oss.ksbulk.workflow.commons.settings.StatsSettings.StatisticsMode.ranges;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.khulnasoft.oss.ksbulk.tests.utils.TestConfigUtils;
 import com.typesafe.config.Config;
@@ -44,4 +45,26 @@ class StatsSettingsTest {
     settings.init();
     assertThat(settings.getNumPartitions()).isEqualTo(20);
   }
+
+  @Test
+  void should_report_pushdown() {
+    Config config = TestConfigUtils.createTestConfig("ksbulk.stats", "pushdown", true);
+    StatsSettings settings = new StatsSettings(config);
+    settings.init();
+    assertThat(settings.isPushdown()).isTrue();
+    assertThat(settings.getStatisticsModes()).containsOnly(global);
+  }
+
+  @Test
+  void should_error_when_pushdown_and_mode_is_not_global() {
+    Config config =
+        TestConfigUtils.createTestConfig(
+            "ksbulk.stats", "pushdown", true, "modes", "[global,ranges]");
+    StatsSettings settings = new StatsSettings(config);
+    assertThatThrownBy(settings::init)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage(
+            "Cannot count with stats.modes = [global, ranges] when stats.pushdown is true; "
+                + "only stats.modes = [global] is allowed");
+  }
 }
@@ -22,9 +22,11 @@ import com.khulnasoft.oss.ksbulk.executor.api.reader.BulkReader;
 import com.khulnasoft.oss.ksbulk.executor.api.result.ReadResult;
 import com.khulnasoft.oss.ksbulk.workflow.api.Workflow;
 import com.khulnasoft.oss.ksbulk.workflow.api.utils.DurationUtils;
+import com.khulnasoft.oss.ksbulk.workflow.commons.log.AggregateRangeReadResource;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.DefaultRangeReadResource;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.LogManager;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.RangeReadResource;
+import com.khulnasoft.oss.ksbulk.workflow.commons.log.RangeReadScheduler;
 import com.khulnasoft.oss.ksbulk.workflow.commons.metrics.MetricsManager;
 import com.khulnasoft.oss.ksbulk.workflow.commons.schema.ReadResultCounter;
 import com.khulnasoft.oss.ksbulk.workflow.commons.settings.CodecSettings;
@@ -70,6 +72,8 @@ public class CountWorkflow implements Workflow {
   private CqlSession session;
   private BulkReader executor;
   private List<RangeReadBoundStatement> readStatements;
+  private Function<RangeReadBoundStatement, RangeReadResource> readResourceFactory;
+  private RangeReadScheduler readScheduler;
   private volatile boolean success;
   private Function<Flux<ReadResult>, Flux<ReadResult>> totalItemsMonitor;
   private Function<Flux<ReadResult>, Flux<ReadResult>> totalItemsCounter;
@@ -110,6 +114,10 @@ public class CountWorkflow implements Workflow {
     monitoringSettings.init();
     executorSettings.init();
     statsSettings.init();
+    if (statsSettings.isPushdown() && logSettings.isReplayingCheckpoint()) {
+      throw new IllegalArgumentException(
+          "Cannot replay a count operation from a checkpoint file when stats.pushdown is true");
+    }
     ConvertingCodecFactory codecFactory =
         codecSettings.createCodecFactory(
             schemaSettings.isAllowExtraFields(), schemaSettings.isAllowMissingFields());
@@ -137,11 +145,22 @@ public class CountWorkflow implements Workflow {
         executorSettings.newReadExecutor(session, metricsManager.getExecutionListener(), false);
     EnumSet<StatsSettings.StatisticsMode> modes = statsSettings.getStatisticsModes();
     int numPartitions = statsSettings.getNumPartitions();
+    boolean pushdown = statsSettings.isPushdown();
     readResultCounter =
-        schemaSettings.createReadResultCounter(session, codecFactory, modes, numPartitions);
+        schemaSettings.createReadResultCounter(
+            session, codecFactory, modes, numPartitions, pushdown);
     // incorporate totals from the previous run
     readResultCounter.newCountingUnit(logManager.getTotalItems());
     readStatements = schemaSettings.createReadStatements(session);
+    if (pushdown) {
+      // let the server count rows, splitting token ranges further if their count times out
+      readResourceFactory =
+          stmt ->
+              new AggregateRangeReadResource(
+                  stmt, executor, (s, n) -> schemaSettings.splitReadStatement(s, n, true));
+    } else {
+      readResourceFactory = stmt -> new DefaultRangeReadResource(stmt, executor);
+    }
     closed.set(false);
     success = false;
     totalItemsMonitor = metricsManager.newTotalItemsMonitor();
@@ -159,6 +178,16 @@ public class CountWorkflow implements Workflow {
         "Using read concurrency: {} (user-supplied: {})",
         readConcurrency,
         engineSettings.getMaxConcurrentQueries().isPresent());
+    readScheduler =
+        new RangeReadScheduler(
+            readStatements,
+            schemaSettings.createReadSplitter(session),
+            readConcurrency,
+            engineSettings.getMaxConcurrentQueriesPerReplicaSet().orElse(-1),
+            engineSettings.getStragglerThreshold(),
+            logManager.getReplayedResources());
+    metricsManager.registerInFlightReadsGauges(
+        readScheduler.getNodes(), readScheduler::getInFlightReads);
     int numThreads = Math.min(readConcurrency, numCores);
     scheduler = Schedulers.newParallel(numThreads, new DefaultThreadFactory("workflow"));
   }
@@ -168,8 +197,8 @@ public class CountWorkflow implements Workflow {
     LOGGER.debug("{} started.", this);
     metricsManager.start();
     Stopwatch timer = Stopwatch.createStarted();
-    Flux.fromIterable(readStatements)
-        .map(stmt -> (RangeReadResource) new DefaultRangeReadResource(stmt, executor))
+    readScheduler
+        .schedule(readResourceFactory)
         .transform(checkpointHandler)
         .flatMap(
             results ->
@@ -185,7 +214,14 @@ public class CountWorkflow implements Workflow {
                     // 2) When counting partitions or ranges, a partition cannot be split in two
                     // inner flows; this is guaranteed since statements are split by token range
                     // (users cannot supply a custom query for these counting modes).
-                    .doOnNext(readResultCounter.newCountingUnit(0L)::update)
+                    // 3) Counting units are closed as soon as their flow completes, so that they
+                    // can release their sketches when counting partitions approximately.
+                    .transform(
+                        flux -> {
+                          ReadResultCounter.CountingUnit unit =
+                              readResultCounter.newCountingUnit(0L);
+                          return flux.doOnNext(unit::update).doOnComplete(unit::close);
+                        })
                     .subscribeOn(scheduler),
             readConcurrency)
         .transform(successfulReadsHandler)
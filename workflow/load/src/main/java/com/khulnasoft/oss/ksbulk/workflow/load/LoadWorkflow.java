@@ -27,6 +27,7 @@ import com.khulnasoft.oss.ksbulk.connectors.api.CommonConnectorFeature;
 import com.khulnasoft.oss.ksbulk.connectors.api.Connector;
 import com.khulnasoft.oss.ksbulk.connectors.api.Record;
 import com.khulnasoft.oss.ksbulk.connectors.api.Resource;
+import com.khulnasoft.oss.ksbulk.executor.api.AbstractBulkExecutor;
 import com.khulnasoft.oss.ksbulk.executor.api.result.EmptyWriteResult;
 import com.khulnasoft.oss.ksbulk.executor.api.result.WriteResult;
 import com.khulnasoft.oss.ksbulk.executor.api.writer.BulkWriter;
@@ -61,6 +62,7 @@ import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.util.concurrent.Queues;
@@ -84,13 +86,16 @@ public class LoadWorkflow implements Workflow {
   private CqlSession session;
   private BulkWriter executor;
   private boolean batchingEnabled;
+  private boolean batchBuffering;
   private boolean dryRun;
   private int batchBufferSize;
   private Scheduler scheduler;
   private int numCores;
   private int readConcurrency;
   private int writeConcurrency;
+  private int maxAdaptiveInFlight;
   private boolean hasManyReaders;
+  private WriteLanes writeLanes;
 
   private Function<Record, Flux<BatchableStatement<?>>> mapper;
   private Function<Publisher<BatchableStatement<?>>, Publisher<Statement<?>>> batcher;
@@ -138,6 +143,12 @@ public class LoadWorkflow implements Workflow {
     codecSettings.init();
     executorSettings.init();
     engineSettings.init();
+    if (executorSettings.isAdaptiveInFlight()) {
+      maxAdaptiveInFlight =
+          executorSettings
+              .getMaxInFlight()
+              .orElse(AbstractBulkExecutor.DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+    }
     ConvertingCodecFactory codecFactory =
         codecSettings.createCodecFactory(
             schemaSettings.isAllowExtraFields(), schemaSettings.isAllowMissingFields());
@@ -155,6 +166,7 @@ public class LoadWorkflow implements Workflow {
     batchSettings.init();
     batchingEnabled = batchSettings.isBatchingEnabled();
     batchBufferSize = batchSettings.getBufferSize();
+    batchBuffering = batchSettings.isBufferingEnabled();
     RecordMapper recordMapper;
     try {
       recordMapper =
@@ -213,12 +225,27 @@ public class LoadWorkflow implements Workflow {
     readConcurrency = connector.readConcurrency();
     hasManyReaders = readConcurrency >= Math.max(4, numCores / 4);
     LOGGER.debug("Using read concurrency: {}", readConcurrency);
+    // When the in-flight limit is adaptive, the engine must not cap concurrency below the highest
+    // limit the executor could reach.
     writeConcurrency =
-        engineSettings.getMaxConcurrentQueries().orElseGet(this::determineWriteConcurrency);
+        engineSettings
+            .getMaxConcurrentQueries()
+            .orElseGet(() -> Math.max(determineWriteConcurrency(), maxAdaptiveInFlight));
     LOGGER.debug(
         "Using write concurrency: {} (user-supplied: {})",
         writeConcurrency,
         engineSettings.getMaxConcurrentQueries().isPresent());
+    if (engineSettings.isWriteLanes()) {
+      writeLanes =
+          new WriteLanes(
+              session.getMetadata().getTokenMap().orElse(null),
+              schemaSettings.getKeyspaceName(),
+              writeConcurrency,
+              engineSettings.getMaxConcurrentQueriesPerReplicaSet().orElse(-1),
+              batchingEnabled ? batchBufferSize : Queues.SMALL_BUFFER_SIZE,
+              this::bufferAndBatch,
+              dryRun ? stmt -> Mono.just(new EmptyWriteResult(stmt)) : executor::writeReactive);
+    }
   }
 
   @Override
@@ -226,14 +253,26 @@ public class LoadWorkflow implements Workflow {
     LOGGER.debug("{} started.", this);
     metricsManager.start();
     Stopwatch timer = Stopwatch.createStarted();
-    Flux<Statement<?>> statements;
-    if (hasManyReaders) {
-      statements = manyReaders();
+    Flux<WriteResult> results;
+    if (writeLanes == null) {
+      Flux<Statement<?>> statements;
+      if (hasManyReaders) {
+        statements = manyReaders(this::bufferAndBatch);
+      } else {
+        statements = fewReaders(this::batchBuffered);
+      }
+      results = statements.transform(this::executeStatements);
     } else {
-      statements = fewReaders();
+      // statements are batched in their write lanes
+      Flux<BatchableStatement<?>> statements;
+      if (hasManyReaders) {
+        statements = manyReaders(stmts -> stmts);
+      } else {
+        statements = fewReaders(stmts -> stmts);
+      }
+      results = statements.transform(writeLanes::write);
     }
-    statements
-        .transform(this::executeStatements)
+    results
         .transform(queryWarningsHandler)
         .transform(failedWritesMonitor)
         .transform(failedWritesHandler)
@@ -264,7 +303,8 @@ public class LoadWorkflow implements Workflow {
    * <p>Each thread in the workflow thread pool is responsible for reading one file and processing
    * its records.
    */
-  private Flux<Statement<?>> manyReaders() {
+  private <S extends Statement<?>> Flux<S> manyReaders(
+      Function<Flux<BatchableStatement<?>>, Flux<? extends S>> batching) {
     int numThreads = Math.min(readConcurrency, numCores);
     scheduler = Schedulers.newParallel(numThreads, new DefaultThreadFactory("workflow"));
     return Flux.defer(() -> connector.read())
@@ -279,7 +319,7 @@ public class LoadWorkflow implements Workflow {
                     .flatMap(mapper)
                     .transform(unmappableStatementsMonitor)
                     .transform(unmappableStatementsHandler)
-                    .transform(this::bufferAndBatch)
+                    .as(batching)
                     .subscribeOn(scheduler),
             readConcurrency);
   }
@@ -292,7 +332,8 @@ public class LoadWorkflow implements Workflow {
    * the workflow thread pool. Each thread in the workflow thread pool is responsible for processing
    * a chunk of records, with {@code numCores} parallelism.
    */
-  private Flux<Statement<?>> fewReaders() {
+  private <S extends Statement<?>> Flux<S> fewReaders(
+      Function<Flux<BatchableStatement<?>>, Flux<? extends S>> batching) {
     scheduler = Schedulers.newParallel(numCores, new DefaultThreadFactory("workflow"));
     return Flux.defer(() -> connector.read())
         .transform(checkpointHandler)
@@ -311,7 +352,7 @@ public class LoadWorkflow implements Workflow {
                     .flatMap(mapper)
                     .transform(unmappableStatementsMonitor)
                     .transform(unmappableStatementsHandler)
-                    .transform(this::batchBuffered)
+                    .as(batching)
                     .subscribeOn(scheduler),
             numCores);
   }
@@ -320,12 +361,16 @@ public class LoadWorkflow implements Workflow {
    * Batches the given statement flow, if batching is enabled; otherwise do nothing.
    *
    * <p>The flow is expected to be unbuffered, so this method first applies buffering by {@code
-   * batchBufferSize} before batching the resulting chunks.
+   * batchBufferSize} before batching the resulting chunks, unless the batch mode does not require
+   * buffering, in which case the flow is batched as it goes.
    */
   private Flux<? extends Statement<?>> bufferAndBatch(Flux<BatchableStatement<?>> stmts) {
-    return batchingEnabled
-        ? stmts.window(batchBufferSize).flatMap(batcher).transform(batcherMonitor)
-        : stmts;
+    if (!batchingEnabled) {
+      return stmts;
+    }
+    Flux<Statement<?>> batches =
+        batchBuffering ? stmts.window(batchBufferSize).flatMap(batcher) : stmts.transform(batcher);
+    return batches.transform(batcherMonitor);
   }
 
   /**
@@ -0,0 +1,192 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.load;
+
+import com.khulnasoft.oss.driver.api.core.CqlIdentifier;
+import com.khulnasoft.oss.driver.api.core.cql.BatchableStatement;
+import com.khulnasoft.oss.driver.api.core.cql.Statement;
+import com.khulnasoft.oss.driver.api.core.metadata.Node;
+import com.khulnasoft.oss.driver.api.core.metadata.TokenMap;
+import com.khulnasoft.oss.driver.api.core.metadata.token.Token;
+import com.khulnasoft.oss.ksbulk.executor.api.result.WriteResult;
+import com.khulnasoft.oss.ksbulk.executor.api.throttle.AsyncSemaphore;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.GroupedFlux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Routes statements to one write lane per replica set.
+ *
+ * <p>Statements are grouped by the replicas owning their routing key or token. Each lane batches
+ * its statements independently of other lanes, and executes at most {@code maxInFlightPerLane}
+ * queries at a time. All lanes draw their queries from a shared pool of {@code writeConcurrency}
+ * permits, so that the lanes together never exceed the concurrency of the operation.
+ *
+ * <p>Each lane takes at most {@code laneQueueSize} statements at a time into its queue; statements
+ * routed to a lane whose queue is full wait in that lane's backlog, while statements routed to
+ * other lanes keep flowing. Statements are therefore kept in order within each lane, but not across
+ * lanes, and a slow lane never holds up the others. The queues and backlogs of all lanes share a
+ * budget of {@value #MAX_BUFFERED_STATEMENTS} statements: upstream is only backpressured when that
+ * budget is exhausted, that is, when the slow lanes have accumulated that many statements.
+ */
+class WriteLanes {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WriteLanes.class);
+
+  /** The maximum number of statements buffered by the queues and backlogs of all lanes combined. */
+  static final int MAX_BUFFERED_STATEMENTS = 8192;
+
+  private final TokenMap tokenMap;
+  private final CqlIdentifier keyspace;
+  private final int lanes;
+  private final int laneQueueSize;
+  private final int maxInFlightPerLane;
+  private final AsyncSemaphore inFlight;
+  private final Function<Flux<BatchableStatement<?>>, Flux<? extends Statement<?>>> batching;
+  private final Function<Statement<?>, Publisher<WriteResult>> writer;
+
+  /**
+   * @param tokenMap The token map of the cluster, or null if token metadata is unavailable, in
+   *     which case all statements are routed to the same lane.
+   * @param keyspace The keyspace being loaded.
+   * @param writeConcurrency The maximum number of concurrent queries of the operation, shared by
+   *     all lanes.
+   * @param maxInFlightPerLane The maximum number of concurrent queries of each lane, capped by
+   *     {@code writeConcurrency}; zero or a negative value allows each lane up to twice its fair
+   *     share of {@code writeConcurrency}.
+   * @param laneQueueSize The number of statements that each lane takes into its queue at a time;
+   *     statements beyond that wait in the lane's backlog.
+   * @param batching The batching to apply to each lane.
+   * @param writer The function that executes each statement.
+   */
+  WriteLanes(
+      TokenMap tokenMap,
+      CqlIdentifier keyspace,
+      int writeConcurrency,
+      int maxInFlightPerLane,
+      int laneQueueSize,
+      Function<Flux<BatchableStatement<?>>, Flux<? extends Statement<?>>> batching,
+      Function<Statement<?>, Publisher<WriteResult>> writer) {
+    this.tokenMap = tokenMap;
+    this.keyspace = keyspace;
+    this.batching = batching;
+    this.writer = writer;
+    lanes = countReplicaSets(tokenMap, keyspace);
+    this.laneQueueSize = Math.max(1, Math.min(laneQueueSize, MAX_BUFFERED_STATEMENTS / lanes));
+    if (maxInFlightPerLane > 0) {
+      this.maxInFlightPerLane = Math.min(writeConcurrency, maxInFlightPerLane);
+    } else {
+      int fairShare = (writeConcurrency + lanes - 1) / lanes;
+      this.maxInFlightPerLane = Math.min(writeConcurrency, Math.max(1, 2 * fairShare));
+    }
+    inFlight = new AsyncSemaphore(writeConcurrency);
+    LOGGER.debug(
+        "Using {} write lanes with up to {} queued statements and {} concurrent queries each "
+            + "and {} concurrent queries in total",
+        lanes,
+        this.laneQueueSize,
+        this.maxInFlightPerLane,
+        writeConcurrency);
+  }
+
+  /** Routes the given statements to their lanes, then batches and executes them. */
+  Flux<WriteResult> write(Flux<BatchableStatement<?>> statements) {
+    return Flux.defer(
+        () -> {
+          AsyncSemaphore budget = new AsyncSemaphore(MAX_BUFFERED_STATEMENTS);
+          return statements
+              // only wait when the lanes together buffer as many statements as they can
+              .concatMap(statement -> admit(budget, statement), 1)
+              // groupBy buffers at most what was admitted, so it never gates a lane; there is at
+              // most one lane per replica set, and they must all be subscribed to
+              .groupBy(this::laneKey, MAX_BUFFERED_STATEMENTS)
+              .flatMap(lane -> writeLane(budget, lane), Integer.MAX_VALUE);
+        });
+  }
+
+  private static Mono<BatchableStatement<?>> admit(
+      AsyncSemaphore budget, BatchableStatement<?> statement) {
+    if (budget.tryAcquire()) {
+      return Mono.just(statement);
+    }
+    return Mono.fromFuture(budget.acquire()).thenReturn(statement);
+  }
+
+  private Flux<WriteResult> writeLane(
+      AsyncSemaphore budget, GroupedFlux<Set<Node>, BatchableStatement<?>> lane) {
+    // the lane's backlog is the group itself; its queue is the one of limitRate
+    return lane.limitRate(laneQueueSize)
+        .doOnNext(statement -> budget.release())
+        .as(batching)
+        .flatMap(this::executeWithPermit, maxInFlightPerLane);
+  }
+
+  private Flux<WriteResult> executeWithPermit(Statement<?> statement) {
+    return Flux.defer(
+        () -> {
+          CompletableFuture<Void> permit = inFlight.acquire();
+          return Mono.fromFuture(permit)
+              .thenMany(writer.apply(statement))
+              .doFinally(
+                  signal -> {
+                    // cancelling a permit not yet granted gives it up; otherwise, release it
+                    if (!permit.cancel(false)) {
+                      inFlight.release();
+                    }
+                  });
+        });
+  }
+
+  private Set<Node> laneKey(Statement<?> statement) {
+    if (tokenMap != null) {
+      ByteBuffer routingKey = statement.getRoutingKey();
+      Token routingToken = statement.getRoutingToken();
+      CqlIdentifier keyspace = statement.getKeyspace();
+      if (keyspace == null) {
+        keyspace = statement.getRoutingKeyspace();
+      }
+      if (keyspace == null) {
+        keyspace = this.keyspace;
+      }
+      if (routingKey != null) {
+        return tokenMap.getReplicas(keyspace, routingKey);
+      } else if (routingToken != null) {
+        return tokenMap.getReplicas(keyspace, routingToken);
+      }
+    }
+    return Collections.emptySet();
+  }
+
+  private static int countReplicaSets(TokenMap tokenMap, CqlIdentifier keyspace) {
+    if (tokenMap == null) {
+      return 1;
+    }
+    long replicaSets =
+        tokenMap.getTokenRanges().stream()
+            .map(range -> tokenMap.getReplicas(keyspace, range))
+            .distinct()
+            .count();
+    return (int) Math.max(1, replicaSets);
+  }
+}
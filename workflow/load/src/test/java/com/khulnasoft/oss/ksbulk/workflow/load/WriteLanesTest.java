@@ -0,0 +1,234 @@
+/*
+ * Copyright KhulnaSoft, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.khulnasoft.oss.ksbulk.workflow.load;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.khulnasoft.oss.driver.api.core.CqlIdentifier;
+import com.khulnasoft.oss.driver.api.core.cql.BatchableStatement;
+import com.khulnasoft.oss.driver.api.core.cql.SimpleStatement;
+import com.khulnasoft.oss.driver.api.core.cql.Statement;
+import com.khulnasoft.oss.driver.api.core.metadata.Node;
+import com.khulnasoft.oss.driver.api.core.metadata.TokenMap;
+import com.khulnasoft.oss.driver.api.core.metadata.token.TokenRange;
+import com.khulnasoft.oss.ksbulk.executor.api.result.EmptyWriteResult;
+import com.khulnasoft.oss.ksbulk.executor.api.result.WriteResult;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class WriteLanesTest {
+
+  private static final int LANES = 4;
+
+  private final CqlIdentifier ks = CqlIdentifier.fromInternal("ks");
+
+  private final Node[] nodes = new Node[LANES];
+
+  private TokenMap tokenMap;
+
+  @BeforeEach
+  void setUp() {
+    tokenMap = mock(TokenMap.class);
+    Set<TokenRange> ranges = new HashSet<>();
+    for (int i = 0; i < LANES; i++) {
+      nodes[i] = mock(Node.class);
+      TokenRange range = mock(TokenRange.class);
+      ranges.add(range);
+      when(tokenMap.getReplicas(ks, range)).thenReturn(Collections.singleton(nodes[i]));
+    }
+    when(tokenMap.getTokenRanges()).thenReturn(ranges);
+    when(tokenMap.getReplicas(eq(ks), any(ByteBuffer.class)))
+        .thenAnswer(invocation -> replicas(invocation.getArgument(1)));
+  }
+
+  @Test
+  void should_route_statements_to_lane_of_their_replica_set() {
+    Map<Set<Node>, List<Integer>> lanes = new ConcurrentHashMap<>();
+    Function<Flux<BatchableStatement<?>>, Flux<? extends Statement<?>>> batching =
+        lane ->
+            lane.collectList()
+                .doOnNext(
+                    stmts ->
+                        lanes.put(
+                            replicas(stmts.get(0).getRoutingKey()),
+                            stmts.stream().map(WriteLanesTest::key).collect(toList())))
+                .flatMapMany(Flux::fromIterable);
+    WriteLanes writeLanes =
+        new WriteLanes(tokenMap, ks, 8, 0, 16, batching, stmt -> Mono.just(result(stmt)));
+    List<WriteResult> results = writeLanes.write(statements(20)).collectList().block();
+    assertThat(results).hasSize(20);
+    assertThat(lanes).hasSize(LANES);
+    for (int i = 0; i < LANES; i++) {
+      Set<Node> replicaSet = Collections.singleton(nodes[i]);
+      assertThat(lanes.get(replicaSet)).allMatch(key -> replicas(key).equals(replicaSet));
+    }
+  }
+
+  @Test
+  void should_bound_concurrency_across_lanes() {
+    int writeConcurrency = 3;
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    Map<Set<Node>, AtomicInteger> inFlightPerLane = new ConcurrentHashMap<>();
+    AtomicInteger maxInFlightPerLane = new AtomicInteger();
+    Function<Statement<?>, Publisher<WriteResult>> writer =
+        stmt -> {
+          AtomicInteger lane =
+              inFlightPerLane.computeIfAbsent(
+                  replicas(stmt.getRoutingKey()), replicas -> new AtomicInteger());
+          return Mono.delay(Duration.ofMillis(2))
+              .map(ignored -> result(stmt))
+              .doOnSubscribe(
+                  subscription -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    maxInFlightPerLane.accumulateAndGet(lane.incrementAndGet(), Math::max);
+                  })
+              .doOnTerminate(
+                  () -> {
+                    lane.decrementAndGet();
+                    inFlight.decrementAndGet();
+                  });
+        };
+    // the fair share of each lane is 1, so each lane may run up to 2 queries
+    WriteLanes writeLanes = new WriteLanes(tokenMap, ks, writeConcurrency, 0, 16, f -> f, writer);
+    List<WriteResult> results =
+        writeLanes.write(statements(200)).collectList().block(Duration.ofSeconds(30));
+    assertThat(results).hasSize(200);
+    assertThat(maxInFlight.get()).isLessThanOrEqualTo(writeConcurrency);
+    assertThat(maxInFlightPerLane.get()).isLessThanOrEqualTo(2);
+    assertThat(inFlight.get()).isZero();
+  }
+
+  @Test
+  void should_execute_statements_in_order_within_lane() {
+    Map<Set<Node>, List<Integer>> executed = new ConcurrentHashMap<>();
+    Function<Statement<?>, Publisher<WriteResult>> writer =
+        stmt ->
+            Mono.delay(Duration.ofMillis(1))
+                .doOnSubscribe(
+                    subscription ->
+                        executed
+                            .computeIfAbsent(
+                                replicas(stmt.getRoutingKey()),
+                                replicas -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(key(stmt)))
+                .map(ignored -> result(stmt));
+    WriteLanes writeLanes = new WriteLanes(tokenMap, ks, 8, 1, 16, f -> f, writer);
+    writeLanes.write(statements(100)).blockLast(Duration.ofSeconds(30));
+    assertThat(executed).hasSize(LANES);
+    for (List<Integer> lane : executed.values()) {
+      assertThat(lane).hasSize(100 / LANES).isSorted();
+    }
+  }
+
+  @Test
+  void should_cap_statements_buffered_by_lanes() {
+    AtomicLong emitted = new AtomicLong();
+    WriteLanes writeLanes =
+        new WriteLanes(tokenMap, ks, 1, 0, 100_000, f -> f, stmt -> Mono.never());
+    Flux<BatchableStatement<?>> statements =
+        statements(Integer.MAX_VALUE).doOnNext(stmt -> emitted.incrementAndGet());
+    Disposable subscription = writeLanes.write(statements).subscribe();
+    try {
+      // the lanes buffer the whole budget, plus the statement each of them took out of its queue;
+      // the statement waiting for the budget, and the next one, were emitted too
+      assertThat(emitted.get())
+          .isBetween(
+              (long) WriteLanes.MAX_BUFFERED_STATEMENTS + LANES,
+              (long) WriteLanes.MAX_BUFFERED_STATEMENTS + LANES + 2);
+    } finally {
+      subscription.dispose();
+    }
+  }
+
+  @Test
+  void should_keep_writing_to_other_lanes_when_one_lane_is_stuck() {
+    int laneQueueSize = 16;
+    int statements = 1000;
+    Set<Node> stuck = Collections.singleton(nodes[0]);
+    Map<Set<Node>, AtomicInteger> written = new ConcurrentHashMap<>();
+    Function<Statement<?>, Publisher<WriteResult>> writer =
+        stmt -> {
+          Set<Node> replicas = replicas(stmt.getRoutingKey());
+          if (replicas.equals(stuck)) {
+            return Mono.never();
+          }
+          written.computeIfAbsent(replicas, r -> new AtomicInteger()).incrementAndGet();
+          return Mono.just(result(stmt));
+        };
+    WriteLanes writeLanes = new WriteLanes(tokenMap, ks, 8, 2, laneQueueSize, f -> f, writer);
+    // the stuck lane gets many more statements than its queue can hold, and never completes
+    int healthyStatements = statements - statements / LANES;
+    List<WriteResult> results =
+        writeLanes
+            .write(statements(statements))
+            .take(healthyStatements)
+            .collectList()
+            .block(Duration.ofSeconds(30));
+    // the other lanes wrote all their statements nonetheless
+    assertThat(results).hasSize(healthyStatements);
+    assertThat(written).hasSize(LANES - 1);
+    for (AtomicInteger count : written.values()) {
+      assertThat(count).hasValue(statements / LANES);
+    }
+  }
+
+  private Set<Node> replicas(ByteBuffer routingKey) {
+    return Collections.singleton(nodes[routingKey.getInt(0) % LANES]);
+  }
+
+  private Set<Node> replicas(int key) {
+    return replicas(routingKey(key));
+  }
+
+  private static Flux<BatchableStatement<?>> statements(int count) {
+    return Flux.range(0, count)
+        .map(key -> SimpleStatement.newInstance("irrelevant").setRoutingKey(routingKey(key)));
+  }
+
+  private static ByteBuffer routingKey(int key) {
+    return ByteBuffer.allocate(4).putInt(0, key);
+  }
+
+  private static int key(Statement<?> statement) {
+    return statement.getRoutingKey().getInt(0);
+  }
+
+  private static WriteResult result(Statement<?> statement) {
+    return new EmptyWriteResult(statement);
+  }
+}
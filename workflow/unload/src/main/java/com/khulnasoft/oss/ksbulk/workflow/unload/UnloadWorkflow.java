@@ -29,6 +29,7 @@ import com.khulnasoft.oss.ksbulk.workflow.api.utils.DurationUtils;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.DefaultRangeReadResource;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.LogManager;
 import com.khulnasoft.oss.ksbulk.workflow.commons.log.RangeReadResource;
+import com.khulnasoft.oss.ksbulk.workflow.commons.log.RangeReadScheduler;
 import com.khulnasoft.oss.ksbulk.workflow.commons.metrics.MetricsManager;
 import com.khulnasoft.oss.ksbulk.workflow.commons.schema.ReadResultMapper;
 import com.khulnasoft.oss.ksbulk.workflow.commons.settings.CodecSettings;
@@ -77,6 +78,7 @@ public class UnloadWorkflow implements Workflow {
   private CqlSession session;
   private BulkReader executor;
   private List<RangeReadBoundStatement> readStatements;
+  private RangeReadScheduler readScheduler;
   private Function<Publisher<Record>, Publisher<Record>> writer;
   private Function<Flux<ReadResult>, Flux<ReadResult>> totalItemsMonitor;
   private Function<Flux<Record>, Flux<Record>> failedRecordsMonitor;
@@ -189,6 +191,16 @@ public class UnloadWorkflow implements Workflow {
         "Using read concurrency: {} (user-supplied: {})",
         readConcurrency,
         engineSettings.getMaxConcurrentQueries().isPresent());
+    readScheduler =
+        new RangeReadScheduler(
+            readStatements,
+            schemaSettings.createReadSplitter(session),
+            readConcurrency,
+            engineSettings.getMaxConcurrentQueriesPerReplicaSet().orElse(-1),
+            engineSettings.getStragglerThreshold(),
+            logManager.getReplayedResources());
+    metricsManager.registerInFlightReadsGauges(
+        readScheduler.getNodes(), readScheduler::getInFlightReads);
     schedulers = new HashSet<>();
   }
 
@@ -231,8 +243,8 @@ public class UnloadWorkflow implements Workflow {
             ? Schedulers.immediate()
             : Schedulers.newParallel(numThreads, new DefaultThreadFactory("workflow"));
     schedulers.add(scheduler);
-    return Flux.fromIterable(readStatements)
-        .map(stmt -> (RangeReadResource) new DefaultRangeReadResource(stmt, executor))
+    return readScheduler
+        .schedule(stmt -> new DefaultRangeReadResource(stmt, executor))
         .transform(checkpointHandler)
         .flatMap(
             results ->
@@ -266,8 +278,8 @@ public class UnloadWorkflow implements Workflow {
         Schedulers.newParallel(numThreadsForWrites, new DefaultThreadFactory("workflow-write"));
     schedulers.add(schedulerForReads);
     schedulers.add(schedulerForWrites);
-    return Flux.fromIterable(readStatements)
-        .map(stmt -> (RangeReadResource) new DefaultRangeReadResource(stmt, executor))
+    return readScheduler
+        .schedule(stmt -> new DefaultRangeReadResource(stmt, executor))
         .transform(checkpointHandler)
         .flatMap(
             results ->
@@ -303,8 +315,8 @@ public class UnloadWorkflow implements Workflow {
     int numThreads = Math.min(numCores * 2, actualConcurrency);
     Scheduler scheduler = Schedulers.newParallel(numThreads, new DefaultThreadFactory("workflow"));
     schedulers.add(scheduler);
-    return Flux.fromIterable(readStatements)
-        .map(stmt -> (RangeReadResource) new DefaultRangeReadResource(stmt, executor))
+    return readScheduler
+        .schedule(stmt -> new DefaultRangeReadResource(stmt, executor))
         .transform(checkpointHandler)
         .flatMap(
             results -> {